@@ -168,6 +168,27 @@ public class ConfigManager{
         return propbool.equalsIgnoreCase("true") || propbool.equals("1");
     }     
 
+    /**
+     * Gets a comma separated list configuration property by key, every entry is trimmed and empty entries are skipped
+     * @param key the configuration key
+     * @return the entries of the list, or an empty array if the key does not exist
+     */
+    public String[] getListProperty(String key) {
+        String propList = configProps.getProperty(key);
+        if (propList == null) {
+            return new String[0];
+        }
+
+        List<String> entries = new ArrayList<>();
+        for (String entry : propList.split(",")) {
+            String trimmed = entry.trim();
+            if (!trimmed.isEmpty()) {
+                entries.add(trimmed);
+            }
+        }
+        return entries.toArray(new String[0]);
+    }
+
     /**
      * Sets a configuration property
      * @param key the configuration key
@@ -1,10 +1,32 @@
 package entities;
 
+import data.config.ConfigManager;
+import entities.abs.BattleUnit;
+import entities.abs.BattleUnitListener;
+import entities.abs.CombatStats;
 import entities.characters.Character;
 import entities.characters.*;
 import entities.equipment.*;
 import entities.items.*;
 import entities.enemies.*;
+import entities.effects.ActiveEffect;
+import entities.effects.EffectWheel;
+import entities.effects.StatusEffect;
+import systems.ai.BossPhaseRegistry;
+import systems.battle.BattleSystem;
+import systems.battle.ActionTimeline;
+import systems.inventory.Inventory;
+import util.random.RngService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
 
 //test entities functionality, this class was written by AI, and it is for debug only
 public class TestEntities {
@@ -19,6 +41,217 @@ public class TestEntities {
         testEquipment();
         System.out.println();
         testBattle();
+        System.out.println();
+        testReplay();
+        System.out.println();
+        testCombatStats();
+        System.out.println();
+        testBossPhases();
+        System.out.println();
+        testStatusEffects();
+    }
+
+    private static void testStatusEffects() {
+        System.out.println("***** Status Effect Test *****");
+        Character character = new Character("Himeko", 10);
+        EffectWheel wheel = new EffectWheel();
+        int attack = character.getAttack();
+        StatusEffect rage = new StatusEffect("Rage", StatusEffect.Type.ATTACK_PERCENT, 0.1, 3,
+                StatusEffect.StackRule.STACK, 3);
+        for (int i = 0; i < 5; i++) {
+            wheel.apply(character, rage);
+        }
+        System.out.println("Rage x5 (max 3): stacks " + character.getStatusEffects().getStacks("Rage")
+                + ", attack " + attack + " -> " + character.getCombatStats().getAttack()
+                + ", base " + character.getAttack());
+        wheel.advance();
+        wheel.advance();
+        wheel.apply(character, rage);  //the duration starts again
+        wheel.advance();
+        wheel.advance();
+        System.out.println("Refreshed on turn 2, still on at turn 4: "
+                + (character.getStatusEffects().getStacks("Rage") > 0));
+        wheel.advance();
+        System.out.println("Expired at turn 5: " + (character.getStatusEffects().getStacks("Rage") == 0)
+                + ", attack " + character.getCombatStats().getAttack());
+        StatusEffect stubborn = new StatusEffect("Stubborn", StatusEffect.Type.DEFENSE_PERCENT, 0.5, 2,
+                StatusEffect.StackRule.IGNORE);
+        wheel.apply(character, stubborn);
+        System.out.println("Ignored the second time: " + (wheel.apply(character, stubborn) == null));
+
+        // shields take the hit first, damage over time ticks every turn until it runs out
+        wheel.apply(character, new StatusEffect("Barrier", StatusEffect.Type.SHIELD, 50, 2,
+                StatusEffect.StackRule.REFRESH));
+        int hp = character.getCurrentHP();
+        character.takeDamage(80);
+        System.out.println("Shield took 50 of 80: " + (hp - character.getCurrentHP() == 30)
+                + ", shield gone: " + (character.getStatusEffects().get("Barrier") == null));
+        wheel.setListener(new EffectWheel.Listener() {
+            @Override
+            public void onTick(ActiveEffect effect, int amount) {
+                System.out.println("  " + effect.getEffect().getName() + " ticked for " + amount);
+            }
+
+            @Override
+            public void onExpired(ActiveEffect effect) {
+                System.out.println("  " + effect.getEffect().getName() + " wore off");
+            }
+        });
+        wheel.apply(character, new StatusEffect("Burn", StatusEffect.Type.DAMAGE_OVER_TIME, 12, 3,
+                StatusEffect.StackRule.STACK, 2));
+        for (int i = 0; i < 4; i++) {
+            wheel.advance();
+        }
+        wheel.setListener(null);
+
+        // a speed buff moves the unit up the turn order of a running battle
+        RegularEnemy slow = new RegularEnemy("Slow Guard", false);
+        RegularEnemy other = new RegularEnemy("Other Guard", false);
+        List<Character> team = new ArrayList<>();
+        team.add(character);
+        List<Enemy> enemies = new ArrayList<>();
+        enemies.add(slow);
+        enemies.add(other);
+        BattleSystem battle = new BattleSystem();
+        battle.initializeBattle(team, enemies);
+        ActionTimeline timeline = battle.getTimeline();
+        double before = timeline.getRemainingActionValue(slow);
+        battle.getEffectWheel().apply(slow, new StatusEffect("Haste", StatusEffect.Type.SPEED_PERCENT, 1.0, 2,
+                StatusEffect.StackRule.REFRESH));
+        System.out.println("Haste: speed " + slow.getSpeed() + " -> " + slow.getCombatStats().getSpeed()
+                + ", action value " + before + " -> " + timeline.getRemainingActionValue(slow));
+
+        // relic set bonuses are permanent effects, equipping again does not add them again
+        Character wearer = new Character("Gepard", 10);
+        Relic paladin = new Relic("Paladin Helm", "Paladin");
+        int defense = wearer.getDefense();
+        for (int i = 0; i < 3; i++) {
+            paladin.checkSetBonus(wearer);
+        }
+        System.out.println("Set bonus x3: defense " + defense + " -> " + wearer.getCombatStats().getDefense()
+                + ", base " + wearer.getDefense());
+        paladin.removeSetBonus(wearer);
+        System.out.println("Removed: " + wearer.getCombatStats().getDefense());
+
+        // set bonuses are saved with the character, a battle effect is not
+        Character gunner = new Character("Topaz", 10);
+        Inventory bag = new Inventory(1000);
+        Relic quick = new Relic("Quick Gunner Gloves", "Quick Gunner");
+        bag.addItem(quick);
+        bag.equipItem(gunner, quick);
+        new EffectWheel().apply(gunner, rage);
+        int savedAttack = gunner.getCombatStats().getAttack();
+        gunner.getStatusEffects().remove("Rage");
+        int bonusAttack = gunner.getCombatStats().getAttack();
+        new EffectWheel().apply(gunner, rage);
+        Character loaded = saveAndLoad(gunner);
+        System.out.println("Save and load: attack " + savedAttack + " with Rage, " + bonusAttack + " with set bonus, "
+                + loaded.getCombatStats().getAttack() + " after load, base " + loaded.getAttack()
+                + ", kept: " + (loaded.getCombatStats().getAttack() == bonusAttack
+                && loaded.getStatusEffects().get("Rage") == null));
+
+        // the wheel only looks at due effects, a list would look at every effect every turn
+        List<Character> crowd = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            crowd.add(new Character("Extra " + i, 1));
+        }
+        EffectWheel big = new EffectWheel();
+        SplittableRandom rng = new SplittableRandom(7L);
+        long scanned = 0;
+        for (int i = 0; i < 20_000; i++) {
+            big.apply(crowd.get(i % crowd.size()), new StatusEffect("Buff " + i, StatusEffect.Type.ATTACK_PERCENT,
+                    0.01, 1 + rng.nextInt(200), StatusEffect.StackRule.REFRESH));
+        }
+        while (big.size() > 0) {
+            scanned += big.size();
+            big.advance();
+        }
+        System.out.println("20000 effects expired in " + big.getTurn() + " turns, looked at " + big.getProcessed()
+                + " (a scan looks at " + scanned + ")");
+    }
+
+    private static void testBossPhases() {
+        System.out.println("***** Boss Phase Test *****");
+        BossEnemy boss = new BossEnemy("Doomsday Beast", 3);
+        List<Integer> entered = new ArrayList<>();
+        boss.addListener(new BattleUnitListener() {
+            @Override
+            public void onSpeedChanged(BattleUnit unit, int oldSpeed) {
+            }
+
+            @Override
+            public void onDefeated(BattleUnit unit) {
+            }
+
+            @Override
+            public void onPhaseChanged(BattleUnit unit, int phase) {
+                entered.add(phase);
+            }
+        });
+        PhaseEngine engine = boss.getPhaseEngine();
+        System.out.println("Max HP " + boss.getMaxHP() + ", thresholds: " + engine.getThreshold(2) + ", "
+                + engine.getThreshold(3));
+        int attack = boss.getAttack();
+        // small hits: every phase once, the heal does not start a phase again
+        while (boss.isAlive()) {
+            boss.setCurrentHP(boss.getCurrentHP() - boss.getMaxHP() / 20);
+        }
+        System.out.println("Phases entered: " + entered + ", attack " + attack + " -> " + boss.getAttack());
+        boss.resetPhases();
+        boss.setCurrentHP(boss.getMaxHP());
+        entered.clear();
+        boss.setCurrentHP(0);  //a defeated boss does not change phase
+        System.out.println("One hit kill: " + entered + ", phase " + boss.getCurrentPhase()
+                + ", attack back to " + boss.getAttack());
+
+        ConfigManager config = new ConfigManager();
+        config.setProperty("boss.ids", "beast");
+        config.setProperty("boss.beast.name", "Doomsday Beast");
+        config.setProperty("boss.beast.phases", 2);
+        config.setProperty("boss.beast.phase.2.threshold", 0.3);
+        config.setProperty("boss.beast.phase.2.speed", 20);
+        config.setProperty("boss.beast.phase.2.special_attacks", "Meteor: Hits everyone!");
+        BossEnemy configured = new BossEnemy("Doomsday Beast", 3);
+        new BossPhaseRegistry(config).apply(Collections.singletonList(configured));
+        int speed = configured.getSpeed();
+        configured.setCurrentHP(configured.getPhaseEngine().getThreshold(2));
+        System.out.println("At threshold: phase " + configured.getCurrentPhase());
+        configured.setCurrentHP(configured.getCurrentHP() - 1);
+        System.out.println("Below threshold: phase " + configured.getCurrentPhase() + "/"
+                + configured.getPhaseEngine().getPhaseCount() + ", speed " + speed + " -> " + configured.getSpeed());
+        configured.useSpecialAttack();
+    }
+
+    // a copy through serialization, like a save file
+    private static Character saveAndLoad(Character character) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(character);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                return (Character) in.readObject();
+            }
+        } catch (IOException | ClassNotFoundException ex) {
+            throw new IllegalStateException("Could not save and load " + character.getName(), ex);
+        }
+    }
+
+    private static void testCombatStats() {
+        System.out.println("***** Combat Stats Cache Test *****");
+        Character character = new Character("Danheng", 10);
+        LightCone lightCone = new LightCone("Night on the Milky Way", "Erudition");
+        CombatStats before = character.getCombatStats();
+        System.out.println("No equipment: " + before);
+        System.out.println("Cached: " + (character.getCombatStats() == before));
+        character.equip(lightCone);
+        System.out.println("Equipped: " + character.getCombatStats());
+        lightCone.enhance("critical_rate", 20);
+        System.out.println("Enhanced: " + character.getCombatStats());
+        character.levelUp();
+        System.out.println("Level up: " + character.getCombatStats());
+        character.unequip(0);
+        System.out.println("Unequipped: " + character.getCombatStats());
     }
 
     private static void testCharacters() {
@@ -131,4 +364,35 @@ public class TestEntities {
             System.out.println(player.getName() + " has been defeated!...");
         }
     }
-}
\ No newline at end of file
+
+    private static void testReplay() {
+        System.out.println("***** Seeded Replay Test *****");
+        String first = runSeededBattle(2026L);
+        String second = runSeededBattle(2026L);
+        String other = runSeededBattle(7L);
+        System.out.println("Same seed: " + first);
+        System.out.println("Replay:    " + second);
+        System.out.println("Other seed: " + other);
+        System.out.println("Replay matches: " + first.equals(second));
+    }
+
+    // returns the hp of every unit after each turn
+    private static String runSeededBattle(long seed) {
+        RngService rng = new RngService(seed);
+        PlayableCharacter player = new PlayableCharacter("Trailblazer", 5, true);
+        RegularEnemy enemy = new RegularEnemy("Voidranger: Trampler", true);
+        enemy.setRandom(rng.stream(RngService.ENEMY, 0));
+        List<Character> team = new ArrayList<>();
+        team.add(player);
+        List<Enemy> enemies = new ArrayList<>();
+        enemies.add(enemy);
+        BattleSystem battle = new BattleSystem(rng.stream(RngService.DAMAGE, 0));
+        battle.initializeBattle(team, enemies);
+        StringBuilder hp = new StringBuilder();
+        for (int turn = 0; turn < 6; turn++) {
+            battle.executeTurn();
+            hp.append(player.getCurrentHP()).append('/').append(enemy.getCurrentHP()).append(' ');
+        }
+        return hp.toString().trim();
+    }
+}
@@ -1,5 +1,7 @@
 package entities.abs;
 
+import entities.effects.StatusEffects;
+
 /**
  * Represents an abstract battle unit entity in game.
  * Extends {@link GameEntity} with combat-specific attributes and behaviors.
@@ -12,6 +14,8 @@ package entities.abs;
  * @see GameEntity
  */
 public abstract class BattleUnit extends GameEntity {
+    // the value the class had before listeners and combat stats were added, so old saves still load
+    private static final long serialVersionUID = -540967916453715925L;
 
     /** maxHP of this battle unit. */
     protected int maxHP;
@@ -28,6 +32,15 @@ public abstract class BattleUnit extends GameEntity {
     /** Speed that may affect turn order in combat. */
     protected int speed;
 
+    /** Get told about speed changes and defeat, e.g. the turn order and the battlefield of a battle. */
+    private transient BattleUnitListener[] listeners;
+
+    /** Stats with equipment added up, built on first use and cleared when a stat changes. */
+    private transient CombatStats combatStats;
+
+    /** Buffs, debuffs and shields, only during a battle or from relic sets, made on first use. */
+    private transient StatusEffects statusEffects;
+
     /**
      * Constructs a BattleUnit with default attribute values.
      * Default values: maxHP=100, currentHP=100, attack=10, defense=5, speed=10.
@@ -92,9 +105,8 @@ public abstract class BattleUnit extends GameEntity {
      */
     public void setMaxHP(int maxHP) {
         this.maxHP = maxHP;
-        if (currentHP > maxHP) {
-            currentHP = maxHP;
-        }
+        invalidateCombatStats();
+        currentHP = Math.min(currentHP, hpCap());
     }
 
     /**
@@ -106,12 +118,16 @@ public abstract class BattleUnit extends GameEntity {
 
     /**
      * Sets the current HP value.
-     * The value will be automatically set between 0 and the maxHP.
+     * The value will be automatically set between 0 and the maxHP (with max HP effects added).
      *
      * @param currentHP the new current HP value
      */
     public void setCurrentHP(int currentHP) {
-        this.currentHP = Math.min(Math.max(currentHP, 0), maxHP);
+        boolean wasAlive = this.currentHP > 0;
+        this.currentHP = Math.min(Math.max(currentHP, 0), hpCap());
+        if (wasAlive && this.currentHP <= 0) {
+            notifyDefeated();
+        }
     }
 
     /**
@@ -126,7 +142,10 @@ public abstract class BattleUnit extends GameEntity {
      *
      * @param attack the new attack value
      */
-    public void setAttack(int attack) { this.attack = attack; }
+    public void setAttack(int attack) {
+        this.attack = attack;
+        invalidateCombatStats();
+    }
 
     /**
      * Returns the defense value.
@@ -140,7 +159,10 @@ public abstract class BattleUnit extends GameEntity {
      *
      * @param defense the new defense value
      */
-    public void setDefense(int defense) { this.defense = defense; }
+    public void setDefense(int defense) {
+        this.defense = defense;
+        invalidateCombatStats();
+    }
 
     /**
      * Returns the speed value.
@@ -151,10 +173,183 @@ public abstract class BattleUnit extends GameEntity {
 
     /**
      * Sets the speed value.
+     * The listener is told about the change, so the turn order of a running battle is updated.
      *
      * @param speed the new speed value
      */
-    public void setSpeed(int speed) { this.speed = speed; }
+    public void setSpeed(int speed) {
+        int oldSpeed = getCombatStats().getSpeed();
+        this.speed = speed;
+        invalidateCombatStats();
+        notifySpeedChanged(oldSpeed);
+    }
+
+    /**
+     * Returns the combat stats of this unit with its status effects, they are only built again after a stat
+     * or an effect changed.
+     *
+     * @return the combat stats
+     */
+    public CombatStats getCombatStats() {
+        CombatStats stats = combatStats;
+        if (stats == null) {
+            stats = computeCombatStats();
+            if (statusEffects != null && !statusEffects.isEmpty()) {
+                stats = statusEffects.modify(stats);
+            }
+            combatStats = stats;
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the status effects of this unit, they are not saved.
+     *
+     * @return the status effects
+     */
+    public StatusEffects getStatusEffects() {
+        if (statusEffects == null) {
+            statusEffects = new StatusEffects(this);
+        }
+        return statusEffects;
+    }
+
+    /**
+     * Called by the status effects of this unit after a stat effect was added or removed: the combat stats are
+     * built again, HP above a lower max HP is cut and the listeners are told if the speed changed.
+     *
+     * @param oldSpeed the combat speed before the change
+     */
+    public void onStatusEffectsChanged(int oldSpeed) {
+        invalidateCombatStats();
+        currentHP = Math.min(currentHP, hpCap());
+        notifySpeedChanged(oldSpeed);
+    }
+
+    /**
+     * Lets the shields of this unit take damage first.
+     *
+     * @param damage the damage of a hit
+     * @return the damage left for the HP
+     */
+    public int absorbDamage(int damage) {
+        return statusEffects == null || statusEffects.isEmpty() ? damage : statusEffects.absorb(damage);
+    }
+
+    // the highest HP, max HP effects can raise it above the base max HP
+    private int hpCap() {
+        return statusEffects == null || statusEffects.isEmpty() ? maxHP : getCombatStats().getMaxHP();
+    }
+
+    private void notifySpeedChanged(int oldSpeed) {
+        if (listeners == null || getCombatStats().getSpeed() == oldSpeed) {
+            return;
+        }
+        for (BattleUnitListener listener : listeners) {
+            listener.onSpeedChanged(this, oldSpeed);
+        }
+    }
+
+    /**
+     * Clears the cached combat stats, must be called after a stat of this unit or its equipment changed
+     * (the setters of this class already call it).
+     */
+    public void invalidateCombatStats() {
+        combatStats = null;
+    }
+
+    /**
+     * Builds the combat stats of this unit. Basic units have no crit rate and +50% crit damage,
+     * subclasses add their own bonuses.
+     *
+     * @return the new combat stats
+     */
+    protected CombatStats computeCombatStats() {
+        return new CombatStats(attack, defense, maxHP, speed, 0.0, 0.5);
+    }
+
+    /**
+     * Adds a listener to this unit, adding the same listener twice does nothing.
+     *
+     * @param listener the listener
+     */
+    public void addListener(BattleUnitListener listener) {
+        if (listener == null || hasListener(listener)) {
+            return;
+        }
+        int count = listeners == null ? 0 : listeners.length;
+        BattleUnitListener[] bigger = new BattleUnitListener[count + 1];
+        if (count > 0) {
+            System.arraycopy(listeners, 0, bigger, 0, count);
+        }
+        bigger[count] = listener;
+        listeners = bigger;
+    }
+
+    /**
+     * Removes a listener from this unit.
+     *
+     * @param listener the listener
+     */
+    public void removeListener(BattleUnitListener listener) {
+        if (!hasListener(listener)) {
+            return;
+        }
+        if (listeners.length == 1) {
+            listeners = null;
+            return;
+        }
+        BattleUnitListener[] smaller = new BattleUnitListener[listeners.length - 1];
+        int next = 0;
+        for (BattleUnitListener other : listeners) {
+            if (other != listener) {
+                smaller[next++] = other;
+            }
+        }
+        listeners = smaller;
+    }
+
+    /**
+     * Checks if a listener was added to this unit.
+     *
+     * @param listener the listener
+     * @return true if the listener is on this unit
+     */
+    public boolean hasListener(BattleUnitListener listener) {
+        if (listeners == null) {
+            return false;
+        }
+        for (BattleUnitListener other : listeners) {
+            if (other == listener) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void notifyDefeated() {
+        if (listeners == null) {
+            return;
+        }
+        // a copy, listeners may remove themselves while they are told
+        for (BattleUnitListener listener : listeners.clone()) {
+            listener.onDefeated(this);
+        }
+    }
+
+    /**
+     * Tells the listeners that this unit entered a new phase
+     *
+     * @param phase the new phase
+     */
+    protected void notifyPhaseChanged(int phase) {
+        if (listeners == null) {
+            return;
+        }
+        for (BattleUnitListener listener : listeners.clone()) {
+            listener.onPhaseChanged(this, phase);
+        }
+    }
 
     /**
      * Attacks a target battle unit.
@@ -174,18 +369,27 @@ public abstract class BattleUnit extends GameEntity {
     }
 
     /**
-     * Reduces this unit's HP by the specified damage.
+     * Reduces this unit's HP by the specified damage, shields take it first.
      * HP will not drop below 0. Print damage information to standard output.
      * If HP reaches 0 or below, a death message will be printed.
      *
      * @param damage the amount of damage to take
      */
     public void takeDamage(int damage) {
+        int left = absorbDamage(damage);
+        if (left < damage) {
+            System.out.println(name + "'s shield took " + (damage - left) + " damage");
+            damage = left;
+        }
+        boolean wasAlive = currentHP > 0;
         currentHP = Math.max(currentHP - damage, 0);
         System.out.println(name + " take " + damage + " damage, remaining HP: " + currentHP);
 
         if (currentHP <= 0) {
             System.out.println(name + " is dead!");
+            if (wasAlive) {
+                notifyDefeated();
+            }
         }
     }
 
@@ -206,13 +410,13 @@ public abstract class BattleUnit extends GameEntity {
 
     /**
      * Heals this unit by the specified amount.
-     * Current HP increases by the healing amount, but will not exceed maxHP.
+     * Current HP increases by the healing amount, but will not exceed maxHP (with max HP effects added).
      * Prints healing information to standard output.
      *
      * @param amount the amount of HP to heal
      */
     public void heal(int amount) {
-        currentHP = Math.min(currentHP + amount, maxHP);
+        currentHP = Math.min(currentHP + amount, hpCap());
         System.out.println(name + " healed " + amount + " HP, current HP: " + currentHP);
     }
 
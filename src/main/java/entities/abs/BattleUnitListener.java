@@ -0,0 +1,35 @@
+package entities.abs;
+
+/**
+ * Listens to the changes of a {@link BattleUnit} that matter to a running battle, e.g. the turn order.
+ * A unit can have several listeners, they are not saved with the unit.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see BattleUnit#addListener(BattleUnitListener)
+ */
+public interface BattleUnitListener {
+    /**
+     * Called after the combat speed of a unit changed, by its base speed or by a speed effect
+     *
+     * @param unit     the unit
+     * @param oldSpeed the combat speed before the change
+     */
+    void onSpeedChanged(BattleUnit unit, int oldSpeed);
+
+    /**
+     * Called once when the HP of a unit drops to 0
+     *
+     * @param unit the unit
+     */
+    void onDefeated(BattleUnit unit);
+
+    /**
+     * Called when a unit with phases (a boss) enters a new phase, most listeners do not care
+     *
+     * @param unit  the unit
+     * @param phase the new phase
+     */
+    default void onPhaseChanged(BattleUnit unit, int phase) {
+    }
+}
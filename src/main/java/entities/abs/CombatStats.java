@@ -0,0 +1,86 @@
+package entities.abs;
+
+/**
+ * A snapshot of the stats a battle unit fights with: attack, defense, max HP, speed, crit rate and crit damage,
+ * with equipment already added up. It is built once and kept by the unit until one of its stats changes
+ * (equip, unequip, level up, equipment enhance, set bonuses ...), so a hit only reads these fields.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see BattleUnit#getCombatStats()
+ */
+public final class CombatStats {
+    private final int attack;
+    private final int defense;
+    private final int maxHP;
+    private final int speed;
+    private final double critRate;
+    private final double critDamage;
+
+    /**
+     * Instantiates a new snapshot
+     *
+     * @param attack     the attack
+     * @param defense    the defense
+     * @param maxHP      the max HP
+     * @param speed      the speed
+     * @param critRate   the crit rate, clamped between 0.0 and 1.0
+     * @param critDamage the crit bonus damage (0.5 is +50%), never less than 0
+     */
+    public CombatStats(int attack, int defense, int maxHP, int speed, double critRate, double critDamage) {
+        this.attack = attack;
+        this.defense = defense;
+        this.maxHP = maxHP;
+        this.speed = speed;
+        this.critRate = Math.min(1.0, Math.max(0.0, critRate));
+        this.critDamage = Math.max(0.0, critDamage);
+    }
+
+    /**
+     * Gets the attack.
+     *
+     * @return the attack
+     */
+    public int getAttack() { return attack; }
+
+    /**
+     * Gets the defense.
+     *
+     * @return the defense
+     */
+    public int getDefense() { return defense; }
+
+    /**
+     * Gets the max HP.
+     *
+     * @return the max HP
+     */
+    public int getMaxHP() { return maxHP; }
+
+    /**
+     * Gets the speed.
+     *
+     * @return the speed
+     */
+    public int getSpeed() { return speed; }
+
+    /**
+     * Gets the crit rate.
+     *
+     * @return the crit rate, 0.0 is 0% and 1.0 is 100%
+     */
+    public double getCritRate() { return critRate; }
+
+    /**
+     * Gets the crit damage.
+     *
+     * @return the crit bonus damage, 0.5 is +50%
+     */
+    public double getCritDamage() { return critDamage; }
+
+    @Override
+    public String toString() {
+        return "ATK " + attack + ", DEF " + defense + ", HP " + maxHP + ", SPD " + speed
+                + ", Crit Rate " + Math.round(critRate * 100) + "%, Crit DMG " + Math.round(critDamage * 100) + "%";
+    }
+}
@@ -1,9 +1,18 @@
 package entities.characters;
 
 import entities.abs.BattleUnit;
+import entities.abs.CombatStats;
+import entities.effects.ActiveEffect;
+import entities.effects.StatusEffect;
 import entities.equipment.*;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OptionalDataException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents a character entity in the game
@@ -96,6 +105,45 @@ public class Character extends BattleUnit implements Serializable {
      */
     public SkillTree getSkillTree() { return skillTree; }
 
+    /**
+     * Write a character to a save with its permanent status effects (relic set bonuses), effects that expire
+     * belong to a battle and are not saved. An effect with several stacks is written once per stack.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        List<StatusEffect> permanent = new ArrayList<>();
+        for (ActiveEffect effect : getStatusEffects().getEffects()) {
+            if (effect.getEffect().isPermanent() && !effect.isScheduled()) {
+                for (int i = 0; i < effect.getStacks(); i++) {
+                    permanent.add(effect.getEffect());
+                }
+            }
+        }
+        out.writeObject(permanent.toArray(new StatusEffect[0]));
+    }
+
+    /**
+     * Read a character from a save, equipment in old saves does not know who wears it yet,
+     * old saves have no status effects
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        for (Equipment item : equippedItems) {
+            if (item != null) {
+                item.setOwner(this);
+            }
+        }
+        StatusEffect[] permanent;
+        try {
+            permanent = (StatusEffect[]) in.readObject();
+        } catch (OptionalDataException ex) {
+            permanent = new StatusEffect[0];  //saved before status effects
+        }
+        for (StatusEffect effect : permanent) {
+            getStatusEffects().add(effect);
+        }
+    }
+
     /**
      * Increases the character's level by 1 and add in attributes.
      * HP will be maxed when leveling up, experience is reset to 0.
@@ -107,8 +155,9 @@ public class Character extends BattleUnit implements Serializable {
         currentHP = maxHP; // full hp when level up
         attack += 2;
         defense += 1;
-        speed += 1;
+        setSpeed(speed + 1);
         experience = 0;
+        invalidateCombatStats();
 
         System.out.println(name + " upgraded to level " + level);
         System.out.println("HP: " + maxHP + ", attack: " + attack + ", defense: " + defense + ", speed: " + speed);
@@ -184,11 +233,13 @@ public class Character extends BattleUnit implements Serializable {
      */
     private void applyEquipmentStats(Equipment item) {
         // apply increased different attributes (equipments)
-        attack += item.getStat("attack");
-        defense += item.getStat("defense");
-        maxHP += item.getStat("hp");
-        speed += item.getStat("speed");
-        currentHP = Math.min(currentHP + item.getStat("hp"), maxHP);
+        attack += item.getStat(StatType.ATTACK);
+        defense += item.getStat(StatType.DEFENSE);
+        maxHP += item.getStat(StatType.HP);
+        setSpeed(speed + item.getStat(StatType.SPEED));
+        currentHP = Math.min(currentHP + item.getStat(StatType.HP), maxHP);
+        item.setOwner(this);
+        invalidateCombatStats();
     }
 
     /**
@@ -199,11 +250,15 @@ public class Character extends BattleUnit implements Serializable {
      */
     private void removeEquipmentStats(Equipment item) {
         // remove increased different attributes (equipments)
-        attack -= item.getStat("attack");
-        defense -= item.getStat("defense");
-        maxHP -= item.getStat("hp");
-        speed -= item.getStat("speed");
-        currentHP = Math.max(currentHP - item.getStat("hp"), 1);
+        attack -= item.getStat(StatType.ATTACK);
+        defense -= item.getStat(StatType.DEFENSE);
+        maxHP -= item.getStat(StatType.HP);
+        setSpeed(speed - item.getStat(StatType.SPEED));
+        currentHP = Math.max(currentHP - item.getStat(StatType.HP), 1);
+        if (item.getOwner() == this) {
+            item.setOwner(null);
+        }
+        invalidateCombatStats();
     }
 
     /**
@@ -215,6 +270,26 @@ public class Character extends BattleUnit implements Serializable {
         // base skill, subclasses can override
     }
 
+    /**
+     * Builds the combat stats of this character, crit rate and crit damage (in %) of all equipped items are added
+     * to the base 0% crit rate and +50% crit damage. Only called again after the stats or the equipment changed.
+     *
+     * @return the new combat stats
+     */
+    @Override
+    protected CombatStats computeCombatStats() {
+        double critRate = 0.0;
+        double critDamage = 0.5;
+        for (Equipment item : equippedItems) {
+            if (item == null) {
+                continue;
+            }
+            critRate += Math.max(0, item.getStat(StatType.CRITICAL_RATE)) / 100.0;
+            critDamage += Math.max(0, item.getStat(StatType.CRITICAL_DAMAGE)) / 100.0;
+        }
+        return new CombatStats(attack, defense, maxHP, speed, critRate, critDamage);
+    }
+
     /**
      * Displays detailed information about this character.
      * Shows character statistics, level information, experience progress, and equipped items.
@@ -106,8 +106,8 @@ public class PlayableCharacter extends Character implements Serializable {
 
         // Friendship rewards
         if (friendshipLevel % 5 == 0) {
-            attack += 10;
-            defense += 5;
+            setAttack(attack + 10);
+            setDefense(defense + 5);
             System.out.println("Received friendship reward：ATK + 10, DEF + 5 permanently!");
         }
     }
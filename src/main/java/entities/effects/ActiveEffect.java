@@ -0,0 +1,122 @@
+package entities.effects;
+
+import entities.abs.BattleUnit;
+
+/**
+ * A status effect that is on a unit: its stacks, the shield it has left and the turn it expires.
+ * It is also the entry of the {@link EffectWheel} that runs it, so scheduling an effect needs no extra objects.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see StatusEffect
+ */
+public final class ActiveEffect {
+    /** Expiry turn of an effect that never expires. */
+    public static final int NEVER = Integer.MAX_VALUE;
+
+    private final BattleUnit holder;
+    private StatusEffect effect;
+    private int stacks;
+    private int shield;
+    int expiresAt = NEVER;
+    boolean active = true;
+
+    // the wheel this effect is scheduled on, a doubly linked list per slot so it can be taken out at once
+    EffectWheel wheel;
+    int due;
+    ActiveEffect previous;
+    ActiveEffect next;
+
+    ActiveEffect(BattleUnit holder, StatusEffect effect) {
+        this.holder = holder;
+        this.effect = effect;
+        this.stacks = 1;
+        this.shield = shieldOf(effect, 1);
+    }
+
+    // add the effect again by its stack rule, false if nothing changed
+    boolean stack(StatusEffect again) {
+        switch (again.getStackRule()) {
+            case IGNORE:
+                return false;
+            case STACK:
+                effect = again;
+                stacks = Math.min(stacks + 1, again.getMaxStacks());
+                break;
+            default:
+                effect = again;
+                stacks = Math.min(stacks, again.getMaxStacks());
+                break;
+        }
+        shield = shieldOf(effect, stacks);
+        return true;
+    }
+
+    // a refreshed or stacked shield is full again
+    private static int shieldOf(StatusEffect effect, int stacks) {
+        return effect.getType() == StatusEffect.Type.SHIELD ? (int) (effect.getValue() * stacks) : 0;
+    }
+
+    // take damage from the shield, returns what is left for the HP
+    int absorb(int damage) {
+        int taken = Math.min(shield, damage);
+        shield -= taken;
+        return damage - taken;
+    }
+
+    /**
+     * Gets the unit that has this effect.
+     *
+     * @return the holder
+     */
+    public BattleUnit getHolder() { return holder; }
+
+    /**
+     * Gets the effect, the last one added when it was refreshed.
+     *
+     * @return the effect
+     */
+    public StatusEffect getEffect() { return effect; }
+
+    /**
+     * Gets the stacks.
+     *
+     * @return the number of stacks
+     */
+    public int getStacks() { return stacks; }
+
+    /**
+     * Gets the shield left.
+     *
+     * @return the damage the shield can still take, 0 for other effects
+     */
+    public int getShield() { return shield; }
+
+    /**
+     * Gets the turn this effect expires at.
+     *
+     * @return the turn of the wheel, or {@link #NEVER}
+     */
+    public int getExpiresAt() { return expiresAt; }
+
+    /**
+     * Checks if the effect is still on its unit.
+     *
+     * @return false after it expired or was removed
+     */
+    public boolean isActive() { return active; }
+
+    /**
+     * Checks if the effect is scheduled on a wheel.
+     *
+     * @return true if a wheel runs this effect
+     */
+    public boolean isScheduled() { return wheel != null; }
+
+    @Override
+    public String toString() {
+        return effect.getName() + (stacks > 1 ? " x" + stacks : "")
+                + (shield > 0 ? " [" + shield + "]" : "")
+                + (expiresAt == NEVER ? "" : " until turn " + expiresAt);
+    }
+}
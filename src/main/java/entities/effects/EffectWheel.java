@@ -0,0 +1,264 @@
+package entities.effects;
+
+import entities.abs.BattleUnit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the status effects of one battle turn by turn. Every scheduled effect sits in the slot of the turn it next
+ * has something to do (tick or expire), so a turn only looks at the effects that are due, not at every effect of
+ * the battle. Slots are reused every {@value #SLOTS} turns, an effect due later just waits for its lap.
+ * <p>
+ * Refreshing or removing an effect moves or takes out its entry at once, entries are linked both ways.
+ * Effects that never expire and never tick are not scheduled, they stay on the unit until they are removed.
+ * </p>
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see StatusEffect
+ * @see StatusEffects
+ */
+public class EffectWheel {
+    /** Number of slots, a power of two. */
+    public static final int SLOTS = 64;
+    private static final int MASK = SLOTS - 1;
+
+    /**
+     * Gets told what the effects did, e.g. to print it
+     */
+    public interface Listener {
+        /**
+         * Called after a damage or heal over time effect ticked
+         *
+         * @param effect the effect
+         * @param amount the HP lost or healed
+         */
+        void onTick(ActiveEffect effect, int amount);
+
+        /**
+         * Called after an effect expired and was taken off its unit
+         *
+         * @param effect the effect
+         */
+        void onExpired(ActiveEffect effect);
+    }
+
+    private final ActiveEffect[] slots = new ActiveEffect[SLOTS];
+    private int turn;
+    private int scheduled;
+    private long processed;
+    private Listener listener;
+
+    /**
+     * Puts an effect on a unit and schedules it if it lasts a number of turns or ticks.
+     * The duration starts again when the unit already had the effect (unless the stack rule ignores it).
+     *
+     * @param target the unit
+     * @param effect the effect
+     * @return the effect on the unit, or null if the stack rule kept the old one unchanged
+     */
+    public ActiveEffect apply(BattleUnit target, StatusEffect effect) {
+        ActiveEffect active = target.getStatusEffects().add(effect);
+        if (active == null) {
+            return null;
+        }
+        active.expiresAt = effect.isPermanent() ? ActiveEffect.NEVER : turn + effect.getDuration();
+        int due = dueOf(active);
+        if (active.wheel != null && (active.wheel != this || active.due != due)) {
+            active.wheel.unschedule(active);
+        }
+        if (active.wheel == null && due != ActiveEffect.NEVER) {
+            schedule(active, due);
+        }
+        return active;
+    }
+
+    /**
+     * Moves to the next turn: damage and heal over time effects tick, effects that ran out are taken off.
+     *
+     * @return the turn the wheel is at now
+     */
+    public int advance() {
+        turn++;
+        int slot = turn & MASK;
+        ActiveEffect later = null;
+        ActiveEffect entry;
+        // take the entries out one by one, a tick can remove other effects of the slot
+        while ((entry = slots[slot]) != null) {
+            unschedule(entry);
+            if (entry.due > turn) {
+                entry.next = later;  //due in a later lap
+                later = entry;
+            } else {
+                run(entry);
+            }
+        }
+        while (later != null) {
+            entry = later;
+            later = entry.next;
+            entry.next = null;
+            if (entry.isActive()) {
+                schedule(entry, entry.due);
+            }
+        }
+        return turn;
+    }
+
+    // one effect is due this turn
+    private void run(ActiveEffect entry) {
+        processed++;
+        BattleUnit holder = entry.getHolder();
+        StatusEffect effect = entry.getEffect();
+        if (!holder.isAlive()) {
+            holder.getStatusEffects().remove(entry);
+            return;
+        }
+        if (effect.ticks()) {
+            int amount = tick(holder, entry);
+            if (listener != null) {
+                listener.onTick(entry, amount);
+            }
+        }
+        if (entry.expiresAt <= turn) {
+            holder.getStatusEffects().remove(entry);
+            if (listener != null) {
+                listener.onExpired(entry);
+            }
+        } else if (holder.isAlive()) {
+            schedule(entry, dueOf(entry));
+        } else {
+            holder.getStatusEffects().remove(entry);
+        }
+    }
+
+    private static int tick(BattleUnit holder, ActiveEffect entry) {
+        StatusEffect effect = entry.getEffect();
+        int hp = holder.getCurrentHP();
+        if (effect.getType() == StatusEffect.Type.DAMAGE_OVER_TIME) {
+            holder.setCurrentHP(hp - (int) (effect.getValue() * entry.getStacks()));
+            return hp - holder.getCurrentHP();
+        }
+        int max = holder.getCombatStats().getMaxHP();
+        holder.setCurrentHP(hp + (int) (max * effect.getValue() * entry.getStacks()));
+        return holder.getCurrentHP() - hp;
+    }
+
+    // the next turn the effect has something to do
+    private int dueOf(ActiveEffect entry) {
+        return entry.getEffect().ticks() ? turn + 1 : entry.expiresAt;
+    }
+
+    private void schedule(ActiveEffect entry, int due) {
+        int slot = due & MASK;
+        entry.wheel = this;
+        entry.due = due;
+        entry.previous = null;
+        entry.next = slots[slot];
+        if (entry.next != null) {
+            entry.next.previous = entry;
+        }
+        slots[slot] = entry;
+        scheduled++;
+    }
+
+    // take an entry out of its slot, nothing happens if it is not on this wheel
+    void unschedule(ActiveEffect entry) {
+        if (entry.wheel != this) {
+            return;
+        }
+        if (entry.previous != null) {
+            entry.previous.next = entry.next;
+        } else {
+            slots[entry.due & MASK] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.previous = entry.previous;
+        }
+        entry.previous = null;
+        entry.next = null;
+        entry.wheel = null;
+        scheduled--;
+    }
+
+    /**
+     * Moves the wheel to a later turn without running the turns in between, for a copy of the battle that already
+     * played them. Effects keep their expiry turn, damage and heal over time effects tick on the turn after.
+     *
+     * @param target the turn to move to, not before the current turn
+     */
+    public void skipTo(int target) {
+        if (target < turn) {
+            throw new IllegalArgumentException("The wheel is already at turn " + turn + ": " + target);
+        }
+        List<ActiveEffect> entries = getScheduled();
+        for (ActiveEffect entry : entries) {
+            unschedule(entry);
+        }
+        turn = target;
+        // from the last, so every slot keeps its order
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            ActiveEffect entry = entries.get(i);
+            schedule(entry, Math.max(dueOf(entry), turn + 1));
+        }
+    }
+
+    /**
+     * Gets the scheduled effects slot by slot from the next turn, every slot in the order it runs its effects
+     *
+     * @return a new list of the scheduled effects
+     */
+    public List<ActiveEffect> getScheduled() {
+        List<ActiveEffect> entries = new ArrayList<>(scheduled);
+        for (int i = 1; i <= SLOTS; i++) {
+            for (ActiveEffect entry = slots[(turn + i) & MASK]; entry != null; entry = entry.next) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Takes every scheduled effect off its unit and starts again at turn 0, called when the battle is over
+     */
+    public void clear() {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            while (slots[slot] != null) {
+                ActiveEffect entry = slots[slot];
+                // removing it from the unit also takes it out of the slot
+                if (!entry.getHolder().getStatusEffects().remove(entry)) {
+                    unschedule(entry);
+                }
+            }
+        }
+        turn = 0;
+    }
+
+    /**
+     * Sets the listener.
+     *
+     * @param listener the listener, null for none
+     */
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    /**
+     * Gets the current turn.
+     *
+     * @return the number of turns advanced since the start or the last clear
+     */
+    public int getTurn() { return turn; }
+
+    /**
+     * Gets the number of scheduled effects.
+     *
+     * @return the number of effects the wheel runs
+     */
+    public int size() { return scheduled; }
+
+    /**
+     * Gets the number of effects that were due, summed over all turns.
+     *
+     * @return the number of ticks and expiries looked at
+     */
+    public long getProcessed() { return processed; }
+}
@@ -0,0 +1,172 @@
+package entities.effects;
+
+import java.io.Serializable;
+
+/**
+ * The definition of a status effect: what it does, how strong it is, how many turns it lasts and what happens when
+ * it is put on a unit that already has it. Definitions are immutable and shared, what changes during a battle
+ * (stacks, shield left, expiry turn) is kept in an {@link ActiveEffect}.
+ * <p>
+ * Effects with the same name on one unit are the same effect, the {@link StackRule} decides how they combine.
+ * Stat effects change the combat stats of the unit and never its base stats. Definitions are serializable, so
+ * permanent effects (relic set bonuses) can be saved with a character.
+ * </p>
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see StatusEffects
+ * @see EffectWheel
+ */
+public final class StatusEffect implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /** Duration of an effect that never expires. */
+    public static final int PERMANENT = -1;
+
+    /**
+     * What an effect does, the value of the effect is per stack
+     */
+    public enum Type {
+        /** Attack + value * base attack. */
+        ATTACK_PERCENT,
+        /** Defense + value * base defense. */
+        DEFENSE_PERCENT,
+        /** Speed + value * base speed. */
+        SPEED_PERCENT,
+        /** Max HP + value * base max HP. */
+        MAX_HP_PERCENT,
+        /** Loses value HP every turn. */
+        DAMAGE_OVER_TIME,
+        /** Heals value * max HP every turn. */
+        HEAL_OVER_TIME,
+        /** Takes up to value damage before the HP does. */
+        SHIELD
+    }
+
+    /**
+     * What happens when a unit gets an effect it already has
+     */
+    public enum StackRule {
+        /** The new effect replaces the old one and the duration starts again, stacks stay. */
+        REFRESH,
+        /** One more stack up to the max stacks and the duration starts again. */
+        STACK,
+        /** The old effect stays as it is. */
+        IGNORE
+    }
+
+    private final String name;
+    private final Type type;
+    private final double value;
+    private final int duration;
+    private final StackRule stackRule;
+    private final int maxStacks;
+
+    /**
+     * Instantiates a new status effect with one stack
+     *
+     * @param name      the name, effects with the same name stack with each other
+     * @param type      what the effect does
+     * @param value     how strong one stack is, see {@link Type}
+     * @param duration  how many turns the effect lasts, or {@link #PERMANENT}
+     * @param stackRule what happens when the unit already has the effect
+     */
+    public StatusEffect(String name, Type type, double value, int duration, StackRule stackRule) {
+        this(name, type, value, duration, stackRule, 1);
+    }
+
+    /**
+     * Instantiates a new status effect
+     *
+     * @param name      the name, effects with the same name stack with each other
+     * @param type      what the effect does
+     * @param value     how strong one stack is, see {@link Type}
+     * @param duration  how many turns the effect lasts, or {@link #PERMANENT}
+     * @param stackRule what happens when the unit already has the effect
+     * @param maxStacks the max number of stacks
+     */
+    public StatusEffect(String name, Type type, double value, int duration, StackRule stackRule, int maxStacks) {
+        if (duration < 1 && duration != PERMANENT) {
+            throw new IllegalArgumentException("An effect must last at least one turn: " + duration);
+        }
+        if (maxStacks < 1) {
+            throw new IllegalArgumentException("An effect needs at least one stack: " + maxStacks);
+        }
+        this.name = name;
+        this.type = type;
+        this.value = value;
+        this.duration = duration;
+        this.stackRule = stackRule;
+        this.maxStacks = maxStacks;
+    }
+
+    /**
+     * Checks if the effect does something every turn (damage or heal over time).
+     *
+     * @return true if the effect ticks
+     */
+    public boolean ticks() { return type == Type.DAMAGE_OVER_TIME || type == Type.HEAL_OVER_TIME; }
+
+    /**
+     * Checks if the effect changes the combat stats.
+     *
+     * @return true for the percent types
+     */
+    public boolean changesStats() {
+        return type == Type.ATTACK_PERCENT || type == Type.DEFENSE_PERCENT || type == Type.SPEED_PERCENT
+                || type == Type.MAX_HP_PERCENT;
+    }
+
+    /**
+     * Checks if the effect never expires.
+     *
+     * @return true if the duration is {@link #PERMANENT}
+     */
+    public boolean isPermanent() { return duration == PERMANENT; }
+
+    /**
+     * Gets the name.
+     *
+     * @return the name
+     */
+    public String getName() { return name; }
+
+    /**
+     * Gets the type.
+     *
+     * @return what the effect does
+     */
+    public Type getType() { return type; }
+
+    /**
+     * Gets the value.
+     *
+     * @return how strong one stack is
+     */
+    public double getValue() { return value; }
+
+    /**
+     * Gets the duration.
+     *
+     * @return the number of turns, or {@link #PERMANENT}
+     */
+    public int getDuration() { return duration; }
+
+    /**
+     * Gets the stack rule.
+     *
+     * @return what happens when the unit already has the effect
+     */
+    public StackRule getStackRule() { return stackRule; }
+
+    /**
+     * Gets the max stacks.
+     *
+     * @return the max number of stacks
+     */
+    public int getMaxStacks() { return maxStacks; }
+
+    @Override
+    public String toString() {
+        return name + " (" + type + " " + value + (isPermanent() ? "" : ", " + duration + " turns") + ")";
+    }
+}
@@ -0,0 +1,216 @@
+package entities.effects;
+
+import entities.abs.BattleUnit;
+import entities.abs.CombatStats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The status effects on one unit. Effects change the combat stats of the unit on top of its base stats, the unit
+ * keeps the result cached until an effect is added or removed, so hits never add the effects up.
+ * <p>
+ * Effects added here directly stay until they are removed, which is how permanent bonuses (relic sets) are kept.
+ * Effects with a duration or a tick are added through an {@link EffectWheel}, which expires and ticks them.
+ * </p>
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see BattleUnit#getStatusEffects()
+ */
+public final class StatusEffects {
+    private final BattleUnit holder;
+    private final List<ActiveEffect> active = new ArrayList<>(4);
+
+    /**
+     * Instantiates the effects of a unit, units make their own with {@link BattleUnit#getStatusEffects()}
+     *
+     * @param holder the unit
+     */
+    public StatusEffects(BattleUnit holder) {
+        this.holder = holder;
+    }
+
+    /**
+     * Puts an effect on the unit. If the unit already has an effect with this name, the stack rule of the new
+     * effect decides what happens.
+     *
+     * @param effect the effect
+     * @return the effect on the unit, or null if the stack rule kept the old one unchanged
+     */
+    public ActiveEffect add(StatusEffect effect) {
+        int oldSpeed = holder.getCombatStats().getSpeed();
+        ActiveEffect existing = get(effect.getName());
+        ActiveEffect result;
+        if (existing == null) {
+            result = new ActiveEffect(holder, effect);
+            active.add(result);
+        } else if (existing.stack(effect)) {
+            result = existing;
+        } else {
+            return null;
+        }
+        if (effect.changesStats()) {
+            holder.onStatusEffectsChanged(oldSpeed);
+        }
+        return result;
+    }
+
+    /**
+     * Takes an effect off the unit, it is also taken off the wheel that runs it.
+     *
+     * @param effect the effect on the unit
+     * @return true if the unit had the effect
+     */
+    public boolean remove(ActiveEffect effect) {
+        int index = active.indexOf(effect);
+        if (index < 0) {
+            return false;
+        }
+        int oldSpeed = holder.getCombatStats().getSpeed();
+        // swap with the last one, the order of effects does not matter
+        int last = active.size() - 1;
+        active.set(index, active.get(last));
+        active.remove(last);
+        effect.active = false;
+        if (effect.wheel != null) {
+            effect.wheel.unschedule(effect);
+        }
+        if (effect.getEffect().changesStats()) {
+            holder.onStatusEffectsChanged(oldSpeed);
+        }
+        return true;
+    }
+
+    /**
+     * Takes an effect off the unit by name.
+     *
+     * @param name the name of the effect
+     * @return true if the unit had the effect
+     */
+    public boolean remove(String name) {
+        ActiveEffect effect = get(name);
+        return effect != null && remove(effect);
+    }
+
+    /**
+     * Takes every effect off the unit.
+     */
+    public void clear() {
+        while (!active.isEmpty()) {
+            remove(active.get(active.size() - 1));
+        }
+    }
+
+    /**
+     * Gets an effect by name.
+     *
+     * @param name the name of the effect
+     * @return the effect on the unit, null if it does not have it
+     */
+    public ActiveEffect get(String name) {
+        for (ActiveEffect effect : active) {
+            if (effect.getEffect().getName().equals(name)) {
+                return effect;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the stacks of an effect.
+     *
+     * @param name the name of the effect
+     * @return the stacks, 0 if the unit does not have it
+     */
+    public int getStacks(String name) {
+        ActiveEffect effect = get(name);
+        return effect == null ? 0 : effect.getStacks();
+    }
+
+    /**
+     * Adds the stat effects to combat stats, called by the unit when its cached stats are built again
+     *
+     * @param base the combat stats without effects
+     * @return the combat stats with effects
+     */
+    public CombatStats modify(CombatStats base) {
+        double attack = 0;
+        double defense = 0;
+        double speed = 0;
+        double maxHP = 0;
+        for (ActiveEffect effect : active) {
+            double value = effect.getEffect().getValue() * effect.getStacks();
+            switch (effect.getEffect().getType()) {
+                case ATTACK_PERCENT:
+                    attack += value;
+                    break;
+                case DEFENSE_PERCENT:
+                    defense += value;
+                    break;
+                case SPEED_PERCENT:
+                    speed += value;
+                    break;
+                case MAX_HP_PERCENT:
+                    maxHP += value;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (attack == 0 && defense == 0 && speed == 0 && maxHP == 0) {
+            return base;
+        }
+        return new CombatStats(
+                base.getAttack() + (int) (base.getAttack() * attack),
+                base.getDefense() + (int) (base.getDefense() * defense),
+                base.getMaxHP() + (int) (base.getMaxHP() * maxHP),
+                base.getSpeed() + (int) (base.getSpeed() * speed),
+                base.getCritRate(), base.getCritDamage());
+    }
+
+    /**
+     * Lets the shields take damage before the HP does. Empty shields are taken off.
+     *
+     * @param damage the damage
+     * @return the damage left for the HP
+     */
+    public int absorb(int damage) {
+        for (int i = 0; i < active.size() && damage > 0; i++) {
+            ActiveEffect effect = active.get(i);
+            if (effect.getShield() > 0) {
+                damage = effect.absorb(damage);
+                if (effect.getShield() == 0) {
+                    remove(effect);
+                    i--;
+                }
+            }
+        }
+        return damage;
+    }
+
+    /**
+     * Gets the effects on the unit.
+     *
+     * @return a read-only view of the effects
+     */
+    public List<ActiveEffect> getEffects() { return Collections.unmodifiableList(active); }
+
+    /**
+     * Checks if the unit has no effects.
+     *
+     * @return true if there are no effects
+     */
+    public boolean isEmpty() { return active.isEmpty(); }
+
+    /**
+     * Gets the number of effects.
+     *
+     * @return the number of effects
+     */
+    public int size() { return active.size(); }
+
+    @Override
+    public String toString() { return active.toString(); }
+}
@@ -1,10 +1,14 @@
 package entities.enemies;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 /**
  * This class represents a boss enemy, with attributes of if it has phases, the current phase, and phase messages.
  * Inherited from {@link Enemy}, therefore they have shared properties.
+ * The phases are run by a {@link PhaseEngine}: the boss enters a phase once when its HP drops below the threshold of
+ * the phase, and the battle hears about it through {@link entities.abs.BattleUnitListener#onPhaseChanged}.
  *
  * @version 1.4.1
  * @author Shaoyang Chen
@@ -16,6 +20,8 @@ public class BossEnemy extends Enemy implements Serializable {
     private boolean hasPhases;
     private int currentPhase;
     private String[] phaseMessages;
+    private PhaseEngine phaseEngine;
+    private int[] phaseBonus;  //attack, defense and speed added by the phases entered so far
 
     /**
      * Instantiates a new Boss enemy with all default attributes
@@ -35,6 +41,7 @@ public class BossEnemy extends Enemy implements Serializable {
         attack *= 2;
         defense *= 2;
         speed += 5;
+        setPhases(BossPhase.defaults(phaseMessages));
     }
 
     /**
@@ -58,8 +65,33 @@ public class BossEnemy extends Enemy implements Serializable {
         attack *= 2;
         defense *= 2;
         speed += 5;
+        setPhases(BossPhase.defaults(phaseMessages));
     }
 
+    /**
+     * Replace the phases of the boss (e.g. phases loaded from the config), the boss goes back to phase 1.
+     * The phase messages are taken from the phases.
+     *
+     * @param phases the phases, phase 1 first
+     */
+    public void setPhases(BossPhase[] phases) {
+        this.phaseEngine = new PhaseEngine(phases, maxHP);
+        this.hasPhases = phases.length > 1;
+        this.currentPhase = 1;
+        this.phaseBonus = new int[3];
+        this.phaseMessages = new String[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            phaseMessages[i] = phaseEngine.getPhase(i + 1).getMessage();
+        }
+    }
+
+    /**
+     * Gets the phase engine, read only.
+     *
+     * @return the phase engine
+     */
+    public PhaseEngine getPhaseEngine() { return phaseEngine; }
+
     /**
      * return does the boss enemy has phases boolean.
      *
@@ -82,11 +114,27 @@ public class BossEnemy extends Enemy implements Serializable {
     public int getCurrentPhase() { return currentPhase; }
 
     /**
-     * Sets current phase.
+     * Sets current phase without entering the phases in between (no heal, no stat changes, no message).
      *
      * @param currentPhase the current phase
      */
-    public void setCurrentPhase(int currentPhase) { this.currentPhase = currentPhase; }
+    public void setCurrentPhase(int currentPhase) {
+        phaseEngine.skipTo(currentPhase);
+        this.currentPhase = phaseEngine.getCurrentPhase();
+    }
+
+    /**
+     * Go back to phase 1 and take back the stats added by the phases, e.g. before the boss fights again
+     */
+    public void resetPhases() {
+        setAttack(attack - phaseBonus[0]);
+        setDefense(defense - phaseBonus[1]);
+        if (phaseBonus[2] != 0) {
+            setSpeed(speed - phaseBonus[2]);
+        }
+        phaseBonus = new int[3];
+        setCurrentPhase(1);
+    }
 
     /**
      * Get phase messages string[].
@@ -96,29 +144,43 @@ public class BossEnemy extends Enemy implements Serializable {
     public String[] getPhaseMessages() { return phaseMessages; }
 
     /**
-     * Sets phase messages.
+     * Sets phase messages, the phases go back to the default phases with these messages.
      *
      * @param phaseMessages the phase messages to set
      */
-    public void setPhaseMessages(String[] phaseMessages) { this.phaseMessages = phaseMessages; }
+    public void setPhaseMessages(String[] phaseMessages) { setPhases(BossPhase.defaults(phaseMessages)); }
 
     /**
-     * Represents a boss's transition phase.
-     * Also prints out the message about the change
+     * Represents a boss's transition phase: enter the next phase once, heal and add the stats of the phase.
+     * Nothing is printed, the listeners of the boss are told about the new phase.
      */
     public void transitionPhase() {
-        if (!hasPhases || currentPhase >= phaseMessages.length) {
-            System.out.println(name + " is on final phase.");
+        if (!hasPhases) {
             return;
         }
-        currentPhase++;
-        System.out.println(phaseMessages[currentPhase - 1]);
+        BossPhase phase = phaseEngine.advance();
+        if (phase == null) {
+            return;  //already on the final phase
+        }
+        currentPhase = phaseEngine.getCurrentPhase();
         // When enter new phase, heal characters attributes
-        currentHP = Math.min(currentHP + maxHP / 2, maxHP);
-        attack += 10;
-        defense += 5;
-        System.out.println(name + " entering Phase " + currentPhase + "!");
-        System.out.println("Heal HP and added attack and defense");
+        currentHP = Math.min(currentHP + (int) (maxHP * phase.getHeal()), maxHP);
+        setAttack(attack + phase.getAttackBonus());
+        setDefense(defense + phase.getDefenseBonus());
+        if (phase.getSpeedBonus() != 0) {
+            setSpeed(speed + phase.getSpeedBonus());
+        }
+        phaseBonus[0] += phase.getAttackBonus();
+        phaseBonus[1] += phase.getDefenseBonus();
+        phaseBonus[2] += phase.getSpeedBonus();
+        notifyPhaseChanged(currentPhase);
+    }
+
+    // one comparison per hit, a defeated boss does not change phase
+    private void checkPhase() {
+        while (hasPhases && currentHP > 0 && phaseEngine.shouldAdvance(currentHP)) {
+            transitionPhase();
+        }
     }
 
     /**
@@ -126,19 +188,9 @@ public class BossEnemy extends Enemy implements Serializable {
      */
     public void useSpecialAttack() {
         System.out.println(name + " used special attack skill");
-        switch (currentPhase) {
-            case 1:
-                System.out.println("Area of effect attack: Caused damage to all enemies!");
-                break;
-            case 2:
-                System.out.println("Summon reinforcements: Summons minions to assist in the battle!");
-                break;
-            case 3:
-                System.out.println("A devastating blow: cause massive damage! Please be careful!");
-                break;
-            default:
-                System.out.println("Powerful attack!");
-        }
+        BossPhase phase = phaseEngine.getPhase(currentPhase);
+        int pick = phase.getSpecialAttackCount() > 1 ? random().nextInt(phase.getSpecialAttackCount()) : 0;
+        System.out.println(phase.getSpecialAttack(pick));
     }
 
     /**
@@ -149,12 +201,30 @@ public class BossEnemy extends Enemy implements Serializable {
     @Override
     public void takeDamage(int damage) {
         super.takeDamage(damage);
-        // check if entering new phase
-        if (hasPhases && currentPhase < phaseMessages.length) {
-            int phaseThreshold = maxHP / phaseMessages.length;
-            if (currentHP < maxHP - (currentPhase * phaseThreshold)) {
-                transitionPhase();
-            }
+        checkPhase();
+    }
+
+    /**
+     * Sets the current HP, the boss enters its next phase if the HP drops below the threshold (battles set HP directly)
+     *
+     * @param currentHP the new current HP value
+     */
+    @Override
+    public void setCurrentHP(int currentHP) {
+        super.setCurrentHP(currentHP);
+        checkPhase();
+    }
+
+    /**
+     * Sets the max HP, the phase thresholds follow the new max HP
+     *
+     * @param maxHP the new maxHP value
+     */
+    @Override
+    public void setMaxHP(int maxHP) {
+        super.setMaxHP(maxHP);
+        if (phaseEngine != null) {
+            phaseEngine.rescale(maxHP);
         }
     }
 
@@ -164,7 +234,7 @@ public class BossEnemy extends Enemy implements Serializable {
      */
     @Override
     public void useSkill() {
-        if (random.nextDouble() < 0.3) { // boss 30% chance cause special attack
+        if (random().nextDouble() < 0.3) { // boss 30% chance cause special attack
             useSpecialAttack();
         } else {
             super.useSkill();
@@ -181,6 +251,18 @@ public class BossEnemy extends Enemy implements Serializable {
         System.out.println("Current phase: " + currentPhase + "/" + phaseMessages.length);
     }
 
+    /**
+     * Saves from before the phase engine get the default phases of their messages
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (phaseEngine == null) {
+            int phase = currentPhase;
+            setPhases(BossPhase.defaults(phaseMessages));
+            setCurrentPhase(phase);
+        }
+    }
+
     /**
      * Return all information about the boss in CSV format.
      * @return CSV of all information about the boss.
@@ -0,0 +1,139 @@
+package entities.enemies;
+
+import java.io.Serializable;
+
+/**
+ * One phase of a {@link BossEnemy}: when it starts (a fraction of the max HP), what the boss says, how its stats change
+ * when it enters the phase and the special attacks it can use in the phase. Phases are immutable, so bosses with the
+ * same phases can share them.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see PhaseEngine
+ */
+public final class BossPhase implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final String[][] DEFAULT_SPECIAL_ATTACKS = {
+            {"Area of effect attack: Caused damage to all enemies!"},
+            {"Summon reinforcements: Summons minions to assist in the battle!"},
+            {"A devastating blow: cause massive damage! Please be careful!"}
+    };
+
+    private final double threshold;
+    private final String message;
+    private final int attackBonus;
+    private final int defenseBonus;
+    private final int speedBonus;
+    private final double heal;
+    private final String[] specialAttacks;
+
+    /**
+     * Instantiates a new phase
+     *
+     * @param threshold      the phase starts when HP drops below this part of the max HP, 0.0 to 1.0
+     * @param message        what the boss says when the phase starts
+     * @param attackBonus    attack added when the phase starts
+     * @param defenseBonus   defense added when the phase starts
+     * @param speedBonus     speed added when the phase starts
+     * @param heal           part of the max HP healed when the phase starts
+     * @param specialAttacks the special attacks of the phase, one is picked at random
+     */
+    public BossPhase(double threshold, String message, int attackBonus, int defenseBonus, int speedBonus, double heal,
+                     String[] specialAttacks) {
+        if (threshold < 0 || threshold > 1) {
+            throw new IllegalArgumentException("Phase threshold must be between 0 and 1: " + threshold);
+        }
+        if (specialAttacks.length == 0) {
+            throw new IllegalArgumentException("A phase needs at least one special attack");
+        }
+        this.threshold = threshold;
+        this.message = message;
+        this.attackBonus = attackBonus;
+        this.defenseBonus = defenseBonus;
+        this.speedBonus = speedBonus;
+        this.heal = heal;
+        this.specialAttacks = specialAttacks.clone();
+    }
+
+    /**
+     * The default phases of a boss: every phase takes the same part of the max HP, entering a phase heals half of
+     * the max HP and adds 10 attack and 5 defense
+     *
+     * @param messages the message of every phase, one per phase
+     * @return the phases, phase 1 first
+     */
+    public static BossPhase[] defaults(String[] messages) {
+        int count = messages.length;
+        BossPhase[] phases = new BossPhase[count];
+        for (int i = 0; i < count; i++) {
+            String[] specials = i < DEFAULT_SPECIAL_ATTACKS.length
+                    ? DEFAULT_SPECIAL_ATTACKS[i] : new String[] {"Powerful attack!"};
+            phases[i] = new BossPhase((double) (count - i) / count, messages[i], 10, 5, 0, 0.5, specials);
+        }
+        return phases;
+    }
+
+    /**
+     * Gets the threshold.
+     *
+     * @return the part of the max HP below which the phase starts
+     */
+    public double getThreshold() { return threshold; }
+
+    /**
+     * Gets the message.
+     *
+     * @return what the boss says when the phase starts
+     */
+    public String getMessage() { return message; }
+
+    /**
+     * Gets the attack bonus.
+     *
+     * @return the attack added when the phase starts
+     */
+    public int getAttackBonus() { return attackBonus; }
+
+    /**
+     * Gets the defense bonus.
+     *
+     * @return the defense added when the phase starts
+     */
+    public int getDefenseBonus() { return defenseBonus; }
+
+    /**
+     * Gets the speed bonus.
+     *
+     * @return the speed added when the phase starts
+     */
+    public int getSpeedBonus() { return speedBonus; }
+
+    /**
+     * Gets the heal.
+     *
+     * @return the part of the max HP healed when the phase starts
+     */
+    public double getHeal() { return heal; }
+
+    /**
+     * Gets the special attacks.
+     *
+     * @return a copy of the special attacks
+     */
+    public String[] getSpecialAttacks() { return specialAttacks.clone(); }
+
+    /**
+     * Gets one special attack.
+     *
+     * @param index the index, wraps around
+     * @return the special attack
+     */
+    public String getSpecialAttack(int index) { return specialAttacks[index % specialAttacks.length]; }
+
+    /**
+     * Gets the number of special attacks.
+     *
+     * @return the number of special attacks
+     */
+    public int getSpecialAttackCount() { return specialAttacks.length; }
+}
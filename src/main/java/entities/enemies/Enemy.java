@@ -1,9 +1,11 @@
 package entities.enemies;
 import entities.abs.BattleUnit;
+import entities.abs.CombatStats;
 import entities.items.Item;
+import util.random.RngService;
 
 import java.io.Serializable;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Represents everything that is an enemy, includes BossEnemy and RegularEnemy
@@ -32,9 +34,9 @@ public class Enemy extends BattleUnit implements Serializable {
      */
     protected Item[] possibleDrops;
     /**
-     * The constant random will be used multiple times in this class
+     * The random generator of this enemy (drops and skills), created on first use and not saved with the enemy
      */
-    protected static final Random random = new Random();
+    protected transient SplittableRandom random;
 
     /**
      * Instantiates a new Enemy with no parameters, with default values
@@ -101,16 +103,36 @@ public class Enemy extends BattleUnit implements Serializable {
      */
     public Item[] getPossibleDrops() { return possibleDrops; }
 
+    /**
+     * Gets the random generator of the enemy, a new one is taken from the enemy stream of the global
+     * {@link RngService} the first time (also after the enemy was loaded from a file)
+     *
+     * @return the random generator
+     */
+    protected SplittableRandom random() {
+        if (random == null) {
+            random = RngService.global().fork(RngService.ENEMY);
+        }
+        return random;
+    }
+
+    /**
+     * Sets the random generator of the enemy, for replays and simulations
+     *
+     * @param random the random generator
+     */
+    public void setRandom(SplittableRandom random) { this.random = random; }
+
     /**
      * Calculate which item is dropped by the enemy, calculation uses drop rate and array of possible drop item
      *
      * @return the item dropped by the enemy
      */
     public Item calculateDrop() {
-        if (random.nextDouble() < dropRate) {
+        if (random().nextDouble() < dropRate) {
             if (possibleDrops.length > 0) {
                 // Choose drops randomly
-                Item drop = possibleDrops[random.nextInt(possibleDrops.length)];
+                Item drop = possibleDrops[random().nextInt(possibleDrops.length)];
                 if (drop != null) {
                     System.out.println(name + " dropped: " + drop.getName());
                     return drop;
@@ -129,14 +151,14 @@ public class Enemy extends BattleUnit implements Serializable {
     public void useSkill() {
         System.out.println(name + " used enemy skill");
         // Randomly choose skill
-        int skillType = random.nextInt(3);
+        int skillType = random().nextInt(3);
         switch (skillType) {
             case 0:
                 System.out.println("Use standard skill");
                 break;
             case 1:
                 System.out.println("Used defense skill");
-                defense += 5;
+                setDefense(defense + 5);
                 break;
             case 2:
                 System.out.println("Used healing skill");
@@ -145,6 +167,16 @@ public class Enemy extends BattleUnit implements Serializable {
         }
     }
 
+    /**
+     * Builds the combat stats of this enemy, enemies have a 5% crit rate and +50% crit damage
+     *
+     * @return the new combat stats
+     */
+    @Override
+    protected CombatStats computeCombatStats() {
+        return new CombatStats(attack, defense, maxHP, speed, 0.05, 0.5);
+    }
+
     /**
      * Sets possible drops of the enemy
      *
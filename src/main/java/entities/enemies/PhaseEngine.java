@@ -0,0 +1,129 @@
+package entities.enemies;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Decides when a {@link BossEnemy} enters its next phase. The HP thresholds of all phases are sorted and turned into
+ * HP values once (again only when the max HP changes), so checking a hit is one comparison with the threshold of the
+ * next phase. Every phase is entered at most once, healing back above a threshold does not start it again.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see BossPhase
+ */
+public final class PhaseEngine implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final BossPhase[] phases;  //phase 1 first, the others by threshold from high to low
+    private final int[] thresholds;    //HP below which phase i + 1 starts, phase 1 has none
+    private int next;                  //index of the next phase
+    private int nextThreshold;         //thresholds[next], or below any HP when there is no next phase
+
+    /**
+     * Instantiates a new engine in phase 1
+     *
+     * @param phases the phases, the first one is where the boss starts, the others are sorted by threshold
+     * @param maxHP  the max HP of the boss
+     */
+    public PhaseEngine(BossPhase[] phases, int maxHP) {
+        if (phases.length == 0) {
+            throw new IllegalArgumentException("A boss needs at least one phase");
+        }
+        this.phases = phases.clone();
+        Arrays.sort(this.phases, 1, this.phases.length,
+                Comparator.comparingDouble(BossPhase::getThreshold).reversed());
+        this.thresholds = new int[phases.length];
+        this.next = 1;
+        rescale(maxHP);
+    }
+
+    /**
+     * Turn the thresholds into HP values for a new max HP, the current phase stays the same
+     *
+     * @param maxHP the max HP of the boss
+     */
+    public void rescale(int maxHP) {
+        for (int i = 1; i < phases.length; i++) {
+            // HP is a whole number, so HP < ceil(t * max) is the same as HP < t * max
+            thresholds[i] = (int) Math.ceil(phases[i].getThreshold() * maxHP);
+        }
+        updateNextThreshold();
+    }
+
+    /**
+     * Checks if the boss should enter its next phase, one comparison
+     *
+     * @param hp the HP of the boss
+     * @return true if HP is below the threshold of the next phase
+     */
+    public boolean shouldAdvance(int hp) {
+        return hp < nextThreshold;
+    }
+
+    /**
+     * Move to the next phase
+     *
+     * @return the phase entered, null if the boss is already in its last phase
+     */
+    public BossPhase advance() {
+        if (next >= phases.length) {
+            return null;
+        }
+        BossPhase phase = phases[next++];
+        updateNextThreshold();
+        return phase;
+    }
+
+    /**
+     * Set the current phase without entering the phases in between (no heal, no stat changes)
+     *
+     * @param phase the phase, from 1 to the phase count
+     */
+    public void skipTo(int phase) {
+        next = Math.max(1, Math.min(phase, phases.length));
+        updateNextThreshold();
+    }
+
+    private void updateNextThreshold() {
+        nextThreshold = next < phases.length ? thresholds[next] : Integer.MIN_VALUE;
+    }
+
+    /**
+     * Checks if there is a phase left.
+     *
+     * @return true if the boss is not in its last phase
+     */
+    public boolean hasNext() { return next < phases.length; }
+
+    /**
+     * Gets the current phase.
+     *
+     * @return the phase number, 1 for the first phase
+     */
+    public int getCurrentPhase() { return next; }
+
+    /**
+     * Gets the number of phases.
+     *
+     * @return the number of phases
+     */
+    public int getPhaseCount() { return phases.length; }
+
+    /**
+     * Gets a phase.
+     *
+     * @param phase the phase number, 1 for the first phase
+     * @return the phase
+     */
+    public BossPhase getPhase(int phase) { return phases[phase - 1]; }
+
+    /**
+     * Gets the HP below which a phase starts.
+     *
+     * @param phase the phase number, 2 or more
+     * @return the HP threshold
+     */
+    public int getThreshold(int phase) { return thresholds[phase - 1]; }
+}
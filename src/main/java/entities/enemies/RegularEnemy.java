@@ -105,7 +105,7 @@ public class RegularEnemy extends Enemy implements Serializable {
 
     @Override
     public void useSkill() {
-        if (isElite && random.nextDouble() < 0.4) { // 40% Chance summon reinforcement
+        if (isElite && random().nextDouble() < 0.4) { // 40% Chance summon reinforcement
             callReinforcements();
         } else {
             super.useSkill();
@@ -3,13 +3,15 @@ package entities.equipment;
 import entities.items.Item;
 import entities.characters.Character;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Represents all equipments in the game. Including relics and light cones.
- * Equipments have the following attributes: required level to equip, slot, stats of equipment (using hashmap).
+ * Equipments have the following attributes: required level to equip, slot, stats of equipment (using a {@link StatBlock}).
+ * The string stat methods are kept for old code, new code should use the {@link StatType} methods.
  * Inherited from {@link Item}, which means they will have shared attributes.
  *
  * @author Shaoyang Chen
@@ -29,9 +31,13 @@ public abstract class Equipment extends Item implements Serializable {
      */
     protected String slot;
     /**
-     * The Stats of the equipment
+     * The Stats of the equipment, one int per stat
      */
-    protected Map<String, Integer> stats;
+    protected StatBlock statBlock;
+    /**
+     * The character wearing this equipment, told when the stats change so its combat stats are built again
+     */
+    protected Character owner;
 
     /**
      * Instantiates a new equipment with default attributes and names
@@ -40,7 +46,7 @@ public abstract class Equipment extends Item implements Serializable {
         super();
         this.requiredLevel = 1;
         this.slot = "Relic";
-        this.stats = new HashMap<>();
+        this.statBlock = new StatBlock();
         this.itemType = "Equipment";
         initializeStats();
     }
@@ -55,7 +61,7 @@ public abstract class Equipment extends Item implements Serializable {
         super(name, 50); // base value = 50
         this.requiredLevel = 1;
         this.slot = slot;
-        this.stats = new HashMap<>();
+        this.statBlock = new StatBlock();
         this.itemType = "Equipment";
         initializeStats();
     }
@@ -101,18 +107,51 @@ public abstract class Equipment extends Item implements Serializable {
     public void setSlot(String slot) { this.slot = slot; }
 
     /**
-     * Gets stats of the equipment in hashmap form
+     * Gets stats of the equipment in hashmap form, this is a copy, use setStat to change a stat
      *
      * @return the stats of the equipment in hashmap form
      */
-    public Map<String, Integer> getStats() { return stats; }
+    public Map<String, Integer> getStats() { return statBlock.toMap(); }
 
     /**
      * Sets stats of the equipment
      *
      * @param stats the stats of the equipment
      */
-    public void setStats(Map<String, Integer> stats) { this.stats = stats; }
+    public void setStats(Map<String, Integer> stats) {
+        this.statBlock = StatBlock.fromMap(stats);
+        statsChanged();
+    }
+
+    /**
+     * Gets the stat block of the equipment
+     *
+     * @return the stat block
+     */
+    public StatBlock getStatBlock() { return statBlock; }
+
+    /**
+     * Gets the character wearing this equipment
+     *
+     * @return the owner, null if nobody wears it
+     */
+    public Character getOwner() { return owner; }
+
+    /**
+     * Sets the character wearing this equipment, set by {@link Character} when it equips or unequips it
+     *
+     * @param owner the owner, null if nobody wears it
+     */
+    public void setOwner(Character owner) { this.owner = owner; }
+
+    /**
+     * Tell the owner that the stats changed
+     */
+    protected void statsChanged() {
+        if (owner != null) {
+            owner.invalidateCombatStats();
+        }
+    }
 
     /**
      * Initialize the stats of the equipment with default values.
@@ -120,12 +159,12 @@ public abstract class Equipment extends Item implements Serializable {
      */
     private void initializeStats() {
         // base attributes
-        stats.put("attack", 10);
-        stats.put("defense", 5);
-        stats.put("hp", 50);
-        stats.put("speed", 5);
-        stats.put("critical_rate", 5); // rate %
-        stats.put("critical_damage", 50); // damage %
+        statBlock.set(StatType.ATTACK, 10);
+        statBlock.set(StatType.DEFENSE, 5);
+        statBlock.set(StatType.HP, 50);
+        statBlock.set(StatType.SPEED, 5);
+        statBlock.set(StatType.CRITICAL_RATE, 5); // rate %
+        statBlock.set(StatType.CRITICAL_DAMAGE, 50); // damage %
     }
 
     /**
@@ -165,7 +204,8 @@ public abstract class Equipment extends Item implements Serializable {
     public void enhance() {
         System.out.println("Enhanced " + name);
         // Base enhance, multiply all attributes by 1.1
-        stats.replaceAll((key, value) -> (int)(value * 1.1));
+        statBlock.scale(1.1);
+        statsChanged();
     }
 
 
@@ -178,7 +218,8 @@ public abstract class Equipment extends Item implements Serializable {
         System.out.println("Enhanced " + name + " to level " + level);
         // enhance using lvls
         double multiplier = 1.0 + (level * 0.05);
-        stats.replaceAll((k, v) -> (int) (v * multiplier));
+        statBlock.scale(multiplier);
+        statsChanged();
     }
 
     /**
@@ -190,9 +231,23 @@ public abstract class Equipment extends Item implements Serializable {
      * @param amount the amount to add on the stat provided
      */
     public void enhance(String stat, int amount) {
-        if (stats.containsKey(stat)) {
-            stats.put(stat, stats.get(stat) + amount);
-            System.out.println(name + "'s " + stat + " increased by " + amount);
+        StatType type = StatType.fromKey(stat);
+        if (type != null) {
+            enhance(type, amount);
+        }
+    }
+
+    /**
+     * Enhance the equipment with provided stat type and amount, only stats the equipment has can be enhanced
+     *
+     * @param stat   the stat to enhance
+     * @param amount the amount to add on the stat provided
+     */
+    public void enhance(StatType stat, int amount) {
+        if (statBlock.has(stat)) {
+            statBlock.set(stat, statBlock.get(stat) + amount);
+            System.out.println(name + "'s " + stat.getKey() + " increased by " + amount);
+            statsChanged();
         }
     }
 
@@ -203,7 +258,18 @@ public abstract class Equipment extends Item implements Serializable {
      * @return the stat value
      */
     public int getStat(String statName) {
-        return stats.getOrDefault(statName, 0);
+        StatType type = StatType.fromKey(statName);
+        return type == null ? 0 : statBlock.get(type);
+    }
+
+    /**
+     * Gets the value of a stat of the equipment
+     *
+     * @param stat the stat to check
+     * @return the stat value, 0 if the equipment does not have it
+     */
+    public int getStat(StatType stat) {
+        return statBlock.get(stat);
     }
 
     /**
@@ -215,11 +281,27 @@ public abstract class Equipment extends Item implements Serializable {
      * @param value    the value
      */
     public void setStat(String statName, int value) {
-        if (stats.containsKey(statName)) {
-            stats.put(statName, value);
+        StatType type = StatType.fromKey(statName);
+        if (type == null) {
+            System.out.println("Stat " + statName + " doesn't exist!");
+            return;
+        }
+        setStat(type, value);
+    }
+
+    /**
+     * Sets the value of a stat, only stats the equipment has can be set
+     *
+     * @param stat  the stat
+     * @param value the value
+     */
+    public void setStat(StatType stat, int value) {
+        if (statBlock.has(stat)) {
+            statBlock.set(stat, value);
+            statsChanged();
             return;
         }
-        System.out.println("Stat " + statName + " doesn't exist!");
+        System.out.println("Stat " + stat.getKey() + " doesn't exist!");
     }
 
     /**
@@ -245,8 +327,10 @@ public abstract class Equipment extends Item implements Serializable {
         System.out.println("Required Level: " + requiredLevel);
         System.out.println("Value: " + value);
         System.out.println("Stats:");
-        for (Map.Entry<String, Integer> entry : stats.entrySet()) {
-            System.out.println("  " + entry.getKey() + ": " + entry.getValue());
+        for (StatType type : StatType.values()) {
+            if (statBlock.has(type)) {
+                System.out.println("  " + type.getKey() + ": " + statBlock.get(type));
+            }
         }
         System.out.println("Description: " + description);
     }
@@ -258,12 +342,32 @@ public abstract class Equipment extends Item implements Serializable {
     @Override
     public String toCSVFormat() {
         StringBuilder sb = new StringBuilder();
-        for (Map.Entry<String, Integer> entry : stats.entrySet()) {
+        for (StatType type : StatType.values()) {
+            if (!statBlock.has(type)) {
+                continue;
+            }
             if (sb.length() > 0) sb.append(";");
-            sb.append(entry.getKey()).append(":").append(entry.getValue());
+            sb.append(type.getKey()).append(":").append(statBlock.get(type));
         }
         String var = "," + requiredLevel + "," + slot + ",\"" + sb.toString().replace("\"", "\"\"") + "\"";
         // expected String for var:   attack:100;defense:50;hp:200   ...etc
         return super.toCSVFormat() + var;
     }
-}
\ No newline at end of file
+
+    /**
+     * Read an equipment from a save. Saves made before the stat block have the stats in a string map,
+     * they are moved to a stat block.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        requiredLevel = fields.get("requiredLevel", 1);
+        slot = (String) fields.get("slot", null);
+        owner = (Character) fields.get("owner", null);
+        statBlock = (StatBlock) fields.get("statBlock", null);
+        if (statBlock == null) {
+            // old save, the stats map is only in the file, not in this class
+            statBlock = StatBlock.fromMap((Map<String, Integer>) fields.get("stats", null));
+        }
+    }
+}
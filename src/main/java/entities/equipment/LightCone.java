@@ -22,8 +22,8 @@ public class LightCone extends Equipment implements Serializable {
         this.abilities[0] = "Increase attack";
         this.abilities[1] = "Increase speed";
         // Lightcone Special Stats / attributes / effects
-        setStat("attack", getStat("attack") + 20);
-        setStat("speed", getStat("speed") + 10);
+        setStat(StatType.ATTACK, getStat(StatType.ATTACK) + 20);
+        setStat(StatType.SPEED, getStat(StatType.SPEED) + 10);
     }
 
     /**
@@ -103,24 +103,24 @@ public class LightCone extends Equipment implements Serializable {
     private void adjustStatsByPath(String path) {
         switch (path) {
             case "The Hunt":
-                setStat("critical_rate", getStat("critical_rate") + 10);
-                setStat("speed", getStat("speed") + 15);
+                setStat(StatType.CRITICAL_RATE, getStat(StatType.CRITICAL_RATE) + 10);
+                setStat(StatType.SPEED, getStat(StatType.SPEED) + 15);
                 break;
             case "Preservation":
-                setStat("defense", getStat("defense") + 30);
-                setStat("hp", getStat("hp") + 100);
+                setStat(StatType.DEFENSE, getStat(StatType.DEFENSE) + 30);
+                setStat(StatType.HP, getStat(StatType.HP) + 100);
                 break;
             case "Destruction":
-                setStat("attack", getStat("attack") + 40);
-                setStat("critical_damage", getStat("critical_damage") + 30);
+                setStat(StatType.ATTACK, getStat(StatType.ATTACK) + 40);
+                setStat(StatType.CRITICAL_DAMAGE, getStat(StatType.CRITICAL_DAMAGE) + 30);
                 break;
             case "Erudition":
-                setStat("attack", getStat("attack") + 25);
-                setStat("effect_hit", 20); // 效果命中
+                setStat(StatType.ATTACK, getStat(StatType.ATTACK) + 25);
+                setStat(StatType.EFFECT_HIT, 20); // 效果命中
                 break;
             case "Harmony":
-                setStat("effect_res", 30); // 效果抵抗
-                setStat("speed", getStat("speed") + 10);
+                setStat(StatType.EFFECT_RES, 30); // 效果抵抗
+                setStat(StatType.SPEED, getStat(StatType.SPEED) + 10);
                 break;
         }
     }
@@ -148,15 +148,15 @@ public class LightCone extends Equipment implements Serializable {
     public void calculateStats() {
         System.out.println("Calculating LightCone Stats...");
         // base calculation
-        int baseAttack = getStat("attack");
-        int baseDefense = getStat("defense");
+        int baseAttack = getStat(StatType.ATTACK);
+        int baseDefense = getStat(StatType.DEFENSE);
         // lvls adjust
         double levelMultiplier = 1.0 + (requiredLevel * 0.02);
-        setStat("attack", (int)(baseAttack * levelMultiplier));
-        setStat("defense", (int)(baseDefense * levelMultiplier));
+        setStat(StatType.ATTACK, (int)(baseAttack * levelMultiplier));
+        setStat(StatType.DEFENSE, (int)(baseDefense * levelMultiplier));
         System.out.println(name + " Final Stats:");
-        System.out.println("Attack: " + getStat("attack"));
-        System.out.println("Defense: " + getStat("defense"));
+        System.out.println("Attack: " + getStat(StatType.ATTACK));
+        System.out.println("Defense: " + getStat(StatType.DEFENSE));
     }
 
     @Override
@@ -1,6 +1,9 @@
 package entities.equipment;
 
 import entities.characters.Character;
+import entities.effects.StatusEffect;
+import entities.effects.StatusEffect.Type;
+import entities.effects.StatusEffects;
 
 import java.io.Serializable;
 
@@ -19,6 +22,12 @@ import java.io.Serializable;
 public class Relic extends Equipment implements Serializable {
     //added serializable, so now people can save items to a file (updated on 2026/1/13 emergency update)
     private static final long serialVersionUID = 1L;
+    // set bonuses are permanent effects, adding one again only refreshes it, so they never stack
+    private static final StatusEffect QUICK_GUNNER_2 = setEffect("Quick Gunner", 2, Type.ATTACK_PERCENT, 0.12);
+    private static final StatusEffect QUICK_GUNNER_4 = setEffect("Quick Gunner", 4, Type.SPEED_PERCENT, 0.06);
+    private static final StatusEffect EXPLORER_2 = setEffect("Explorer", 2, Type.MAX_HP_PERCENT, 0.12);
+    private static final StatusEffect PALADIN_2 = setEffect("Paladin", 2, Type.DEFENSE_PERCENT, 0.15);
+    private static final StatusEffect PALADIN_4 = setEffect("Paladin", 4, Type.DEFENSE_PERCENT, 0.2);
     private String setBonus;
     private int setPiecesRequired;
     private String relicSet; // relic set name
@@ -102,22 +111,22 @@ public class Relic extends Equipment implements Serializable {
      */
     private void initializeRelicStats() {
         // relic attributes
-        setStat("hp_percent", 0); // hp
-        setStat("attack_percent", 0); // attack
-        setStat("defense_percent", 0); // defense
+        setStat(StatType.HP_PERCENT, 0); // hp
+        setStat(StatType.ATTACK_PERCENT, 0); // attack
+        setStat(StatType.DEFENSE_PERCENT, 0); // defense
         // Slot to set type of attribute bonus
         switch (slot) {
             case "Head":
-                setStat("hp", 1000);
+                setStat(StatType.HP, 1000);
                 break;
             case "Arm":
-                setStat("attack", 100);
+                setStat(StatType.ATTACK, 100);
                 break;
             case "Body":
-                setStat("defense", 100);
+                setStat(StatType.DEFENSE, 100);
                 break;
             case "Leg":
-                setStat("speed", 10);
+                setStat(StatType.SPEED, 10);
                 break;
         }
     }
@@ -130,20 +139,20 @@ public class Relic extends Equipment implements Serializable {
     private void adjustStatsBySet(String set) {
         switch (set) {
             case "Explorer":
-                setStat("hp", getStat("hp") + 200);
-                setStat("defense", getStat("defense") + 50);
+                setStat(StatType.HP, getStat(StatType.HP) + 200);
+                setStat(StatType.DEFENSE, getStat(StatType.DEFENSE) + 50);
                 break;
             case "Quick Gunner":
-                setStat("attack", getStat("attack") + 80);
-                setStat("speed", getStat("speed") + 5);
+                setStat(StatType.ATTACK, getStat(StatType.ATTACK) + 80);
+                setStat(StatType.SPEED, getStat(StatType.SPEED) + 5);
                 break;
             case "Paladin":
-                setStat("defense", getStat("defense") + 100);
-                setStat("effect_res", 20);
+                setStat(StatType.DEFENSE, getStat(StatType.DEFENSE) + 100);
+                setStat(StatType.EFFECT_RES, 20);
                 break;
             case "Genius":
-                setStat("attack", getStat("attack") + 60);
-                setStat("effect_hit", 15);
+                setStat(StatType.ATTACK, getStat(StatType.ATTACK) + 60);
+                setStat(StatType.EFFECT_HIT, 15);
                 break;
         }
     }
@@ -200,50 +209,70 @@ public class Relic extends Equipment implements Serializable {
     }
 
     /**
-     * Apply set bonuses, Fast Gunner have extra bonuses.
-     * @param character
-     * @param pieces
+     * Apply set bonuses as permanent status effects, so the base stats of the character do not change and
+     * equipping again does not add the bonus twice. Genius bonuses are damage bonuses, the damage pipeline adds them.
+     * @param character the character
+     * @param pieces the pieces of the set the character has
      */
     private void applySetBonus(Character character, int pieces) {
-        if (relicSet.equals("Fast Gunner")) {
+        StatusEffects effects = character.getStatusEffects();
+        if (relicSet.equals("Quick Gunner")) {
             if (pieces >= 2) {
-                character.setAttack(character.getAttack() + (int)(character.getAttack() * 0.12));
+                effects.add(QUICK_GUNNER_2);
                 System.out.println("Activated Set of 2: Increase attack by 12%");
             }
             if (pieces >= 4) {
-                character.setSpeed(character.getSpeed() + 6);
+                effects.add(QUICK_GUNNER_4);
                 System.out.println("Activated Set of 4: Increase speed by 6%");
             }
         }
         if (relicSet.equals("Explorer")) {
             if (pieces >= 2) {
-                character.setMaxHP(character.getMaxHP() + (int)(character.getMaxHP() * 0.12));
+                effects.add(EXPLORER_2);
                 System.out.println("Activated Set of 2: Increase max HP by 12%");
             }
         }
         if  (relicSet.equals("Paladin")) {
             if (pieces >= 2) {
-                character.setDefense(character.getDefense() + (int)(character.getDefense() * 0.15));
+                effects.add(PALADIN_2);
                 System.out.println("Activated Set of 2: Increase defense by 15%");
             }
             if (pieces >= 4) {
-                character.setDefense(character.getDefense() + (int)(character.getDefense() * 0.2));
+                effects.add(PALADIN_4);
                 System.out.println("Set of 4: Shield effect increase by 20%");
             }
         }
         if (relicSet.equals("Genius")) {
             if (pieces >= 2) {
-                character.setAttack(character.getAttack() + (int)(character.getAttack() * 0.1));
                 System.out.println("Set of 2: Increase Quantum damage by 10%");
             }
             if (pieces >= 4) {
-                character.setAttack(character.getAttack() + (int)(character.getAttack() * 0.11));
                 System.out.println("Set of 4: Ignore 10% of the enemy's defense");
             }
         }
 
     }
 
+    /**
+     * Remove the set bonuses of this relic's set from the character, when no piece of the set is left on it
+     *
+     * @param character the character
+     */
+    public void removeSetBonus(Character character) {
+        StatusEffects effects = character.getStatusEffects();
+        effects.remove(setEffectName(relicSet, 2));
+        effects.remove(setEffectName(relicSet, 4));
+    }
+
+    private static StatusEffect setEffect(String set, int pieces, Type type, double value) {
+        return new StatusEffect(setEffectName(set, pieces), type, value, StatusEffect.PERMANENT,
+                StatusEffect.StackRule.REFRESH);
+    }
+
+    private static String setEffectName(String set, int pieces) {
+        return set + " Set of " + pieces;
+    }
+
     /**
      * Calculate Relic stats using with requiredLevel and each default value
      *
@@ -255,26 +284,26 @@ public class Relic extends Equipment implements Serializable {
         int mainStat = 0;
         switch (slot) {
             case "Head":
-                mainStat = getStat("hp");
-                setStat("hp", (int)(mainStat * (1.0 + requiredLevel * 0.05)));
+                mainStat = getStat(StatType.HP);
+                setStat(StatType.HP, (int)(mainStat * (1.0 + requiredLevel * 0.05)));
                 break;
             case "Arm":
-                mainStat = getStat("attack");
-                setStat("attack", (int)(mainStat * (1.0 + requiredLevel * 0.05)));
+                mainStat = getStat(StatType.ATTACK);
+                setStat(StatType.ATTACK, (int)(mainStat * (1.0 + requiredLevel * 0.05)));
                 break;
             case "Body":
-                mainStat = getStat("defense");
-                setStat("defense", (int)(mainStat * (1.0 + requiredLevel * 0.05)));
+                mainStat = getStat(StatType.DEFENSE);
+                setStat(StatType.DEFENSE, (int)(mainStat * (1.0 + requiredLevel * 0.05)));
                 break;
             case "Leg":
-                mainStat = getStat("speed");
-                setStat("speed", (int)(mainStat * (1.0 + requiredLevel * 0.02)));
+                mainStat = getStat(StatType.SPEED);
+                setStat(StatType.SPEED, (int)(mainStat * (1.0 + requiredLevel * 0.02)));
                 break;
         }
         // random sub attributes (each relic hae main stats and sub stats)
         if (Math.random() < 0.5) {
             int substatValue = requiredLevel * 2;
-            setStat("critical_rate", getStat("critical_rate") + substatValue);
+            setStat(StatType.CRITICAL_RATE, getStat(StatType.CRITICAL_RATE) + substatValue);
             System.out.println("Gain secondary attribute: Critical Hit Rate + " + substatValue);
         }
 
@@ -288,10 +317,10 @@ public class Relic extends Equipment implements Serializable {
      */
     private String getMainStatValue() {
         switch (slot) {
-            case "Head": return "HP: " + getStat("hp");
-            case "Arm": return "Attack: " + getStat("attack");
-            case "Body": return "Defense: " + getStat("defense");
-            case "Leg": return "Speed: " + getStat("speed");
+            case "Head": return "HP: " + getStat(StatType.HP);
+            case "Arm": return "Attack: " + getStat(StatType.ATTACK);
+            case "Body": return "Defense: " + getStat(StatType.DEFENSE);
+            case "Leg": return "Speed: " + getStat(StatType.SPEED);
             default: return "Unknown";
         }
     }
@@ -0,0 +1,155 @@
+package entities.equipment;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The stats of an equipment stored as one int per {@link StatType} and a bit mask of the stats the equipment has,
+ * so reading, changing and scaling stats never hashes a string or boxes a number.
+ * Only the stats the equipment has are saved (the mask and their values), which keeps saves small.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see StatType
+ * @see Equipment
+ */
+public final class StatBlock implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final StatType[] TYPES = StatType.values();
+
+    private transient int[] values;
+    // bit (1 << ordinal) is set for every stat the equipment has
+    private transient int present;
+
+    /**
+     * Instantiates a new empty stat block
+     */
+    public StatBlock() {
+        this.values = new int[TYPES.length];
+        this.present = 0;
+    }
+
+    /**
+     * Build a stat block from the old string map, unknown keys are left out with a message
+     *
+     * @param stats the stats by string key
+     * @return the new stat block
+     */
+    public static StatBlock fromMap(Map<String, Integer> stats) {
+        StatBlock block = new StatBlock();
+        if (stats == null) {
+            return block;
+        }
+        for (Map.Entry<String, Integer> entry : stats.entrySet()) {
+            StatType type = StatType.fromKey(entry.getKey());
+            if (type == null) {
+                System.out.println("Stat " + entry.getKey() + " doesn't exist!");
+                continue;
+            }
+            block.set(type, entry.getValue() == null ? 0 : entry.getValue());
+        }
+        return block;
+    }
+
+    /**
+     * Checks if the equipment has a stat
+     *
+     * @param type the stat
+     * @return true if the stat is in the block
+     */
+    public boolean has(StatType type) {
+        return (present & (1 << type.ordinal())) != 0;
+    }
+
+    /**
+     * Gets the value of a stat
+     *
+     * @param type the stat
+     * @return the value, 0 if the stat is not in the block
+     */
+    public int get(StatType type) {
+        return values[type.ordinal()];
+    }
+
+    /**
+     * Sets the value of a stat, the stat is added if it was not in the block
+     *
+     * @param type  the stat
+     * @param value the value
+     */
+    public void set(StatType type, int value) {
+        values[type.ordinal()] = value;
+        present |= 1 << type.ordinal();
+    }
+
+    /**
+     * Multiply every stat in the block, results are cut to int
+     *
+     * @param multiplier the multiplier
+     */
+    public void scale(double multiplier) {
+        for (int i = 0; i < values.length; i++) {
+            if ((present & (1 << i)) != 0) {
+                values[i] = (int) (values[i] * multiplier);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of stats in the block.
+     *
+     * @return the number of stats
+     */
+    public int size() {
+        return Integer.bitCount(present);
+    }
+
+    /**
+     * Copy the block to a map by string key, in {@link StatType} order (for display and old code)
+     *
+     * @return a new map
+     */
+    public Map<String, Integer> toMap() {
+        Map<String, Integer> map = new LinkedHashMap<>();
+        for (StatType type : TYPES) {
+            if (has(type)) {
+                map.put(type.getKey(), values[type.ordinal()]);
+            }
+        }
+        return map;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(present);
+        for (int i = 0; i < values.length; i++) {
+            if ((present & (1 << i)) != 0) {
+                out.writeInt(values[i]);
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        values = new int[TYPES.length];
+        present = in.readInt();
+        for (int i = 0; i < 32; i++) {
+            if ((present & (1 << i)) != 0) {
+                int value = in.readInt();
+                if (i < values.length) {
+                    values[i] = value;
+                }
+            }
+        }
+        present &= (1 << TYPES.length) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
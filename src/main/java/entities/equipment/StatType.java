@@ -0,0 +1,61 @@
+package entities.equipment;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * All stats an equipment can have. Every stat keeps its old string key, so code and files that still use the
+ * string names ("attack", "critical_rate" ...) keep working.
+ * The order of the constants is used when equipment is saved, new stats must be added at the end.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see StatBlock
+ * @see Equipment
+ */
+public enum StatType {
+    ATTACK("attack"),
+    DEFENSE("defense"),
+    HP("hp"),
+    SPEED("speed"),
+    /** Critical hit rate in %. */
+    CRITICAL_RATE("critical_rate"),
+    /** Critical damage in %. */
+    CRITICAL_DAMAGE("critical_damage"),
+    EFFECT_HIT("effect_hit"),
+    EFFECT_RES("effect_res"),
+    HP_PERCENT("hp_percent"),
+    ATTACK_PERCENT("attack_percent"),
+    DEFENSE_PERCENT("defense_percent");
+
+    private static final Map<String, StatType> BY_KEY = new HashMap<>();
+
+    static {
+        for (StatType type : values()) {
+            BY_KEY.put(type.key, type);
+        }
+    }
+
+    private final String key;
+
+    StatType(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Gets the stat of a string key
+     *
+     * @param key the string key, e.g. "attack"
+     * @return the stat, null if there is no stat with this key
+     */
+    public static StatType fromKey(String key) {
+        return key == null ? null : BY_KEY.get(key);
+    }
+
+    /**
+     * Gets the string key.
+     *
+     * @return the string key, e.g. "attack"
+     */
+    public String getKey() { return key; }
+}
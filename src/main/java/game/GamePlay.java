@@ -4,18 +4,29 @@ import data.CharacterData;
 import data.config.ConfigManager;
 import data.save.GameData;
 import data.save.SaveManager;
+import entities.abs.BattleUnit;
+import entities.abs.BattleUnitListener;
 import entities.characters.Character;
 import entities.characters.FiveStarCharacter;
+import entities.effects.ActiveEffect;
+import entities.effects.EffectWheel;
+import entities.effects.StatusEffect;
 import entities.enemies.BossEnemy;
 import entities.enemies.Enemy;
+import systems.ai.BossPhaseRegistry;
+import systems.ai.EnemyAI;
+import systems.ai.TargetStrategy;
+import systems.ai.ThreatSnapshot;
 import systems.battle.BattleSystem;
 import entities.enemies.RegularEnemy;
 import entities.equipment.Equipment;
 import entities.items.Item;
-import systems.battle.Damage;
+import systems.battle.DamagePipeline;
+import systems.gacha.BannerRegistry;
 import systems.gacha.GachaSystem;
 import systems.inventory.Inventory;
 import util.fileio.FileHandler;
+import util.random.RngService;
 
 import java.util.*;
 
@@ -36,8 +47,52 @@ public class GamePlay {
     private SaveManager saveManager;
     private Scanner scanner;
     private boolean gameRunning;
-    private Random random;
+    private SplittableRandom random;
     private BattleSystem battleSystem;
+    private DamagePipeline damagePipeline;  //same damage as the battle system
+    private EnemyAI enemyAI;  //picks the targets of the enemies
+    private BossPhaseRegistry bossPhases;  //boss phases from the config
+    // prints what a boss says when it enters a new phase, the boss decides when
+    private final BattleUnitListener phaseAnnouncer = new BattleUnitListener() {
+        @Override
+        public void onSpeedChanged(BattleUnit unit, int oldSpeed) {
+        }
+
+        @Override
+        public void onDefeated(BattleUnit unit) {
+        }
+
+        @Override
+        public void onPhaseChanged(BattleUnit unit, int phase) {
+            BossEnemy boss = (BossEnemy) unit;
+            System.out.println(boss.getPhaseMessages()[phase - 1]);
+            System.out.println(boss.getName() + " entering Phase " + phase + "!");
+            System.out.println("Heal HP and added attack and defense");
+        }
+    };
+    // every character in a battle heals 5% of its max HP at the end of each turn
+    private static final StatusEffect REGENERATION = new StatusEffect("Regeneration",
+            StatusEffect.Type.HEAL_OVER_TIME, 0.05, StatusEffect.PERMANENT, StatusEffect.StackRule.REFRESH);
+    // prints what the status effects did at the end of a turn
+    private final EffectWheel.Listener effectPrinter = new EffectWheel.Listener() {
+        @Override
+        public void onTick(ActiveEffect effect, int amount) {
+            if (amount <= 0) {
+                return;
+            }
+            String name = effect.getHolder().getName();
+            if (effect.getEffect().getType() == StatusEffect.Type.HEAL_OVER_TIME) {
+                System.out.println(name + " recovered " + amount + " HP at end of turn");
+            } else {
+                System.out.println(name + " lost " + amount + " HP to " + effect.getEffect().getName());
+            }
+        }
+
+        @Override
+        public void onExpired(ActiveEffect effect) {
+            System.out.println(effect.getEffect().getName() + " on " + effect.getHolder().getName() + " wore off");
+        }
+    };
     private static final String LOGO =
             "╔═══════════════════════════════════════════════════════════════╗\n" +
                     "║         ███████╗████████╗ █████╗ ██████╗  █████╗ ██╗██╗       ║\n" +
@@ -56,14 +111,25 @@ public class GamePlay {
     public GamePlay() {
         this.scanner = new Scanner(System.in);
         this.gameRunning = true;
-        this.random = new Random();
         this.fileHandler = new FileHandler();
         this.configManager = new ConfigManager();
-        this.gachaSystem = new GachaSystem();
+        // a fixed seed in the config makes every run replay the same random numbers
+        if (configManager.containsProperty("game.rng_seed")) {
+            RngService.setGlobal(new RngService(configManager.getIntProperty("game.rng_seed")));
+        }
+        this.random = RngService.global().fork(RngService.GAME);
+        BannerRegistry bannerRegistry = new BannerRegistry(configManager);
+        this.gachaSystem = new GachaSystem(bannerRegistry.getBannerOrStandard(
+                configManager.getProperty("gacha.active_banner", BannerRegistry.STANDARD_ID)));
         this.playerInventory = new Inventory(1000);
         this.saveManager = new SaveManager();
         this.currentGameData = new GameData();
         this.battleSystem = new BattleSystem();
+        this.damagePipeline = battleSystem.getDamagePipeline();
+        this.enemyAI = new EnemyAI();
+        enemyAI.setTargetStrategy(TargetStrategy.RANDOM);
+        enemyAI.setRandom(random);
+        this.bossPhases = new BossPhaseRegistry(configManager);
 
         loadGameData();
         System.out.println("Game initialized!");
@@ -516,8 +582,12 @@ public class GamePlay {
         }
         pause(2);
         List<Enemy> enemies = createEnemies(difficulty);
+        bossPhases.apply(enemies);
         System.out.println("\nEnemies encountered:");
         for (Enemy enemy : enemies) {
+            if (enemy instanceof BossEnemy) {
+                enemy.addListener(phaseAnnouncer);
+            }
             System.out.println("  - " + enemy.getName() + " (HP: " +
                     enemy.getCurrentHP() + "/" + enemy.getMaxHP() + ")");
         }
@@ -526,6 +596,11 @@ public class GamePlay {
 
         // Initialize battle
         battleSystem.initializeBattle(selectedChars, enemies);
+        EffectWheel effects = battleSystem.getEffectWheel();
+        effects.setListener(effectPrinter);
+        for (Character character : selectedChars) {
+            effects.apply(character, REGENERATION);
+        }
         // Start loop and change status
         boolean battleInProgress = true;
         int turnCount = 1;
@@ -556,7 +631,7 @@ public class GamePlay {
                             // For simplicity, apply damage to first alive enemy
                             Enemy target = getFirstAliveEnemy(enemies);
                             if (target != null) {
-                                int damage = calculatePlayerDamage(character, target);
+                                int damage = damagePipeline.hit(character, target, 1);
                                 target.takeDamage(damage);
                                 System.out.println(character.getName() + " used skill on " +
                                         target.getName() + " for " + damage + " damage!");
@@ -567,7 +642,7 @@ public class GamePlay {
                                 ((FiveStarCharacter) character).useUltimate();
                                 Enemy ultTarget = getFirstAliveEnemy(enemies);
                                 if (ultTarget != null) {
-                                    int damage = character.getAttack() * 7;
+                                    int damage = damagePipeline.hit(character, ultTarget, 2);
                                     ultTarget.takeDamage(damage);
                                     System.out.println(character.getName() + "'s ultimate hit " +
                                             ultTarget.getName() + " for " + damage + " damage!");
@@ -593,15 +668,17 @@ public class GamePlay {
             }
 
             System.out.println("\n=== ENEMY TURN ===");
+            // the characters are scored once, every enemy picks from the same snapshot
+            ThreatSnapshot threats = ThreatSnapshot.of(selectedChars);
             // Enemies take action
             for (Enemy enemy : enemies) {
                 if (enemy.isAlive()) {
                     System.out.println("\n" + enemy.getName() + "'s turn:");
                     enemy.useSkill();
                     // Enemy attacks a random player character
-                    Character target = getRandomAliveCharacter(selectedChars);
+                    Character target = (Character) enemyAI.selectTarget(threats);
                     if (target != null) {
-                        int damage = calculateEnemyDamage(enemy, target);
+                        int damage = damagePipeline.hit(enemy, target, 0);
                         target.takeDamage(damage);
                         System.out.println(enemy.getName() + " attacked " +
                                 target.getName() + " for " + damage + " damage!");
@@ -620,17 +697,7 @@ public class GamePlay {
                 }
             }
 
-            // Check for phase change (for boss enemies)
-            for (Enemy enemy : enemies) {
-                if (enemy instanceof BossEnemy) {
-                    BossEnemy boss = (BossEnemy) enemy;
-                    // Boss automatic phase change
-                    if (boss.hasPhases() && boss.getCurrentHP() < boss.getMaxHP() / 2) {
-                        boss.transitionPhase();
-                    }
-                }
-            }
-            applyEndOfTurnEffects(selectedChars);
+            applyEndOfTurnEffects();
 
             turnCount++;
 
@@ -640,6 +707,10 @@ public class GamePlay {
 
         // Battle result
         boolean victory = checkBattleEnd(enemies);
+        effects.clear();  //battle effects do not follow the characters out
+        for (Enemy enemy : enemies) {
+            enemy.removeListener(phaseAnnouncer);
+        }
 
         if (victory) {
             System.out.println("\n=== BATTLE VICTORY! ===");
@@ -750,7 +821,13 @@ public class GamePlay {
         return false;
     }
 
-    private List<Enemy> createEnemies(int difficulty) {
+    /**
+     * Creates the enemies of a battle difficulty, also used by the battle sweeps
+     *
+     * @param difficulty 1 easy, 2 normal, 3 hard
+     * @return the new enemies
+     */
+    public static List<Enemy> createEnemies(int difficulty) {
         List<Enemy> enemies = new ArrayList<>();
 
         switch (difficulty) {
@@ -803,7 +880,7 @@ public class GamePlay {
     private void performBasicAttack(Character attacker, List<Enemy> enemies) {
         Enemy target = getFirstAliveEnemy(enemies);
         if (target != null) {
-            int damage = calculatePlayerDamage(attacker, target);
+            int damage = damagePipeline.hit(attacker, target, 0);
             target.takeDamage(damage);
             System.out.println(attacker.getName() + " attacked " +
                     target.getName() + " for " + damage + " damage!");
@@ -814,19 +891,6 @@ public class GamePlay {
         }
     }
 
-    private int calculatePlayerDamage(Character attacker, Enemy defender) {
-        double critRate = 0.05; // Base 5% crit rate
-        double critDamage = 0.5; // Base 50% crit damage
-        // ex damage caused by equipments and items are calc here
-        return Damage.compute(attacker.getAttack(), defender.getDefense(), critRate, critDamage);
-    }
-
-    private int calculateEnemyDamage(Enemy attacker, Character defender) {
-        double critRate = 0.05;
-        double critDamage = 0.5;
-        return Damage.compute(attacker.getAttack(), defender.getDefense(), critRate, critDamage);
-    }
-
     private Enemy getFirstAliveEnemy(List<Enemy> enemies) {
         for (Enemy enemy : enemies) {
             if (enemy.isAlive()) {
@@ -836,22 +900,6 @@ public class GamePlay {
         return null;
     }
 
-    private Character getRandomAliveCharacter(List<Character> characters) {
-        List<Character> aliveCharacters = new ArrayList<>();
-        for (Character character : characters) {
-            if (character.isAlive()) {
-                aliveCharacters.add(character);
-            }
-        }
-
-        if (aliveCharacters.isEmpty()) {
-            return null;
-        }
-
-        int index = random.nextInt(aliveCharacters.size());
-        return aliveCharacters.get(index);
-    }
-
     private boolean checkBattleEnd(List<?> team) {
         if (team.get(0) instanceof Enemy) {
             List<Enemy> enemies = (List<Enemy>) team;
@@ -873,19 +921,9 @@ public class GamePlay {
         return false;
     }
 
-    private void applyEndOfTurnEffects(List<Character> characters) {
-        // Apply small end-of-turn healing to alive characters
-        for (Character character : characters) {
-            if (character.isAlive()) {
-                int healAmount = character.getMaxHP() / 20; // 5% healing per turn
-                int newHP = Math.min(character.getCurrentHP() + healAmount, character.getMaxHP());
-                if (newHP > character.getCurrentHP()) {
-                    character.setCurrentHP(newHP);
-                    System.out.println(character.getName() + " recovered " +
-                            (newHP - character.getCurrentHP()) + " HP at end of turn");
-                }
-            }
-        }
+    // status effects tick and expire through the wheel, only the effects due this turn are looked at
+    private void applyEndOfTurnEffects() {
+        battleSystem.getEffectWheel().advance();
     }
     
     // the old battle system, which just do simulations based on character rarity, level and difficulties selected by the player
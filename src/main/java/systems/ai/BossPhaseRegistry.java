@@ -0,0 +1,136 @@
+package systems.ai;
+
+import data.config.ConfigManager;
+import entities.enemies.BossEnemy;
+import entities.enemies.BossPhase;
+import entities.enemies.Enemy;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads the phases of bosses from the game config once and gives them to the bosses of a battle by name.
+ * A phase that leaves a key out uses the default (the threshold splits the HP evenly, heal 0.5, attack +10,
+ * defense +5, speed +0), special attacks are comma separated:
+ * <pre>
+ * boss.ids=cocolia
+ * boss.cocolia.name=Cocolia, Mother of Deception
+ * boss.cocolia.phases=3
+ * boss.cocolia.phase.2.threshold=0.6
+ * boss.cocolia.phase.2.message=Cocolia: The cold will take you!
+ * boss.cocolia.phase.2.attack=20
+ * boss.cocolia.phase.2.speed=10
+ * boss.cocolia.phase.2.special_attacks=Ice storm: Freezes every enemy!,Summon reinforcements: Silvermane Guards join!
+ * </pre>
+ * Bosses without an entry keep the phases they were made with. Phases are immutable, so the registry can be shared.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see BossPhase
+ * @see ConfigManager
+ */
+public class BossPhaseRegistry {
+    /** Config key with the list of boss ids. */
+    public static final String BOSSES_KEY = "boss.ids";
+    /** Prefix of the config keys of one boss, followed by the boss id. */
+    public static final String BOSS_PREFIX = "boss.";
+
+    private final Map<String, BossPhase[]> phasesByName;
+
+    /**
+     * Instantiates a new empty registry, every boss keeps its default phases
+     */
+    public BossPhaseRegistry() {
+        phasesByName = new LinkedHashMap<>();
+    }
+
+    /**
+     * Instantiates a new registry and loads every boss listed in the config.
+     * A boss with a broken definition is skipped with an error message.
+     *
+     * @param config the game config
+     */
+    public BossPhaseRegistry(ConfigManager config) {
+        this();
+        for (String id : config.getListProperty(BOSSES_KEY)) {
+            String prefix = BOSS_PREFIX + id + ".";
+            try {
+                phasesByName.put(config.getProperty(prefix + "name", id), loadPhases(config, prefix));
+            } catch (IllegalArgumentException ex) {
+                // NumberFormatException is an IllegalArgumentException too
+                System.err.println("Could not load boss phases of " + id + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Build the phases of one boss from the config
+     * @param config the game config
+     * @param prefix the keys of the boss
+     * @return the phases, phase 1 first
+     */
+    private BossPhase[] loadPhases(ConfigManager config, String prefix) {
+        int count = config.getIntProperty(prefix + "phases", 3);
+        if (count < 1) {
+            throw new IllegalArgumentException("A boss needs at least one phase");
+        }
+        String name = config.getProperty(prefix + "name", "Boss");
+        String[] messages = new String[count];
+        for (int i = 0; i < count; i++) {
+            messages[i] = name + " Phase " + (i + 1) + " form.";
+        }
+        BossPhase[] defaults = BossPhase.defaults(messages);
+        BossPhase[] phases = new BossPhase[count];
+        for (int i = 0; i < count; i++) {
+            String key = prefix + "phase." + (i + 1) + ".";
+            BossPhase base = defaults[i];
+            String[] specials = config.getListProperty(key + "special_attacks");
+            phases[i] = new BossPhase(
+                    config.getDoubleProperty(key + "threshold", base.getThreshold()),
+                    config.getProperty(key + "message", base.getMessage()),
+                    config.getIntProperty(key + "attack", base.getAttackBonus()),
+                    config.getIntProperty(key + "defense", base.getDefenseBonus()),
+                    config.getIntProperty(key + "speed", base.getSpeedBonus()),
+                    config.getDoubleProperty(key + "heal", base.getHeal()),
+                    specials.length == 0 ? base.getSpecialAttacks() : specials);
+        }
+        return phases;
+    }
+
+    /**
+     * Give the configured phases to the bosses in a list of enemies
+     *
+     * @param enemies the enemies of a battle
+     */
+    public void apply(List<? extends Enemy> enemies) {
+        for (Enemy enemy : enemies) {
+            if (enemy instanceof BossEnemy) {
+                BossPhase[] phases = phasesByName.get(enemy.getName());
+                if (phases != null) {
+                    ((BossEnemy) enemy).setPhases(phases);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the phases of a boss by name
+     *
+     * @param name the name of the boss
+     * @return the phases, or null if the config has no phases for this boss
+     */
+    public BossPhase[] getPhases(String name) {
+        BossPhase[] phases = phasesByName.get(name);
+        return phases == null ? null : phases.clone();
+    }
+
+    /**
+     * Gets the names of all configured bosses, in the order they were loaded.
+     *
+     * @return the boss names
+     */
+    public Set<String> getBossNames() { return Collections.unmodifiableSet(phasesByName.keySet()); }
+}
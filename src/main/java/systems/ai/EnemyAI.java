@@ -1,7 +1,9 @@
 package systems.ai;
 import entities.enemies.Enemy;
 import entities.abs.BattleUnit;
+import util.random.RngService;
 import java.util.List;
+import java.util.SplittableRandom;
 
 /**
  * The enemy AI responsible for the enemies actions
@@ -12,6 +14,8 @@ public class EnemyAI {
     private Enemy controlledEnemy;
     private int aggressionLevel;     //0: defensive, 1: balanced, 2: aggressive (set to 1 by default)
     private String[] behaviorPatterns;
+    private SplittableRandom rng;    //used by the RANDOM strategy
+    private TargetStrategy targetStrategy;  //first behavior pattern, looked up once
 
     /**
      * Instantiates a new Enemy ai
@@ -20,6 +24,8 @@ public class EnemyAI {
         this.controlledEnemy = null;
         this.aggressionLevel = 1;
         this.behaviorPatterns = new String[] { "HIGHEST_THREAT"};
+        this.targetStrategy = TargetStrategy.HIGHEST_THREAT;
+        this.rng = RngService.global().fork(RngService.AI);
     }
 
     /**
@@ -31,6 +37,17 @@ public class EnemyAI {
         this.controlledEnemy = enemy;
         this.aggressionLevel = 1;
         this.behaviorPatterns = new String[] { "HIGHEST_THREAT"};
+        this.targetStrategy = TargetStrategy.HIGHEST_THREAT;
+        this.rng = RngService.global().fork(RngService.AI);
+    }
+
+    /**
+     * Sets the random generator used for random targets, for replays and simulations
+     *
+     * @param rng the random generator
+     */
+    public void setRandom(SplittableRandom rng) {
+        this.rng = rng;
     }
 
     /**
@@ -82,6 +99,11 @@ public class EnemyAI {
      */
     public void setBehaviorPatterns(String[] patterns) {
         this.behaviorPatterns = patterns;
+        if (patterns != null && patterns.length > 0) {
+            this.targetStrategy = TargetStrategy.fromName(patterns[0]);
+        } else {
+            this.targetStrategy = TargetStrategy.HIGHEST_THREAT;
+        }
     }
 
     /**
@@ -125,6 +147,8 @@ public class EnemyAI {
 
     /**
      * Select target battle unit.
+     * Scores the targets for this call only, when many enemies pick from the same targets in a turn use
+     * {@link #selectTarget(ThreatSnapshot)} with one shared snapshot instead.
      *
      * @param targets the targets
      * @return the battle unit
@@ -133,73 +157,38 @@ public class EnemyAI {
         if (targets == null || targets.isEmpty()) {
             return null;
         }
+        return selectTarget(ThreatSnapshot.of(targets));
+    }
 
-        String strategy; 
-        if (behaviorPatterns != null && behaviorPatterns.length > 0) {
-            strategy = behaviorPatterns[0];
-        } else {
-            strategy = "HIGHEST_THREAT";
-        }
-        if ("LOWEST_HP".equalsIgnoreCase(strategy)) {
-            return pickLowestHp(targets);
-        }
-        if ("RANDOM".equalsIgnoreCase(strategy)) {
-            return pickRandomAlive(targets);
-        }
+    /**
+     * Select a target from targets that were already scored this turn
+     *
+     * @param targets the scored targets
+     * @return the battle unit, null if every target is defeated
+     */
+    public BattleUnit selectTarget(ThreatSnapshot targets) {
+        return targetStrategy.select(targets, rng);
+    }
 
-        BattleUnit best = null;
-        int bestScore = Integer.MIN_VALUE;
-
-        for (int i = 0; i < targets.size(); i++) {
-            BattleUnit t = targets.get(i);
-            if (t == null) {
-                continue;
-            }
-            if (!t.isAlive()) {
-                continue;
-            }
-            int score = evaluateThreat(t);
-            if (score > bestScore) {
-                bestScore = score;
-                best = t;
-            }
-        }
-        return best;
-    }
-    //helper 1
-    private BattleUnit pickLowestHp(java.util.List<BattleUnit> targets) {
-        BattleUnit best = null;
-        int minHp = Integer.MAX_VALUE;
-        for (int i =0; i < targets.size(); i++) {
-            BattleUnit t = targets.get(i);
-            if (t == null) {
-                continue;
-            }
-            if (!t.isAlive()) {
-                continue;
-            }
-            int hp = t.getCurrentHP();
-            if (hp < minHp) {
-                minHp = hp;
-                best = t;
-            }
-        }
-        return best;
-    }
-    //helper 2
-    private BattleUnit pickRandomAlive(java.util.List<BattleUnit> targets) {
-        java.util.ArrayList<BattleUnit> pool = new java.util.ArrayList<>();
-        for (int i = 0; i < targets.size(); i++) {
-            BattleUnit t = targets.get(i);
-            if (t != null && t.isAlive()) {
-                pool.add(t);
-            }
-        }
-        if (pool.isEmpty()) {
-            return null;
-        }
-        int idx = (int) (Math.random() *pool.size());
-        return pool.get(idx);
+    /**
+     * Gets the strategy used to pick targets (from the first behavior pattern)
+     *
+     * @return the target strategy
+     */
+    public TargetStrategy getTargetStrategy() {
+        return targetStrategy;
+    }
+
+    /**
+     * Sets the strategy used to pick targets, the first behavior pattern becomes its name
+     *
+     * @param strategy the target strategy
+     */
+    public void setTargetStrategy(TargetStrategy strategy) {
+        String[] patterns = behaviorPatterns == null || behaviorPatterns.length == 0
+                ? new String[1] : behaviorPatterns.clone();
+        patterns[0] = strategy.name();
+        setBehaviorPatterns(patterns);
     }
 
     /**
@@ -209,6 +198,16 @@ public class EnemyAI {
      * @return the threart level
      */
     public int evaluateThreat(BattleUnit unit) {
+        return threatOf(unit);
+    }
+
+    /**
+     * The threat score of a unit: attack counts double, speed and missing HP add to it, defense takes off a bit
+     *
+     * @param unit the unit
+     * @return the threat level, Integer.MIN_VALUE for null or defeated units
+     */
+    static int threatOf(BattleUnit unit) {
         if (unit == null) {
             return Integer.MIN_VALUE;
         }
@@ -0,0 +1,78 @@
+package systems.ai;
+
+import entities.abs.BattleUnit;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * How an enemy picks its target from a {@link ThreatSnapshot}. The name in the behavior patterns of an
+ * {@link EnemyAI} is turned into a strategy once, so picking a target never compares strings.
+ * A new strategy is a new constant here.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see EnemyAI#setBehaviorPatterns(String[])
+ */
+public enum TargetStrategy {
+    /** The target with the highest threat score (the default). */
+    HIGHEST_THREAT {
+        @Override
+        public BattleUnit select(ThreatSnapshot targets, SplittableRandom rng) {
+            return targets.highestThreat();
+        }
+    },
+    /** The target with the lowest HP. */
+    LOWEST_HP {
+        @Override
+        public BattleUnit select(ThreatSnapshot targets, SplittableRandom rng) {
+            return targets.lowestHp();
+        }
+    },
+    /** Any alive target. */
+    RANDOM {
+        @Override
+        public BattleUnit select(ThreatSnapshot targets, SplittableRandom rng) {
+            return targets.random(rng);
+        }
+    },
+    /** The first alive target, every enemy focuses the same unit. */
+    FIRST_ALIVE {
+        @Override
+        public BattleUnit select(ThreatSnapshot targets, SplittableRandom rng) {
+            return targets.firstAlive();
+        }
+    };
+
+    private static final Map<String, TargetStrategy> BY_NAME = new HashMap<>();
+
+    static {
+        for (TargetStrategy strategy : values()) {
+            BY_NAME.put(strategy.name(), strategy);
+        }
+    }
+
+    /**
+     * Pick a target
+     *
+     * @param targets the scored targets
+     * @param rng     the random generator, only used by RANDOM
+     * @return the target, null if every target is defeated
+     */
+    public abstract BattleUnit select(ThreatSnapshot targets, SplittableRandom rng);
+
+    /**
+     * Gets the strategy with a name, not case sensitive
+     *
+     * @param name the name, e.g. "LOWEST_HP"
+     * @return the strategy, HIGHEST_THREAT if the name is unknown or null
+     */
+    public static TargetStrategy fromName(String name) {
+        if (name == null) {
+            return HIGHEST_THREAT;
+        }
+        return BY_NAME.getOrDefault(name.toUpperCase(Locale.ROOT), HIGHEST_THREAT);
+    }
+}
@@ -0,0 +1,103 @@
+package systems.ai;
+
+import entities.abs.BattleUnit;
+import entities.characters.PlayableCharacter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+//check the target strategies and compare scoring per enemy with one shared snapshot per turn, for debug only
+public class TestEnemyAI {
+    private static final int TURNS = 1_000_000;
+    private static final int ENEMIES = 8;
+
+    public static void main(String[] args) {
+        System.out.println("===== ENEMY AI TEST =====\n");
+        SplittableRandom statRandom = new SplittableRandom(3L);
+        List<BattleUnit> team = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            PlayableCharacter member = new PlayableCharacter("Member " + i, 1 + statRandom.nextInt(30), true);
+            member.setCurrentHP(1 + statRandom.nextInt(member.getMaxHP()));
+            team.add(member);
+        }
+        team.add(null);
+
+        EnemyAI ai = new EnemyAI();
+        for (String name : new String[] {"HIGHEST_THREAT", "lowest_hp", "FIRST_ALIVE", "SOMETHING_ELSE"}) {
+            ai.setBehaviorPatterns(new String[] {name});
+            BattleUnit target = ai.selectTarget(team);
+            System.out.println(name + " -> " + ai.getTargetStrategy() + ": " + target.getName());
+        }
+        System.out.println("Highest threat matches scan: "
+                + (TargetStrategy.HIGHEST_THREAT.select(ThreatSnapshot.of(team), null) == scanHighestThreat(team)));
+
+        // same seed gives the same random targets as the old list based pick
+        ai.setTargetStrategy(TargetStrategy.RANDOM);
+        ai.setRandom(new SplittableRandom(9L));
+        SplittableRandom oldRandom = new SplittableRandom(9L);
+        ThreatSnapshot snapshot = ThreatSnapshot.of(team);
+        boolean same = true;
+        for (int i = 0; i < 1000; i++) {
+            same &= ai.selectTarget(snapshot) == oldPickRandom(team, oldRandom);
+        }
+        team.get(1).setCurrentHP(0);  //defeated during the turn, never picked again
+        for (int i = 0; i < 1000; i++) {
+            BattleUnit picked = ai.selectTarget(snapshot);
+            same &= picked == oldPickRandom(team, oldRandom) && picked.isAlive();
+        }
+        System.out.println("Random matches old pick: " + same);
+        team.get(1).setCurrentHP(team.get(1).getMaxHP());
+        System.out.println();
+
+        ai.setTargetStrategy(TargetStrategy.HIGHEST_THREAT);
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            long check = 0;
+            for (int turn = 0; turn < TURNS; turn++) {
+                for (int enemy = 0; enemy < ENEMIES; enemy++) {
+                    check += ai.selectTarget(team).getSpeed();
+                }
+            }
+            double perEnemy = (System.nanoTime() - start) / 1e9;
+            start = System.nanoTime();
+            long checkShared = 0;
+            for (int turn = 0; turn < TURNS; turn++) {
+                ThreatSnapshot threats = ThreatSnapshot.of(team);
+                for (int enemy = 0; enemy < ENEMIES; enemy++) {
+                    checkShared += ai.selectTarget(threats).getSpeed();
+                }
+            }
+            double shared = (System.nanoTime() - start) / 1e9;
+            if (round == 2) {
+                System.out.printf("%d turns x %d enemies: scored per enemy %.2f s, shared snapshot %.2f s%n",
+                        TURNS, ENEMIES, perEnemy, shared);
+                System.out.println("Same targets: " + (check == checkShared));
+            }
+        }
+    }
+
+    private static BattleUnit scanHighestThreat(List<BattleUnit> targets) {
+        EnemyAI ai = new EnemyAI();
+        BattleUnit best = null;
+        int bestScore = Integer.MIN_VALUE;
+        for (BattleUnit unit : targets) {
+            int score = ai.evaluateThreat(unit);
+            if (unit != null && unit.isAlive() && score > bestScore) {
+                bestScore = score;
+                best = unit;
+            }
+        }
+        return best;
+    }
+
+    private static BattleUnit oldPickRandom(List<BattleUnit> targets, SplittableRandom rng) {
+        List<BattleUnit> pool = new ArrayList<>();
+        for (BattleUnit unit : targets) {
+            if (unit != null && unit.isAlive()) {
+                pool.add(unit);
+            }
+        }
+        return pool.isEmpty() ? null : pool.get(rng.nextInt(pool.size()));
+    }
+}
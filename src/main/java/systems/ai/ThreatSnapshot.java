@@ -0,0 +1,171 @@
+package systems.ai;
+
+import entities.abs.BattleUnit;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The targets of one side scored once at the start of a turn, so every enemy of the other side can pick its target
+ * from the same view instead of scoring every target again.
+ * The scores, HP and order are fixed when the snapshot is made; only whether a unit is still alive is checked when a
+ * target is picked, so a unit defeated earlier in the turn is never picked. Picking a target makes no objects.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see EnemyAI#selectTarget(ThreatSnapshot)
+ * @see TargetStrategy
+ */
+public final class ThreatSnapshot {
+    private final BattleUnit[] units;
+    private final int[] threat;
+    private final int[] hp;
+    private final int highestThreat;
+    private final int lowestHp;
+
+    private ThreatSnapshot(BattleUnit[] units, int[] threat, int[] hp, int highestThreat, int lowestHp) {
+        this.units = units;
+        this.threat = threat;
+        this.hp = hp;
+        this.highestThreat = highestThreat;
+        this.lowestHp = lowestHp;
+    }
+
+    /**
+     * Score the alive units of a list, null and defeated units are left out
+     *
+     * @param targets the targets
+     * @return the new snapshot
+     */
+    public static ThreatSnapshot of(List<? extends BattleUnit> targets) {
+        int count = 0;
+        for (BattleUnit unit : targets) {
+            if (unit != null && unit.isAlive()) {
+                count++;
+            }
+        }
+        BattleUnit[] units = new BattleUnit[count];
+        int[] threat = new int[count];
+        int[] hp = new int[count];
+        int highestThreat = -1;
+        int lowestHp = -1;
+        int i = 0;
+        for (BattleUnit unit : targets) {
+            if (unit == null || !unit.isAlive()) {
+                continue;
+            }
+            units[i] = unit;
+            threat[i] = EnemyAI.threatOf(unit);
+            hp[i] = unit.getCurrentHP();
+            // first one wins a tie, same as the old scan
+            if (highestThreat < 0 || threat[i] > threat[highestThreat]) {
+                highestThreat = i;
+            }
+            if (lowestHp < 0 || hp[i] < hp[lowestHp]) {
+                lowestHp = i;
+            }
+            i++;
+        }
+        return new ThreatSnapshot(units, threat, hp, highestThreat, lowestHp);
+    }
+
+    /**
+     * Gets the alive target with the highest threat score
+     *
+     * @return the target, null if every target is defeated
+     */
+    public BattleUnit highestThreat() {
+        if (highestThreat >= 0 && units[highestThreat].isAlive()) {
+            return units[highestThreat];
+        }
+        return best(threat, true);
+    }
+
+    /**
+     * Gets the alive target with the lowest HP (HP at the time of the snapshot)
+     *
+     * @return the target, null if every target is defeated
+     */
+    public BattleUnit lowestHp() {
+        if (lowestHp >= 0 && units[lowestHp].isAlive()) {
+            return units[lowestHp];
+        }
+        return best(hp, false);
+    }
+
+    /**
+     * Gets the first alive target in the order of the list
+     *
+     * @return the target, null if every target is defeated
+     */
+    public BattleUnit firstAlive() {
+        for (BattleUnit unit : units) {
+            if (unit.isAlive()) {
+                return unit;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets a random alive target, every alive target has the same chance
+     *
+     * @param rng the random generator, one number is drawn
+     * @return the target, null if every target is defeated
+     */
+    public BattleUnit random(SplittableRandom rng) {
+        int alive = 0;
+        for (BattleUnit unit : units) {
+            if (unit.isAlive()) {
+                alive++;
+            }
+        }
+        if (alive == 0) {
+            return null;
+        }
+        int pick = rng.nextInt(alive);
+        for (BattleUnit unit : units) {
+            if (unit.isAlive() && pick-- == 0) {
+                return unit;
+            }
+        }
+        return null;
+    }
+
+    // the best alive unit by a score, slower path used when the best unit was defeated during the turn
+    private BattleUnit best(int[] score, boolean highest) {
+        int best = -1;
+        for (int i = 0; i < units.length; i++) {
+            if (!units[i].isAlive()) {
+                continue;
+            }
+            if (best < 0 || (highest ? score[i] > score[best] : score[i] < score[best])) {
+                best = i;
+            }
+        }
+        return best < 0 ? null : units[best];
+    }
+
+    /**
+     * Gets the number of targets that were alive when the snapshot was made.
+     *
+     * @return the number of targets
+     */
+    public int size() { return units.length; }
+
+    /**
+     * Gets a target.
+     *
+     * @param index the index
+     * @return the target
+     */
+    public BattleUnit get(int index) { return units[index]; }
+
+    /**
+     * Gets the threat score of a target.
+     *
+     * @param index the index
+     * @return the threat score
+     */
+    public int getThreat(int index) { return threat[index]; }
+}
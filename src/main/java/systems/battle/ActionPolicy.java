@@ -0,0 +1,32 @@
+package systems.battle;
+import entities.abs.BattleUnit;
+
+/**
+ * Decides what a unit does on its turn in a headless battle, so auto battles do not need console input.
+ * One policy is used for the player side and one for the enemy side.
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see BattleSystem#runHeadless(ActionPolicy, ActionPolicy, int)
+ */
+public interface ActionPolicy {
+    /** Skip the turn (defend or wait). */
+    int WAIT = -1;
+    /** Basic attack, same as skill index 0 of {@link BattleSystem#useSkill(BattleUnit, int)}. */
+    int ATTACK = 0;
+    /** Skill with 1.5x damage. */
+    int SKILL = 1;
+    /** Ultimate with 2.0x damage. */
+    int ULTIMATE = 2;
+
+    /** Always does a basic attack. */
+    ActionPolicy ALWAYS_ATTACK = (unit, battle) -> ATTACK;
+
+    /**
+     * Choose the action of a unit, it is only called for alive units
+     *
+     * @param unit   the unit that takes the turn
+     * @param battle the battle, read only
+     * @return {@link #WAIT}, {@link #ATTACK}, {@link #SKILL} or {@link #ULTIMATE}
+     */
+    int chooseAction(BattleUnit unit, BattleSystem battle);
+}
@@ -0,0 +1,297 @@
+package systems.battle;
+
+import entities.abs.BattleUnit;
+import entities.abs.BattleUnitListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Turn order of a battle based on action value: every unit has to travel {@link #BASE_ACTION_VALUE} / speed
+ * before it can act, so a unit twice as fast gets twice as many turns.
+ * Units are kept in a min-heap ordered by the time of their next action, the heap also remembers where every unit is,
+ * so a speed change or a defeat updates the order in O(log n) instead of sorting all units again.
+ * <p>
+ * The timeline listens to its units (see {@link BattleUnitListener}), so speed buffs in the middle of a round and
+ * defeated units are handled right away. A unit should only be on one timeline at a time.
+ * Ties go to the faster unit, then to the name in alphabetical order (same as the old turn order).
+ * </p>
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see BattleSystem
+ */
+public class ActionTimeline implements BattleUnitListener {
+    /** The distance every unit travels between two actions. */
+    public static final double BASE_ACTION_VALUE = 10000.0;
+
+    // heap of slots, slots hold the unit, the time of its next action and its place in the heap
+    private int[] heap;
+    private BattleUnit[] units;
+    private double[] nextAction;
+    private int[] position;
+    private final IdentityHashMap<BattleUnit, Integer> slots;
+    private int size;
+    private int usedSlots;
+    private double now;
+
+    /**
+     * Instantiates a new empty timeline
+     */
+    public ActionTimeline() {
+        this.heap = new int[8];
+        this.units = new BattleUnit[8];
+        this.nextAction = new double[8];
+        this.position = new int[8];
+        this.slots = new IdentityHashMap<>();
+        this.size = 0;
+        this.usedSlots = 0;
+        this.now = 0;
+    }
+
+    /**
+     * Add a unit, it acts after a full action value from now. Defeated units and units already on the timeline are
+     * ignored.
+     *
+     * @param unit the unit
+     */
+    public void add(BattleUnit unit) {
+        if (unit == null || !unit.isAlive() || slots.containsKey(unit)) {
+            return;
+        }
+        if (usedSlots == units.length) {
+            int capacity = units.length * 2;
+            heap = Arrays.copyOf(heap, capacity);
+            units = Arrays.copyOf(units, capacity);
+            nextAction = Arrays.copyOf(nextAction, capacity);
+            position = Arrays.copyOf(position, capacity);
+        }
+        int slot = usedSlots++;
+        units[slot] = unit;
+        nextAction[slot] = now + actionValue(unit.getCombatStats().getSpeed());
+        slots.put(unit, slot);
+        heap[size] = slot;
+        position[slot] = size;
+        size++;
+        siftUp(size - 1);
+        unit.addListener(this);
+    }
+
+    /**
+     * Take the unit that acts next, the time moves to its action and the unit is put back one action value later
+     *
+     * @return the unit that acts now, null if the timeline is empty
+     */
+    public BattleUnit next() {
+        while (size > 0) {
+            int slot = heap[0];
+            BattleUnit unit = units[slot];
+            if (!unit.isAlive()) {
+                // HP was set to 0 without telling the listener
+                remove(unit);
+                continue;
+            }
+            now = nextAction[slot];
+            nextAction[slot] = now + actionValue(unit.getCombatStats().getSpeed());
+            siftDown(0);
+            return unit;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the unit that acts next without moving the time
+     *
+     * @return the next unit, null if the timeline is empty
+     */
+    public BattleUnit peek() {
+        return size == 0 ? null : units[heap[0]];
+    }
+
+    /**
+     * Remove a unit, O(log n)
+     *
+     * @param unit the unit
+     * @return true if the unit was on the timeline
+     */
+    public boolean remove(BattleUnit unit) {
+        Integer slot = slots.remove(unit);
+        if (slot == null || position[slot] < 0) {
+            return false;
+        }
+        int index = position[slot];
+        position[slot] = -1;
+        size--;
+        if (index != size) {
+            int last = heap[size];
+            heap[index] = last;
+            position[last] = index;
+            siftDown(index);
+            siftUp(index);
+        }
+        unit.removeListener(this);
+        return true;
+    }
+
+    /**
+     * Remove every unit and reset the time
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            units[heap[i]].removeListener(this);
+        }
+        Arrays.fill(units, 0, usedSlots, null);
+        slots.clear();
+        size = 0;
+        usedSlots = 0;
+        now = 0;
+    }
+
+    /**
+     * The remaining distance of a unit is scaled by old speed / new speed, so what it already travelled is kept
+     */
+    @Override
+    public void onSpeedChanged(BattleUnit unit, int oldSpeed) {
+        Integer slot = slots.get(unit);
+        if (slot == null || position[slot] < 0) {
+            return;
+        }
+        double remaining = nextAction[slot] - now;
+        nextAction[slot] = now + remaining * Math.max(1, oldSpeed) / Math.max(1, unit.getCombatStats().getSpeed());
+        siftUp(position[slot]);
+        siftDown(position[slot]);
+    }
+
+    @Override
+    public void onDefeated(BattleUnit unit) {
+        remove(unit);
+    }
+
+    /**
+     * Gets how long a unit still has to wait before it acts
+     *
+     * @param unit the unit
+     * @return the remaining action value, -1 if the unit is not on the timeline
+     */
+    public double getRemainingActionValue(BattleUnit unit) {
+        Integer slot = slots.get(unit);
+        if (slot == null || position[slot] < 0) {
+            return -1;
+        }
+        return nextAction[slot] - now;
+    }
+
+    // the time of the next action of a unit, NaN if it is not on the timeline (for BattleState)
+    double getNextActionTime(BattleUnit unit) {
+        Integer slot = slots.get(unit);
+        if (slot == null || position[slot] < 0) {
+            return Double.NaN;
+        }
+        return nextAction[slot];
+    }
+
+    // move a unit to a new time, used when a BattleState is applied back to the battle
+    void setNextActionTime(BattleUnit unit, double time) {
+        Integer slot = slots.get(unit);
+        if (slot == null || position[slot] < 0) {
+            return;
+        }
+        nextAction[slot] = time;
+        siftUp(position[slot]);
+        siftDown(position[slot]);
+    }
+
+    void setTime(double now) {
+        this.now = now;
+    }
+
+    /**
+     * Gets the units in the order they will act next (each unit once), for the UI, O(n log n)
+     *
+     * @return the upcoming order
+     */
+    public List<BattleUnit> getOrder() {
+        List<Integer> order = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            order.add(heap[i]);
+        }
+        order.sort((a, b) -> before(a, b) ? -1 : (before(b, a) ? 1 : 0));
+        List<BattleUnit> result = new ArrayList<>(size);
+        for (int slot : order) {
+            result.add(units[slot]);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of units on the timeline.
+     *
+     * @return the number of units
+     */
+    public int size() { return size; }
+
+    /**
+     * Gets the current time of the battle.
+     *
+     * @return the total action value passed
+     */
+    public double getTime() { return now; }
+
+    private static double actionValue(int speed) {
+        return BASE_ACTION_VALUE / Math.max(1, speed);
+    }
+
+    // true if slot a acts before slot b
+    private boolean before(int a, int b) {
+        if (nextAction[a] != nextAction[b]) {
+            return nextAction[a] < nextAction[b];
+        }
+        BattleUnit ua = units[a];
+        BattleUnit ub = units[b];
+        int speedA = ua.getCombatStats().getSpeed();
+        int speedB = ub.getCombatStats().getSpeed();
+        if (speedA != speedB) {
+            return speedA > speedB;
+        }
+        int byName = ua.getName().compareTo(ub.getName());
+        return byName != 0 ? byName < 0 : a < b;
+    }
+
+    private void siftUp(int index) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            int parentSlot = heap[parent];
+            if (!before(slot, parentSlot)) {
+                break;
+            }
+            heap[index] = parentSlot;
+            position[parentSlot] = index;
+            index = parent;
+        }
+        heap[index] = slot;
+        position[slot] = index;
+    }
+
+    private void siftDown(int index) {
+        int slot = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && before(heap[right], heap[child])) {
+                child = right;
+            }
+            int childSlot = heap[child];
+            if (!before(childSlot, slot)) {
+                break;
+            }
+            heap[index] = childSlot;
+            position[childSlot] = index;
+            index = child;
+        }
+        heap[index] = slot;
+        position[slot] = index;
+    }
+}
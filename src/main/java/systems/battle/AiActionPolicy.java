@@ -0,0 +1,55 @@
+package systems.battle;
+import entities.abs.BattleUnit;
+import entities.enemies.Enemy;
+import systems.ai.EnemyAI;
+
+/**
+ * Action policy that asks an {@link EnemyAI} what to do, so headless battles use the same decisions as the game.
+ * "ATTACK" is a basic attack, "SKILL1" is a skill, "DEFEND" and "WAIT" skip the turn.
+ * One AI is shared by all enemies of the side, it is pointed at the acting enemy before every decision,
+ * so a policy should only be used by one battle at a time.
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ */
+public class AiActionPolicy implements ActionPolicy {
+    private final EnemyAI ai;
+
+    /**
+     * Instantiates a new policy with a new balanced AI
+     */
+    public AiActionPolicy() {
+        this(new EnemyAI());
+    }
+
+    /**
+     * Instantiates a new policy with an AI
+     *
+     * @param ai the AI that makes the decisions
+     */
+    public AiActionPolicy(EnemyAI ai) {
+        this.ai = ai;
+    }
+
+    @Override
+    public int chooseAction(BattleUnit unit, BattleSystem battle) {
+        if (!(unit instanceof Enemy)) {
+            return ATTACK;
+        }
+        ai.setControlledEnemy((Enemy) unit);
+        String action = ai.decideAction();
+        if ("SKILL1".equals(action)) {
+            return SKILL;
+        }
+        if ("ATTACK".equals(action)) {
+            return ATTACK;
+        }
+        return WAIT;
+    }
+
+    /**
+     * Gets the AI.
+     *
+     * @return the AI
+     */
+    public EnemyAI getAi() { return ai; }
+}
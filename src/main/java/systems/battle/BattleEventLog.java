@@ -0,0 +1,462 @@
+package systems.battle;
+
+import entities.abs.BattleUnit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A stream of everything that happens in a battle (turn start, action, damage, crit, defeat, boss phase, wave, end),
+ * written into a ring buffer of int records that is allocated once. Recording an event is a few array writes and no
+ * allocation, but it is still work on every turn, so the headless simulator only keeps it on when something reads it.
+ * <p>
+ * There is one writer (the battle) and any number of {@link Reader}s, every reader has its own position and can run on
+ * another thread (console renderer, replay file, statistics). When a reader is too slow the oldest events are
+ * overwritten, the reader skips them and counts them as lost.
+ * </p>
+ * <p>
+ * Units are written as ids, the log keeps the name and side of every id. The battle passes units by their place on
+ * the {@link Battlefield} (slot * 2 + side), the battlefield tells the log which unit is on a place when it puts it
+ * there (see {@link #register}), so an event never looks a unit up. Defeats and boss phases come from the battlefield,
+ * which already listens to its units.
+ * </p>
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see BattleSystem#setEventLog(BattleEventLog)
+ * @see BattleEventPrinter
+ */
+public class BattleEventLog {
+    /** A unit starts its turn: actor, value is the action it picked (see {@link ActionPolicy}). */
+    public static final int TURN_START = 0;
+    /** A unit takes an action outside of its turn order (interactive skills): actor, value is the action. */
+    public static final int ACTION = 1;
+    /** A hit: actor, target, value is the HP removed, flags can have {@link #FLAG_CRIT}. */
+    public static final int DAMAGE = 2;
+    /** A unit was defeated: actor. */
+    public static final int DEATH = 3;
+    /** A boss entered a new phase: actor, value is the phase. */
+    public static final int PHASE = 4;
+    /** A new enemy wave entered: value is the wave number. */
+    public static final int WAVE = 5;
+    /** The battle ended: value is the outcome, see {@link #OUTCOMES}. */
+    public static final int BATTLE_END = 6;
+
+    /** The hit was a crit. */
+    public static final int FLAG_CRIT = 1;
+    /** The outcomes of a battle, the value of a {@link #BATTLE_END} event is the index in this array. */
+    public static final String[] OUTCOMES = {"WON", "LOST", "DRAW", BattleResult.TIMEOUT};
+
+    // type, turn, actor, target, value, flags
+    private static final int STRIDE = 6;
+    private static final int FILE_VERSION = 1;
+
+    // written with ordered stores and read with volatile loads: a reader that sees a field of a newer record also
+    // sees the count before it, and its loads of a record cannot move after its check of the count
+    private final AtomicIntegerArray records;
+    private final int mask;
+    private final AtomicLong published;  //number of events written, readers only read below this
+    private long next;                   //writer only
+    private int turn;
+
+    private final IdentityHashMap<BattleUnit, Integer> ids;
+    // written before the event that uses the id is published, so readers always see the name
+    private String[] names;
+    private int[] sides;
+    private int unitCount;
+    // the unit on every place of the battlefield (slot * 2 + side) and its id
+    private BattleUnit[] placeUnits;
+    private int[] placeIds;
+
+    /**
+     * Instantiates a new log
+     *
+     * @param capacity the number of events kept, rounded up to a power of two
+     */
+    public BattleEventLog(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.records = new AtomicIntegerArray(size * STRIDE);
+        this.mask = size - 1;
+        this.published = new AtomicLong();
+        this.ids = new IdentityHashMap<>();
+        this.names = new String[8];
+        this.sides = new int[8];
+        this.placeUnits = new BattleUnit[8];
+        this.placeIds = new int[8];
+    }
+
+    /**
+     * Tell the log which unit is on a place of the battlefield, called by the battlefield when it places a unit.
+     * A unit keeps its id in every battle, placing the same unit on the same place again costs one compare.
+     *
+     * @param place the place, slot * 2 + side (PLAYERS or ENEMIES, see {@link Battlefield})
+     * @param unit  the unit
+     * @return the id of the unit
+     */
+    public int register(int place, BattleUnit unit) {
+        if (place >= placeUnits.length) {
+            int capacity = Math.max(place + 1, placeUnits.length * 2);
+            placeUnits = Arrays.copyOf(placeUnits, capacity);
+            placeIds = Arrays.copyOf(placeIds, capacity);
+        }
+        if (placeUnits[place] == unit) {
+            return placeIds[place];
+        }
+        Integer id = ids.get(unit);
+        if (id == null) {
+            id = addUnit(unit, place & 1);
+        }
+        placeUnits[place] = unit;
+        placeIds[place] = id;
+        return id;
+    }
+
+    private int addUnit(BattleUnit unit, int side) {
+        if (unitCount == names.length) {
+            int capacity = unitCount * 2;
+            sides = Arrays.copyOf(sides, capacity);
+            names = Arrays.copyOf(names, capacity);
+        }
+        int newId = unitCount;
+        names[newId] = unit.getName();
+        sides[newId] = side;
+        unitCount++;
+        ids.put(unit, newId);
+        return newId;
+    }
+
+    /**
+     * Gets the id of a unit.
+     *
+     * @param unit the unit
+     * @return the id, -1 if the unit was never registered
+     */
+    public int idOf(BattleUnit unit) {
+        Integer id = ids.get(unit);
+        return id == null ? -1 : id;
+    }
+
+    // the id of the unit on a place, -1 for no place
+    private int idAt(int place) {
+        return place < 0 ? -1 : placeIds[place];
+    }
+
+    /**
+     * Record the start of a turn, the events after it belong to this turn
+     *
+     * @param turn   the turn number
+     * @param actor  the place of the unit that acts
+     * @param action the action the unit picked
+     */
+    public void turnStarted(int turn, int actor, int action) {
+        this.turn = turn;
+        write(TURN_START, idAt(actor), -1, action, 0);
+    }
+
+    /**
+     * Record the action a unit picked
+     *
+     * @param actor  the place of the unit
+     * @param action the action
+     */
+    public void action(int actor, int action) {
+        write(ACTION, idAt(actor), -1, action, 0);
+    }
+
+    /**
+     * Record a hit
+     *
+     * @param actor  the place of the attacking unit
+     * @param target the place of the unit that was hit
+     * @param dealt  the HP removed
+     * @param crit   true if the hit was a crit
+     */
+    public void damage(int actor, int target, int dealt, boolean crit) {
+        write(DAMAGE, idAt(actor), idAt(target), dealt, crit ? FLAG_CRIT : 0);
+    }
+
+    /**
+     * Record a defeat
+     *
+     * @param unit the place of the defeated unit
+     */
+    public void defeated(int unit) {
+        write(DEATH, idAt(unit), -1, 0, 0);
+    }
+
+    /**
+     * Record a boss phase
+     *
+     * @param unit  the place of the boss
+     * @param phase the phase it entered
+     */
+    public void phaseChanged(int unit, int phase) {
+        write(PHASE, idAt(unit), -1, phase, 0);
+    }
+
+    /**
+     * Record a new enemy wave
+     *
+     * @param wave the wave number
+     */
+    public void wave(int wave) {
+        write(WAVE, -1, -1, wave, 0);
+    }
+
+    /**
+     * Record the end of the battle
+     *
+     * @param outcome WON, LOST, DRAW or TIMEOUT
+     */
+    public void battleEnd(String outcome) {
+        int value;
+        switch (outcome) {
+            case "WON":
+                value = 0;
+                break;
+            case "LOST":
+                value = 1;
+                break;
+            case "DRAW":
+                value = 2;
+                break;
+            case BattleResult.TIMEOUT:
+                value = 3;
+                break;
+            default:
+                value = -1;
+                break;
+        }
+        write(BATTLE_END, -1, -1, value, 0);
+    }
+
+    private void write(int type, int actor, int target, int value, int flags) {
+        int base = (int) (next & mask) * STRIDE;
+        // ordered stores: plain stores on most machines, still never seen before the count of the last event
+        records.lazySet(base, type);
+        records.lazySet(base + 1, turn);
+        records.lazySet(base + 2, actor);
+        records.lazySet(base + 3, target);
+        records.lazySet(base + 4, value);
+        records.lazySet(base + 5, flags);
+        next++;
+        // ordered store: cheaper than a volatile write, readers still see the record before the new count
+        published.lazySet(next);
+    }
+
+    /**
+     * Makes a new reader
+     *
+     * @param fromStart true to start at the oldest event still kept, false to only read new events
+     * @return the new reader
+     */
+    public Reader newReader(boolean fromStart) {
+        long head = published.get();
+        return new Reader(fromStart ? Math.max(0, head - capacity()) : head);
+    }
+
+    /**
+     * A hash of every event still kept and the names of the units, two fights with the same hash are the same fight
+     *
+     * @return the hash
+     */
+    public long fingerprint() {
+        long hash = 1125899906842597L;
+        Reader reader = newReader(true);
+        long[] box = {hash};
+        reader.poll((type, turn, actor, target, value, flags) -> {
+            long h = box[0];
+            h = 31 * h + type;
+            h = 31 * h + turn;
+            h = 31 * h + (actor < 0 ? -1 : getName(actor).hashCode());
+            h = 31 * h + (target < 0 ? -1 : getName(target).hashCode());
+            h = 31 * h + value;
+            box[0] = 31 * h + flags;
+        }, Integer.MAX_VALUE);
+        return box[0];
+    }
+
+    /**
+     * Write every event still kept and the unit names to a replay file
+     *
+     * @param path the file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        long head = published.get();
+        long from = Math.max(0, head - capacity());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(FILE_VERSION);
+            out.writeInt(unitCount);
+            for (int i = 0; i < unitCount; i++) {
+                out.writeUTF(names[i]);
+                out.writeByte(sides[i]);
+            }
+            out.writeLong(head - from);
+            for (long seq = from; seq < head; seq++) {
+                int base = (int) (seq & mask) * STRIDE;
+                for (int i = 0; i < STRIDE; i++) {
+                    out.writeInt(records.get(base + i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Read a replay file, the events can be read again with {@link #newReader(boolean)}
+     *
+     * @param path the file
+     * @return a log with the saved events and names (the units themselves are not saved)
+     * @throws IOException if the file cannot be read or is not a replay file
+     */
+    public static BattleEventLog load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != FILE_VERSION) {
+                throw new IOException("Not a battle replay file: " + path);
+            }
+            int count = in.readInt();
+            String[] names = new String[count];
+            int[] sides = new int[count];
+            for (int i = 0; i < count; i++) {
+                names[i] = in.readUTF();
+                sides[i] = in.readByte();
+            }
+            long events = in.readLong();
+            BattleEventLog log = new BattleEventLog((int) Math.max(2, events));
+            log.names = Arrays.copyOf(names, Math.max(8, count));
+            log.sides = Arrays.copyOf(sides, Math.max(8, count));
+            log.unitCount = count;
+            for (long seq = 0; seq < events; seq++) {
+                int base = (int) (seq & log.mask) * STRIDE;
+                for (int i = 0; i < STRIDE; i++) {
+                    log.records.lazySet(base + i, in.readInt());
+                }
+            }
+            log.next = events;
+            log.published.set(events);
+            return log;
+        }
+    }
+
+    /**
+     * Gets the name of a unit.
+     *
+     * @param id the id of the unit
+     * @return the name
+     */
+    public String getName(int id) { return names[id]; }
+
+    /**
+     * Gets the side of a unit.
+     *
+     * @param id the id of the unit
+     * @return PLAYERS or ENEMIES
+     */
+    public int getSide(int id) { return sides[id]; }
+
+    /**
+     * Gets the number of events kept.
+     *
+     * @return the capacity
+     */
+    public int capacity() { return mask + 1; }
+
+    /**
+     * Gets the number of events written since the log was made.
+     *
+     * @return the number of events
+     */
+    public long getEventCount() { return published.get(); }
+
+    /**
+     * Gets an event, no objects are made for it
+     */
+    public interface Visitor {
+        /**
+         * Called for every event in order
+         *
+         * @param type   the type of event
+         * @param turn   the turn of the event
+         * @param actor  the id of the unit that did it, -1 if none
+         * @param target the id of the unit it was done to, -1 if none
+         * @param value  the value (damage, action, phase ...)
+         * @param flags  extra flags, e.g. {@link #FLAG_CRIT}
+         */
+        void onEvent(int type, int turn, int actor, int target, int value, int flags);
+    }
+
+    /**
+     * Reads the events of the log in order, one reader should only be used by one thread
+     */
+    public final class Reader {
+        private long position;
+        private long lost;
+
+        private Reader(long position) {
+            this.position = position;
+        }
+
+        /**
+         * Read the events that were written since the last poll
+         *
+         * @param visitor gets every event
+         * @param max     the most events to read
+         * @return the number of events read
+         */
+        public int poll(Visitor visitor, int max) {
+            int read = 0;
+            long head = published.get();
+            while (position < head && read < max) {
+                if (head - position > capacity()) {
+                    skipTo(head - capacity());
+                }
+                int base = (int) (position & mask) * STRIDE;
+                int type = records.get(base);
+                int turn = records.get(base + 1);
+                int actor = records.get(base + 2);
+                int target = records.get(base + 3);
+                int value = records.get(base + 4);
+                int flags = records.get(base + 5);
+                // the writer may have started on this slot again while it was copied, the volatile loads above
+                // stay before this one, and a field of the newer record comes with a count that shows it
+                head = published.get();
+                if (head - position >= capacity()) {
+                    skipTo(head - capacity() + 1);
+                    continue;
+                }
+                visitor.onEvent(type, turn, actor, target, value, flags);
+                position++;
+                read++;
+            }
+            return read;
+        }
+
+        private void skipTo(long oldest) {
+            lost += oldest - position;
+            position = oldest;
+        }
+
+        /**
+         * Gets the number of events that were overwritten before this reader got to them.
+         *
+         * @return the lost events
+         */
+        public long getLost() { return lost; }
+
+        /**
+         * Gets the number of events not read yet.
+         *
+         * @return the events waiting
+         */
+        public long getPending() { return published.get() - position; }
+    }
+}
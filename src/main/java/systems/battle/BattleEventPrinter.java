@@ -0,0 +1,76 @@
+package systems.battle;
+
+import java.io.PrintStream;
+
+/**
+ * Prints the events of a {@link BattleEventLog} as lines of text, the console renderer of headless battles and replays.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see BattleEventLog
+ */
+public class BattleEventPrinter implements BattleEventLog.Visitor {
+    private static final String[] ACTIONS = {"Basic Attack", "Skill", "Ultimate"};
+
+    private final BattleEventLog log;
+    private final PrintStream out;
+
+    /**
+     * Instantiates a new printer
+     *
+     * @param log the log the events come from, for the unit names
+     * @param out where to print
+     */
+    public BattleEventPrinter(BattleEventLog log, PrintStream out) {
+        this.log = log;
+        this.out = out;
+    }
+
+    @Override
+    public void onEvent(int type, int turn, int actor, int target, int value, int flags) {
+        out.println(describe(log, type, turn, actor, target, value, flags));
+    }
+
+    /**
+     * Turn an event into a line of text
+     *
+     * @param log    the log the event comes from
+     * @param type   the type of event
+     * @param turn   the turn
+     * @param actor  the id of the unit that did it
+     * @param target the id of the unit it was done to
+     * @param value  the value
+     * @param flags  the flags
+     * @return the line
+     */
+    public static String describe(BattleEventLog log, int type, int turn, int actor, int target, int value,
+                                  int flags) {
+        String prefix = "[" + turn + "] ";
+        switch (type) {
+            case BattleEventLog.TURN_START:
+                return prefix + log.getName(actor) + "'s turn: " + actionName(value);
+            case BattleEventLog.ACTION:
+                return prefix + log.getName(actor) + ": " + actionName(value);
+            case BattleEventLog.DAMAGE:
+                String crit = (flags & BattleEventLog.FLAG_CRIT) != 0 ? " (CRIT)" : "";
+                return prefix + log.getName(actor) + " hits " + log.getName(target) + " for " + value + crit;
+            case BattleEventLog.DEATH:
+                return prefix + log.getName(actor) + " has been defeated!";
+            case BattleEventLog.PHASE:
+                return prefix + log.getName(actor) + " entering Phase " + value + "!";
+            case BattleEventLog.WAVE:
+                return prefix + "Wave " + value + " incoming!";
+            case BattleEventLog.BATTLE_END:
+                return prefix + "Battle over: " + (value < 0 ? "?" : BattleEventLog.OUTCOMES[value]);
+            default:
+                return prefix + "Unknown event " + type;
+        }
+    }
+
+    private static String actionName(int action) {
+        if (action >= 0 && action < ACTIONS.length) {
+            return ACTIONS[action];
+        }
+        return action == ActionPolicy.WAIT ? "Wait" : "Action " + action;
+    }
+}
@@ -0,0 +1,74 @@
+package systems.battle;
+
+/**
+ * The result of a headless battle: who won, how many turns it took and how much damage each side dealt.
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see BattleSystem#runHeadless(ActionPolicy, ActionPolicy, int)
+ */
+public final class BattleResult {
+    /** The turn limit was reached before one side was defeated. */
+    public static final String TIMEOUT = "TIMEOUT";
+
+    private final String outcome;
+    private final int turns;
+    private final long playerDamage;
+    private final long enemyDamage;
+
+    /**
+     * Instantiates a new result
+     *
+     * @param outcome      WON, LOST, DRAW or TIMEOUT (from the player side)
+     * @param turns        the number of actions taken
+     * @param playerDamage the total damage dealt by the players
+     * @param enemyDamage  the total damage dealt by the enemies
+     */
+    public BattleResult(String outcome, int turns, long playerDamage, long enemyDamage) {
+        this.outcome = outcome;
+        this.turns = turns;
+        this.playerDamage = playerDamage;
+        this.enemyDamage = enemyDamage;
+    }
+
+    /**
+     * Is player win boolean.
+     *
+     * @return true if the players won
+     */
+    public boolean isPlayerWin() {
+        return "WON".equals(outcome);
+    }
+
+    /**
+     * Gets the outcome.
+     *
+     * @return WON, LOST, DRAW or TIMEOUT
+     */
+    public String getOutcome() { return outcome; }
+
+    /**
+     * Gets the number of turns.
+     *
+     * @return the number of actions taken
+     */
+    public int getTurns() { return turns; }
+
+    /**
+     * Gets the damage dealt by the players.
+     *
+     * @return the player damage
+     */
+    public long getPlayerDamage() { return playerDamage; }
+
+    /**
+     * Gets the damage dealt by the enemies.
+     *
+     * @return the enemy damage
+     */
+    public long getEnemyDamage() { return enemyDamage; }
+
+    @Override
+    public String toString() {
+        return outcome + " in " + turns + " turns, damage dealt " + playerDamage + "/" + enemyDamage;
+    }
+}
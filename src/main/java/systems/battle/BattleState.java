@@ -0,0 +1,925 @@
+package systems.battle;
+
+import entities.abs.BattleUnit;
+import entities.effects.ActiveEffect;
+import entities.effects.EffectWheel;
+import entities.effects.StatusEffect;
+import entities.enemies.BossEnemy;
+import entities.enemies.BossPhase;
+import entities.enemies.PhaseEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A copy of a running battle made only of primitive arrays, one entry per unit: HP, attack, defense, speed, side, the
+ * wave of the unit and the time of its next action. It is played with the same rules as
+ * {@link BattleSystem#runHeadless} (action value turn order, hit the first alive opponent, same damage formula, the
+ * next wave enters when the last enemy is defeated, bosses enter their phases) without touching the real units, so
+ * simulators and search AIs can try many futures and {@link #apply(BattleSystem)} the one they want back to the
+ * battle.
+ * <p>
+ * Copies are cheap: the numbers that never change (crit, skill multipliers, modifiers) are shared by all copies,
+ * attack, defense and speed are shared until a copy changes one of them (copy on write), and
+ * {@link #copyFrom(BattleState)} resets a state with {@code System.arraycopy} only. A unit is alive while its HP is
+ * above 0. One state should only be used by one thread, {@link #copy()} of the same state too.
+ * Shields take the hits first and damage and heal over time effects tick at the end of every turn, in the order of
+ * the {@link EffectWheel}. Stat effects count with the stats they give at the capture, also after they expired.
+ * </p>
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see BattleSystem
+ */
+public final class BattleState {
+    /** A stat array index for {@link #setStat}, as in the real unit. */
+    public static final int ATTACK = 0;
+    /** Defense. */
+    public static final int DEFENSE = 1;
+    /** Speed. */
+    public static final int SPEED = 2;
+
+    /**
+     * Decides what a unit of a state does on its turn, like {@link ActionPolicy} does for real units
+     */
+    public interface Policy {
+        /** Always does a basic attack. */
+        Policy ALWAYS_ATTACK = (state, unit) -> ActionPolicy.ATTACK;
+
+        /**
+         * Choose the action of a unit, it is only called for alive units
+         *
+         * @param state the state, read only
+         * @param unit  the index of the unit that takes the turn
+         * @return an action of {@link ActionPolicy}
+         */
+        int chooseAction(BattleState state, int unit);
+    }
+
+    private final BattleUnit[] units;  //the real units, only changed by apply
+    private final int size;
+    // fixed for the whole battle, shared between copies
+    private final int[] side;
+    private final int[] waveOf;        //the wave of an enemy, 0 for players
+    private final int[] rank;          //name order, for ties on the timeline
+    private final double[] critRate;
+    private final double[] critDamage;
+    private final double[] bonus;
+    private final double[] multiplier; //[unit * 3 + skill]
+    private final DamageModifier[][] defenseModifiers;
+    private final int[][] captured;    //stats at the time of the capture, [stat][unit]
+    private final double defenseFactor;
+    private final int lastWave;
+    private final Phases phases;       //boss phases, null when there is no boss
+    private final Effects effects;     //status effects, null when no unit has one
+    // copy on write, shared while statsShared is true
+    private int[][] stats;             //[stat][unit]
+    private int[] defense;             //[attacker * size + target], after the attacker's defense modifiers
+    private boolean statsShared;
+    // changes while playing
+    private final int[] hp;
+    private final double[] nextAction;
+    private final int[] aliveCount;
+    private final long[] damageDealt;
+    private final int[] phaseNext;     //index of the next phase of a boss in phases
+    // the rows of unit i are effectOrder[effects.start[i]] to effectOrder[effects.start[i] + effectCount[i] - 1],
+    // in the order of the effects on the real unit
+    private final int[] effectOrder;
+    private final int[] effectCount;
+    private final int[] shield;        //[row], the shield left
+    private final int[] due;           //[row], the wheel turn the effect runs next, -1 after it was taken off
+    private final int[] stamp;         //[row], a wheel slot runs the effect scheduled last first
+    private int nextStamp;
+    private int effectTurn;            //the turn of the effect wheel
+    private double now;
+    private int turn;
+    private int wave;
+
+    private BattleState(BattleState fixed, int[][] stats, int[] defense) {
+        this(fixed.units, fixed.side, fixed.waveOf, fixed.rank, fixed.critRate, fixed.critDamage, fixed.bonus,
+                fixed.multiplier, fixed.defenseModifiers, fixed.captured, fixed.defenseFactor, fixed.lastWave,
+                fixed.phases, fixed.effects, stats, defense);
+    }
+
+    private BattleState(BattleUnit[] units, int[] side, int[] waveOf, int[] rank, double[] critRate,
+                        double[] critDamage, double[] bonus, double[] multiplier, DamageModifier[][] defenseModifiers,
+                        int[][] captured, double defenseFactor, int lastWave, Phases phases, Effects effects,
+                        int[][] stats, int[] defense) {
+        this.units = units;
+        this.size = units.length;
+        this.side = side;
+        this.waveOf = waveOf;
+        this.rank = rank;
+        this.critRate = critRate;
+        this.critDamage = critDamage;
+        this.bonus = bonus;
+        this.multiplier = multiplier;
+        this.defenseModifiers = defenseModifiers;
+        this.captured = captured;
+        this.defenseFactor = defenseFactor;
+        this.lastWave = lastWave;
+        this.phases = phases;
+        this.effects = effects;
+        this.stats = stats;
+        this.defense = defense;
+        this.statsShared = true;
+        this.hp = new int[size];
+        this.nextAction = new double[size];
+        this.aliveCount = new int[2];
+        this.damageDealt = new long[2];
+        this.phaseNext = new int[size];
+        int rows = effects == null ? 0 : effects.unit.length;
+        this.effectOrder = new int[rows];
+        this.effectCount = new int[size];
+        this.shield = new int[rows];
+        this.due = new int[rows];
+        this.stamp = new int[rows];
+    }
+
+    /**
+     * Copy a battle: the units on the field (players first, both sides in slot order), then the enemies of the waves
+     * that did not enter yet, wave by wave in the slots they will take
+     *
+     * @param battle the battle
+     * @return the new state
+     */
+    public static BattleState capture(BattleSystem battle) {
+        Battlefield field = battle.getBattlefield();
+        List<BattleUnit> list = new ArrayList<>();
+        List<Integer> sides = new ArrayList<>();
+        List<Integer> waves = new ArrayList<>();
+        for (int s = 0; s < 2; s++) {
+            for (int slot = 0; slot < field.getSlotCount(s); slot++) {
+                BattleUnit unit = field.getUnit(s, slot);
+                if (unit != null) {
+                    list.add(unit);
+                    sides.add(s);
+                    waves.add(s == Battlefield.PLAYERS ? 0 : field.getWave());
+                }
+            }
+        }
+        int width = field.getSlotCount(Battlefield.ENEMIES);
+        int wave = field.getWave();
+        for (List<? extends BattleUnit> enemies : field.getWaitingWaves()) {
+            wave++;
+            // Battlefield.nextWave fills the row from the last slot
+            for (int i = Math.min(enemies.size(), width) - 1; i >= 0; i--) {
+                if (enemies.get(i) != null) {
+                    list.add(enemies.get(i));
+                    sides.add(Battlefield.ENEMIES);
+                    waves.add(wave);
+                }
+            }
+        }
+        BattleUnit[] units = list.toArray(new BattleUnit[0]);
+        int n = units.length;
+        DamagePipeline damage = battle.getDamagePipeline();
+        int[] side = new int[n];
+        int[] waveOf = new int[n];
+        int[][] stats = new int[3][n];
+        double[] critRate = new double[n];
+        double[] critDamage = new double[n];
+        double[] bonus = new double[n];
+        double[] multiplier = new double[n * 3];
+        DamageModifier[][] defenseModifiers = new DamageModifier[n][];
+        int[] defense = new int[n * n];
+        for (int i = 0; i < n; i++) {
+            BattleUnit unit = units[i];
+            side[i] = sides.get(i);
+            waveOf[i] = waves.get(i);
+            stats[ATTACK][i] = damage.attackOf(unit);
+            stats[DEFENSE][i] = unit.getCombatStats().getDefense();
+            stats[SPEED][i] = unit.getCombatStats().getSpeed();
+            critRate[i] = damage.critRateOf(unit);
+            critDamage[i] = damage.critDamageOf(unit);
+            bonus[i] = damage.bonusOf(unit);
+            for (int skill = 0; skill < 3; skill++) {
+                multiplier[i * 3 + skill] = damage.multiplierOf(unit, skill);
+            }
+            defenseModifiers[i] = damage.defenseModifiersOf(unit);
+        }
+        for (int a = 0; a < n; a++) {
+            for (int t = 0; t < n; t++) {
+                defense[a * n + t] = DamagePipeline.defense(defenseModifiers[a], stats[DEFENSE][t]);
+            }
+        }
+        Integer[] byName = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            byName[i] = i;
+        }
+        Arrays.sort(byName, Comparator.comparing((Integer i) -> units[i].getName()).thenComparingInt(i -> i));
+        int[] rank = new int[n];
+        for (int r = 0; r < n; r++) {
+            rank[byName[r]] = r;
+        }
+        Phases phases = Phases.capture(units);
+        EffectWheel wheel = battle.getEffectWheel();
+        Effects effects = Effects.capture(units, wheel);
+        BattleState state = new BattleState(units, side, waveOf, rank, critRate, critDamage, bonus, multiplier,
+                defenseModifiers, stats, damage.getDefenseFactor(), wave, phases, effects, stats, defense);
+        ActionTimeline timeline = battle.getTimeline();
+        state.now = timeline.getTime();
+        state.turn = battle.getCurrentTurn();
+        state.wave = field.getWave();
+        state.damageDealt[Battlefield.PLAYERS] = battle.getPlayerDamageDealt();
+        state.damageDealt[Battlefield.ENEMIES] = battle.getEnemyDamageDealt();
+        for (int i = 0; i < n; i++) {
+            state.hp[i] = units[i].getCurrentHP();
+            double next = timeline.getNextActionTime(units[i]);
+            // units that are not on the timeline never act
+            state.nextAction[i] = Double.isNaN(next) ? Double.POSITIVE_INFINITY : next;
+            if (state.hp[i] > 0 && state.isPresent(i)) {
+                state.aliveCount[side[i]]++;
+            }
+            if (phases != null) {
+                state.phaseNext[i] = phases.current[i];
+            }
+        }
+        state.effectTurn = wheel.getTurn();
+        if (effects != null) {
+            for (int i = 0; i < n; i++) {
+                state.effectCount[i] = effects.start[i + 1] - effects.start[i];
+            }
+            for (int row = 0; row < effects.unit.length; row++) {
+                state.effectOrder[row] = row;
+            }
+            System.arraycopy(effects.shield, 0, state.shield, 0, state.shield.length);
+            System.arraycopy(effects.due, 0, state.due, 0, state.due.length);
+            System.arraycopy(effects.stamp, 0, state.stamp, 0, state.stamp.length);
+            state.nextStamp = effects.unit.length + 1;
+        }
+        return state;
+    }
+
+    /**
+     * Makes a copy that can be played on its own, the stats are shared until one of the two states changes them
+     *
+     * @return the copy
+     */
+    public BattleState copy() {
+        BattleState copy = new BattleState(this, stats, defense);
+        statsShared = true;
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Reset this state to another state of the same battle. Makes no objects unless only one of the two states had
+     * changed stats.
+     *
+     * @param other a state made by {@link #copy()} from the same capture
+     */
+    public void copyFrom(BattleState other) {
+        if (other.units != units) {
+            throw new IllegalArgumentException("States of different battles");
+        }
+        if (stats != other.stats) {
+            if (statsShared) {
+                stats = new int[][] {other.stats[ATTACK].clone(), other.stats[DEFENSE].clone(),
+                        other.stats[SPEED].clone()};
+                defense = other.defense.clone();
+                statsShared = false;
+            } else {
+                for (int stat = 0; stat < 3; stat++) {
+                    System.arraycopy(other.stats[stat], 0, stats[stat], 0, size);
+                }
+                System.arraycopy(other.defense, 0, defense, 0, defense.length);
+            }
+        }
+        System.arraycopy(other.hp, 0, hp, 0, size);
+        System.arraycopy(other.nextAction, 0, nextAction, 0, size);
+        System.arraycopy(other.phaseNext, 0, phaseNext, 0, size);
+        if (effects != null) {
+            System.arraycopy(other.effectOrder, 0, effectOrder, 0, effectOrder.length);
+            System.arraycopy(other.effectCount, 0, effectCount, 0, size);
+            System.arraycopy(other.shield, 0, shield, 0, shield.length);
+            System.arraycopy(other.due, 0, due, 0, due.length);
+            System.arraycopy(other.stamp, 0, stamp, 0, stamp.length);
+            nextStamp = other.nextStamp;
+        }
+        effectTurn = other.effectTurn;
+        aliveCount[0] = other.aliveCount[0];
+        aliveCount[1] = other.aliveCount[1];
+        damageDealt[0] = other.damageDealt[0];
+        damageDealt[1] = other.damageDealt[1];
+        now = other.now;
+        turn = other.turn;
+        wave = other.wave;
+    }
+
+    /**
+     * Runs the state to the end like {@link BattleSystem#runHeadless(ActionPolicy, ActionPolicy, int)}
+     *
+     * @param playerPolicy the actions of the players
+     * @param enemyPolicy  the actions of the enemies
+     * @param maxTurns     the turn limit, the result is TIMEOUT when it is reached
+     * @param rng          the random generator for the damage rolls
+     * @return the result of the battle
+     */
+    public BattleResult run(Policy playerPolicy, Policy enemyPolicy, int maxTurns, SplittableRandom rng) {
+        int turns = 0;
+        while (!isOver() && turns < maxTurns) {
+            int acting = nextActor();
+            if (acting < 0) {
+                break;
+            }
+            Policy policy = side[acting] == Battlefield.PLAYERS ? playerPolicy : enemyPolicy;
+            act(acting, policy.chooseAction(this, acting), rng);
+            turns++;
+        }
+        return new BattleResult(getOutcome(), turns, damageDealt[Battlefield.PLAYERS],
+                damageDealt[Battlefield.ENEMIES]);
+    }
+
+    /**
+     * Take the unit that acts next and move the time to its action, same order as {@link ActionTimeline}
+     *
+     * @return the index of the unit, -1 if nobody can act
+     */
+    public int nextActor() {
+        int best = -1;
+        for (int i = 0; i < size; i++) {
+            if (hp[i] <= 0 || nextAction[i] == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            if (best < 0 || before(i, best)) {
+                best = i;
+            }
+        }
+        if (best >= 0) {
+            now = nextAction[best];
+            nextAction[best] = now + actionValue(stats[SPEED][best]);
+            turn++;
+        }
+        return best;
+    }
+
+    private boolean before(int a, int b) {
+        if (nextAction[a] != nextAction[b]) {
+            return nextAction[a] < nextAction[b];
+        }
+        int[] speed = stats[SPEED];
+        if (speed[a] != speed[b]) {
+            return speed[a] > speed[b];
+        }
+        return rank[a] < rank[b];
+    }
+
+    /**
+     * A unit takes an action: anything but WAIT hits the first alive opponent like {@link BattleSystem} does, then
+     * the turn ends and the status effects tick and expire. The next wave enters when the last enemy is defeated.
+     *
+     * @param actor  the index of the unit
+     * @param action the action (see {@link ActionPolicy})
+     * @param rng    the random generator for the damage rolls
+     * @return the HP removed from the target
+     */
+    public int act(int actor, int action, SplittableRandom rng) {
+        int dealt = strike(actor, action, rng);
+        advanceEffects();
+        return dealt;
+    }
+
+    private int strike(int actor, int action, SplittableRandom rng) {
+        if (action == ActionPolicy.WAIT || hp[actor] <= 0) {
+            return 0;
+        }
+        int target = firstAlive(1 - side[actor]);
+        if (target < 0) {
+            return 0;
+        }
+        int base = Damage.compute(stats[ATTACK][actor], defense[actor * size + target], critRate[actor],
+                critDamage[actor], defenseFactor, rng);
+        int dmg = DamagePipeline.finish(base, multiplier[actor * 3 + action], bonus[actor]);
+        if (effects != null) {
+            dmg = absorb(target, dmg);  //shields first
+        }
+        int dealt = Math.min(hp[target], dmg);
+        damageDealt[side[actor]] += dealt;
+        setHp(target, hp[target] - dealt);
+        return dealt;
+    }
+
+    // same as StatusEffects.absorb: the shields in the order of the effects, an empty shield is taken off
+    private int absorb(int unit, int damage) {
+        int start = effects.start[unit];
+        for (int i = start; i < start + effectCount[unit] && damage > 0; i++) {
+            int row = effectOrder[i];
+            if (shield[row] > 0) {
+                int taken = Math.min(shield[row], damage);
+                shield[row] -= taken;
+                damage -= taken;
+                if (shield[row] == 0) {
+                    removeEffect(row);
+                    i--;
+                }
+            }
+        }
+        return damage;
+    }
+
+    // same as EffectWheel.advance: the effects due this turn run, the one scheduled last first
+    private void advanceEffects() {
+        effectTurn++;
+        if (effects == null) {
+            return;
+        }
+        int last = Integer.MAX_VALUE;
+        while (true) {
+            int row = -1;
+            for (int r = 0; r < due.length; r++) {
+                if (due[r] == effectTurn && stamp[r] < last && (row < 0 || stamp[r] > stamp[row])) {
+                    row = r;
+                }
+            }
+            if (row < 0) {
+                return;
+            }
+            last = stamp[row];
+            runEffect(row);
+        }
+    }
+
+    // same as EffectWheel.run: tick, then expire or wait for the next turn, effects of defeated units are taken off
+    private void runEffect(int row) {
+        int unit = effects.unit[row];
+        if (hp[unit] <= 0) {
+            removeEffect(row);
+            return;
+        }
+        if (effects.ticks[row]) {
+            setHp(unit, Math.min(hp[unit] + effects.change[row], effects.maxHp[unit]));
+        }
+        if (effects.expiresAt[row] <= effectTurn || hp[unit] <= 0) {
+            removeEffect(row);
+        } else {
+            due[row] = effectTurn + 1;
+            stamp[row] = nextStamp++;
+        }
+    }
+
+    // same as StatusEffects.remove: the last effect of the unit takes the place of the removed one
+    private void removeEffect(int row) {
+        int unit = effects.unit[row];
+        int start = effects.start[unit];
+        int last = start + --effectCount[unit];
+        for (int i = start; i < last; i++) {
+            if (effectOrder[i] == row) {
+                effectOrder[i] = effectOrder[last];
+                break;
+            }
+        }
+        due[row] = -1;
+    }
+
+    /**
+     * Sets the HP of a unit, the next wave enters when the last enemy is defeated.
+     * Same as the real timeline, a defeated unit does not act again even if it gets HP back.
+     *
+     * @param index the index of the unit
+     * @param value the new HP, at least 0
+     */
+    public void setHp(int index, int value) {
+        int before = hp[index];
+        hp[index] = Math.max(0, value);
+        if (!isPresent(index)) {
+            return;
+        }
+        if (before > 0 && hp[index] == 0) {
+            aliveCount[side[index]]--;
+            nextAction[index] = Double.POSITIVE_INFINITY;  //off the timeline, like a defeated unit
+        } else if (before == 0 && hp[index] > 0) {
+            aliveCount[side[index]]++;
+        }
+        // same check as BossEnemy: one comparison with the next threshold
+        while (phases != null && hp[index] > 0 && phaseNext[index] < phases.to[index]
+                && hp[index] < phases.threshold[phaseNext[index]]) {
+            enterPhase(index);
+        }
+        while (aliveCount[Battlefield.PLAYERS] > 0 && aliveCount[Battlefield.ENEMIES] == 0 && wave < lastWave) {
+            enterNextWave();
+        }
+    }
+
+    // same as BossEnemy.transitionPhase: heal, then the stat bonuses of the phase
+    private void enterPhase(int index) {
+        int k = phaseNext[index]++;
+        hp[index] = Math.min(hp[index] + phases.heal[k], phases.maxHp[index]);
+        if (phases.attack[k] != 0) {
+            setStat(ATTACK, index, stats[ATTACK][index] + phases.attack[k]);
+        }
+        if (phases.defense[k] != 0) {
+            setStat(DEFENSE, index, stats[DEFENSE][index] + phases.defense[k]);
+        }
+        if (phases.speed[k] != 0) {
+            setStat(SPEED, index, stats[SPEED][index] + phases.speed[k]);
+        }
+    }
+
+    // same as BattleSystem: the enemies of the wave get a full action value from now
+    private void enterNextWave() {
+        wave++;
+        for (int i = 0; i < size; i++) {
+            if (side[i] == Battlefield.ENEMIES && waveOf[i] == wave && hp[i] > 0) {
+                aliveCount[Battlefield.ENEMIES]++;
+                nextAction[i] = now + actionValue(stats[SPEED][i]);
+            }
+        }
+    }
+
+    /**
+     * Sets attack, defense or speed of a unit, the stats of the other copies stay the same.
+     * A speed change keeps the part of the action value the unit already travelled, like the timeline does.
+     *
+     * @param stat  ATTACK, DEFENSE or SPEED
+     * @param index the index of the unit
+     * @param value the new value
+     */
+    public void setStat(int stat, int index, int value) {
+        if (statsShared) {
+            stats = new int[][] {stats[ATTACK].clone(), stats[DEFENSE].clone(), stats[SPEED].clone()};
+            defense = defense.clone();
+            statsShared = false;
+        }
+        int old = stats[stat][index];
+        stats[stat][index] = value;
+        if (stat == DEFENSE) {
+            for (int a = 0; a < size; a++) {
+                defense[a * size + index] = DamagePipeline.defense(defenseModifiers[a], value);
+            }
+        } else if (stat == SPEED && nextAction[index] != Double.POSITIVE_INFINITY) {
+            nextAction[index] = now + (nextAction[index] - now) * Math.max(1, old) / Math.max(1, value);
+        }
+    }
+
+    /**
+     * Write the state back to the battle it was captured from: HP and changed stats of the units, entered waves,
+     * the timeline, the turn and the damage counters. The battle ends if the state is over.
+     * Stat changes are added to the base stats of the units, so equipment and effect bonuses are not counted twice.
+     * Effects the state took off are taken off the units, shields lose what they absorbed and the effect wheel
+     * moves to the turn of the state.
+     *
+     * @param battle the battle of the capture, still in progress
+     */
+    public void apply(BattleSystem battle) {
+        if (!"IN_PROGRESS".equals(battle.getBattleState())) {
+            throw new IllegalStateException("The battle is not in progress");
+        }
+        Battlefield field = battle.getBattlefield();
+        for (int row = 0; row < due.length; row++) {
+            ActiveEffect effect = effects.active[row];
+            if (!effect.isActive()) {
+                continue;
+            }
+            if (due[row] < 0) {
+                effect.getHolder().getStatusEffects().remove(effect);
+            } else if (shield[row] < effect.getShield()) {
+                // the shields of the unit take it in their order, the same one unless the unit has more shields
+                effect.getHolder().absorbDamage(effect.getShield() - shield[row]);
+            }
+        }
+        battle.getEffectWheel().skipTo(effectTurn);
+        for (int i = 0; i < size; i++) {
+            BattleUnit unit = units[i];
+            if (phases != null && phases.to[i] > phases.from[i]) {
+                // before HP, so the boss does not enter the phases again
+                ((BossEnemy) unit).setCurrentPhase(1 + phaseNext[i] - phases.from[i]);
+            }
+            int attackChange = stats[ATTACK][i] - captured[ATTACK][i];
+            int defenseChange = stats[DEFENSE][i] - captured[DEFENSE][i];
+            int speedChange = stats[SPEED][i] - captured[SPEED][i];
+            if (attackChange != 0) {
+                unit.setAttack(unit.getAttack() + attackChange);
+            }
+            if (defenseChange != 0) {
+                unit.setDefense(unit.getDefense() + defenseChange);
+            }
+            if (speedChange != 0) {
+                unit.setSpeed(unit.getSpeed() + speedChange);
+            }
+            unit.setCurrentHP(hp[i]);  //defeats tell the field and the timeline
+        }
+        while (field.getWave() < wave && field.hasNextWave()) {
+            battle.enterNextWave();
+        }
+        ActionTimeline timeline = battle.getTimeline();
+        timeline.setTime(now);
+        for (int i = 0; i < size; i++) {
+            if (hp[i] > 0 && isPresent(i)) {
+                timeline.setNextActionTime(units[i], nextAction[i]);
+            }
+        }
+        battle.restore(turn, damageDealt[Battlefield.PLAYERS], damageDealt[Battlefield.ENEMIES]);
+        if (isOver()) {
+            battle.checkBattleEnd();
+        }
+    }
+
+    /**
+     * Gets the phase of a boss.
+     *
+     * @param index the index of the unit
+     * @return the phase, 1 for the first phase and for units without phases
+     */
+    public int getPhase(int index) {
+        return phases == null ? 1 : 1 + phaseNext[index] - phases.from[index];
+    }
+
+    /**
+     * The phases of the bosses in one flat table, phase 2 and up of unit i are at from[i] to to[i] - 1
+     */
+    private static final class Phases {
+        private final int[] from;
+        private final int[] to;
+        private final int[] current;   //next phase at the time of the capture
+        private final int[] maxHp;
+        private final int[] threshold;
+        private final int[] attack;
+        private final int[] defense;
+        private final int[] speed;
+        private final int[] heal;      //HP healed, not a part of the max HP
+
+        private Phases(int units, int phases) {
+            from = new int[units];
+            to = new int[units];
+            current = new int[units];
+            maxHp = new int[units];
+            threshold = new int[phases];
+            attack = new int[phases];
+            defense = new int[phases];
+            speed = new int[phases];
+            heal = new int[phases];
+        }
+
+        private static Phases capture(BattleUnit[] units) {
+            int count = 0;
+            for (BattleUnit unit : units) {
+                if (unit instanceof BossEnemy && ((BossEnemy) unit).hasPhases()) {
+                    count += ((BossEnemy) unit).getPhaseEngine().getPhaseCount() - 1;
+                }
+            }
+            if (count == 0) {
+                return null;
+            }
+            Phases phases = new Phases(units.length, count);
+            int k = 0;
+            for (int i = 0; i < units.length; i++) {
+                phases.from[i] = k;
+                phases.maxHp[i] = units[i].getMaxHP();
+                if (units[i] instanceof BossEnemy && ((BossEnemy) units[i]).hasPhases()) {
+                    PhaseEngine engine = ((BossEnemy) units[i]).getPhaseEngine();
+                    for (int p = 2; p <= engine.getPhaseCount(); p++, k++) {
+                        BossPhase phase = engine.getPhase(p);
+                        phases.threshold[k] = engine.getThreshold(p);
+                        phases.attack[k] = phase.getAttackBonus();
+                        phases.defense[k] = phase.getDefenseBonus();
+                        phases.speed[k] = phase.getSpeedBonus();
+                        phases.heal[k] = (int) (units[i].getMaxHP() * phase.getHeal());
+                    }
+                    phases.current[i] = phases.from[i] + engine.getCurrentPhase() - 1;
+                } else {
+                    phases.current[i] = k;
+                }
+                phases.to[i] = k;
+            }
+            return phases;
+        }
+    }
+
+    /**
+     * The status effects of the capture in one flat table, one row per effect, the rows of unit i are start[i] to
+     * start[i + 1] - 1 in the order of the effects on the unit
+     */
+    private static final class Effects {
+        private final ActiveEffect[] active;
+        private final int[] unit;
+        private final int[] start;
+        private final int[] maxHp;       //[unit], with the stat effects of the capture
+        private final boolean[] ticks;   //scheduled damage or heal over time
+        private final int[] change;      //HP change of a tick, below 0 for damage
+        private final int[] expiresAt;   //turn of the wheel
+        // at the time of the capture
+        private final int[] shield;
+        private final int[] due;         //turn of the wheel, NEVER when the wheel does not run the effect
+        private final int[] stamp;       //higher runs first in a slot of the wheel
+
+        private Effects(int units, int rows) {
+            active = new ActiveEffect[rows];
+            unit = new int[rows];
+            start = new int[units + 1];
+            maxHp = new int[units];
+            ticks = new boolean[rows];
+            change = new int[rows];
+            expiresAt = new int[rows];
+            shield = new int[rows];
+            due = new int[rows];
+            stamp = new int[rows];
+        }
+
+        private static Effects capture(BattleUnit[] units, EffectWheel wheel) {
+            int count = 0;
+            for (BattleUnit unit : units) {
+                count += unit.getStatusEffects().size();
+            }
+            if (count == 0) {
+                return null;
+            }
+            List<ActiveEffect> scheduled = wheel.getScheduled();
+            Effects effects = new Effects(units.length, count);
+            int row = 0;
+            for (int i = 0; i < units.length; i++) {
+                effects.start[i] = row;
+                effects.maxHp[i] = units[i].getCombatStats().getMaxHP();
+                for (ActiveEffect active : units[i].getStatusEffects().getEffects()) {
+                    StatusEffect effect = active.getEffect();
+                    int order = scheduled.indexOf(active);
+                    effects.active[row] = active;
+                    effects.unit[row] = i;
+                    effects.ticks[row] = order >= 0 && effect.ticks();
+                    // same rounding as the ticks of EffectWheel
+                    if (effect.getType() == StatusEffect.Type.DAMAGE_OVER_TIME) {
+                        effects.change[row] = -(int) (effect.getValue() * active.getStacks());
+                    } else {
+                        effects.change[row] = (int) (effects.maxHp[i] * effect.getValue() * active.getStacks());
+                    }
+                    effects.expiresAt[row] = active.getExpiresAt();
+                    effects.shield[row] = active.getShield();
+                    if (order < 0) {
+                        effects.due[row] = ActiveEffect.NEVER;
+                    } else {
+                        effects.due[row] = effect.ticks() ? wheel.getTurn() + 1 : active.getExpiresAt();
+                        effects.stamp[row] = scheduled.size() - order;
+                    }
+                    row++;
+                }
+            }
+            effects.start[units.length] = row;
+            return effects;
+        }
+    }
+
+    /**
+     * Gets the first alive unit of a side in slot order
+     *
+     * @param s PLAYERS or ENEMIES
+     * @return the index, -1 if the side has no alive unit
+     */
+    public int firstAlive(int s) {
+        for (int i = 0; i < size; i++) {
+            if (side[i] == s && hp[i] > 0 && isPresent(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // players are always on the field, enemies only while their wave is
+    private boolean isPresent(int index) {
+        return side[index] == Battlefield.PLAYERS || waveOf[index] == wave;
+    }
+
+    private static double actionValue(int speed) {
+        return ActionTimeline.BASE_ACTION_VALUE / Math.max(1, speed);
+    }
+
+    /**
+     * Checks if one side has no alive unit and no wave left.
+     *
+     * @return true if the battle is over
+     */
+    public boolean isOver() {
+        return aliveCount[Battlefield.PLAYERS] == 0 || aliveCount[Battlefield.ENEMIES] == 0;
+    }
+
+    /**
+     * Gets the outcome from the player side.
+     *
+     * @return WON, LOST, DRAW, or TIMEOUT while the battle is not over
+     */
+    public String getOutcome() {
+        boolean playersAlive = aliveCount[Battlefield.PLAYERS] > 0;
+        boolean enemiesAlive = aliveCount[Battlefield.ENEMIES] > 0;
+        if (playersAlive && enemiesAlive) {
+            return BattleResult.TIMEOUT;
+        }
+        if (playersAlive) {
+            return "WON";
+        }
+        return enemiesAlive ? "LOST" : "DRAW";
+    }
+
+    /**
+     * Gets the HP left on a side divided by its HP in another state (usually the capture), used to score playouts
+     *
+     * @param s       PLAYERS or ENEMIES
+     * @param initial the state to compare with
+     * @return 0.0 to 1.0
+     */
+    public double hpFraction(int s, BattleState initial) {
+        long left = 0;
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            if (side[i] == s) {
+                left += hp[i];
+                total += initial.hp[i];
+            }
+        }
+        return total == 0 ? 0 : (double) left / total;
+    }
+
+    /**
+     * Gets the index of a unit.
+     *
+     * @param unit the unit
+     * @return the index, -1 if the unit is not in the state
+     */
+    public int indexOf(BattleUnit unit) {
+        for (int i = 0; i < size; i++) {
+            if (units[i] == unit) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the number of units, waiting waves included.
+     *
+     * @return the number of units
+     */
+    public int size() { return size; }
+
+    /**
+     * Gets the side of a unit.
+     *
+     * @param index the index of the unit
+     * @return PLAYERS or ENEMIES
+     */
+    public int getSide(int index) { return side[index]; }
+
+    /**
+     * Gets the HP of a unit.
+     *
+     * @param index the index of the unit
+     * @return the HP
+     */
+    public int getHp(int index) { return hp[index]; }
+
+    /**
+     * Checks if a unit is alive and on the field.
+     *
+     * @param index the index of the unit
+     * @return true if the unit can act and be hit
+     */
+    public boolean isAlive(int index) { return hp[index] > 0 && isPresent(index); }
+
+    /**
+     * Gets attack, defense or speed of a unit.
+     *
+     * @param stat  ATTACK, DEFENSE or SPEED
+     * @param index the index of the unit
+     * @return the value, attack and defense with equipment
+     */
+    public int getStat(int stat, int index) { return stats[stat][index]; }
+
+    /**
+     * Gets the time of the next action of a unit.
+     *
+     * @param index the index of the unit
+     * @return the time, infinity if the unit is not on the timeline
+     */
+    public double getNextAction(int index) { return nextAction[index]; }
+
+    /**
+     * Gets the real unit.
+     *
+     * @param index the index of the unit
+     * @return the unit
+     */
+    public BattleUnit getUnit(int index) { return units[index]; }
+
+    /**
+     * Gets the number of alive units of a side on the field.
+     *
+     * @param s PLAYERS or ENEMIES
+     * @return the alive count
+     */
+    public int getAliveCount(int s) { return aliveCount[s]; }
+
+    /**
+     * Gets the number of turns taken since the battle started.
+     *
+     * @return the turn number
+     */
+    public int getTurn() { return turn; }
+
+    /**
+     * Gets the wave on the field.
+     *
+     * @return the wave, 1 for the first wave
+     */
+    public int getWave() { return wave; }
+}
@@ -0,0 +1,471 @@
+package systems.battle;
+
+import data.CharacterData;
+import entities.abs.BattleUnit;
+import entities.characters.Character;
+import entities.enemies.BossEnemy;
+import entities.enemies.Enemy;
+import game.GamePlay;
+import systems.ai.EnemyAI;
+import util.random.RngService;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs headless battles over a grid of parameters to tune the difficulty: team compositions from
+ * {@link CharacterData}, enemy sets from {@link GamePlay#createEnemies(int)}, the {@link Damage} defense factor and the
+ * {@link EnemyAI} aggression level. Every cell of the grid is run many times on all cores with fork/join, and the
+ * win rates and turn count distributions are written to CSV.
+ * <p>
+ * Every task works on its own copies of the units (copied with serialization), so no two threads ever change the
+ * same {@link BattleUnit}. Units start every run at full HP and bosses in their first phase. Run n of a cell always
+ * uses the same random numbers for the same seed, no matter how the runs are split between threads.
+ * </p>
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see BattleSystem#runHeadless(ActionPolicy, ActionPolicy, int)
+ */
+public class BattleSweep {
+    /** Header row of the CSV output. */
+    public static final String CSV_HEADER = "team,difficulty,defense_factor,aggression,runs,wins,losses,draws,timeouts,"
+            + "win_rate,avg_turns,min_turns,p10_turns,p50_turns,p90_turns,max_turns";
+
+    // runs done by one task before it stops splitting
+    private static final int RUNS_PER_TASK = 256;
+
+    private final CharacterData characterData;
+    private final RngService rng;
+    private final List<String[]> teams;
+    private int[] difficulties;
+    private double[] defenseFactors;
+    private int[] aggressionLevels;
+    private int runsPerCell;
+    private int maxTurns;
+    private int runsPerTask;
+
+    /**
+     * Instantiates a new sweep, with difficulties 1-3, the default defense factor and balanced AI
+     *
+     * @param characterData the character data that owns the characters of the teams
+     * @param seed          the seed of all random numbers of the sweep
+     */
+    public BattleSweep(CharacterData characterData, long seed) {
+        this.characterData = characterData;
+        this.rng = new RngService(seed);
+        this.teams = new ArrayList<>();
+        this.difficulties = new int[] {1, 2, 3};
+        this.defenseFactors = new double[] {Damage.DEFAULT_DEFENSE_FACTOR};
+        this.aggressionLevels = new int[] {1};
+        this.runsPerCell = 1000;
+        this.maxTurns = 500;
+        this.runsPerTask = RUNS_PER_TASK;
+    }
+
+    /**
+     * Add a team composition to the grid
+     *
+     * @param characterIds the ids of owned characters, at most 4
+     */
+    public void addTeam(String... characterIds) {
+        if (characterIds.length == 0 || characterIds.length > 4) {
+            throw new IllegalArgumentException("A team needs 1 to 4 characters");
+        }
+        Map<String, Character> owned = characterData.getOwnedCharacters();
+        for (String id : characterIds) {
+            if (!owned.containsKey(id)) {
+                throw new IllegalArgumentException("Character is not owned: " + id);
+            }
+        }
+        teams.add(characterIds.clone());
+    }
+
+    /**
+     * Run every cell of the grid
+     *
+     * @return one result per cell, in grid order (team, difficulty, defense factor, aggression)
+     */
+    public List<CellResult> run() {
+        if (teams.isEmpty()) {
+            throw new IllegalStateException("Add at least one team before running the sweep");
+        }
+        List<RunTask> tasks = new ArrayList<>();
+        int cellIndex = 0;
+        for (String[] team : teams) {
+            List<Character> members = new ArrayList<>();
+            for (String id : team) {
+                members.add(characterData.getOwnedCharacters().get(id));
+            }
+            for (int difficulty : difficulties) {
+                List<Enemy> enemies = GamePlay.createEnemies(difficulty);
+                for (double defenseFactor : defenseFactors) {
+                    for (int aggression : aggressionLevels) {
+                        Cell cell = new Cell(cellIndex++, String.join("+", team), members, difficulty, enemies,
+                                defenseFactor, aggression);
+                        tasks.add(new RunTask(cell, 0, runsPerCell));
+                    }
+                }
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            for (RunTask task : tasks) {
+                pool.execute(task);
+            }
+            List<CellResult> results = new ArrayList<>(tasks.size());
+            for (RunTask task : tasks) {
+                results.add(task.join());
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Write sweep results to a CSV file, one row per cell, the file is replaced
+     *
+     * @param file    the file to write
+     * @param results the results of {@link #run()}
+     * @return true if the file was written
+     */
+    public static boolean writeCsv(Path file, List<CellResult> results) {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            for (CellResult result : results) {
+                writer.write(result.toCsvRow());
+                writer.write('\n');
+            }
+        } catch (IOException ex) {
+            System.err.println("Could not write battle sweep to " + file + ": " + ex.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Copy units with serialization, the list is copied as a whole so units that appear twice stay the same object
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Serializable> T deepCopy(T value) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(value);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                return (T) in.readObject();
+            }
+        } catch (IOException | ClassNotFoundException ex) {
+            throw new IllegalStateException("Could not copy battle units", ex);
+        }
+    }
+
+    /**
+     * One cell of the grid, the units are templates that are only read (copied) by the tasks
+     */
+    private static final class Cell {
+        private final int index;
+        private final String teamName;
+        private final ArrayList<Character> team;
+        private final int difficulty;
+        private final ArrayList<Enemy> enemies;
+        private final double defenseFactor;
+        private final int aggression;
+
+        private Cell(int index, String teamName, List<Character> team, int difficulty, List<Enemy> enemies,
+                     double defenseFactor, int aggression) {
+            this.index = index;
+            this.teamName = teamName;
+            this.team = new ArrayList<>(team);
+            this.difficulty = difficulty;
+            this.enemies = new ArrayList<>(enemies);
+            this.defenseFactor = defenseFactor;
+            this.aggression = aggression;
+        }
+    }
+
+    /**
+     * Runs a range of runs of a cell, splits in halves until the range is small
+     */
+    private final class RunTask extends RecursiveTask<CellResult> {
+        private static final long serialVersionUID = 1L;
+        private final Cell cell;
+        private final int from;
+        private final int to;
+
+        private RunTask(Cell cell, int from, int to) {
+            this.cell = cell;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected CellResult compute() {
+            if (to - from > runsPerTask) {
+                int middle = (from + to) >>> 1;
+                RunTask left = new RunTask(cell, from, middle);
+                left.fork();
+                CellResult result = new RunTask(cell, middle, to).compute();
+                result.merge(left.join());
+                return result;
+            }
+            return runRange();
+        }
+
+        private CellResult runRange() {
+            CellResult result = new CellResult(cell, maxTurns);
+            List<Character> team = deepCopy(cell.team);
+            List<Enemy> enemies = deepCopy(cell.enemies);
+            EnemyAI ai = new EnemyAI();
+            ai.setAggressionLevel(cell.aggression);
+            ActionPolicy enemyPolicy = new AiActionPolicy(ai);
+            long firstRun = (long) cell.index * runsPerCell;
+            for (int run = from; run < to; run++) {
+                for (BattleUnit unit : team) {
+                    unit.setCurrentHP(unit.getMaxHP());
+                }
+                for (BattleUnit unit : enemies) {
+                    // phase bonuses of the last run change the boss stats, the HP alone does not undo them
+                    if (unit instanceof BossEnemy) {
+                        ((BossEnemy) unit).resetPhases();
+                    }
+                    unit.setCurrentHP(unit.getMaxHP());
+                }
+                ai.setRandom(rng.stream(RngService.AI, firstRun + run));
+                BattleSystem battle = new BattleSystem(rng.stream(RngService.DAMAGE, firstRun + run));
+                battle.setDefenseFactor(cell.defenseFactor);
+                result.record(battle.runHeadless(team, enemies, ActionPolicy.ALWAYS_ATTACK, enemyPolicy, maxTurns));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The results of one cell: outcome counts and a histogram of the turn counts
+     */
+    public static final class CellResult {
+        private final String team;
+        private final int difficulty;
+        private final double defenseFactor;
+        private final int aggression;
+        // turnCounts[t] is the number of runs that took t turns
+        private final int[] turnCounts;
+        private int runs;
+        private int wins;
+        private int losses;
+        private int draws;
+        private int timeouts;
+        private long turnSum;
+
+        private CellResult(Cell cell, int maxTurns) {
+            this.team = cell.teamName;
+            this.difficulty = cell.difficulty;
+            this.defenseFactor = cell.defenseFactor;
+            this.aggression = cell.aggression;
+            this.turnCounts = new int[maxTurns + 1];
+        }
+
+        private void record(BattleResult result) {
+            runs++;
+            String outcome = result.getOutcome();
+            if ("WON".equals(outcome)) {
+                wins++;
+            } else if ("LOST".equals(outcome)) {
+                losses++;
+            } else if ("DRAW".equals(outcome)) {
+                draws++;
+            } else {
+                timeouts++;
+            }
+            turnCounts[result.getTurns()]++;
+            turnSum += result.getTurns();
+        }
+
+        private void merge(CellResult other) {
+            runs += other.runs;
+            wins += other.wins;
+            losses += other.losses;
+            draws += other.draws;
+            timeouts += other.timeouts;
+            turnSum += other.turnSum;
+            for (int i = 0; i < turnCounts.length; i++) {
+                turnCounts[i] += other.turnCounts[i];
+            }
+        }
+
+        /**
+         * Gets the win rate of the players
+         *
+         * @return wins / runs, 0 if there was no run
+         */
+        public double getWinRate() {
+            return runs == 0 ? 0 : (double) wins / runs;
+        }
+
+        /**
+         * Gets the average number of turns
+         *
+         * @return the average turns, 0 if there was no run
+         */
+        public double getAverageTurns() {
+            return runs == 0 ? 0 : (double) turnSum / runs;
+        }
+
+        /**
+         * Gets a percentile of the turn counts
+         *
+         * @param fraction the percentile between 0 and 1 (0.5 is the median)
+         * @return the smallest turn count that at least this fraction of runs did not go over
+         */
+        public int getTurnPercentile(double fraction) {
+            long needed = Math.max(1, (long) Math.ceil(fraction * runs));
+            long seen = 0;
+            for (int turns = 0; turns < turnCounts.length; turns++) {
+                seen += turnCounts[turns];
+                if (seen >= needed) {
+                    return turns;
+                }
+            }
+            return turnCounts.length - 1;
+        }
+
+        /**
+         * Gets how many runs took a number of turns
+         *
+         * @param turns the number of turns
+         * @return the number of runs
+         */
+        public int getTurnCount(int turns) {
+            return turnCounts[turns];
+        }
+
+        private String toCsvRow() {
+            return team + "," + difficulty + "," + defenseFactor + "," + aggression + "," + runs + "," + wins + ","
+                    + losses + "," + draws + "," + timeouts + "," + String.format("%.4f", getWinRate()) + ","
+                    + String.format("%.2f", getAverageTurns()) + "," + getTurnPercentile(0) + ","
+                    + getTurnPercentile(0.1) + "," + getTurnPercentile(0.5) + "," + getTurnPercentile(0.9) + ","
+                    + getTurnPercentile(1);
+        }
+
+        /**
+         * Gets the team.
+         *
+         * @return the team, character ids joined with +
+         */
+        public String getTeam() { return team; }
+
+        /**
+         * Gets the difficulty.
+         *
+         * @return the difficulty
+         */
+        public int getDifficulty() { return difficulty; }
+
+        /**
+         * Gets the defense factor.
+         *
+         * @return the defense factor
+         */
+        public double getDefenseFactor() { return defenseFactor; }
+
+        /**
+         * Gets the aggression.
+         *
+         * @return the enemy AI aggression level
+         */
+        public int getAggression() { return aggression; }
+
+        /**
+         * Gets the runs.
+         *
+         * @return the number of runs
+         */
+        public int getRuns() { return runs; }
+
+        /**
+         * Gets the wins.
+         *
+         * @return the number of player wins
+         */
+        public int getWins() { return wins; }
+
+        /**
+         * Gets the losses.
+         *
+         * @return the number of player losses
+         */
+        public int getLosses() { return losses; }
+
+        /**
+         * Gets the draws.
+         *
+         * @return the number of draws
+         */
+        public int getDraws() { return draws; }
+
+        /**
+         * Gets the timeouts.
+         *
+         * @return the number of runs that hit the turn limit
+         */
+        public int getTimeouts() { return timeouts; }
+    }
+
+    /**
+     * Sets the difficulties of the grid.
+     *
+     * @param difficulties the difficulties for {@link GamePlay#createEnemies(int)}
+     */
+    public void setDifficulties(int... difficulties) { this.difficulties = difficulties.clone(); }
+
+    /**
+     * Sets the defense factors of the grid.
+     *
+     * @param defenseFactors the defense factors for {@link Damage}
+     */
+    public void setDefenseFactors(double... defenseFactors) { this.defenseFactors = defenseFactors.clone(); }
+
+    /**
+     * Sets the aggression levels of the grid.
+     *
+     * @param aggressionLevels the enemy AI aggression levels (0-2)
+     */
+    public void setAggressionLevels(int... aggressionLevels) { this.aggressionLevels = aggressionLevels.clone(); }
+
+    /**
+     * Sets the number of runs of every cell.
+     *
+     * @param runsPerCell the runs per cell
+     */
+    public void setRunsPerCell(int runsPerCell) { this.runsPerCell = runsPerCell; }
+
+    /**
+     * Sets the turn limit of every battle.
+     *
+     * @param maxTurns the turn limit
+     */
+    public void setMaxTurns(int maxTurns) { this.maxTurns = maxTurns; }
+
+    /**
+     * Sets the most runs one task does before it splits, only to check that results do not depend on the split.
+     *
+     * @param runsPerTask the runs per task, 256 by default
+     */
+    void setRunsPerTask(int runsPerTask) { this.runsPerTask = Math.max(1, runsPerTask); }
+}
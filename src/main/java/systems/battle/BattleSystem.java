@@ -1,10 +1,11 @@
 package systems.battle;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.SplittableRandom;
 import entities.abs.BattleUnit;
 import entities.characters.Character;
-import entities.equipment.Equipment;
+import entities.effects.EffectWheel;
 import entities.enemies.Enemy;
+import util.random.RngService;
 
 /**
  * Creating the battle system that manages the battles
@@ -12,15 +13,32 @@ import entities.enemies.Enemy;
  * @version 4.0
  */
 public class BattleSystem {
-    private final BattleUnit[][] battleGrid = new BattleUnit[2][4];
-    private final List<BattleUnit> turnOrder = new ArrayList<>();
-    private int currentTurn=0;
+    private final Battlefield battlefield = new Battlefield(4, 4);  //2x4 by default, raids can be bigger
+    private final ActionTimeline timeline = new ActionTimeline();  //who acts next, by action value
+    private final EffectWheel effects = new EffectWheel();  //status effects, ticked and expired once per turn
+    private int currentTurn=0;  //turns taken since the battle started
     private String battleState = "PREPARE"; //when it just starts (PREPARE)
                                             //other states: IN_PROGRESS, WON, or LOST
+    private final DamagePipeline damage;  //damage rolls, own generator so battles can be replayed
+    private BattleEventLog eventLog;  //null when nothing is recorded
+    private long playerDamageDealt = 0;  //hp removed by each side since the battle started
+    private long enemyDamageDealt = 0;
+
     /**
      * Instantiates a new Battle system.
      */
-    public BattleSystem() {}
+    public BattleSystem() {
+        this(RngService.global().fork(RngService.DAMAGE));
+    }
+
+    /**
+     * Instantiates a new Battle system with its own random generator, same seed gives the same battle
+     *
+     * @param rng the random generator for damage rolls
+     */
+    public BattleSystem(SplittableRandom rng) {
+        this.damage = new DamagePipeline(rng);
+    }
 
     /**
      * The grid where the battle happens
@@ -29,88 +47,135 @@ public class BattleSystem {
      * @param enemies    the list of enemies characters
      */
     public void initializeBattle(List<Character> playerTeam, List<Enemy> enemies) {
-        for (int j = 0; j < 2; j++) {   //clear grid
-            for (int i =0; i<4; i++) {
-                battleGrid[j][i] = null;
-            }
-        }
-        int col = 0; //row 0, players move left to right
-        for (int i =0; i<playerTeam.size() && col<4; i++, col++) {
-            battleGrid[0][col] = playerTeam.get(i);
+        battlefield.reset(4, 4);
+        battlefield.placePlayers(playerTeam);  //row 0, players move left to right
+        battlefield.addWave(enemies);          //row 1, enemies move right to left
+        battlefield.nextWave();
+        startBattle();
+    }
+
+    /**
+     * Sets up a raid: the enemies come in waves, the next wave enters when the last enemy of a wave is defeated.
+     * The enemy row is as wide as the biggest wave.
+     *
+     * @param playerTeam the list of player characters
+     * @param waves      the enemy waves in order
+     */
+    public void initializeRaid(List<Character> playerTeam, List<List<Enemy>> waves) {
+        int width = 1;
+        for (List<Enemy> wave : waves) {
+            width = Math.max(width, wave.size());
         }
-        //row 1, enemies move right to left
-        col = 3;
-        for (int i = 0; i <enemies.size() && col>=0; i++, col--) {
-            battleGrid[1][col] = enemies.get(i);
+        battlefield.reset(Math.max(4, playerTeam.size()), width);
+        battlefield.placePlayers(playerTeam);
+        for (List<Enemy> wave : waves) {
+            battlefield.addWave(wave);
         }
+        battlefield.nextWave();
+        startBattle();
+    }
 
+    private void startBattle() {
         calculateTurnOrder();
         currentTurn = 0;
-        battleState = "IN_PROGRESS";
+        playerDamageDealt = 0;
+        enemyDamageDealt = 0;
+        battleState = "IN_PROGRESS";  //the battlefield gave the units to the event log when it placed them
     }
 
     /**
-     * Executes a turn for the unit in the turn order
+     * Runs a whole battle without any console input or output, for auto battles and simulations.
+     * Every alive unit asks the policy of its side what to do on its turn.
+     *
+     * @param playerTeam   the list of player characters
+     * @param enemies      the list of enemies characters
+     * @param playerPolicy the actions of the players
+     * @param enemyPolicy  the actions of the enemies
+     * @param maxTurns     the turn limit, the result is TIMEOUT when it is reached
+     * @return the result of the battle
      */
-    public void executeTurn() {
-        if (!"IN_PROGRESS".equals(battleState)) {
-            return;
+    public BattleResult runHeadless(List<Character> playerTeam, List<Enemy> enemies,
+                                    ActionPolicy playerPolicy, ActionPolicy enemyPolicy, int maxTurns) {
+        initializeBattle(playerTeam, enemies);
+        return runHeadless(playerPolicy, enemyPolicy, maxTurns);
+    }
+
+    /**
+     * Runs the battle that was already initialized to the end, without any console input or output
+     *
+     * @param playerPolicy the actions of the players
+     * @param enemyPolicy  the actions of the enemies
+     * @param maxTurns     the turn limit, the result is TIMEOUT when it is reached
+     * @return the result of the battle
+     */
+    public BattleResult runHeadless(ActionPolicy playerPolicy, ActionPolicy enemyPolicy, int maxTurns) {
+        int turns = 0;
+        if ("IN_PROGRESS".equals(battleState)) {
+            checkBattleEnd();  //one side can be empty from the start
         }
-        if (turnOrder.isEmpty()) {
-            calculateTurnOrder();
-            currentTurn = 0;
-            if (turnOrder.isEmpty()) {
-                return;
+        while ("IN_PROGRESS".equals(battleState) && turns < maxTurns) {
+            BattleUnit acting = timeline.next();
+            if (acting == null) {
+                break;
+            }
+            currentTurn++;
+            int place = battlefield.placeOf(acting);
+            ActionPolicy policy = (place & 1) == Battlefield.PLAYERS ? playerPolicy : enemyPolicy;
+            int action = policy.chooseAction(acting, this);
+            if (eventLog != null) {
+                eventLog.turnStarted(currentTurn, place, action);
+            }
+            if (action != ActionPolicy.WAIT) {
+                strike(acting, place, action);
+            }
+            effects.advance();
+            turns++;
+            if (checkBattleEnd()) {
+                break;
             }
         }
+        String outcome = "IN_PROGRESS".equals(battleState) ? BattleResult.TIMEOUT : battleState;
+        if (eventLog != null && outcome.equals(BattleResult.TIMEOUT)) {
+            eventLog.battleEnd(outcome);
+        }
+        release();  //a headless battle is never continued
+        return new BattleResult(outcome, turns, playerDamageDealt, enemyDamageDealt);
+    }
 
-        BattleUnit acting = turnOrder.get(currentTurn);
-        if (!acting.isAlive()) {
-            advanceTurn();
+    /**
+     * Executes a turn for the unit in the turn order
+     */
+    public void executeTurn() {
+        if (!"IN_PROGRESS".equals(battleState)) {
             return;
         }
-        BattleUnit target = pickAliveOpponent(acting);
-        if (target == null) {
-            if (checkBattleEnd()) {
-                return;
-            }
-            advanceTurn();
+        BattleUnit acting = timeline.next();
+        if (acting == null) {
+            checkBattleEnd();
             return;
         }
-        //damage calculatio
-        double crit = critRateOf(acting);
-        double critDmg = critDmgOf(acting);
-        int dmg = Damage.compute(acting.getAttack(), target.getDefense(), crit, critDmg);
-        target.setCurrentHP(Math.max(0, target.getCurrentHP() - dmg));
-
-        if (checkBattleEnd()) {
-            return;   //battle ended
+        currentTurn++;
+        int place = battlefield.placeOf(acting);
+        if (eventLog != null) {
+            eventLog.turnStarted(currentTurn, place, ActionPolicy.ATTACK);
         }
-        advanceTurn();
+        strike(acting, place, 0);
+        effects.advance();
+        checkBattleEnd();
     }
 
     /**
-     * The turn order for the alive units by speed of each unit
+     * The turn order for the alive units by speed of each unit.
+     * Puts every alive unit on the timeline with a full action value to go, faster units act first and more often.
+     * Speed changes and defeats during the battle update the timeline by themselves, so this is only needed at the start
      */
     public void calculateTurnOrder() {
-        turnOrder.clear();
-        for (int j = 0; j < 2; j++) {
-            for (int i = 0; i <4; i++) {
-                BattleUnit u = battleGrid[j][i];
-                if (u != null && u.isAlive()) {
-                    turnOrder.add(u);
-                }
+        timeline.clear();
+        for (int side = 0; side < 2; side++) {
+            for (int i = 0; i < battlefield.getSlotCount(side); i++) {
+                timeline.add(battlefield.getUnit(side, i));
             }
         }
-        for (int i= 1; i<turnOrder.size(); i++) {
-            BattleUnit key = turnOrder.get(i);
-            int j = i-1;
-            while (j>=0 && faster(key, turnOrder.get(j))) {
-                turnOrder.set(j + 1, turnOrder.get(j));
-                j--;
-            }
-            turnOrder.set(j + 1, key);
-        }
     }
 
     /**
@@ -119,31 +184,52 @@ public class BattleSystem {
      * @return true if battle has ended
      */
     public boolean checkBattleEnd() {
-        boolean playersAlive = false;
-        boolean enemiesAlive = false;
-        for (int row = 0; row < 2; row++) {
-            for (int col = 0; col < 4; col++) {
-                BattleUnit u = battleGrid[row][col];
-                if (u != null && u.isAlive()) {
-                    if (u instanceof Character) {
-                        playersAlive = true;
-                    } else {
-                        enemiesAlive = true;
-                    }
-                }
-            }
+        //alive counts are kept by the battlefield, no scan needed
+        boolean playersAlive = battlefield.getAliveCount(Battlefield.PLAYERS) > 0;
+        while (playersAlive && battlefield.getAliveCount(Battlefield.ENEMIES) == 0 && battlefield.hasNextWave()) {
+            enterNextWave();
         }
+        boolean enemiesAlive = battlefield.getAliveCount(Battlefield.ENEMIES) > 0;
         if (!playersAlive && enemiesAlive) {
             battleState = "LOST";
-            return true;
         } else if (playersAlive && !enemiesAlive) {
             battleState = "WON";
-            return true;
         } else if (!playersAlive && !enemiesAlive) {
-            battleState = "DRAW";
-            return true;   //idk if this is needed, added just in case
+            battleState = "DRAW";   //idk if this is needed, added just in case
+        } else {
+            return false;
         }
-        return false;
+        if (eventLog != null) {
+            eventLog.battleEnd(battleState);
+        }
+        release();
+        return true;
+    }
+
+    // the next enemy wave enters the field and the timeline
+    void enterNextWave() {
+        for (BattleUnit enemy : battlefield.nextWave()) {
+            timeline.add(enemy);
+        }
+        if (eventLog != null) {
+            eventLog.wave(battlefield.getWave());
+        }
+    }
+
+    // the counters of a BattleState that is applied back to this battle
+    void restore(int turn, long playerDamage, long enemyDamage) {
+        currentTurn = turn;
+        playerDamageDealt = playerDamage;
+        enemyDamageDealt = enemyDamage;
+    }
+
+    /**
+     * Stops listening to the units when the battle is over, so units can join other battles
+     */
+    private void release() {
+        timeline.clear();
+        effects.clear();  //battle effects do not follow the units out
+        battlefield.detach();
     }
 
     /**
@@ -156,152 +242,148 @@ public class BattleSystem {
         if (!"IN_PROGRESS".equals(battleState) || unit==null || !unit.isAlive()) {
             return;
         }
-        BattleUnit target = pickAliveOpponent(unit);
-        if (target == null) {
-            return;
+        int place = battlefield.placeOf(unit);
+        if (eventLog != null) {
+            eventLog.action(place, skillIndex);
         }
+        strike(unit, place, skillIndex);
+        checkBattleEnd();
+    }
 
-        double multi;
-        if (skillIndex == 1) {
-            multi = 1.5;
-        } else if (skillIndex == 2) {
-            multi = 2.0;
+    /**
+     * Area of effect attack: the unit hits every alive opponent at once, damage for all targets is computed in one batch
+     *
+     * @param unit the attacking unit
+     * @return the total hp removed from the opponents
+     */
+    public int useAreaAttack(BattleUnit unit) {
+        if (!"IN_PROGRESS".equals(battleState) || unit==null || !unit.isAlive()) {
+            return 0;
+        }
+        int side = battlefield.sideOf(unit);
+        if (side < 0) {
+            return 0;
+        }
+        List<BattleUnit> targets = battlefield.getAliveUnits(1 - side);
+        int[] dmg = damage.area(unit, targets, 0);
+        int place = eventLog == null ? -1 : battlefield.placeOf(unit);
+        int dealt = 0;
+        for (int i = 0; i < dmg.length; i++) {
+            BattleUnit target = targets.get(i);
+            dmg[i] = target.absorbDamage(dmg[i]);
+            int hpBefore = target.getCurrentHP();
+            if (eventLog != null) {
+                eventLog.damage(place, battlefield.placeOf(target), Math.min(hpBefore, dmg[i]), damage.wasCrit(i));
+            }
+            dealt += Math.min(hpBefore, dmg[i]);  //before the hp changes, a boss can heal when its phase changes
+            target.setCurrentHP(Math.max(0, hpBefore - dmg[i]));
+        }
+        if (side == Battlefield.PLAYERS) {
+            playerDamageDealt += dealt;
         } else {
-            multi = 1.0;
+            enemyDamageDealt += dealt;
         }
-        double crit = critRateOf(unit);
-        double critDmg = critDmgOf(unit);
-        int base = Damage.compute(unit.getAttack(), target.getDefense(), crit, critDmg);
-        int dmg = (int)Math.floor(base*multi);
-        target.setCurrentHP(Math.max(0, target.getCurrentHP() - Math.max(0, dmg)));
-
         checkBattleEnd();
+        return dealt;
     }
 
     //helpers
 
     /**
-     * Advances turn to next unit
+     * Hits the first alive opponent with a skill, no output
+     * @param unit the attacking unit
+     * @param place the place of the unit on the battlefield (slot * 2 + side)
+     * @param skillIndex 0 for basic attack, 1 and 2 for skills
+     * @return the hp removed from the target, 0 when there is no target
      */
-    private void advanceTurn() {
-        currentTurn++;
-        if (currentTurn >= turnOrder.size()) {
-            calculateTurnOrder();
-            currentTurn = 0;
+    private int strike(BattleUnit unit, int place, int skillIndex) {
+        if (place < 0) {
+            return 0;  //not in this battle
         }
-    }
-    /**
-     * Helper for which unit acts first
-     * @param a the first unit being compared
-     * @param b the second unit being compared
-     * @return the unit who goes first
-     */
-    private boolean faster(BattleUnit a, BattleUnit b) {
-        if (a.getSpeed() != b.getSpeed()) {
-            return a.getSpeed() > b.getSpeed();
+        int side = place & 1;
+        int slot = battlefield.firstAliveSlot(1 - side);
+        if (slot < 0) {
+            return 0;
         }
-        return a.getName().compareTo(b.getName()) < 0;
-    }
-    /**
-     * Helper for which unit is alive 
-     * @param acting the character thats alive
-     * @return null when no target
-     */
-    private BattleUnit pickAliveOpponent(BattleUnit acting) {
-        int enemyRow;
-        if (acting instanceof Character) {
-            enemyRow = 1;  //enemy on row 1
+        BattleUnit target = battlefield.getUnit(1 - side, slot);
+
+        int dmg = target.absorbDamage(damage.hit(unit, target, skillIndex));  //shields first
+        int hpBefore = target.getCurrentHP();
+        if (eventLog != null) {
+            //before the hp changes, so the hit comes before the defeat in the log
+            eventLog.damage(place, slot * 2 + 1 - side, Math.min(hpBefore, dmg), damage.wasCrit(0));
+        }
+        int dealt = Math.min(hpBefore, dmg);  //before the hp changes, a boss can heal when its phase changes
+        target.setCurrentHP(Math.max(0, hpBefore - dmg));
+        if (side == Battlefield.PLAYERS) {
+            playerDamageDealt += dealt;
         } else {
-            enemyRow = 0; //players row 0
+            enemyDamageDealt += dealt;
         }
+        return dealt;
+    }
 
-        for (int i = 0; i < 4; i++) {
-            BattleUnit u = battleGrid[enemyRow][i];
-            if (u != null && u.isAlive()) {
-                return u;
-            }
-        }
-        return null;  //for when no target found
+    //getters for UI/tests
+    public BattleUnit[][] getBattleGrid() {
+        return battlefield.toGrid();
+    }
+    public Battlefield getBattlefield() {
+        return battlefield;
+    }
+    public List<BattleUnit> getTurnOrder() {
+        return timeline.getOrder();
+    }
+    public DamagePipeline getDamagePipeline() {
+        return damage;
+    }
+    public BattleEventLog getEventLog() {
+        return eventLog;
     }
+
     /**
-     * Helper for determining crits
-     * @param u the unit that hit a crit
-     * @return the determined crit rate
+     * Sets the log that records the events of the next battles, the units are added to it when they are placed
+     *
+     * @param eventLog the log, null to stop recording
      */
-    private double critRateOf(BattleUnit u)  {
-        double rate = 0.0;  //0.0is 0% and 1.0 is 100%
-        if(u instanceof Character) {
-            Character c = (Character) u;
-            Equipment[] gear = c.getEquippedItems();
-            if (gear != null) {
-                for (int i=0; i<gear.length; i++) {
-                    Equipment e = gear[i];
-                    if (e==null) {
-                        continue;
-                    }
-                    rate += percentToFraction(e.getStat("critical_rate"));  //takes int percent like 5 would be 5%
-                }
-            }
-        } else if (u instanceof Enemy) {
-            rate += 0.05; //default TBD
-        }
-        if (rate < 0.0) {
-            rate = 0.0;
-        }
-        if (rate > 1.0) {
-            rate = 1.0;
-        }
-        return rate;
+    public void setEventLog(BattleEventLog eventLog) {
+        this.eventLog = eventLog;
+        battlefield.setEventLog(eventLog);
+    }
+    public ActionTimeline getTimeline() {
+        return timeline;
     }
 
     /**
-     * Helper for determining the damage of a crit
-     * @param u the unit that has crit dmg
-     * @return the amount of bonus damage
+     * Gets the wheel that runs the status effects of this battle, effects put on units through it tick and expire
+     * by the turns of the battle and are taken off when the battle ends
+     *
+     * @return the effect wheel
      */
-    private double critDmgOf(BattleUnit u)  {
-        double bonus = 0.5;  //base crit is 50%
-        if (u instanceof Character) {
-            Character c = (Character) u;
-            Equipment[] gear = c.getEquippedItems();
-            if (gear != null) {
-                for (int i=0; i< gear.length;i++) {
-                    Equipment e = gear[i];
-                    if (e ==null) {
-                        continue;
-                    }
-                    bonus += percentToFraction(e.getStat("critical_damage"));
-                }
-            }
-        } else if (u instanceof Enemy) { }  //base is 50% so it will be for enemy too
-        if (bonus < 0.0) {
-            bonus = 0.0;
-        }
-        return bonus;
+    public EffectWheel getEffectWheel() {
+        return effects;
+    }
+    public int getCurrentTurn() {
+        return currentTurn;
+    }
+    public String getBattleState() {
+        return battleState;
+    }
+    public long getPlayerDamageDealt() {
+        return playerDamageDealt;
     }
+    public long getEnemyDamageDealt() {
+        return enemyDamageDealt;
+    }
+    public double getDefenseFactor() {
+        return damage.getDefenseFactor();
+    }
+
     /**
-     * Percent to fraction for crit rate and dmg
-     * @param percent the percent rate or damage
-     * @return the percent as a fraction
+     * Sets how much of the target defense is taken off the attack, for difficulty tuning
+     *
+     * @param defenseFactor the defense factor, 0.5 by default
      */
-    private double percentToFraction(int percent) {
-        if (percent <=0) {
-            return 0.0;
-        }
-        return percent/100.0;
+    public void setDefenseFactor(double defenseFactor) {
+        damage.setDefenseFactor(defenseFactor);
     }
-
 }
-    // //getters for UI/tests( not needed)
-    // public BattleUnit[][] getBattleGrid() {
-    //     return battleGrid;
-    // }
-    // public List<BattleUnit> getTurnOrder() {
-    //     return new ArrayList<>(turnOrder);
-    // }
-    // public int getCurrentTurn() {
-    //     return currentTurn;
-    // }
-    // public String get BattleState() {
-    //     return battleState;
-    // }
\ No newline at end of file
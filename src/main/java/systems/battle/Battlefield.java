@@ -0,0 +1,352 @@
+package systems.battle;
+
+import entities.abs.BattleUnit;
+import entities.abs.BattleUnitListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The battlefield of a battle: one row of slots for the players and one for the enemies, of any size, and a queue of
+ * enemy waves for raids. Each side keeps a bit set of its alive slots and an alive count that are updated when a unit
+ * is defeated (the battlefield listens to its units), so finding a target and checking if a side lost never scan the
+ * whole field.
+ * <p>
+ * Enemies fill their row from the last slot, so the first target is the last enemy of the list (same as the old
+ * 2x4 grid). Defeated units that are healed again are not counted as alive.
+ * </p>
+ * <p>
+ * The place of a unit (slot * 2 + side) is also its key in the {@link BattleEventLog} of the battle: the field tells
+ * the log who is on a place and passes on the defeats and boss phases it hears from its units.
+ * </p>
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see BattleSystem
+ */
+public class Battlefield implements BattleUnitListener {
+    /** The player side. */
+    public static final int PLAYERS = 0;
+    /** The enemy side. */
+    public static final int ENEMIES = 1;
+
+    private final BattleUnit[][] slots;
+    private final BitSet[] alive;
+    private final int[] aliveCount;
+    // side and slot of every unit on the field: slot * 2 + side
+    private final IdentityHashMap<BattleUnit, Integer> places;
+    private final ArrayDeque<List<? extends BattleUnit>> waves;
+    private int wave;
+    private BattleEventLog eventLog;  //null when nothing is recorded
+
+    /**
+     * Instantiates a new empty battlefield
+     *
+     * @param playerSlots the number of player slots
+     * @param enemySlots  the number of enemy slots
+     */
+    public Battlefield(int playerSlots, int enemySlots) {
+        this.slots = new BattleUnit[2][];
+        this.alive = new BitSet[] {new BitSet(), new BitSet()};
+        this.aliveCount = new int[2];
+        this.places = new IdentityHashMap<>();
+        this.waves = new ArrayDeque<>();
+        reset(playerSlots, enemySlots);
+    }
+
+    /**
+     * Remove every unit and wave and resize the rows
+     *
+     * @param playerSlots the number of player slots
+     * @param enemySlots  the number of enemy slots
+     */
+    public void reset(int playerSlots, int enemySlots) {
+        if (playerSlots < 1 || enemySlots < 1) {
+            throw new IllegalArgumentException("Both sides need at least one slot");
+        }
+        detach();
+        slots[PLAYERS] = emptyRow(slots[PLAYERS], playerSlots);
+        slots[ENEMIES] = emptyRow(slots[ENEMIES], enemySlots);
+        alive[PLAYERS].clear();
+        alive[ENEMIES].clear();
+        aliveCount[PLAYERS] = 0;
+        aliveCount[ENEMIES] = 0;
+        places.clear();
+        waves.clear();
+        wave = 0;
+    }
+
+    // reuse the old row when the size is the same, battles are often set up again and again
+    private static BattleUnit[] emptyRow(BattleUnit[] row, int size) {
+        if (row == null || row.length != size) {
+            return new BattleUnit[size];
+        }
+        Arrays.fill(row, null);
+        return row;
+    }
+
+    /**
+     * Put a unit on a slot, the unit that was there is removed
+     *
+     * @param side PLAYERS or ENEMIES
+     * @param slot the slot
+     * @param unit the unit, null to empty the slot
+     */
+    public void place(int side, int slot, BattleUnit unit) {
+        BattleUnit old = slots[side][slot];
+        if (old != null) {
+            places.remove(old);
+            old.removeListener(this);
+            if (alive[side].get(slot)) {
+                alive[side].clear(slot);
+                aliveCount[side]--;
+            }
+        }
+        slots[side][slot] = unit;
+        if (unit == null) {
+            return;
+        }
+        places.put(unit, slot * 2 + side);
+        unit.addListener(this);
+        if (eventLog != null) {
+            eventLog.register(slot * 2 + side, unit);
+        }
+        if (unit.isAlive()) {
+            alive[side].set(slot);
+            aliveCount[side]++;
+        }
+    }
+
+    /**
+     * Put the players on their row from the first slot, units that do not fit are left out
+     *
+     * @param team the players
+     */
+    public void placePlayers(List<? extends BattleUnit> team) {
+        for (int i = 0; i < slots[PLAYERS].length; i++) {
+            place(PLAYERS, i, i < team.size() ? team.get(i) : null);
+        }
+    }
+
+    /**
+     * Add an enemy wave to the end of the queue
+     *
+     * @param enemies the enemies of the wave
+     */
+    public void addWave(List<? extends BattleUnit> enemies) {
+        waves.add(enemies);
+    }
+
+    /**
+     * Checks if there is a wave waiting.
+     *
+     * @return true if there is another wave
+     */
+    public boolean hasNextWave() {
+        return !waves.isEmpty();
+    }
+
+    // the waves that did not enter yet, in order (for BattleState)
+    List<List<? extends BattleUnit>> getWaitingWaves() {
+        return new ArrayList<>(waves);
+    }
+
+    /**
+     * Replace the enemy row with the next wave, enemies fill the row from the last slot
+     *
+     * @return the enemies put on the field, empty if there was no wave
+     */
+    public List<BattleUnit> nextWave() {
+        List<? extends BattleUnit> enemies = waves.poll();
+        List<BattleUnit> placed = new ArrayList<>();
+        if (enemies == null) {
+            return placed;
+        }
+        wave++;
+        int width = slots[ENEMIES].length;
+        for (int i = 0; i < width; i++) {
+            place(ENEMIES, i, null);
+        }
+        for (int i = 0; i < enemies.size() && i < width; i++) {
+            BattleUnit enemy = enemies.get(i);
+            place(ENEMIES, width - 1 - i, enemy);
+            if (enemy != null) {
+                placed.add(enemy);
+            }
+        }
+        return placed;
+    }
+
+    /**
+     * Gets the first alive unit of a side, the target of single target attacks
+     *
+     * @param side PLAYERS or ENEMIES
+     * @return the first alive unit, null if the side has no alive unit
+     */
+    public BattleUnit firstAlive(int side) {
+        int slot = alive[side].nextSetBit(0);
+        return slot < 0 ? null : slots[side][slot];
+    }
+
+    /**
+     * Gets the slot of the first alive unit of a side
+     *
+     * @param side PLAYERS or ENEMIES
+     * @return the slot, -1 if the side has no alive unit
+     */
+    public int firstAliveSlot(int side) {
+        return alive[side].nextSetBit(0);
+    }
+
+    /**
+     * Gets the alive units of a side in slot order
+     *
+     * @param side PLAYERS or ENEMIES
+     * @return a new list of the alive units
+     */
+    public List<BattleUnit> getAliveUnits(int side) {
+        List<BattleUnit> units = new ArrayList<>(aliveCount[side]);
+        for (int slot = alive[side].nextSetBit(0); slot >= 0; slot = alive[side].nextSetBit(slot + 1)) {
+            units.add(slots[side][slot]);
+        }
+        return units;
+    }
+
+    /**
+     * Gets the side of a unit
+     *
+     * @param unit the unit
+     * @return PLAYERS or ENEMIES, -1 if the unit is not on the field
+     */
+    public int sideOf(BattleUnit unit) {
+        int place = placeOf(unit);
+        return place < 0 ? -1 : place & 1;
+    }
+
+    /**
+     * Gets the place of a unit
+     *
+     * @param unit the unit
+     * @return slot * 2 + side, -1 if the unit is not on the field
+     */
+    public int placeOf(BattleUnit unit) {
+        Integer place = places.get(unit);
+        return place == null ? -1 : place;
+    }
+
+    /**
+     * Checks if a side lost: no alive unit and, for the enemies, no wave left
+     *
+     * @param side PLAYERS or ENEMIES
+     * @return true if the side is defeated
+     */
+    public boolean isDefeated(int side) {
+        return aliveCount[side] == 0 && (side == PLAYERS || waves.isEmpty());
+    }
+
+    /**
+     * Stop listening to the units, the slots and counts are kept (used when the battle is over)
+     */
+    public void detach() {
+        for (BattleUnit unit : places.keySet()) {
+            unit.removeListener(this);
+        }
+    }
+
+    @Override
+    public void onSpeedChanged(BattleUnit unit, int oldSpeed) {
+        // speed does not change the field
+    }
+
+    @Override
+    public void onDefeated(BattleUnit unit) {
+        Integer place = places.get(unit);
+        if (place == null) {
+            return;
+        }
+        int side = place & 1;
+        int slot = place >>> 1;
+        if (alive[side].get(slot)) {
+            alive[side].clear(slot);
+            aliveCount[side]--;
+        }
+        if (eventLog != null) {
+            eventLog.defeated(place);
+        }
+    }
+
+    @Override
+    public void onPhaseChanged(BattleUnit unit, int phase) {
+        Integer place = places.get(unit);
+        if (place != null && eventLog != null) {
+            eventLog.phaseChanged(place, phase);
+        }
+    }
+
+    /**
+     * Sets the log that gets the places, defeats and boss phases of the units, the units already on the field are
+     * added to it
+     *
+     * @param eventLog the log, null for none
+     */
+    void setEventLog(BattleEventLog eventLog) {
+        this.eventLog = eventLog;
+        if (eventLog != null) {
+            for (Map.Entry<BattleUnit, Integer> entry : places.entrySet()) {
+                eventLog.register(entry.getValue(), entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Copy the field to a grid, row 0 is the players and row 1 is the enemies, for the UI
+     *
+     * @return the new grid
+     */
+    public BattleUnit[][] toGrid() {
+        return new BattleUnit[][] {slots[PLAYERS].clone(), slots[ENEMIES].clone()};
+    }
+
+    /**
+     * Gets a unit.
+     *
+     * @param side PLAYERS or ENEMIES
+     * @param slot the slot
+     * @return the unit, null if the slot is empty
+     */
+    public BattleUnit getUnit(int side, int slot) { return slots[side][slot]; }
+
+    /**
+     * Gets the number of slots of a side.
+     *
+     * @param side PLAYERS or ENEMIES
+     * @return the number of slots
+     */
+    public int getSlotCount(int side) { return slots[side].length; }
+
+    /**
+     * Gets the number of alive units of a side.
+     *
+     * @param side PLAYERS or ENEMIES
+     * @return the alive count
+     */
+    public int getAliveCount(int side) { return aliveCount[side]; }
+
+    /**
+     * Gets the number of the current wave.
+     *
+     * @return the wave number, starting at 1 (0 before the first wave)
+     */
+    public int getWave() { return wave; }
+
+    /**
+     * Gets the number of waves still waiting.
+     *
+     * @return the waves left
+     */
+    public int getWavesLeft() { return waves.size(); }
+}
@@ -1,5 +1,6 @@
 package systems.battle;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * The damage calculator for combat
@@ -7,12 +8,15 @@ import java.util.Random;
  * @version 4.0
  */
 public final class Damage{
-    private static final Random RNG = new Random();
+    /** How much of the target defense is taken off the attack by default. */
+    public static final double DEFAULT_DEFENSE_FACTOR = 0.5;  //TBD value idk what to put the number at rn, so it will be at 0.5
+
     private Damage() {}
 
 
     /**
-     * Compute the damage taking into account all factors
+     * Compute the damage taking into account all factors.
+     * Uses the random generator of the current thread, use the overload with a generator for replays.
      *
      * @param atk     the base attack damage
      * @param def     the defense of target
@@ -21,16 +25,192 @@ public final class Damage{
      * @return the total damage, never less than zero
      */
     public static int compute(int atk, int def, double crit, double critDmg) {
-        final double def_Factor = 0.5;           //TBD value idk what to put the number at rn, so it will be at 0.5
-        int base = (int)Math.max(1, Math.round(atk - def * def_Factor));
+        ThreadLocalRandom rng = ThreadLocalRandom.current();
+        double varianceRoll = rng.nextDouble();
+        return compute(atk, def, crit, critDmg, DEFAULT_DEFENSE_FACTOR, varianceRoll, rng.nextDouble());
+    }
+
+    /**
+     * Compute the damage taking into account all factors, all random numbers come from the provided generator
+     * (2 numbers per call: variance first, then crit)
+     *
+     * @param atk     the base attack damage
+     * @param def     the defense of target
+     * @param crit    the chance of crit
+     * @param critDmg the crit damage (bonus dmg)
+     * @param rng     the random generator
+     * @return the total damage, never less than zero
+     */
+    public static int compute(int atk, int def, double crit, double critDmg, SplittableRandom rng) {
+        return compute(atk, def, crit, critDmg, DEFAULT_DEFENSE_FACTOR, rng);
+    }
+
+    /**
+     * Compute the damage with a custom defense factor, for difficulty tuning
+     *
+     * @param atk       the base attack damage
+     * @param def       the defense of target
+     * @param crit      the chance of crit
+     * @param critDmg   the crit damage (bonus dmg)
+     * @param defFactor how much of the defense is taken off the attack
+     * @param rng       the random generator
+     * @return the total damage, never less than zero
+     */
+    public static int compute(int atk, int def, double crit, double critDmg, double defFactor, SplittableRandom rng) {
+        double varianceRoll = rng.nextDouble();
+        return compute(atk, def, crit, critDmg, defFactor, varianceRoll, rng.nextDouble());
+    }
+
+    /**
+     * Compute the damage of many hits at once, for simulators. Hit i uses atk[i], def[i], crit[i] and critDmg[i], and
+     * the random numbers are drawn in the same order as calling the scalar method once per hit (variance, then crit),
+     * so the results are the same as the scalar method for the same generator.
+     * Makes a new array for the random numbers, use the overload with a rolls array when calling it in a loop.
+     *
+     * @param atk       the base attack damage of every hit
+     * @param def       the defense of the target of every hit
+     * @param crit      the chance of crit of every hit
+     * @param critDmg   the crit damage of every hit
+     * @param defFactor how much of the defense is taken off the attack
+     * @param rng       the random generator
+     * @param out       the damage of every hit is written here
+     * @throws IllegalArgumentException if the arrays do not have the same length
+     */
+    public static void computeBatch(int[] atk, int[] def, double[] crit, double[] critDmg, double defFactor,
+                                    SplittableRandom rng, int[] out) {
+        computeBatch(atk, def, crit, critDmg, defFactor, rng, new double[out.length * 2], out);
+    }
+
+    /**
+     * Compute the damage of many hits at once, same results as {@link #computeBatch(int[], int[], double[],
+     * double[], double, SplittableRandom, int[])}. All random numbers are drawn first into the rolls array, then the
+     * damage is worked out in a second loop without calls and without a branch for the crit.
+     *
+     * @param atk       the base attack damage of every hit
+     * @param def       the defense of the target of every hit
+     * @param crit      the chance of crit of every hit
+     * @param critDmg   the crit damage of every hit
+     * @param defFactor how much of the defense is taken off the attack
+     * @param rng       the random generator
+     * @param rolls     space for the random numbers, at least twice the number of hits, can be reused between calls
+     * @param out       the damage of every hit is written here
+     * @throws IllegalArgumentException if the arrays do not have the same length or rolls is too short
+     */
+    public static void computeBatch(int[] atk, int[] def, double[] crit, double[] critDmg, double defFactor,
+                                    SplittableRandom rng, double[] rolls, int[] out) {
+        int n = out.length;
+        if (atk.length != n || def.length != n || crit.length != n || critDmg.length != n || rolls.length < n * 2) {
+            throw new IllegalArgumentException("All arrays need the same length");
+        }
+        // variance of hit i at 2i, crit at 2i + 1, the same order as the scalar method draws them
+        for (int i = 0; i < n * 2; i++) {
+            rolls[i] = rng.nextDouble();
+        }
+        for (int i = 0; i < n; i++) {
+            double dmg = base(atk[i], def[i], defFactor) * (0.85 + rolls[i * 2] * 0.15);
+            // times 1.0 changes nothing, so the crit is a select and not a jump
+            dmg *= rolls[i * 2 + 1] < clamp01(crit[i]) ? critMultiplier(critDmg[i]) : 1.0;
+            // dmg is never below 0 here, so the cast rounds down like Math.floor without the call
+            out[i] = (int) dmg;
+        }
+    }
+
+    /**
+     * Compute the damage of one attacker hitting many targets (area of effect attacks).
+     * Same results as calling the scalar method once per target with the same generator.
+     *
+     * @param atk       the base attack damage
+     * @param crit      the chance of crit
+     * @param critDmg   the crit damage (bonus dmg)
+     * @param def       the defense of every target
+     * @param defFactor how much of the defense is taken off the attack
+     * @param rng       the random generator
+     * @param out       the damage to every target is written here
+     * @throws IllegalArgumentException if def and out do not have the same length
+     */
+    public static void computeArea(int atk, double crit, double critDmg, int[] def, double defFactor,
+                                   SplittableRandom rng, int[] out) {
+        computeArea(atk, crit, critDmg, def, defFactor, rng, out, null);
+    }
+
+    /**
+     * Compute the damage of one attacker hitting many targets, and also write which hits were crits
+     *
+     * @param atk       the base attack damage
+     * @param crit      the chance of crit
+     * @param critDmg   the crit damage (bonus dmg)
+     * @param def       the defense of every target
+     * @param defFactor how much of the defense is taken off the attack
+     * @param rng       the random generator
+     * @param out       the damage to every target is written here
+     * @param crits     true is written for every crit, can be null
+     * @throws IllegalArgumentException if the arrays do not have the same length
+     */
+    public static void computeArea(int atk, double crit, double critDmg, int[] def, double defFactor,
+                                   SplittableRandom rng, int[] out, boolean[] crits) {
+        int n = out.length;
+        if (def.length != n || (crits != null && crits.length < n)) {
+            throw new IllegalArgumentException("All arrays need the same length");
+        }
+        // the attacker is the same for every hit, work out its part once
+        double critChance = clamp01(crit);
+        double critMulti = critMultiplier(critDmg);
+        for (int i = 0; i < n; i++) {
+            double varianceRoll = rng.nextDouble();
+            double critRoll = rng.nextDouble();
+            out[i] = hit(base(atk, def[i], defFactor), varianceRoll, critRoll, critChance, critMulti);
+            if (crits != null) {
+                crits[i] = critRoll < critChance;
+            }
+        }
+    }
+
+    /**
+     * Compute the damage with random numbers that were already drawn, for callers that need to know about the crit
+     *
+     * @param atk          the base attack damage
+     * @param def          the defense of target
+     * @param crit         the chance of crit
+     * @param critDmg      the crit damage (bonus dmg)
+     * @param def_Factor   how much of the defense is taken off the attack
+     * @param varianceRoll a random number between 0.0 and 1.0 for the damage range
+     * @param critRoll     a random number between 0.0 and 1.0 for the crit
+     * @return the total damage, never less than zero
+     */
+    public static int compute(int atk, int def, double crit, double critDmg, double def_Factor,
+                              double varianceRoll, double critRoll) {
+        return hit(base(atk, def, def_Factor), varianceRoll, critRoll, clamp01(crit), critMultiplier(critDmg));
+    }
+
+    /**
+     * Checks if a crit roll is a crit
+     *
+     * @param crit     the chance of crit
+     * @param critRoll the random number between 0.0 and 1.0
+     * @return true if the hit is a crit
+     */
+    public static boolean isCrit(double crit, double critRoll) {
+        return critRoll < clamp01(crit);
+    }
+
+    // the damage before variance and crit, at least 1
+    private static int base(int atk, int def, double def_Factor) {
+        return (int)Math.max(1, Math.round(atk - def * def_Factor));
+    }
+
+    private static double critMultiplier(double critDmg) {
+        return 1.0 + Math.max(0.0, critDmg);
+    }
 
+    // shared by the scalar and batch methods so both always give the same numbers
+    private static int hit(int base, double varianceRoll, double critRoll, double critChance, double critMulti) {
         //basically gives the damage a range 
-        double variance = 0.85 + RNG.nextDouble() * 0.15;  
+        double variance = 0.85 + varianceRoll * 0.15;  
         double dmg = base * variance;
         //checks if the attack is a crit or not
-        boolean isCrit = RNG.nextDouble() <clamp01(crit);
+        boolean isCrit = critRoll < critChance;
         if (isCrit) {
-            dmg *= (1.0 + Math.max(0.0, critDmg));
+            dmg *= critMulti;
         }
         int out = (int)Math.floor(dmg);
         return Math.max(0, out);
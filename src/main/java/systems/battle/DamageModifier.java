@@ -0,0 +1,99 @@
+package systems.battle;
+
+import entities.abs.BattleUnit;
+
+import java.util.List;
+
+/**
+ * A change to one stage of the {@link DamagePipeline}, for example a relic set bonus or a LightCone ability.
+ * A modifier only looks at the value of its stage (it should not keep any state), so the pipeline can run the
+ * attacker stages once when it builds the chain of a unit and keep the result until the unit's stats change.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see DamagePipeline
+ */
+public interface DamageModifier {
+    /** The attack of the attacker. */
+    int ATTACK = 0;
+    /** The skill multiplier of the hit (1.0 basic attack, 1.5 skill, 2.0 ultimate). */
+    int SKILL = 1;
+    /** The crit rate of the attacker, 0.0 to 1.0. */
+    int CRIT_RATE = 2;
+    /** The crit bonus damage of the attacker, 0.5 is +50%. */
+    int CRIT_DAMAGE = 3;
+    /** The damage multiplier from bonuses, starts at 1.0. */
+    int BONUS = 4;
+    /** The defense of the target as seen by the attacker (defense ignore lowers it). */
+    int DEFENSE = 5;
+    /** The number of stages. */
+    int STAGES = 6;
+
+    /**
+     * Gets the stage this modifier changes.
+     *
+     * @return one of the stage constants
+     */
+    int getStage();
+
+    /**
+     * Change the value of the stage
+     *
+     * @param value the value before this modifier
+     * @return the value after this modifier
+     */
+    double apply(double value);
+
+    /**
+     * Makes a modifier that multiplies the value of a stage
+     *
+     * @param stage  the stage
+     * @param factor the factor
+     * @return the new modifier
+     */
+    static DamageModifier multiply(int stage, double factor) {
+        return new DamageModifier() {
+            @Override
+            public int getStage() { return stage; }
+
+            @Override
+            public double apply(double value) { return value * factor; }
+
+            @Override
+            public String toString() { return "stage " + stage + " x" + factor; }
+        };
+    }
+
+    /**
+     * Makes a modifier that adds to the value of a stage
+     *
+     * @param stage  the stage
+     * @param amount the amount to add
+     * @return the new modifier
+     */
+    static DamageModifier add(int stage, double amount) {
+        return new DamageModifier() {
+            @Override
+            public int getStage() { return stage; }
+
+            @Override
+            public double apply(double value) { return value + amount; }
+
+            @Override
+            public String toString() { return "stage " + stage + " +" + amount; }
+        };
+    }
+
+    /**
+     * Where the modifiers of a unit come from (equipment, buffs ...), asked once each time the chain of a unit is built
+     */
+    interface Source {
+        /**
+         * Add the modifiers of a unit to the list
+         *
+         * @param unit the unit
+         * @param out  the list to add to
+         */
+        void collect(BattleUnit unit, List<DamageModifier> out);
+    }
+}
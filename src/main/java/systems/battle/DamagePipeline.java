@@ -0,0 +1,289 @@
+package systems.battle;
+
+import entities.abs.BattleUnit;
+import entities.abs.CombatStats;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The one place where the damage of a hit is worked out, used by both the interactive battle in GamePlay and the
+ * headless {@link BattleSystem}. A hit goes through these stages in this order:
+ * defense (attack minus defense * defense factor, at least 1), damage range, crit, rounded down, skill multiplier,
+ * bonuses (relic sets, LightCone abilities), rounded down and clamped to 0. The attack, defense and crit that go in
+ * already have their modifiers.
+ * <p>
+ * The modifiers of a unit are collected from the {@link DamageModifier.Source}s once and compiled into a chain:
+ * the attacker stages (attack, crit, bonus) are folded into numbers right away, only the skill and defense stages are
+ * kept as arrays because they depend on the hit. The chain is kept until the combat stats of the unit change, so a hit
+ * never builds a list.
+ * </p>
+ * <p>
+ * The rolls and the rounding come from {@link Damage}, so without modifiers the result is the same as
+ * floor(Damage.compute(...) * skill multiplier), the formula the battle system always used.
+ * </p>
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see DamageModifier
+ * @see Damage
+ */
+public class DamagePipeline {
+    private static final DamageModifier[] NONE = new DamageModifier[0];
+    // chains of units from old battles are dropped when there are more than this
+    private static final int MAX_CHAINS = 256;
+
+    private final SplittableRandom rng;
+    private final List<DamageModifier.Source> sources;
+    private final IdentityHashMap<BattleUnit, Chain> chains;
+    private double defenseFactor;
+    private boolean[] crits;  //crits of the last hit or area attack
+
+    /**
+     * Instantiates a new pipeline with the equipment modifiers
+     *
+     * @param rng the random generator for damage rolls
+     */
+    public DamagePipeline(SplittableRandom rng) {
+        this.rng = rng;
+        this.sources = new ArrayList<>();
+        this.chains = new IdentityHashMap<>(8);  //a battle has few units, keep new pipelines cheap
+        this.defenseFactor = Damage.DEFAULT_DEFENSE_FACTOR;
+        this.crits = new boolean[8];
+        sources.add(EquipmentModifiers.INSTANCE);
+    }
+
+    /**
+     * Gets the skill multiplier of an action
+     *
+     * @param skillIndex 0 for basic attack, 1 for skill, 2 for ultimate
+     * @return the multiplier
+     */
+    public static double skillMultiplier(int skillIndex) {
+        if (skillIndex == 1) {
+            return 1.5;
+        } else if (skillIndex == 2) {
+            return 2.0;
+        }
+        return 1.0;
+    }
+
+    /**
+     * Add a source of modifiers, the chains are built again
+     *
+     * @param source the source
+     */
+    public void addSource(DamageModifier.Source source) {
+        sources.add(source);
+        chains.clear();
+    }
+
+    /**
+     * Compute the damage of one hit
+     *
+     * @param attacker   the attacking unit
+     * @param target     the unit that is hit
+     * @param skillIndex 0 for basic attack, 1 for skill, 2 for ultimate
+     * @return the damage, never less than zero
+     */
+    public int hit(BattleUnit attacker, BattleUnit target, int skillIndex) {
+        Chain chain = chainOf(attacker);
+        int def = chain.defense(target.getCombatStats().getDefense());
+        // same order of draws as Damage.compute(..., rng), the crit is kept for the event log
+        double varianceRoll = rng.nextDouble();
+        double critRoll = rng.nextDouble();
+        crits[0] = Damage.isCrit(chain.critRate, critRoll);
+        int base = Damage.compute(chain.attack, def, chain.critRate, chain.critDamage, defenseFactor,
+                varianceRoll, critRoll);
+        return chain.finish(base, skillIndex);
+    }
+
+    /**
+     * Compute the damage of one attacker hitting many targets at once (area of effect attacks).
+     * Same results as calling {@link #hit} once per target in order.
+     *
+     * @param attacker   the attacking unit
+     * @param targets    the units that are hit
+     * @param skillIndex 0 for basic attack, 1 for skill, 2 for ultimate
+     * @return the damage to every target, in the order of the list
+     */
+    public int[] area(BattleUnit attacker, List<? extends BattleUnit> targets, int skillIndex) {
+        Chain chain = chainOf(attacker);
+        int[] def = new int[targets.size()];
+        for (int i = 0; i < def.length; i++) {
+            def[i] = chain.defense(targets.get(i).getCombatStats().getDefense());
+        }
+        int[] dmg = new int[def.length];
+        if (crits.length < dmg.length) {
+            crits = new boolean[dmg.length];
+        }
+        Damage.computeArea(chain.attack, chain.critRate, chain.critDamage, def, defenseFactor, rng, dmg, crits);
+        for (int i = 0; i < dmg.length; i++) {
+            dmg[i] = chain.finish(dmg[i], skillIndex);
+        }
+        return dmg;
+    }
+
+    /**
+     * Checks if a hit of the last {@link #hit} or {@link #area} call was a crit
+     *
+     * @param index 0 for a single hit, the index of the target for an area attack
+     * @return true if it was a crit
+     */
+    public boolean wasCrit(int index) {
+        return crits[index];
+    }
+
+    /**
+     * Forget every compiled chain
+     */
+    public void clear() {
+        chains.clear();
+    }
+
+    /**
+     * Gets the defense factor.
+     *
+     * @return how much of the target defense is taken off the attack
+     */
+    public double getDefenseFactor() { return defenseFactor; }
+
+    /**
+     * Sets how much of the target defense is taken off the attack, for difficulty tuning
+     *
+     * @param defenseFactor the defense factor, 0.5 by default
+     */
+    public void setDefenseFactor(double defenseFactor) { this.defenseFactor = defenseFactor; }
+
+    /**
+     * Skill multiplier and bonuses on top of the rolled damage, then clamp. Shared with {@link BattleState}
+     *
+     * @param base  the damage from {@link Damage}
+     * @param multi the skill multiplier after modifiers
+     * @param bonus the bonus multiplier
+     * @return the damage, never less than zero
+     */
+    static int finish(int base, double multi, double bonus) {
+        double dmg = base * multi;
+        if (bonus != 1.0) {
+            dmg *= bonus;
+        }
+        return Math.max(0, (int) Math.floor(dmg));
+    }
+
+    // the defense of a target after the defense modifiers of the attacker
+    static int defense(DamageModifier[] modifiers, int def) {
+        if (modifiers.length == 0) {
+            return def;
+        }
+        double value = def;
+        for (DamageModifier modifier : modifiers) {
+            value = modifier.apply(value);
+        }
+        return Math.max(0, (int) Math.round(value));
+    }
+
+    // the numbers the chain of a unit uses, so a BattleState can do the same hits without the pipeline
+
+    int attackOf(BattleUnit unit) { return chainOf(unit).attack; }
+
+    double critRateOf(BattleUnit unit) { return chainOf(unit).critRate; }
+
+    double critDamageOf(BattleUnit unit) { return chainOf(unit).critDamage; }
+
+    double bonusOf(BattleUnit unit) { return chainOf(unit).bonus; }
+
+    double multiplierOf(BattleUnit unit, int skillIndex) { return chainOf(unit).multiplier(skillIndex); }
+
+    int defenseAgainst(BattleUnit attacker, BattleUnit target) {
+        return chainOf(attacker).defense(target.getCombatStats().getDefense());
+    }
+
+    DamageModifier[] defenseModifiersOf(BattleUnit unit) { return chainOf(unit).defense; }
+
+    // the chain of a unit, built again when its combat stats are not the same object anymore
+    private Chain chainOf(BattleUnit unit) {
+        CombatStats stats = unit.getCombatStats();
+        Chain chain = chains.get(unit);
+        if (chain == null || chain.stats != stats) {
+            if (chain == null && chains.size() >= MAX_CHAINS) {
+                chains.clear();
+            }
+            chain = compile(unit, stats);
+            chains.put(unit, chain);
+        }
+        return chain;
+    }
+
+    private Chain compile(BattleUnit unit, CombatStats stats) {
+        List<DamageModifier> modifiers = new ArrayList<>();
+        for (DamageModifier.Source source : sources) {
+            source.collect(unit, modifiers);
+        }
+        if (modifiers.isEmpty()) {
+            return new Chain(stats, stats.getAttack(), stats.getCritRate(), stats.getCritDamage(), 1.0, NONE, NONE);
+        }
+        double[] values = new double[DamageModifier.STAGES];
+        values[DamageModifier.ATTACK] = stats.getAttack();
+        values[DamageModifier.CRIT_RATE] = stats.getCritRate();
+        values[DamageModifier.CRIT_DAMAGE] = stats.getCritDamage();
+        values[DamageModifier.BONUS] = 1.0;
+        List<DamageModifier> skill = new ArrayList<>();
+        List<DamageModifier> defense = new ArrayList<>();
+        for (DamageModifier modifier : modifiers) {
+            int stage = modifier.getStage();
+            if (stage == DamageModifier.SKILL) {
+                skill.add(modifier);
+            } else if (stage == DamageModifier.DEFENSE) {
+                defense.add(modifier);
+            } else {
+                values[stage] = modifier.apply(values[stage]);
+            }
+        }
+        return new Chain(stats, (int) Math.round(values[DamageModifier.ATTACK]), values[DamageModifier.CRIT_RATE],
+                values[DamageModifier.CRIT_DAMAGE], values[DamageModifier.BONUS],
+                skill.toArray(NONE), defense.toArray(NONE));
+    }
+
+    /**
+     * The compiled modifiers of one unit
+     */
+    private static final class Chain {
+        private final CombatStats stats;
+        private final int attack;
+        private final double critRate;
+        private final double critDamage;
+        private final double bonus;
+        private final DamageModifier[] skill;
+        private final DamageModifier[] defense;
+
+        private Chain(CombatStats stats, int attack, double critRate, double critDamage, double bonus,
+                      DamageModifier[] skill, DamageModifier[] defense) {
+            this.stats = stats;
+            this.attack = attack;
+            this.critRate = critRate;
+            this.critDamage = critDamage;
+            this.bonus = bonus;
+            this.skill = skill;
+            this.defense = defense;
+        }
+
+        private int defense(int def) {
+            return DamagePipeline.defense(defense, def);
+        }
+
+        private double multiplier(int skillIndex) {
+            double multi = skillMultiplier(skillIndex);
+            for (DamageModifier modifier : skill) {
+                multi = modifier.apply(multi);
+            }
+            return multi;
+        }
+
+        private int finish(int base, int skillIndex) {
+            return DamagePipeline.finish(base, multiplier(skillIndex), bonus);
+        }
+    }
+}
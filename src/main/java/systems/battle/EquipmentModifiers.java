@@ -0,0 +1,57 @@
+package systems.battle;
+
+import entities.abs.BattleUnit;
+import entities.characters.Character;
+import entities.equipment.Equipment;
+import entities.equipment.LightCone;
+import entities.equipment.Relic;
+
+import java.util.List;
+
+/**
+ * The damage modifiers that come from the equipment of a character: relic set bonuses that are not plain stats and
+ * LightCone path abilities. Stats of the equipment (attack, crit ...) are already in the combat stats of the unit.
+ * <ul>
+ *     <li>Genius set of 2: +10% damage</li>
+ *     <li>Genius set of 4: ignore 10% of the enemy's defense</li>
+ *     <li>Destruction LightCone (Power of Destruction): +10% attack</li>
+ * </ul>
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see DamagePipeline
+ */
+public final class EquipmentModifiers implements DamageModifier.Source {
+    /** The shared instance, the class has no state. */
+    public static final EquipmentModifiers INSTANCE = new EquipmentModifiers();
+
+    private static final DamageModifier GENIUS_2 = DamageModifier.multiply(DamageModifier.BONUS, 1.10);
+    private static final DamageModifier GENIUS_4 = DamageModifier.multiply(DamageModifier.DEFENSE, 0.90);
+    private static final DamageModifier DESTRUCTION = DamageModifier.multiply(DamageModifier.ATTACK, 1.10);
+
+    private EquipmentModifiers() {}
+
+    @Override
+    public void collect(BattleUnit unit, List<DamageModifier> out) {
+        if (!(unit instanceof Character)) {
+            return;
+        }
+        // only one set has damage bonuses for now, so just count it (a chain is built for every new battle system)
+        int genius = 0;
+        for (Equipment item : ((Character) unit).getEquippedItems()) {
+            if (item instanceof Relic) {
+                if ("Genius".equals(((Relic) item).getRelicSet())) {
+                    genius++;
+                }
+            } else if (item instanceof LightCone && "Destruction".equals(((LightCone) item).getPathAlignment())) {
+                out.add(DESTRUCTION);
+            }
+        }
+        if (genius >= 2) {
+            out.add(GENIUS_2);
+        }
+        if (genius >= 4) {
+            out.add(GENIUS_4);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package systems.battle;
+
+import entities.abs.BattleUnit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Action policy that searches: for every decision it copies the battle into a {@link BattleState} and plays many random
+ * futures (Monte Carlo playouts) for each action it could take, then picks the action that won most often.
+ * The actions of the root are picked with UCB1, so good actions get more playouts.
+ * <p>
+ * Every decision has a strict time budget. With more than one thread every worker searches on its own copy of the
+ * state and the counts are added up at the end (root parallel search). Every worker, the calling thread too, stops a
+ * margin before the deadline, the calling thread then tells the others to stop and waits for them until the deadline
+ * and no longer. Workers that are still not done by then are left out and counted as late,
+ * {@link #getLastPlayoutsPerThread()} shows what every thread added. The worker threads are started with the policy,
+ * not in a decision. When the budget was too small for a useful search the decision is made by the fallback policy
+ * instead (the normal heuristic AI), so the policy never gets worse than the heuristic because of time.
+ * </p>
+ * <p>
+ * With a time budget the results depend on the speed of the machine. For replays set a playout limit, then every
+ * decision does exactly that many playouts on the calling thread and the same seed gives the same battle.
+ * </p>
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see BattleState
+ * @see AiActionPolicy
+ */
+public class SearchActionPolicy implements ActionPolicy {
+    /** The actions searched by default: the same choices the heuristic AI has. */
+    public static final int[] DEFAULT_ACTIONS = {ATTACK, SKILL, WAIT};
+    // fewer playouts than this per action and the search is not trusted
+    private static final int MIN_PLAYOUTS_PER_ACTION = 4;
+    private static final double EXPLORATION = 0.7;
+    // workers stop this long before the deadline (at most a fifth of the budget), the calling thread uses it to
+    // collect the results of the others
+    private static final long STOP_MARGIN_NANOS = 2_000_000;
+
+    private final ActionPolicy fallback;
+    private final int[] actions;
+    private final long budgetNanos;
+    private final int threads;
+    private final SplittableRandom rng;
+    private int maxDepth;
+    private int playoutLimit;
+    private ExecutorService workers;
+
+    private long decisions;
+    private long fallbacks;
+    private long lastPlayouts;
+    private long[] lastPlayoutsPerThread;
+    private long lateWorkers;
+
+    /**
+     * Instantiates a new search policy
+     *
+     * @param fallback     the policy used when there is no time to search
+     * @param actions      the actions to choose from
+     * @param budgetMillis the time for one decision in milliseconds
+     * @param threads      the number of threads that search, 1 searches on the calling thread only
+     * @param seed         the seed of the playouts
+     */
+    public SearchActionPolicy(ActionPolicy fallback, int[] actions, double budgetMillis, int threads, long seed) {
+        if (actions.length == 0) {
+            throw new IllegalArgumentException("At least one action is needed");
+        }
+        this.fallback = fallback;
+        this.actions = actions.clone();
+        this.budgetNanos = (long) (budgetMillis * 1_000_000);
+        this.threads = Math.max(1, threads);
+        this.rng = new SplittableRandom(seed);
+        this.maxDepth = 200;
+        this.playoutLimit = 0;
+        this.lastPlayoutsPerThread = new long[this.threads];
+        if (this.threads > 1) {
+            startWorkers();  //starting threads takes longer than a budget, so it is not done in a decision
+        }
+    }
+
+    private void startWorkers() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads - 1, threads - 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "search-ai");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.prestartAllCoreThreads();
+        workers = pool;
+    }
+
+    @Override
+    public int chooseAction(BattleUnit unit, BattleSystem battle) {
+        long deadline = System.nanoTime() + budgetNanos;
+        decisions++;
+        lastPlayouts = 0;
+        lastPlayoutsPerThread = new long[threads];
+        if (budgetNanos <= 0 && playoutLimit <= 0) {
+            return useFallback(unit, battle);
+        }
+        BattleState root = BattleState.capture(battle);
+        int actor = root.indexOf(unit);
+        if (actor < 0) {
+            return useFallback(unit, battle);
+        }
+        if (actions.length == 1) {
+            return actions[0];
+        }
+
+        long[] visits = new long[actions.length];
+        double[] wins = new double[actions.length];
+        if (playoutLimit > 0) {
+            // replay mode: fixed work on this thread, no clock
+            Worker worker = new Worker(root, actor, rng.split(), Long.MAX_VALUE, playoutLimit, null);
+            lastPlayoutsPerThread[0] = add(worker.call(), visits, wins);
+        } else if (threads == 1) {
+            Worker worker = new Worker(root, actor, rng.split(), deadline, Integer.MAX_VALUE, null);
+            lastPlayoutsPerThread[0] = add(worker.call(), visits, wins);
+        } else {
+            searchInParallel(root, actor, deadline, visits, wins);
+        }
+
+        long total = 0;
+        int best = 0;
+        for (int i = 0; i < actions.length; i++) {
+            total += visits[i];
+            if (visits[i] > visits[best]
+                    || (visits[i] == visits[best] && wins[i] / Math.max(1, visits[i]) > wins[best] / Math.max(1, visits[best]))) {
+                best = i;
+            }
+        }
+        lastPlayouts = total;
+        if (total < (long) MIN_PLAYOUTS_PER_ACTION * actions.length) {
+            return useFallback(unit, battle);
+        }
+        return actions[best];
+    }
+
+    private void searchInParallel(BattleState root, int actor, long deadline, long[] visits, double[] wins) {
+        if (workers == null) {
+            startWorkers();  //after shutdown
+        }
+        long stopAt = deadline - Math.min(STOP_MARGIN_NANOS, budgetNanos / 5);
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Future<double[]>> futures = new ArrayList<>();
+        for (int i = 1; i < threads; i++) {
+            futures.add(workers.submit(new Worker(root, actor, rng.split(), stopAt, Integer.MAX_VALUE, stop)));
+        }
+        // the calling thread searches too, then tells the others to stop
+        lastPlayoutsPerThread[0] = add(new Worker(root, actor, rng.split(), stopAt, Integer.MAX_VALUE, stop).call(),
+                visits, wins);
+        stop.set(true);
+        for (int i = 0; i < futures.size(); i++) {
+            Future<double[]> future = futures.get(i);
+            try {
+                // never past the deadline, a worker that is done is still collected when there is no time left
+                long wait = Math.max(0, deadline - System.nanoTime());
+                lastPlayoutsPerThread[i + 1] = add(future.get(wait, TimeUnit.NANOSECONDS), visits, wins);
+            } catch (TimeoutException e) {
+                future.cancel(true);  //still not done at the deadline, its playouts are left out
+                lateWorkers++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    // adds the result of a worker to the counts, returns its number of playouts
+    private long add(double[] result, long[] visits, double[] wins) {
+        long playouts = 0;
+        for (int i = 0; i < actions.length; i++) {
+            visits[i] += (long) result[i * 2];
+            wins[i] += result[i * 2 + 1];
+            playouts += (long) result[i * 2];
+        }
+        return playouts;
+    }
+
+    private int useFallback(BattleUnit unit, BattleSystem battle) {
+        fallbacks++;
+        return fallback.chooseAction(unit, battle);
+    }
+
+    /**
+     * Plays random futures from its own copy of the state, returns visits and wins of every root action
+     */
+    private final class Worker implements Callable<double[]> {
+        private final BattleState root;
+        private final BattleState scratch;
+        private final int actor;
+        private final int side;
+        private final SplittableRandom random;
+        private final long deadline;
+        private final int limit;
+        private final AtomicBoolean stop;
+
+        private Worker(BattleState root, int actor, SplittableRandom random, long deadline, int limit,
+                       AtomicBoolean stop) {
+            this.root = root;
+            this.scratch = root.copy();
+            this.actor = actor;
+            this.side = root.getSide(actor);
+            this.random = random;
+            this.deadline = deadline;
+            this.limit = limit;
+            this.stop = stop;
+        }
+
+        @Override
+        public double[] call() {
+            int n = actions.length;
+            double[] result = new double[n * 2];
+            int played = 0;
+            while (played < limit && (deadline == Long.MAX_VALUE || System.nanoTime() < deadline)
+                    && (stop == null || !stop.get()) && !Thread.currentThread().isInterrupted()) {
+                int pick = played < n ? played : ucb(result, played);
+                scratch.copyFrom(root);
+                result[pick * 2] += 1;
+                result[pick * 2 + 1] += playout(actions[pick]);
+                played++;
+            }
+            return result;
+        }
+
+        private int ucb(double[] result, int total) {
+            double logTotal = Math.log(total);
+            int best = 0;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < actions.length; i++) {
+                double visits = result[i * 2];
+                double score = result[i * 2 + 1] / visits + EXPLORATION * Math.sqrt(logTotal / visits);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        // 1 for a win of the searching side, 0 for a loss, the HP difference for unfinished playouts
+        private double playout(int firstAction) {
+            scratch.act(actor, firstAction, random);
+            for (int depth = 0; depth < maxDepth && !scratch.isOver(); depth++) {
+                int next = scratch.nextActor();
+                if (next < 0) {
+                    break;
+                }
+                scratch.act(next, actions[random.nextInt(actions.length)], random);
+            }
+            if (scratch.getAliveCount(1 - side) == 0) {
+                return 1.0;
+            }
+            if (scratch.getAliveCount(side) == 0) {
+                return 0.0;
+            }
+            return 0.5 + 0.5 * (scratch.hpFraction(side, root) - scratch.hpFraction(1 - side, root));
+        }
+    }
+
+    /**
+     * Stop the worker threads
+     */
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+            workers = null;
+        }
+    }
+
+    /**
+     * Sets the most turns a playout goes before it is scored by HP.
+     *
+     * @param maxDepth the depth, 200 by default
+     */
+    public void setMaxDepth(int maxDepth) { this.maxDepth = maxDepth; }
+
+    /**
+     * Sets a fixed number of playouts per decision instead of the time budget, for replays.
+     *
+     * @param playoutLimit the playouts per decision, 0 to use the time budget
+     */
+    public void setPlayoutLimit(int playoutLimit) { this.playoutLimit = playoutLimit; }
+
+    /**
+     * Gets the number of decisions made.
+     *
+     * @return the decisions
+     */
+    public long getDecisions() { return decisions; }
+
+    /**
+     * Gets the number of decisions made by the fallback policy.
+     *
+     * @return the fallback decisions
+     */
+    public long getFallbacks() { return fallbacks; }
+
+    /**
+     * Gets the number of playouts of the last decision.
+     *
+     * @return the playouts
+     */
+    public long getLastPlayouts() { return lastPlayouts; }
+
+    /**
+     * Gets the number of playouts every thread added to the last decision, the calling thread first.
+     * A worker that was left out because it was late added 0.
+     *
+     * @return a copy of the playouts per thread
+     */
+    public long[] getLastPlayoutsPerThread() { return lastPlayoutsPerThread.clone(); }
+
+    /**
+     * Gets the number of worker searches left out because they were not done by the deadline, over all decisions.
+     *
+     * @return the late workers
+     */
+    public long getLateWorkers() { return lateWorkers; }
+}
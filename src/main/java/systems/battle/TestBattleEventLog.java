@@ -0,0 +1,145 @@
+package systems.battle;
+
+import entities.abs.BattleUnit;
+import entities.characters.Character;
+import entities.characters.PlayableCharacter;
+import entities.enemies.BossEnemy;
+import entities.enemies.Enemy;
+import entities.enemies.RegularEnemy;
+import util.random.RngService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//test the battle event log, replays and the cost of recording, for debug only
+public class TestBattleEventLog {
+    private static final int FIGHTS = 200_000;
+    private static final int MAX_TURNS = 500;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.out.println("===== BATTLE EVENT LOG TEST =====\n");
+        List<Character> team = new ArrayList<>();
+        team.add(new PlayableCharacter("Trailblazer", 5, true));
+        team.add(new PlayableCharacter("March 7th", 5, true));
+        List<Enemy> enemies = new ArrayList<>();
+        enemies.add(new RegularEnemy("Elite Automaton", true));
+        enemies.add(new RegularEnemy("Voidranger", false));
+
+        BattleEventLog first = record(team, enemies, 2026L);
+        BattleEventLog.Reader reader = first.newReader(true);
+        reader.poll(new BattleEventPrinter(first, System.out), 12);
+        System.out.println("... " + reader.getPending() + " more events");
+        BattleEventLog second = record(team, enemies, 2026L);
+        System.out.println("Replay matches: " + (first.fingerprint() == second.fingerprint()));
+        BattleEventLog other = record(team, enemies, 7L);
+        System.out.println("Other seed differs: " + (first.fingerprint() != other.fingerprint()));
+
+        Path file = Files.createTempFile("battle", ".replay");
+        first.save(file);
+        BattleEventLog loaded = BattleEventLog.load(file);
+        System.out.println("Replay file: " + Files.size(file) + " bytes, events " + loaded.getEventCount()
+                + ", matches: " + (loaded.fingerprint() == first.fingerprint()));
+        Files.delete(file);
+        System.out.println();
+
+        testBossPhase();
+        System.out.println();
+        testOverhead(team, enemies);
+    }
+
+    private static BattleEventLog record(List<Character> team, List<Enemy> enemies, long seed) {
+        reset(team, enemies);
+        BattleEventLog log = new BattleEventLog(1024);
+        BattleSystem battle = new BattleSystem(new RngService(seed).stream(RngService.DAMAGE, 0));
+        battle.setEventLog(log);
+        battle.runHeadless(team, enemies, ActionPolicy.ALWAYS_ATTACK, ActionPolicy.ALWAYS_ATTACK, MAX_TURNS);
+        return log;
+    }
+
+    private static void testBossPhase() {
+        System.out.println("***** Boss Phase Event Test *****");
+        BossEnemy boss = new BossEnemy("Cocolia", 3);
+        BattleEventLog log = new BattleEventLog(16);
+        Battlefield field = new Battlefield(1, 1);
+        field.setEventLog(log);
+        field.place(Battlefield.ENEMIES, 0, boss);
+        boss.takeDamage(boss.getMaxHP() / 2);
+        field.detach();
+        log.newReader(true).poll(new BattleEventPrinter(log, System.out), Integer.MAX_VALUE);
+    }
+
+    // the same fights with and without a log, a reader thread sums the damage while the battles run.
+    // the best of a few rounds is kept for every case, so a slow round on a busy machine does not count
+    private static void testOverhead(List<Character> team, List<Enemy> enemies) throws InterruptedException {
+        System.out.println("***** Recording Overhead Test *****");
+        double plain = 0;
+        double writeOnly = 0;
+        double recorded = 0;
+        BattleEventLog log = null;
+        BattleEventLog.Reader reader = null;
+        long[] stats = new long[3];  //damage events, crits, battles
+        for (int round = 0; round < 4; round++) {
+            plain = Math.max(plain, run(team, enemies, null));
+            writeOnly = Math.max(writeOnly, run(team, enemies, new BattleEventLog(1 << 16)));
+            log = new BattleEventLog(1 << 16);
+            BattleEventLog.Reader roundReader = log.newReader(false);
+            Arrays.fill(stats, 0);
+            BattleEventLog.Visitor visitor = (type, turn, actor, target, value, flags) -> {
+                if (type == BattleEventLog.DAMAGE) {
+                    stats[0]++;
+                    if ((flags & BattleEventLog.FLAG_CRIT) != 0) {
+                        stats[1]++;
+                    }
+                } else if (type == BattleEventLog.BATTLE_END) {
+                    stats[2]++;
+                }
+            };
+            AtomicBoolean done = new AtomicBoolean();
+            Thread consumer = new Thread(() -> {
+                while (!done.get() || roundReader.getPending() > 0) {
+                    if (roundReader.poll(visitor, 4096) == 0) {
+                        Thread.yield();
+                    }
+                }
+            });
+            consumer.start();
+            recorded = Math.max(recorded, run(team, enemies, log));
+            done.set(true);
+            consumer.join();
+            reader = roundReader;
+        }
+        System.out.printf("No log:         %.0f battles per minute%n", plain);
+        System.out.printf("Log, no reader: %.0f battles per minute (%.1f%% slower)%n", writeOnly,
+                (plain - writeOnly) / plain * 100);
+        // this machine may have one core, then the reader thread takes time from the battles
+        System.out.printf("Log + reader:   %.0f battles per minute (%.1f%% slower, %d cores)%n", recorded,
+                (plain - recorded) / plain * 100, Runtime.getRuntime().availableProcessors());
+        System.out.println("Events: " + log.getEventCount() + ", read by the consumer: damage " + stats[0]
+                + ", crits " + stats[1] + ", battles " + stats[2] + ", lost " + reader.getLost());
+    }
+
+    private static double run(List<Character> team, List<Enemy> enemies, BattleEventLog log) {
+        BattleSystem battle = new BattleSystem(new RngService(1L).stream(RngService.DAMAGE, 0));
+        battle.setEventLog(log);
+        long start = System.nanoTime();
+        for (int i = 0; i < FIGHTS; i++) {
+            reset(team, enemies);
+            battle.runHeadless(team, enemies, ActionPolicy.ALWAYS_ATTACK, ActionPolicy.ALWAYS_ATTACK, MAX_TURNS);
+        }
+        return FIGHTS / ((System.nanoTime() - start) / 1e9) * 60;
+    }
+
+    private static void reset(List<Character> team, List<Enemy> enemies) {
+        for (BattleUnit unit : team) {
+            unit.setCurrentHP(unit.getMaxHP());
+        }
+        for (BattleUnit unit : enemies) {
+            unit.setCurrentHP(unit.getMaxHP());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package systems.battle;
+
+import entities.abs.BattleUnit;
+import entities.characters.Character;
+import entities.effects.EffectWheel;
+import entities.effects.StatusEffect;
+import entities.characters.PlayableCharacter;
+import entities.enemies.BossEnemy;
+import entities.enemies.Enemy;
+import entities.enemies.RegularEnemy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+//check that battle states play, copy and apply like real battles and how fast they copy, for debug only
+public class TestBattleState {
+    private static final int MAX_TURNS = 2000;
+    private static final long SEED = 42L;
+    private static final int COPIES = 2_000_000;
+    private static final int SERIALIZED_COPIES = 5_000;
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        System.out.println("===== BATTLE STATE TEST =====\n");
+        ArrayList<Character> team = new ArrayList<>();
+        team.add(new PlayableCharacter("Trailblazer", 20, true));
+        team.add(new PlayableCharacter("March 7th", 20, true));
+        team.add(new PlayableCharacter("Dan Heng", 20, true));
+        List<List<Enemy>> waves = new ArrayList<>();
+        for (int wave = 0; wave < 3; wave++) {
+            List<Enemy> enemies = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                enemies.add(new RegularEnemy("Wave " + wave + " Enemy " + i, i == 0));
+            }
+            waves.add(enemies);
+        }
+        waves.get(2).add(new BossEnemy("Cocolia", 2));
+
+        // a raid played on the state ends like the real raid
+        reset(team, waves);
+        BattleSystem battle = new BattleSystem(new SplittableRandom(SEED));
+        battle.initializeRaid(team, waves);
+        BattleState state = BattleState.capture(battle);
+        BattleResult real = battle.runHeadless(ActionPolicy.ALWAYS_ATTACK, ActionPolicy.ALWAYS_ATTACK, MAX_TURNS);
+        BattleResult played = state.run(BattleState.Policy.ALWAYS_ATTACK, BattleState.Policy.ALWAYS_ATTACK,
+                MAX_TURNS, new SplittableRandom(SEED));
+        System.out.println("Real raid:  " + real);
+        System.out.println("State raid: " + played + ", wave " + state.getWave() + ", " + state.size() + " units");
+        System.out.println("Same result and HP: " + (real.toString().equals(played.toString()) && sameHp(state)));
+        System.out.println();
+
+        // the same raid with a shield, a heal over time and a damage over time effect running
+        reset(team, waves);
+        battle = new BattleSystem(new SplittableRandom(SEED));
+        battle.initializeRaid(team, waves);
+        EffectWheel wheel = battle.getEffectWheel();
+        wheel.apply(team.get(0), new StatusEffect("Barrier", StatusEffect.Type.SHIELD, 150, 6,
+                StatusEffect.StackRule.REFRESH));
+        wheel.apply(team.get(1), new StatusEffect("Regeneration", StatusEffect.Type.HEAL_OVER_TIME, 0.05,
+                StatusEffect.PERMANENT, StatusEffect.StackRule.REFRESH));
+        StatusEffect burn = new StatusEffect("Burn", StatusEffect.Type.DAMAGE_OVER_TIME, 15, 8,
+                StatusEffect.StackRule.STACK, 3);
+        wheel.apply(waves.get(0).get(0), burn);
+        wheel.apply(waves.get(0).get(0), burn);
+        state = BattleState.capture(battle);
+        real = battle.runHeadless(ActionPolicy.ALWAYS_ATTACK, ActionPolicy.ALWAYS_ATTACK, MAX_TURNS);
+        played = state.run(BattleState.Policy.ALWAYS_ATTACK, BattleState.Policy.ALWAYS_ATTACK,
+                MAX_TURNS, new SplittableRandom(SEED));
+        System.out.println("Real raid with effects:  " + real);
+        System.out.println("State raid with effects: " + played);
+        System.out.println("Same result and HP with effects: "
+                + (real.toString().equals(played.toString()) && sameHp(state)));
+        System.out.println();
+
+        // play a copy for a while, change a stat, then apply it back to the battle and go on
+        reset(team, waves);
+        battle = new BattleSystem(new SplittableRandom(SEED));
+        battle.initializeRaid(team, waves);
+        BattleState start = BattleState.capture(battle);
+        BattleState fork = start.copy();
+        int speed = fork.getStat(BattleState.SPEED, 0);
+        fork.setStat(BattleState.SPEED, 0, speed * 2);
+        SplittableRandom forkRandom = new SplittableRandom(7L);
+        for (int i = 0; i < 25 && !fork.isOver(); i++) {
+            fork.act(fork.nextActor(), ActionPolicy.ATTACK, forkRandom);
+        }
+        System.out.println("Copy on write: start speed " + start.getStat(BattleState.SPEED, 0) + ", fork speed "
+                + fork.getStat(BattleState.SPEED, 0) + ", units untouched: " + sameHp(start));
+        fork.apply(battle);
+        BattleState applied = BattleState.capture(battle);
+        boolean same = applied.getTurn() == fork.getTurn() && applied.getWave() == fork.getWave()
+                && team.get(0).getSpeed() == speed * 2;
+        for (int i = 0; i < fork.size(); i++) {
+            // waves that already left the field are not in the new capture
+            int index = applied.indexOf(fork.getUnit(i));
+            same &= fork.getUnit(i).getCurrentHP() == fork.getHp(i)
+                    && (!fork.isAlive(i) || applied.getNextAction(index) == fork.getNextAction(i));
+        }
+        System.out.println("Applied after " + fork.getTurn() + " turns (wave " + fork.getWave() + "): " + same);
+        // the battle has not used its random numbers yet, so it goes on like the applied state does
+        BattleResult goOn = applied.run(BattleState.Policy.ALWAYS_ATTACK, BattleState.Policy.ALWAYS_ATTACK,
+                MAX_TURNS, new SplittableRandom(SEED));
+        BattleResult rest = battle.runHeadless(ActionPolicy.ALWAYS_ATTACK, ActionPolicy.ALWAYS_ATTACK, MAX_TURNS);
+        System.out.println("Battle goes on like the state: " + rest + " / " + goOn + " "
+                + (rest.toString().equals(goOn.toString()) && sameHp(applied)));
+        team.get(0).setSpeed(speed);
+        System.out.println();
+
+        // forks per second: state copy vs copying the units with serialization
+        reset(team, waves);
+        battle = new BattleSystem(new SplittableRandom(SEED));
+        battle.initializeRaid(team, waves);
+        BattleState root = BattleState.capture(battle);
+        BattleState scratch = root.copy();
+        for (int round = 0; round < 3; round++) {
+            long begin = System.nanoTime();
+            long check = 0;
+            for (int i = 0; i < COPIES; i++) {
+                scratch.copyFrom(root);
+                check += scratch.getHp(i % scratch.size());
+            }
+            double stateSeconds = (System.nanoTime() - begin) / 1e9;
+            begin = System.nanoTime();
+            for (int i = 0; i < SERIALIZED_COPIES; i++) {
+                check += serializedCopy(team).size();
+            }
+            double serialSeconds = (System.nanoTime() - begin) / 1e9;
+            if (round == 2) {
+                System.out.printf("State copies: %.0f per second, serialized copies: %.0f per second (%d)%n",
+                        COPIES / stateSeconds, SERIALIZED_COPIES / serialSeconds, check % 10);
+            }
+        }
+    }
+
+    private static boolean sameHp(BattleState state) {
+        for (int i = 0; i < state.size(); i++) {
+            if (state.getHp(i) != state.getUnit(i).getCurrentHP()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArrayList<Character> serializedCopy(ArrayList<Character> team)
+            throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(team);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (ArrayList<Character>) in.readObject();
+        }
+    }
+
+    private static void reset(List<Character> team, List<List<Enemy>> waves) {
+        for (BattleUnit unit : team) {
+            unit.setCurrentHP(unit.getMaxHP());
+        }
+        for (List<Enemy> wave : waves) {
+            for (BattleUnit unit : wave) {
+                if (unit instanceof BossEnemy) {
+                    ((BossEnemy) unit).resetPhases();
+                }
+                unit.setCurrentHP(unit.getMaxHP());
+            }
+        }
+    }
+}
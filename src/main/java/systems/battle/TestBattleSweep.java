@@ -0,0 +1,65 @@
+package systems.battle;
+
+import data.CharacterData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+//test the parallel battle sweep, for debug only
+public class TestBattleSweep {
+    public static void main(String[] args) throws IOException {
+        System.out.println("===== BATTLE SWEEP TEST =====\n");
+        CharacterData data = new CharacterData();
+        BattleSweep sweep = new BattleSweep(data, 2026L);
+        sweep.addTeam("Trailblazer");
+        sweep.addTeam("Trailblazer", "March 7th", "Dan Heng");
+        sweep.setDifficulties(1, 2, 3);
+        sweep.setDefenseFactors(0.3, 0.5, 0.7);
+        sweep.setAggressionLevels(0, 1, 2);
+        sweep.setRunsPerCell(2000);
+
+        long start = System.nanoTime();
+        List<BattleSweep.CellResult> results = sweep.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int battles = 0;
+        for (BattleSweep.CellResult result : results) {
+            battles += result.getRuns();
+        }
+        System.out.printf("%d cells, %d battles in %.2f s%n", results.size(), battles, seconds);
+
+        // same seed gives the same results
+        List<BattleSweep.CellResult> again = sweep.run();
+        boolean same = true;
+        for (int i = 0; i < results.size(); i++) {
+            same &= results.get(i).getWins() == again.get(i).getWins()
+                    && results.get(i).getTurnPercentile(0.5) == again.get(i).getTurnPercentile(0.5);
+        }
+        System.out.println("Repeat matches: " + same);
+
+        // run n does not depend on the runs before it in the same task (boss phases are reset),
+        // the team is made strong enough to push the boss into its later phases
+        for (String id : new String[] {"Trailblazer", "March 7th", "Dan Heng"}) {
+            data.getOwnedCharacters().get(id).setAttack(120);
+        }
+        BattleSweep split = new BattleSweep(data, 2026L);
+        split.addTeam("Trailblazer", "March 7th", "Dan Heng");
+        split.setDifficulties(3);
+        split.setRunsPerCell(600);
+        BattleSweep.CellResult whole = split.run().get(0);
+        split.setRunsPerTask(1);
+        BattleSweep.CellResult single = split.run().get(0);
+        System.out.println("Split does not matter: " + (whole.getWins() == single.getWins()
+                && whole.getLosses() == single.getLosses() && whole.getAverageTurns() == single.getAverageTurns())
+                + " (" + whole.getWins() + " wins, " + single.getWins() + " with one run per task)");
+
+        Path file = Files.createTempFile("battle_sweep", ".csv");
+        System.out.println("CSV written: " + BattleSweep.writeCsv(file, results));
+        List<String> lines = Files.readAllLines(file);
+        for (int i = 0; i < Math.min(8, lines.size()); i++) {
+            System.out.println(lines.get(i));
+        }
+        Files.delete(file);
+    }
+}
@@ -0,0 +1,78 @@
+package systems.battle;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+//check that batch damage matches the scalar damage and compare their speed, for debug only
+public class TestDamageBatch {
+    private static final int HITS = 4096;
+    private static final int ROUNDS = 2000;
+    private static final int WARMUP = 3;
+
+    public static void main(String[] args) {
+        System.out.println("===== DAMAGE BATCH TEST =====\n");
+        SplittableRandom statRandom = new SplittableRandom(7L);
+        int[] atk = new int[HITS];
+        int[] def = new int[HITS];
+        double[] crit = new double[HITS];
+        double[] critDmg = new double[HITS];
+        for (int i = 0; i < HITS; i++) {
+            atk[i] = 20 + statRandom.nextInt(300);
+            def[i] = statRandom.nextInt(200);
+            // some values out of range to check the clamps
+            crit[i] = statRandom.nextDouble() * 1.4 - 0.2;
+            critDmg[i] = statRandom.nextDouble() * 2.4 - 0.2;
+        }
+
+        int[] scalar = new int[HITS];
+        int[] batch = new int[HITS];
+        SplittableRandom rng = new SplittableRandom(2026L);
+        for (int i = 0; i < HITS; i++) {
+            scalar[i] = Damage.compute(atk[i], def[i], crit[i], critDmg[i], Damage.DEFAULT_DEFENSE_FACTOR, rng);
+        }
+        Damage.computeBatch(atk, def, crit, critDmg, Damage.DEFAULT_DEFENSE_FACTOR, new SplittableRandom(2026L), batch);
+        System.out.println("Batch matches scalar: " + Arrays.equals(scalar, batch));
+        double[] rolls = new double[HITS * 2];
+        Damage.computeBatch(atk, def, crit, critDmg, Damage.DEFAULT_DEFENSE_FACTOR, new SplittableRandom(2026L), rolls,
+                batch);
+        System.out.println("Batch with rolls matches scalar: " + Arrays.equals(scalar, batch));
+
+        rng = new SplittableRandom(99L);
+        for (int i = 0; i < HITS; i++) {
+            scalar[i] = Damage.compute(atk[0], def[i], crit[0], critDmg[0], 0.3, rng);
+        }
+        Damage.computeArea(atk[0], crit[0], critDmg[0], def, 0.3, new SplittableRandom(99L), batch);
+        System.out.println("Area matches scalar: " + Arrays.equals(scalar, batch));
+        System.out.println();
+
+        for (int round = 0; round <= WARMUP; round++) {
+            boolean print = round == WARMUP;
+            long start = System.nanoTime();
+            long sum = 0;
+            rng = new SplittableRandom(round);
+            for (int r = 0; r < ROUNDS; r++) {
+                for (int i = 0; i < HITS; i++) {
+                    sum += Damage.compute(atk[i], def[i], crit[i], critDmg[i], Damage.DEFAULT_DEFENSE_FACTOR, rng);
+                }
+            }
+            double scalarSeconds = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            long batchSum = 0;
+            rng = new SplittableRandom(round);
+            for (int r = 0; r < ROUNDS; r++) {
+                Damage.computeBatch(atk, def, crit, critDmg, Damage.DEFAULT_DEFENSE_FACTOR, rng, rolls, batch);
+                for (int i = 0; i < HITS; i++) {
+                    batchSum += batch[i];
+                }
+            }
+            double batchSeconds = (System.nanoTime() - start) / 1e9;
+            if (print) {
+                double hits = (double) HITS * ROUNDS;
+                System.out.printf("Scalar: %.1f M hits/s%n", hits / scalarSeconds / 1e6);
+                System.out.printf("Batch:  %.1f M hits/s%n", hits / batchSeconds / 1e6);
+                System.out.println("Same total: " + (sum == batchSum));
+            }
+        }
+    }
+}
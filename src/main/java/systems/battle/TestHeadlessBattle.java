@@ -0,0 +1,167 @@
+package systems.battle;
+
+import entities.abs.BattleUnit;
+import entities.characters.Character;
+import entities.characters.PlayableCharacter;
+import entities.enemies.Enemy;
+import entities.enemies.RegularEnemy;
+import entities.equipment.Relic;
+import systems.ai.EnemyAI;
+import util.random.RngService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+//test headless battles and how many battles run per minute, for debug only
+public class TestHeadlessBattle {
+    private static final int FIGHTS = 200_000;
+    private static final int MAX_TURNS = 500;
+
+    public static void main(String[] args) {
+        System.out.println("===== HEADLESS BATTLE TEST =====\n");
+        List<Character> team = new ArrayList<>();
+        team.add(new PlayableCharacter("Trailblazer", 5, true));
+        team.add(new PlayableCharacter("March 7th", 5, true));
+        List<Enemy> enemies = new ArrayList<>();
+        enemies.add(new RegularEnemy("Elite Automaton", true));
+        enemies.add(new RegularEnemy("Voidranger", false));
+        enemies.add(new RegularEnemy("Silvermane Guard", false));
+
+        // same seed gives the same result
+        BattleResult first = runOnce(team, enemies, 2026L);
+        BattleResult second = runOnce(team, enemies, 2026L);
+        System.out.println("Seeded battle: " + first);
+        System.out.println("Replay matches: " + first.toString().equals(second.toString()));
+
+        EnemyAI ai = new EnemyAI();
+        ai.setRandom(new RngService(1L).stream(RngService.AI, 0));
+        ActionPolicy enemyPolicy = new AiActionPolicy(ai);
+        BattleSystem battle = new BattleSystem(new RngService(1L).stream(RngService.DAMAGE, 0));
+        int wins = 0;
+        long turns = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < FIGHTS; i++) {
+            reset(team, enemies);
+            BattleResult result = battle.runHeadless(team, enemies, ActionPolicy.ALWAYS_ATTACK, enemyPolicy, MAX_TURNS);
+            if (result.isPlayerWin()) {
+                wins++;
+            }
+            turns += result.getTurns();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d battles in %.2f s (%.0f battles per minute)%n", FIGHTS, seconds, FIGHTS / seconds * 60);
+        System.out.printf("Win rate: %.3f, average turns: %.1f%n", (double) wins / FIGHTS, (double) turns / FIGHTS);
+        System.out.println();
+        testTimeline();
+        System.out.println();
+        testRaid();
+        System.out.println();
+        testDamagePipeline();
+    }
+
+    private static void testDamagePipeline() {
+        System.out.println("***** Damage Pipeline Test *****");
+        PlayableCharacter plain = new PlayableCharacter("Plain", 10, true);
+        PlayableCharacter genius = new PlayableCharacter("Genius", 10, true);
+        for (int i = 0; i < 4; i++) {
+            genius.equip(new Relic("Genius Relic " + i, "Genius"));
+        }
+        genius.setAttack(plain.getAttack());  //same attack, only the set bonus is different
+        RegularEnemy target = new RegularEnemy("Target", true);
+        int[] plainHits = hits(plain, target);
+        int[] geniusHits = hits(genius, target);
+        System.out.println("Plain:  " + Arrays.toString(plainHits));
+        System.out.println("Genius: " + Arrays.toString(geniusHits));
+        DamagePipeline single = new DamagePipeline(new SplittableRandom(5L));
+        int[] area = new DamagePipeline(new SplittableRandom(5L)).area(plain, Arrays.asList(target, target), 1);
+        System.out.println("Area matches single hits: "
+                + (area[0] == single.hit(plain, target, 1) && area[1] == single.hit(plain, target, 1)));
+    }
+
+    private static int[] hits(BattleUnit attacker, BattleUnit target) {
+        DamagePipeline pipeline = new DamagePipeline(new SplittableRandom(11L));
+        int[] hits = new int[3];
+        for (int skill = 0; skill < 3; skill++) {
+            hits[skill] = pipeline.hit(attacker, target, skill);
+        }
+        return hits;
+    }
+
+    private static void testRaid() {
+        System.out.println("***** Raid Test *****");
+        List<Character> team = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            PlayableCharacter member = new PlayableCharacter("Member " + i, 20, true);
+            member.setAttack(member.getAttack() * 4);
+            team.add(member);
+        }
+        List<List<Enemy>> waves = new ArrayList<>();
+        for (int wave = 0; wave < 3; wave++) {
+            List<Enemy> enemies = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                enemies.add(new RegularEnemy("Wave " + wave + " Enemy " + i, false));
+            }
+            waves.add(enemies);
+        }
+        BattleSystem battle = new BattleSystem(new RngService(3L).stream(RngService.DAMAGE, 0));
+        battle.initializeRaid(team, waves);
+        Battlefield field = battle.getBattlefield();
+        System.out.println("Slots: " + field.getSlotCount(Battlefield.PLAYERS) + " players, "
+                + field.getSlotCount(Battlefield.ENEMIES) + " enemies, waves left: " + field.getWavesLeft());
+        BattleResult result = battle.runHeadless(ActionPolicy.ALWAYS_ATTACK, ActionPolicy.ALWAYS_ATTACK, 100_000);
+        System.out.println("Raid: " + result + ", reached wave " + field.getWave());
+        boolean allDead = true;
+        for (List<Enemy> wave : waves) {
+            for (Enemy enemy : wave) {
+                allDead &= !enemy.isAlive();
+            }
+        }
+        System.out.println("All waves defeated: " + (result.isPlayerWin() && allDead)
+                + ", listeners released: " + !team.get(0).hasListener(field));
+    }
+
+    private static void testTimeline() {
+        System.out.println("***** Action Timeline Test *****");
+        PlayableCharacter fast = new PlayableCharacter("Fast", 1, true);
+        RegularEnemy slow = new RegularEnemy("Slow", false);
+        RegularEnemy other = new RegularEnemy("Other", false);
+        fast.setSpeed(200);
+        slow.setSpeed(100);
+        other.setSpeed(100);
+        ActionTimeline timeline = new ActionTimeline();
+        timeline.add(fast);
+        timeline.add(slow);
+        timeline.add(other);
+        System.out.println("Speed 200/100/100: " + order(timeline, 6));
+        // slow becomes twice as fast in the middle of its wait
+        slow.setSpeed(200);
+        System.out.println("Slow buffed to 200: " + order(timeline, 6));
+        fast.setCurrentHP(0);
+        System.out.println("Fast defeated: " + order(timeline, 4) + ", units left: " + timeline.size());
+    }
+
+    private static String order(ActionTimeline timeline, int turns) {
+        StringBuilder order = new StringBuilder();
+        for (int i = 0; i < turns; i++) {
+            order.append(timeline.next().getName()).append(' ');
+        }
+        return order.toString().trim();
+    }
+
+    private static BattleResult runOnce(List<Character> team, List<Enemy> enemies, long seed) {
+        reset(team, enemies);
+        BattleSystem battle = new BattleSystem(new RngService(seed).stream(RngService.DAMAGE, 0));
+        return battle.runHeadless(team, enemies, ActionPolicy.ALWAYS_ATTACK, ActionPolicy.ALWAYS_ATTACK, MAX_TURNS);
+    }
+
+    private static void reset(List<Character> team, List<Enemy> enemies) {
+        for (BattleUnit unit : team) {
+            unit.setCurrentHP(unit.getMaxHP());
+        }
+        for (BattleUnit unit : enemies) {
+            unit.setCurrentHP(unit.getMaxHP());
+        }
+    }
+}
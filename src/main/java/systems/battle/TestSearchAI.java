@@ -0,0 +1,135 @@
+package systems.battle;
+
+import entities.abs.BattleUnit;
+import entities.characters.Character;
+import entities.characters.PlayableCharacter;
+import entities.enemies.BossEnemy;
+import entities.enemies.Enemy;
+import entities.enemies.RegularEnemy;
+import systems.ai.EnemyAI;
+import util.random.RngService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+//check that a battle state plays like the real battle and compare the search AI with the heuristic AI, for debug only
+public class TestSearchAI {
+    private static final int FIGHTS = 40;
+    private static final int MAX_TURNS = 500;
+
+    public static void main(String[] args) {
+        System.out.println("===== SEARCH AI TEST =====\n");
+        List<Character> team = new ArrayList<>();
+        team.add(new PlayableCharacter("Trailblazer", 10, true));
+        team.add(new PlayableCharacter("March 7th", 10, true));
+        team.add(new PlayableCharacter("Dan Heng", 10, true));
+        List<Enemy> enemies = new ArrayList<>();
+        enemies.add(new BossEnemy("Cocolia", 2));
+        enemies.add(new RegularEnemy("Silvermane Guard", true));
+
+        // the state played with the same seed ends like the real battle
+        reset(team, enemies);
+        BattleSystem battle = new BattleSystem(new SplittableRandom(7L));
+        battle.initializeBattle(team, enemies);
+        BattleState state = BattleState.capture(battle);
+        BattleResult result = battle.runHeadless(ActionPolicy.ALWAYS_ATTACK, ActionPolicy.ALWAYS_ATTACK, MAX_TURNS);
+        SplittableRandom rng = new SplittableRandom(7L);
+        while (!state.isOver() && state.getTurn() < MAX_TURNS) {
+            state.act(state.nextActor(), ActionPolicy.ATTACK, rng);
+        }
+        boolean same = state.getTurn() == result.getTurns();
+        for (int i = 0; i < state.size(); i++) {
+            same &= state.getHp(i) == state.getUnit(i).getCurrentHP();
+        }
+        System.out.println("Real battle: " + result);
+        System.out.println("State playout matches: " + same + " (" + state.getTurn() + " turns)");
+
+        // same seed and playout limit gives the same battle
+        System.out.println("Replay with playout limit matches: "
+                + fight(team, enemies, limited(11L), 1L).toString().equals(fight(team, enemies, limited(11L), 1L).toString()));
+        System.out.println();
+
+        int heuristicWins = 0;
+        for (int i = 0; i < FIGHTS; i++) {
+            if (fight(team, enemies, heuristic(i), i).isPlayerWin()) {
+                heuristicWins++;
+            }
+        }
+        int searchWins = 0;
+        long decisions = 0;
+        long fallbacks = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < FIGHTS; i++) {
+            SearchActionPolicy search = new SearchActionPolicy(heuristic(i), SearchActionPolicy.DEFAULT_ACTIONS,
+                    1.0, 1, i);
+            if (fight(team, enemies, search, i).isPlayerWin()) {
+                searchWins++;
+            }
+            decisions += search.getDecisions();
+            fallbacks += search.getFallbacks();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Player win rate vs heuristic AI: %.3f%n", (double) heuristicWins / FIGHTS);
+        System.out.printf("Player win rate vs search AI (1 ms): %.3f, %d decisions in %.2f s, %d fallbacks%n",
+                (double) searchWins / FIGHTS, decisions, seconds, fallbacks);
+
+        // no time at all: every decision is made by the heuristic
+        SearchActionPolicy noTime = new SearchActionPolicy(heuristic(0), SearchActionPolicy.DEFAULT_ACTIONS, 0, 1, 0);
+        fight(team, enemies, noTime, 0);
+        System.out.println("Zero budget falls back: " + (noTime.getFallbacks() == noTime.getDecisions()));
+
+        SearchActionPolicy parallel = new SearchActionPolicy(heuristic(0), SearchActionPolicy.DEFAULT_ACTIONS, 1.0, 4, 0);
+        // time every decision: the policy never waits past the 1 ms budget, with fewer cores than threads the
+        // system can still take the core away from the calling thread for a while
+        final List<Long> times = new ArrayList<>();
+        ActionPolicy timed = (unit, battleSystem) -> {
+            long begin = System.nanoTime();
+            int action = parallel.chooseAction(unit, battleSystem);
+            times.add(System.nanoTime() - begin);
+            return action;
+        };
+        start = System.nanoTime();
+        BattleResult parallelResult = fight(team, enemies, timed, 0);
+        parallel.shutdown();
+        java.util.Collections.sort(times);
+        System.out.printf("4 threads: %s, %d decisions in %.2f s, median %.2f ms, slowest %.2f ms (%d cores)%n",
+                parallelResult, parallel.getDecisions(), (System.nanoTime() - start) / 1e9,
+                times.get(times.size() / 2) / 1e6, times.get(times.size() - 1) / 1e6,
+                Runtime.getRuntime().availableProcessors());
+        System.out.println("Last decision " + parallel.getLastPlayouts() + " playouts "
+                + java.util.Arrays.toString(parallel.getLastPlayoutsPerThread()) + ", "
+                + parallel.getLateWorkers() + " late workers");
+    }
+
+    private static SearchActionPolicy limited(long seed) {
+        SearchActionPolicy policy = new SearchActionPolicy(heuristic(seed), SearchActionPolicy.DEFAULT_ACTIONS,
+                1.0, 1, seed);
+        policy.setPlayoutLimit(200);
+        return policy;
+    }
+
+    private static ActionPolicy heuristic(long seed) {
+        EnemyAI ai = new EnemyAI();
+        ai.setRandom(new RngService(seed).stream(RngService.AI, 0));
+        return new AiActionPolicy(ai);
+    }
+
+    private static BattleResult fight(List<Character> team, List<Enemy> enemies, ActionPolicy enemyPolicy, long seed) {
+        reset(team, enemies);
+        BattleSystem battle = new BattleSystem(new RngService(seed).stream(RngService.DAMAGE, 0));
+        return battle.runHeadless(team, enemies, ActionPolicy.ALWAYS_ATTACK, enemyPolicy, MAX_TURNS);
+    }
+
+    private static void reset(List<Character> team, List<Enemy> enemies) {
+        for (BattleUnit unit : team) {
+            unit.setCurrentHP(unit.getMaxHP());
+        }
+        for (BattleUnit unit : enemies) {
+            if (unit instanceof BossEnemy) {
+                ((BossEnemy) unit).resetPhases();
+            }
+            unit.setCurrentHP(unit.getMaxHP());
+        }
+    }
+}
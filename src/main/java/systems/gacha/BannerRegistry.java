@@ -0,0 +1,146 @@
+package systems.gacha;
+
+import data.config.ConfigManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads every banner once and serves them by id.
+ * Banners come from the game config, pools are comma separated lists and any missing pool uses the standard pool:
+ * <pre>
+ * gacha.banners=standard,seele
+ * gacha.banner.seele.name=Butterfly on Swordtip
+ * gacha.banner.seele.five_star_characters=Himeko,Welt Yang,Bronya,Gepard,Seele,Jingyuan
+ * gacha.banner.seele.five_star_rate_up=Seele
+ * gacha.banner.seele.five_star_rate_up_chance=0.5
+ * </pre>
+ * The "standard" banner always exists. Banners are immutable, so the registry can be shared by every session.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see GachaBanner
+ * @see ConfigManager
+ */
+public class BannerRegistry {
+    /** Id of the standard banner. */
+    public static final String STANDARD_ID = "standard";
+    /** Config key with the list of banner ids. */
+    public static final String BANNERS_KEY = "gacha.banners";
+    /** Prefix of the config keys of one banner, followed by the banner id. */
+    public static final String BANNER_PREFIX = "gacha.banner.";
+    /** Rate-up chance used when the config does not have one (50/50). */
+    public static final double DEFAULT_RATE_UP_CHANCE = 0.5;
+
+    private final Map<String, GachaBanner> banners;
+
+    /**
+     * Instantiates a new registry with only the standard banner
+     */
+    public BannerRegistry() {
+        banners = new LinkedHashMap<>();
+        banners.put(STANDARD_ID, GachaBanner.STANDARD);
+    }
+
+    /**
+     * Instantiates a new registry and loads every banner listed in the config.
+     * A banner with a broken definition is skipped with an error message.
+     *
+     * @param config the game config
+     */
+    public BannerRegistry(ConfigManager config) {
+        this();
+        for (String id : config.getListProperty(BANNERS_KEY)) {
+            if (id.equals(STANDARD_ID) && config.getPropertiesByPrefix(BANNER_PREFIX + id + ".").isEmpty()) {
+                continue;
+            }
+            try {
+                banners.put(id, loadBanner(config, id));
+            } catch (IllegalArgumentException ex) {
+                // NumberFormatException is an IllegalArgumentException too
+                System.err.println("Could not load banner " + id + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Build one banner from the config
+     * @param config the game config
+     * @param id the banner id
+     * @return the banner
+     */
+    private GachaBanner loadBanner(ConfigManager config, String id) {
+        String prefix = BANNER_PREFIX + id + ".";
+        GachaBanner standard = GachaBanner.STANDARD;
+        GachaBanner banner = new GachaBanner(config.getProperty(prefix + "name", id),
+                list(config, prefix + "five_star_items", standard.getFiveStarItems()),
+                list(config, prefix + "five_star_paths", standard.getFiveStarPaths()),
+                list(config, prefix + "four_star_items", standard.getFourStarItems()),
+                list(config, prefix + "four_star_paths", standard.getFourStarPaths()),
+                config.getIntProperty(prefix + "light_cones_per_pool", standard.getLightConesPerPool()),
+                list(config, prefix + "three_star_items", standard.getThreeStarItems()),
+                list(config, prefix + "three_star_types", standard.getThreeStarTypes()),
+                intList(config, prefix + "three_star_rarities", standard.getThreeStarRarities()),
+                list(config, prefix + "five_star_characters", standard.getFiveStarCharacters()),
+                list(config, prefix + "four_star_characters", standard.getFourStarCharacters()));
+
+        String[] fiveStarRateUp = config.getListProperty(prefix + "five_star_rate_up");
+        if (fiveStarRateUp.length > 0) {
+            banner = banner.withRateUp(5,
+                    config.getDoubleProperty(prefix + "five_star_rate_up_chance", DEFAULT_RATE_UP_CHANCE), fiveStarRateUp);
+        }
+        String[] fourStarRateUp = config.getListProperty(prefix + "four_star_rate_up");
+        if (fourStarRateUp.length > 0) {
+            banner = banner.withRateUp(4,
+                    config.getDoubleProperty(prefix + "four_star_rate_up_chance", DEFAULT_RATE_UP_CHANCE), fourStarRateUp);
+        }
+        return banner;
+    }
+
+    private static String[] list(ConfigManager config, String key, String[] defaults) {
+        String[] values = config.getListProperty(key);
+        return values.length == 0 ? defaults : values;
+    }
+
+    private static int[] intList(ConfigManager config, String key, int[] defaults) {
+        String[] values = config.getListProperty(key);
+        if (values.length == 0) {
+            return defaults;
+        }
+        int[] result = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = Integer.parseInt(values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Gets a banner by id
+     *
+     * @param id the banner id
+     * @return the banner, or null if there is no banner with this id
+     */
+    public GachaBanner getBanner(String id) {
+        return banners.get(id);
+    }
+
+    /**
+     * Gets a banner by id, or the standard banner if there is no banner with this id
+     *
+     * @param id the banner id
+     * @return the banner
+     */
+    public GachaBanner getBannerOrStandard(String id) {
+        GachaBanner banner = banners.get(id);
+        return banner == null ? GachaBanner.STANDARD : banner;
+    }
+
+    /**
+     * Gets the ids of all banners, in the order they were loaded.
+     *
+     * @return the banner ids
+     */
+    public Set<String> getBannerIds() { return Collections.unmodifiableSet(banners.keySet()); }
+}
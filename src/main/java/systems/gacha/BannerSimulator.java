@@ -0,0 +1,162 @@
+package systems.gacha;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Monte Carlo simulator for the item banner, runs the real pity logic of {@link PullSession} for many simulated players.
+ * Every simulated player gets a fresh {@link PullSession} on the standard banner and pulls until the first 5 star.
+ * Players are split over a {@link ForkJoinPool}, every task gets its own {@link SplittableRandom} split from the seed,
+ * so the result only depends on the seed and the number of players (not on the number of threads).
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see PullSession#pullBatch(int, PullSink)
+ * @see PullHistogram
+ */
+public class BannerSimulator {
+    /** Players simulated by one task before it stops splitting. */
+    private static final int PLAYERS_PER_TASK = 4096;
+    /** A player always gets a 5 star before this many pulls (hard pity is 90). */
+    private static final int MAX_PULLS_PER_PLAYER = 200;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Instantiates a new Banner simulator using the common fork/join pool
+     */
+    public BannerSimulator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Instantiates a new Banner simulator using the provided pool
+     *
+     * @param pool the pool to run the simulation on
+     */
+    public BannerSimulator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Simulate the provided number of players
+     *
+     * @param players the number of players to simulate
+     * @param seed    the seed, the same seed and player count always give the same result
+     * @return the merged histograms of all players
+     */
+    public Result run(int players, long seed) {
+        return pool.invoke(new PlayerTask(0, players, new SplittableRandom(seed)));
+    }
+
+    /**
+     * Histograms of one simulation.
+     * Pulls to 4 star counts the first pull that gave a 4 star or better.
+     */
+    public static class Result {
+        private final PullHistogram pullsToFiveStar;
+        private final PullHistogram pullsToFourStar;
+
+        /**
+         * Instantiates a new empty result
+         */
+        public Result() {
+            this.pullsToFiveStar = new PullHistogram(90);
+            this.pullsToFourStar = new PullHistogram(10);
+        }
+
+        /**
+         * Add all samples of another result to this result
+         *
+         * @param other the other result
+         */
+        public void merge(Result other) {
+            pullsToFiveStar.merge(other.pullsToFiveStar);
+            pullsToFourStar.merge(other.pullsToFourStar);
+        }
+
+        /**
+         * Gets the histogram of pulls needed for the first 5 star
+         *
+         * @return the histogram
+         */
+        public PullHistogram getPullsToFiveStar() { return pullsToFiveStar; }
+
+        /**
+         * Gets the histogram of pulls needed for the first 4 star or better
+         *
+         * @return the histogram
+         */
+        public PullHistogram getPullsToFourStar() { return pullsToFourStar; }
+    }
+
+    /**
+     * Simulates players [from, to), splitting in halves until the range is small enough
+     */
+    private static class PlayerTask extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        PlayerTask(int from, int to, SplittableRandom random) {
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from <= PLAYERS_PER_TASK) {
+                return simulate();
+            }
+            int mid = (from + to) >>> 1;
+            // split before forking so the tree of generators is always the same
+            PlayerTask left = new PlayerTask(from, mid, random.split());
+            PlayerTask right = new PlayerTask(mid, to, random);
+            left.fork();
+            Result result = right.compute();
+            result.merge(left.join());
+            return result;
+        }
+
+        private Result simulate() {
+            Result result = new Result();
+            PlayerRecorder recorder = new PlayerRecorder();
+            for (int i = from; i < to; i++) {
+                PullSession session = new PullSession("simulated", GachaBanner.STANDARD, random);
+                recorder.reset();
+                session.pullBatch(MAX_PULLS_PER_PLAYER, recorder);
+                result.pullsToFiveStar.add(recorder.firstFiveStar);
+                result.pullsToFourStar.add(recorder.firstFourStar);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Remembers the first 4 and 5 star of one player, and stops the batch on the first 5 star
+     */
+    private static class PlayerRecorder implements PullSink {
+        private int firstFourStar;
+        private int firstFiveStar;
+
+        void reset() {
+            firstFourStar = 0;
+            firstFiveStar = 0;
+        }
+
+        @Override
+        public boolean onPull(int pullNumber, int rarity, int poolIndex) {
+            if (rarity >= 4 && firstFourStar == 0) {
+                firstFourStar = pullNumber;
+            }
+            if (rarity == 5) {
+                firstFiveStar = pullNumber;
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package systems.gacha;
+
+import entities.characters.Character;
+import entities.characters.FiveStarCharacter;
+import entities.characters.FourStarCharacter;
+import entities.equipment.LightCone;
+import entities.items.Item;
+import entities.items.MaterialItem;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Immutable definition of a banner: the item and character pools and the rarity samplers.
+ * A banner has no player state, so one banner is shared by every {@link PullSession} and every thread.
+ * 4 and 5 star item pools have light cones first and then materials.
+ * A banner can have rate-up (UP) entries for 4 and 5 stars: when that rarity is pulled, a rate-up entry is picked with
+ * the rate-up chance, otherwise the whole pool is used. Rate-up entries are stored as pool indexes, so pulls never
+ * look at names.
+ *
+ * @author Shaoyang Chen
+ * @version 1.1.0
+ * @see PullSession
+ * @see BannerRegistry
+ * @see RaritySampler
+ */
+public final class GachaBanner {
+    /** The standard banner, same pools as the original gacha system. */
+    public static final GachaBanner STANDARD = new GachaBanner("Standard",
+            new String[]{"Night of Galactic Railway", "Something Irreplaceable", "But the Battle Isn't Over",
+                    "Legendary Material", "Epic Material", "Rare Material"},
+            new String[]{"Erudition", "Destruction", "Harmony"},
+            new String[]{"Morning Ritual", "Only Silence Remains", "Memories of the Past",
+                    "Advanced Material", "Intermediate Material", "Basic Material"},
+            new String[]{"Erudition", "The Hunt", "Harmony"},
+            3,
+            new String[]{"Credit", "Adventure Log", "Traveler's Guide", "Refined Aether"},
+            new String[]{"Currency", "EXP Material", "EXP Material", "Ascension Material"},
+            new int[]{1, 1, 2, 3},
+            new String[]{"Himeko", "Welt Yang", "Bronya", "Gepard", "Seele", "Jingyuan"},
+            new String[]{"Serval", "Pela", "Luca", "Hook", "Sushang", "Arlan"});
+
+    private final String name;
+    private final String[] fiveStarItems;
+    private final String[] fiveStarPaths;
+    private final String[] fourStarItems;
+    private final String[] fourStarPaths;
+    private final int lightConesPerPool;
+    private final String[] threeStarItems;
+    private final String[] threeStarTypes;
+    private final int[] threeStarRarities;
+    private final String[] fiveStarCharacters;
+    private final String[] fourStarCharacters;
+    // rate-up pool indexes by rarity (empty arrays when there is no rate-up)
+    private final int[][] itemRateUp;
+    private final int[][] characterRateUp;
+    private final double[] rateUpChance;
+
+    /**
+     * Instantiates a new banner, all arrays are copied
+     *
+     * @param name               the banner name
+     * @param fiveStarItems      5 star item pool (light cones first, then materials)
+     * @param fiveStarPaths      paths a 5 star light cone can have
+     * @param fourStarItems      4 star item pool (light cones first, then materials)
+     * @param fourStarPaths      paths a 4 star light cone can have
+     * @param lightConesPerPool  number of light cones at the start of the 4 and 5 star pools
+     * @param threeStarItems     3 star item pool
+     * @param threeStarTypes     material type of every 3 star item
+     * @param threeStarRarities  material rarity of every 3 star item
+     * @param fiveStarCharacters 5 star character pool
+     * @param fourStarCharacters 4 star character pool
+     */
+    public GachaBanner(String name, String[] fiveStarItems, String[] fiveStarPaths, String[] fourStarItems,
+                       String[] fourStarPaths, int lightConesPerPool, String[] threeStarItems, String[] threeStarTypes,
+                       int[] threeStarRarities, String[] fiveStarCharacters, String[] fourStarCharacters) {
+        if (fiveStarItems.length == 0 || fourStarItems.length == 0 || threeStarItems.length == 0
+                || fiveStarCharacters.length == 0 || fourStarCharacters.length == 0) {
+            throw new IllegalArgumentException("Banner pools cannot be empty: " + name);
+        }
+        if (threeStarTypes.length != threeStarItems.length || threeStarRarities.length != threeStarItems.length) {
+            throw new IllegalArgumentException("3 star types and rarities must match the 3 star pool: " + name);
+        }
+        this.name = name;
+        this.fiveStarItems = fiveStarItems.clone();
+        this.fiveStarPaths = fiveStarPaths.clone();
+        this.fourStarItems = fourStarItems.clone();
+        this.fourStarPaths = fourStarPaths.clone();
+        this.lightConesPerPool = lightConesPerPool;
+        this.threeStarItems = threeStarItems.clone();
+        this.threeStarTypes = threeStarTypes.clone();
+        this.threeStarRarities = threeStarRarities.clone();
+        this.fiveStarCharacters = fiveStarCharacters.clone();
+        this.fourStarCharacters = fourStarCharacters.clone();
+        this.itemRateUp = new int[6][0];
+        this.characterRateUp = new int[6][0];
+        this.rateUpChance = new double[6];
+    }
+
+    /**
+     * Copy a banner with new rate-up tables, the pool arrays are shared since they never change
+     */
+    private GachaBanner(GachaBanner banner, int[][] itemRateUp, int[][] characterRateUp, double[] rateUpChance) {
+        this.name = banner.name;
+        this.fiveStarItems = banner.fiveStarItems;
+        this.fiveStarPaths = banner.fiveStarPaths;
+        this.fourStarItems = banner.fourStarItems;
+        this.fourStarPaths = banner.fourStarPaths;
+        this.lightConesPerPool = banner.lightConesPerPool;
+        this.threeStarItems = banner.threeStarItems;
+        this.threeStarTypes = banner.threeStarTypes;
+        this.threeStarRarities = banner.threeStarRarities;
+        this.fiveStarCharacters = banner.fiveStarCharacters;
+        this.fourStarCharacters = banner.fourStarCharacters;
+        this.itemRateUp = itemRateUp;
+        this.characterRateUp = characterRateUp;
+        this.rateUpChance = rateUpChance;
+    }
+
+    /**
+     * Gets a copy of this banner with rate-up entries for a rarity (replaces the old rate-up of that rarity).
+     * Every name has to be in the item pool or the character pool of that rarity.
+     *
+     * @param rarity the rarity (4 or 5)
+     * @param chance chance that a pull of this rarity is one of the rate-up entries (0-1)
+     * @param names  names of the rate-up items and characters
+     * @return the new banner
+     */
+    public GachaBanner withRateUp(int rarity, double chance, String... names) {
+        if (rarity != 4 && rarity != 5) {
+            throw new IllegalArgumentException("Only 4 and 5 star can have rate-up: " + rarity);
+        }
+        if (chance < 0 || chance > 1) {
+            throw new IllegalArgumentException("Rate-up chance must be between 0 and 1: " + chance);
+        }
+        String[] items = rarity == 5 ? fiveStarItems : fourStarItems;
+        String[] characters = rarity == 5 ? fiveStarCharacters : fourStarCharacters;
+        int[] itemIndexes = new int[names.length];
+        int[] characterIndexes = new int[names.length];
+        int itemCount = 0;
+        int characterCount = 0;
+        for (String name : names) {
+            int itemIndex = indexOf(items, name);
+            int characterIndex = indexOf(characters, name);
+            if (itemIndex < 0 && characterIndex < 0) {
+                throw new IllegalArgumentException(name + " is not in the " + rarity + " star pools of " + this.name);
+            }
+            if (itemIndex >= 0) {
+                itemIndexes[itemCount++] = itemIndex;
+            }
+            if (characterIndex >= 0) {
+                characterIndexes[characterCount++] = characterIndex;
+            }
+        }
+        int[][] newItemRateUp = itemRateUp.clone();
+        int[][] newCharacterRateUp = characterRateUp.clone();
+        double[] newChance = rateUpChance.clone();
+        newItemRateUp[rarity] = Arrays.copyOf(itemIndexes, itemCount);
+        newCharacterRateUp[rarity] = Arrays.copyOf(characterIndexes, characterCount);
+        newChance[rarity] = chance;
+        return new GachaBanner(this, newItemRateUp, newCharacterRateUp, newChance);
+    }
+
+    private static int indexOf(String[] pool, String name) {
+        for (int i = 0; i < pool.length; i++) {
+            if (pool[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sample the rarity of an item pull. Pity counts already include this pull.
+     *
+     * @param fiveStarPity the 5 star pity count
+     * @param fourStarPity the 4 star pity count
+     * @param random       the random generator of the session
+     * @return the rarity (3-5)
+     */
+    public int sampleItemRarity(int fiveStarPity, int fourStarPity, SplittableRandom random) {
+        return RaritySampler.ITEMS.sample(fiveStarPity, fourStarPity, random);
+    }
+
+    /**
+     * Sample the rarity of a character pull. Pity counts already include this pull.
+     *
+     * @param fiveStarPity the 5 star pity count
+     * @param fourStarPity the 4 star pity count
+     * @param random       the random generator of the session
+     * @return the rarity (4 or 5)
+     */
+    public int sampleCharacterRarity(int fiveStarPity, int fourStarPity, SplittableRandom random) {
+        return RaritySampler.CHARACTERS.sample(fiveStarPity, fourStarPity, random);
+    }
+
+    /**
+     * Roll the index inside the item pool of a rarity, rate-up entries are picked first with the rate-up chance.
+     * Without rate-up entries this is one random int, the same as before rate-up existed.
+     *
+     * @param rarity the rarity of the pull (3-5)
+     * @param random the random generator of the session
+     * @return the pool index
+     */
+    public int rollItemIndex(int rarity, SplittableRandom random) {
+        return rollIndex(itemRateUp[rarity], rarity, itemPoolSize(rarity), random);
+    }
+
+    /**
+     * Roll the index inside the character pool of a rarity, rate-up entries are picked first with the rate-up chance
+     *
+     * @param rarity the rarity of the pull (4 or 5)
+     * @param random the random generator of the session
+     * @return the pool index
+     */
+    public int rollCharacterIndex(int rarity, SplittableRandom random) {
+        return rollIndex(characterRateUp[rarity], rarity, characterPoolSize(rarity), random);
+    }
+
+    private int rollIndex(int[] rateUp, int rarity, int poolSize, SplittableRandom random) {
+        if (rateUp.length > 0 && random.nextDouble() < rateUpChance[rarity]) {
+            return rateUp[random.nextInt(rateUp.length)];
+        }
+        return random.nextInt(poolSize);
+    }
+
+    /**
+     * Create an item of this banner, light cone path is still random
+     *
+     * @param rarity    the rarity of the pull (3-5)
+     * @param poolIndex the index inside the pool of that rarity
+     * @param random    the random generator used for the light cone path
+     * @return the item
+     */
+    public Item createItem(int rarity, int poolIndex, SplittableRandom random) {
+        switch (rarity) {
+            case 5:
+                if (poolIndex < lightConesPerPool) {
+                    LightCone lc = new LightCone(fiveStarItems[poolIndex],
+                            fiveStarPaths[random.nextInt(fiveStarPaths.length)]);
+                    lc.setRequiredLevel(60);
+                    lc.setValue(1000);
+                    return lc;
+                }
+                return new MaterialItem(fiveStarItems[poolIndex], "Rare Material", 5, 800);
+            case 4:
+                // the same rule as 5-star
+                if (poolIndex < lightConesPerPool) {
+                    LightCone lc = new LightCone(fourStarItems[poolIndex],
+                            fourStarPaths[random.nextInt(fourStarPaths.length)]);
+                    lc.setRequiredLevel(40);
+                    lc.setValue(400);
+                    return lc;
+                }
+                return new MaterialItem(fourStarItems[poolIndex], "Common Material", 4, 300);
+            case 3:
+            default:
+                return new MaterialItem(threeStarItems[poolIndex],
+                        threeStarTypes[poolIndex],
+                        threeStarRarities[poolIndex],
+                        100);
+        }
+    }
+
+    /**
+     * Gets the name of an item of this banner without creating it
+     *
+     * @param rarity    the rarity of the pull (3-5)
+     * @param poolIndex the index inside the pool of that rarity
+     * @return the name of the item
+     */
+    public String describeItem(int rarity, int poolIndex) {
+        switch (rarity) {
+            case 5:
+                return fiveStarItems[poolIndex];
+            case 4:
+                return fourStarItems[poolIndex];
+            default:
+                return threeStarItems[poolIndex];
+        }
+    }
+
+    /**
+     * Gets the size of the item pool of a rarity
+     *
+     * @param rarity the rarity (3-5)
+     * @return the number of items in the pool
+     */
+    public int itemPoolSize(int rarity) {
+        switch (rarity) {
+            case 5:
+                return fiveStarItems.length;
+            case 4:
+                return fourStarItems.length;
+            default:
+                return threeStarItems.length;
+        }
+    }
+
+    /**
+     * Create a character of this banner
+     *
+     * @param rarity    the rarity of the pull (4 or 5)
+     * @param poolIndex the index inside the pool of that rarity
+     * @return the character
+     */
+    public Character createCharacter(int rarity, int poolIndex) {
+        if (rarity == 5) {
+            return new FiveStarCharacter(fiveStarCharacters[poolIndex]);
+        }
+        return new FourStarCharacter(fourStarCharacters[poolIndex], true);
+    }
+
+    /**
+     * Gets the name of a character of this banner without creating it
+     *
+     * @param rarity    the rarity of the pull (4 or 5)
+     * @param poolIndex the index inside the pool of that rarity
+     * @return the name of the character
+     */
+    public String describeCharacter(int rarity, int poolIndex) {
+        return rarity == 5 ? fiveStarCharacters[poolIndex] : fourStarCharacters[poolIndex];
+    }
+
+    /**
+     * Gets the size of the character pool of a rarity
+     *
+     * @param rarity the rarity (4 or 5)
+     * @return the number of characters in the pool
+     */
+    public int characterPoolSize(int rarity) {
+        return rarity == 5 ? fiveStarCharacters.length : fourStarCharacters.length;
+    }
+
+    /**
+     * Gets the chance that a pull of a rarity is a rate-up entry
+     *
+     * @param rarity the rarity (3-5)
+     * @return the rate-up chance, 0 if the rarity has no rate-up
+     */
+    public double getRateUpChance(int rarity) {
+        return rateUpChance[rarity];
+    }
+
+    /**
+     * Checks if an item is a rate-up item
+     *
+     * @param rarity    the rarity of the item
+     * @param poolIndex the index inside the pool of that rarity
+     * @return true if the item is a rate-up item
+     */
+    public boolean isRateUpItem(int rarity, int poolIndex) {
+        return contains(itemRateUp[rarity], poolIndex);
+    }
+
+    /**
+     * Checks if a character is a rate-up character
+     *
+     * @param rarity    the rarity of the character
+     * @param poolIndex the index inside the pool of that rarity
+     * @return true if the character is a rate-up character
+     */
+    public boolean isRateUpCharacter(int rarity, int poolIndex) {
+        return contains(characterRateUp[rarity], poolIndex);
+    }
+
+    private static boolean contains(int[] indexes, int index) {
+        for (int i : indexes) {
+            if (i == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // pools for the banner registry, package-private and not copied, never change them
+    String[] getFiveStarItems() { return fiveStarItems; }
+
+    String[] getFiveStarPaths() { return fiveStarPaths; }
+
+    String[] getFourStarItems() { return fourStarItems; }
+
+    String[] getFourStarPaths() { return fourStarPaths; }
+
+    int getLightConesPerPool() { return lightConesPerPool; }
+
+    String[] getThreeStarItems() { return threeStarItems; }
+
+    String[] getThreeStarTypes() { return threeStarTypes; }
+
+    int[] getThreeStarRarities() { return threeStarRarities; }
+
+    String[] getFiveStarCharacters() { return fiveStarCharacters; }
+
+    String[] getFourStarCharacters() { return fourStarCharacters; }
+
+    /**
+     * Gets the banner name.
+     *
+     * @return the name
+     */
+    public String getName() { return name; }
+}
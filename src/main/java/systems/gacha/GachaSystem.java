@@ -4,18 +4,22 @@ import entities.items.*;
 import entities.equipment.*;
 import entities.characters.*;
 import entities.characters.Character;
-import util.fileio.FileHandler;
-
+import util.random.RngService;
 
+import java.nio.file.Paths;
 import java.util.*;
 
 /**
  * Represents the gacha system in game.
- * Uses 2d-array for probability table, have pity systems for 4 and 5 star characters, stores pull history in String list.
+ * Uses 2d-array for probability table, have pity systems for 4 and 5 star characters, stores pull history in a packed
+ * {@link PullHistoryLog}.
+ * Rarities are sampled with the precomputed {@link RaritySampler}, the probability table is kept for display.
+ * Pity, history and random state live in a {@link PullSession} and the pools in the immutable {@link GachaBanner},
+ * this class adds the console messages on top (use {@link PullService} to host many players).
  * Uses {@link PitySystem}
  *
  * @author Shaoyang Chen
- * @version 1.1.0
+ * @version 1.2.0
  *
  * @see PitySystem
  * @see Item
@@ -24,20 +28,42 @@ import java.util.*;
  */
 public class GachaSystem {
     private double[][] probabilityTable;
-    private int pityCounter5Star;
-    private int pityCounter4Star;
-    private boolean guaranteed5Star;
-    private List<String> pullHistory;
-    private List<String> characterPullHistory;
-    private Random random;
-    private PitySystem pitySystem;
-    private PitySystem characterPitySystem;
+    private final PullSession session;
+    private final PullHistoryExporter historyExporter;
 
     /**
      * Instantiates a new Gacha system (gacha system shouldn't have any args)
      * In default, 3 star item probability is 94.3%, 4 star item is 5.1%, 5 star item is 0.6%
      */
     public GachaSystem() {
+        this(RngService.global().fork(RngService.GACHA));
+    }
+
+    /**
+     * Instantiates a new Gacha system that takes all of its random numbers from the provided generator,
+     * so the same seed always gives the same pulls
+     *
+     * @param random the random generator used for rarity and pool rolls
+     */
+    public GachaSystem(SplittableRandom random) {
+        this(new PullSession("local", GachaBanner.STANDARD, random));
+    }
+
+    /**
+     * Instantiates a new Gacha system pulling on the provided banner (see {@link BannerRegistry})
+     *
+     * @param banner the banner to pull on
+     */
+    public GachaSystem(GachaBanner banner) {
+        this(new PullSession("local", banner, RngService.global().fork(RngService.GACHA)));
+    }
+
+    /**
+     * Instantiates a new Gacha system on top of an existing player session
+     *
+     * @param session the session holding the pity and history of the player
+     */
+    public GachaSystem(PullSession session) {
         // probability table: rows: (3 star, 4 star, 5 star), 3 cols (base probability, UP probability, total probability
         probabilityTable = new double[3][3];
         probabilityTable[0][0] = 0.943;
@@ -46,18 +72,13 @@ public class GachaSystem {
         probabilityTable[0][2] = 0.943;
         probabilityTable[1][2] = 0.051;
         probabilityTable[2][2] = 0.006;
-        // I made the dumbest mistake ever, only initialized "random" here ...  -->
-        // previously:
-        // Random random = new Random();
-        random = new Random();
-
-        pityCounter5Star = 0;
-        pityCounter4Star = 0;
-        guaranteed5Star = false;
-        pullHistory = new ArrayList<>();
-        characterPullHistory = new ArrayList<>();
-        pitySystem = new PitySystem();
-        characterPitySystem = new PitySystem();
+        // UP probability: chance that a pull is one of the rate-up entries of the banner
+        GachaBanner banner = session.getBanner();
+        probabilityTable[1][1] = 0.051 * banner.getRateUpChance(4);
+        probabilityTable[2][1] = 0.006 * banner.getRateUpChance(5);
+        // all pity, history and random state lives in the session
+        this.session = session;
+        this.historyExporter = new PullHistoryExporter(session);
     }
 
     /**
@@ -68,32 +89,34 @@ public class GachaSystem {
     public Item pullSingle() {
         System.out.println("=== Single Pull (Items) ===");
         // update pity first
-        pityCounter5Star++;
-        pityCounter4Star++;
-        pitySystem.incrementPity();
+        int rarity = session.rollItemRarity();
         checkPity();
         updateProbabilities();
-        int rarity = determineRarity();
         //get item
-        Item item = getRandomItemByRarity(rarity);
+        int poolIndex = session.rollItemIndex(rarity);
+        Item item = session.createItem(rarity, poolIndex);
         // pull history
-        int temp = pullHistory.size() + 1;
-        String record = "Single Pull Item,Pull: " + temp + ",5 Star Pity Count: " + pityCounter5Star +
-        ",4 Star Pity Count: " + pityCounter4Star + ",Got Item: " + item.getName();
-        pullHistory.add(record);
-        if (rarity == 5) {
-            pityCounter5Star = 0;
-            pitySystem.resetPity(5);
-            guaranteed5Star = false;
-        }
-        if (rarity == 4) {
-            pityCounter4Star = 0;
-            pitySystem.resetPity(4);
-        }
+        session.recordItemPull(rarity, poolIndex);
+        session.resetItemPity(rarity);
         System.out.println("Pulled Item: " + item.getName() + " (" + comeOnJustStarrrrrrrrs(rarity) + ")");
         return item;
     }
 
+    /**
+     * Pull items n times without printing anything or creating any item objects.
+     * Pity is updated exactly the same way as {@link #pullSingle()}, but pulls are not added to the pull history.
+     * Every result is passed to the sink as rarity and pool index, use {@link #createItem(int, int)} or
+     * {@link #describeItem(int, int)} of this gacha system if the actual item is needed, pool indexes belong to
+     * its banner.
+     *
+     * @param n    the number of pulls to do
+     * @param sink the sink receiving each result, can be null if only the pity state matters
+     * @return the number of pulls done (less than n if the sink stopped the batch)
+     */
+    public int pullBatch(int n, PullSink sink) {
+        return session.pullBatch(n, sink);
+    }
+
     /**
      * Pull ten items
      *
@@ -101,34 +124,16 @@ public class GachaSystem {
      */
     public List<Item> pullTen() {
         System.out.println("=== Ten Pulls (Items) ===");
+        PullStatistics stats = session.getItemStatistics();
+        int fiveStarsBefore = stats.getCount(5);
+        int fourStarsBefore = stats.getCount(4);
         List<Item> results = new ArrayList<>();
         for (int i = 0; i < 10; i++) {
             results.add(pullSingle());
         }
-        long fiveStarCount = results.stream()
-                .filter(item -> {
-                    if (item instanceof LightCone) {
-                        return ((LightCone) item).getRequiredLevel() >= 60;
-                    }
-                    if (item instanceof MaterialItem) {
-                        return ((MaterialItem) item).getRarity() >= 5;
-                    }
-                    return item.getValue() >= 1000;
-                })
-                .count();
-
-        long fourStarCount = results.stream()
-                .filter(item -> {
-                    if (item instanceof LightCone) {
-                        return ((LightCone) item).getRequiredLevel() < 60 && ((LightCone) item).getRequiredLevel() > 1;
-                    }
-                    if (item instanceof MaterialItem) {
-                        int rarity = ((MaterialItem) item).getRarity();
-                        return rarity >= 3 && rarity < 5;
-                    }
-                    return item.getValue() >= 400 && item.getValue() < 1000;
-                })
-                .count();
+        // running counters instead of guessing rarity from the item
+        int fiveStarCount = stats.getCount(5) - fiveStarsBefore;
+        int fourStarCount = stats.getCount(4) - fourStarsBefore;
 
         System.out.println("Ten Pulls Stats: 5 Star items:" + fiveStarCount + ", 4 Star items: " + fourStarCount);
         return results;
@@ -141,25 +146,31 @@ public class GachaSystem {
      */
     public Character pullSingleCharacter() {
         System.out.println("=== Single Pull (Characters) ===");
-        characterPitySystem.incrementPity();
-        if (characterPitySystem.checkGuarantee()) {
+        int characterRarity = session.rollCharacterRarity();
+        if (session.getCharacterPitySystem().checkGuarantee()) {
             System.out.println("Character Pull Pity Used!");
         }
-        int characterRarity = determineCharacterRarity();
-        Character character = getRandomCharacterByRarity(characterRarity);
-        int temp = characterPullHistory.size() + 1;
-        String record = "Character Single Pull,Pull " + temp + ",Gained:" + character.getName() + ",Rarity: " + characterRarity;
-        characterPullHistory.add(record);
-        if (characterRarity == 5) {
-            characterPitySystem.resetPity(5);
-        } else if (characterRarity == 4) {
-            characterPitySystem.resetPity(4);
-        }
+        int poolIndex = session.rollCharacterIndex(characterRarity);
+        Character character = session.createCharacter(characterRarity, poolIndex);
+        session.recordCharacterPull(characterRarity, poolIndex);
+        session.resetCharacterPity(characterRarity);
         System.out.println("Gained character: " + character.getName() + " (" + comeOnJustStarrrrrrrrs(characterRarity) + ")");
         character.displayInfo();
         return character;
     }
 
+    /**
+     * Pull characters n times without printing anything or creating any character objects.
+     * Character pity is updated the same way as {@link #pullSingleCharacter()}, but pulls are not added to the history.
+     *
+     * @param n    the number of pulls to do
+     * @param sink the sink receiving each result, can be null if only the pity state matters
+     * @return the number of pulls done (less than n if the sink stopped the batch)
+     */
+    public int pullCharacterBatch(int n, PullSink sink) {
+        return session.pullCharacterBatch(n, sink);
+    }
+
     /**
      * Pull ten character from the pool, the result will be in a list of characters
      *
@@ -167,151 +178,79 @@ public class GachaSystem {
      */
     public List<Character> pullTenCharacter() {
         System.out.println("=== Ten Pulls (Characters) ===");
+        PullStatistics stats = session.getCharacterStatistics();
+        int fiveStarsBefore = stats.getCount(5);
+        int fourStarsBefore = stats.getCount(4);
         List<Character> results = new ArrayList<>();
         for (int i = 0; i < 10; i++) {
             results.add(pullSingleCharacter());
         }
         // collect pull results
-        long fiveStarCount = results.stream()
-                .filter(character -> character instanceof FiveStarCharacter)
-                .count();
-        long fourStarCount = results.stream()
-                .filter(character -> character instanceof FourStarCharacter)
-                .count();
+        int fiveStarCount = stats.getCount(5) - fiveStarsBefore;
+        int fourStarCount = stats.getCount(4) - fourStarsBefore;
 
         System.out.println("Ten pull results - 5 Star Characters: " + fiveStarCount + ", 4 Star Characters: " + fourStarCount);
         return results;
     }
 
     /**
-     * Determine character rarity when pulling
-     * @return rarity of the character
+     * Create the character of a batch pull result
+     *
+     * @param rarity    the rarity of the pull (4 or 5)
+     * @param poolIndex the index inside the pool of that rarity
+     * @return the character
      */
-    private int determineCharacterRarity() {
-        // 4-5 only since there isn't 1-3 star characters
-        if (characterPitySystem.getFiveStarPity() >= 90) {
-            return 5;
-        }
-        if (characterPitySystem.getFourStarPity() >= 10) {
-            return 4;
-        }
-        double random = Math.random();
-        double cumulative = 0.0;
-        if (random < probabilityTable[2][2]) {
-            return 5;
-        }
-        cumulative += probabilityTable[2][2];
-
-        // 4 star character
-        if (random < cumulative + probabilityTable[1][2]) {
-            return 4;
-        }
-
-        // 4-5 only since there isn't 1-3 star characters
-        return 4;
+    public Character createCharacter(int rarity, int poolIndex) {
+        return session.createCharacter(rarity, poolIndex);
     }
 
     /**
-     * Get random character based on a provided rarity (the pool of pulling)
-     * @param rarity rarity of the desired character
-     * @return result character after randomly picked
+     * Gets the name of the character of a batch pull result without creating it, the name comes from the banner of
+     * this gacha system
+     *
+     * @param rarity    the rarity of the pull (4 or 5)
+     * @param poolIndex the index inside the pool of that rarity
+     * @return the name of the character
      */
-    private Character getRandomCharacterByRarity(int rarity) {
-        switch (rarity) {
-            case 5:
-                String[] fiveStarNames = {"Himeko", "Welt Yang", "Bronya", "Gepard", "Seele", "Jingyuan"};
-                return new FiveStarCharacter(fiveStarNames[random.nextInt(fiveStarNames.length)]);
-
-            case 4:
-            default:
-                String[] fourStarNames = {"Serval", "Pela", "Luca", "Hook", "Sushang", "Arlan"};
-                return new FourStarCharacter(fourStarNames[random.nextInt(fourStarNames.length)], true);
-        }
+    public String describeCharacter(int rarity, int poolIndex) {
+        return session.getBanner().describeCharacter(rarity, poolIndex);
     }
 
     /**
-     * Determine rarity when doing item pulls
-     * @return rarity (3-5) pulled
+     * Create the item of a batch pull result.
+     * 4 and 5 star pools have 3 light cones first and then 3 materials, light cone path is still random.
+     *
+     * @param rarity    the rarity of the pull (3-5)
+     * @param poolIndex the index inside the pool of that rarity
+     * @return the item
      */
-    private int determineRarity() {
-        if (pityCounter5Star >= 90) {
-            return 5;
-        }
-        if (pityCounter4Star >= 10) {
-            return 4;
-        }
-        double random = Math.random();
-        double cumulative = 0.0;
-        if (random < probabilityTable[2][2]) {
-            return 5;
-        }
-        cumulative += probabilityTable[2][2];
-        if (random < cumulative + probabilityTable[1][2]) {
-            return 4;
-        }
-        return 3;
+    public Item createItem(int rarity, int poolIndex) {
+        return session.createItem(rarity, poolIndex);
     }
 
-    private Item getRandomItemByRarity(int rarity) {
-        switch (rarity) {
-            case 5:
-                // 50% chance of pulling a light cone, 50% chance of pulling a material item
-                if (random.nextBoolean()) {
-                    String[] names = {"Night of Galactic Railway", "Something Irreplaceable", "But the Battle Isn't Over"};
-                    String[] paths = {"Erudition", "Destruction", "Harmony"};
-                    LightCone lc = new LightCone(names[random.nextInt(names.length)],
-                            paths[random.nextInt(paths.length)]);
-                    lc.setRequiredLevel(60);
-                    lc.setValue(1000);
-                    return lc;
-                } else {
-                    String[] names = {"Legendary Material", "Epic Material", "Rare Material"};
-                    MaterialItem item = new MaterialItem(names[random.nextInt(names.length)],
-                            "Rare Material", 5, 800);
-                    return item;
-                }
-            case 4:
-                // the same rule as 5-star
-                if (random.nextBoolean()) {
-                    String[] names = {"Morning Ritual", "Only Silence Remains", "Memories of the Past"};
-                    String[] paths = {"Erudition", "The Hunt", "Harmony"};
-                    LightCone lc = new LightCone(names[random.nextInt(names.length)],
-                            paths[random.nextInt(paths.length)]);
-                    lc.setRequiredLevel(40);
-                    lc.setValue(400);
-                    return lc;
-                } else {
-                    String[] names = {"Advanced Material", "Intermediate Material", "Basic Material"};
-                    MaterialItem item = new MaterialItem(names[random.nextInt(names.length)],
-                            "Common Material", 4, 300);
-                    return item;
-                }
-
-            case 3:
-            default:
-                String[] names = {"Credit", "Adventure Log", "Traveler's Guide", "Refined Aether"};
-                String[] types = {"Currency", "EXP Material", "EXP Material", "Ascension Material"};
-                int[] rarities = {1, 1, 2, 3};
-                int index = random.nextInt(names.length);
-                return new MaterialItem(names[index],
-                        types[index],
-                        rarities[index],
-                        100);
-        }
+    /**
+     * Gets the name of the item of a batch pull result without creating it, the name comes from the banner of this
+     * gacha system
+     *
+     * @param rarity    the rarity of the pull (3-5)
+     * @param poolIndex the index inside the pool of that rarity
+     * @return the name of the item
+     */
+    public String describeItem(int rarity, int poolIndex) {
+        return session.getBanner().describeItem(rarity, poolIndex);
     }
 
     /**
      * Check pity when pulling items
      */
     public void checkPity() {
-        if (pityCounter5Star >= 90) {
+        if (session.getPityCounter5Star() >= 90) {
             System.out.println("Activated 5 Star Pity System");
-            guaranteed5Star = true;
         }
-        if (pityCounter4Star >= 10) {
+        if (session.getPityCounter4Star() >= 10) {
             System.out.println("Activated 4 Star Pity System");
         }
-        if (pitySystem.checkGuarantee()) {
+        if (session.getPitySystem().checkGuarantee()) {
             System.out.println("Pity System Activated Pity");
         }
     }
@@ -321,59 +260,29 @@ public class GachaSystem {
      * 5 Star: add probability by 6% every pull after pity counter reached 75
      */
     public void updateProbabilities() {
-        if (pityCounter5Star >= 75) {
-            int softPityPulls = pityCounter5Star - 74;
-            double increase = softPityPulls * 0.06;
-            probabilityTable[2][2] = 0.006 + increase; // Base + bonus rate
-            // Make sure it doesn't greater then 1
-            if (probabilityTable[2][2] > 1.0) {
-                probabilityTable[2][2] = 1.0;
-            }
-            probabilityTable[0][2] = 0.943 - (probabilityTable[2][2] - 0.006);
-            probabilityTable[1][2] = 0.051; // 4 Star don't change
+        applySoftPity();
+        if (session.getPityCounter5Star() >= 75) {
             double probability = probabilityTable[2][2] * 100;
             System.out.println("Soft Pity System Activated! Current Possibility For 5 Star Characters: "+ probability);
-        } else {
-            // reset to default when pity is less than 75
-            probabilityTable[0][2] = 0.943;
-            probabilityTable[1][2] = 0.051;
-            probabilityTable[2][2] = 0.006;
         }
     }
 
     /**
-     * Save history to file for Pull history
+     * Update the probability table with the current soft pity, without printing anything
      */
-    public void saveHistoryToFile() {
-        FileHandler fileHandler = new FileHandler();
-        // Combine character and item pull history
-        String data = "=== All Pull History ===\n\n";
-        data += "Item Pull History\n";
-        data += "================\n";
-        for (String record : pullHistory) {
-            data += record + "\n";
-        }
-
-        data += "\nCharacter Pull History\n";
-        data += "================\n";
-        for (String record : characterPullHistory) {
-            data += record + "\n";
-        }
-
-        data += "\n=== Statistics ===\n\n";
-        data += "Item Pull Statistics\n";
-        data += "Total Pulls: " + pullHistory.size() + "\n";
-        data += "Current Pity Count For 5 Stars: " + pityCounter5Star + "/90\n";
-        data += "Current Pity Count For 4 Stars: " + pityCounter4Star + "/10\n";
-        data += "5 Star Guarantee Status " + guaranteed5Star + "\n";
-
-        data += "\nCharacter Pull Statistics\n";
-        data += "Total Pulls: " + characterPullHistory.size() + "\n";
-        data += "Current Pity Count For 5 Stars: " + characterPitySystem.getFiveStarPity() + "/90\n";
-        data += "Current Pity Count For 4 Stars: " + characterPitySystem.getFourStarPity() + "/10\n";
-        data += "Character Guarantee Status: " + characterPitySystem.getGuaranteeFlag() + "\n";
+    private void applySoftPity() {
+        double fiveStarRate = PitySystem.softPityRate(session.getPityCounter5Star());
+        probabilityTable[2][2] = fiveStarRate; // Base + bonus rate
+        probabilityTable[2][1] = fiveStarRate * session.getBanner().getRateUpChance(5);
+        probabilityTable[0][2] = 0.943 - (fiveStarRate - PitySystem.BASE_FIVE_STAR_RATE);
+        probabilityTable[1][2] = PitySystem.BASE_FOUR_STAR_RATE; // 4 Star don't change
+    }
 
-        boolean success = fileHandler.exportToTXT(data, "gacha_history.txt");
+    /**
+     * Save history to file for Pull history, the file has the whole history and the statistics
+     */
+    public void saveHistoryToFile() {
+        boolean success = historyExporter.exportAll(Paths.get("gacha_history.txt"), PullHistoryExporter.Format.TXT);
         if (success) {
             System.out.println("Saved Pull history to File!");
         } else {
@@ -381,6 +290,17 @@ public class GachaSystem {
         }
     }
 
+    /**
+     * Append the pulls made since the last append to this CSV file (the header row is written when the file is new).
+     * Saving the history with {@link #saveHistoryToFile()} does not change which pulls are appended here.
+     *
+     * @param filename the CSV file
+     * @return true if the file was written
+     */
+    public boolean appendHistoryToCSV(String filename) {
+        return historyExporter.exportNew(Paths.get(filename), PullHistoryExporter.Format.CSV);
+    }
+
     /**
      * Get probability table double [ ] [ ].
      *
@@ -394,66 +314,82 @@ public class GachaSystem {
      *
      * @return the pity counter 5 star
      */
-    public int getPityCounter5Star() { return pityCounter5Star; }
+    public int getPityCounter5Star() { return session.getPityCounter5Star(); }
 
     /**
      * Gets pity counter 4 star.
      *
      * @return the pity counter 4 star
      */
-    public int getPityCounter4Star() { return pityCounter4Star; }
+    public int getPityCounter4Star() { return session.getPityCounter4Star(); }
 
     /**
      * Is guaranteed 5 star boolean.
      *
      * @return the boolean
      */
-    public boolean isGuaranteed5Star() { return guaranteed5Star; }
+    public boolean isGuaranteed5Star() { return session.isGuaranteed5Star(); }
 
     /**
      * Gets pull history.
      *
      * @return the pull history
      */
-    public List<String> getPullHistory() { return new ArrayList<>(pullHistory); }
+    public List<String> getPullHistory() { return session.getPullHistory(); }
 
     /**
      * Gets character pull history.
      *
      * @return the character pull history
      */
-    public List<String> getCharacterPullHistory() { return new ArrayList<>(characterPullHistory); }
+    public List<String> getCharacterPullHistory() { return session.getCharacterPullHistory(); }
 
     /**
      * Gets pity system.
      *
      * @return the pity system
      */
-    public PitySystem getPitySystem() { return pitySystem; }
+    public PitySystem getPitySystem() { return session.getPitySystem(); }
 
     /**
      * Gets character pity system.
      *
      * @return the character pity system
      */
-    public PitySystem getCharacterPitySystem() { return characterPitySystem; }
+    public PitySystem getCharacterPitySystem() { return session.getCharacterPitySystem(); }
+
+    /**
+     * Gets the session holding the pity and history of this gacha system.
+     *
+     * @return the session
+     */
+    public PullSession getSession() { return session; }
 
     /**
      * Print statistics.
      */
         // Statistics printing
     public void printStatistics() {
+        PullStatistics itemStats = session.getItemStatistics();
         System.out.println("=== Item Pull Statistics ===");
-        System.out.println("Total Pulls: " + pullHistory.size());
-        System.out.println("Current 5-star Pity: " + pityCounter5Star + "/90");
-        System.out.println("Current 4-star Pity: " + pityCounter4Star + "/10");
-        System.out.println("5-star Guarantee Status: " + (guaranteed5Star ? "Triggered" : "Not Triggered"));
-
+        System.out.println("Total Pulls: " + itemStats.getTotalPulls());
+        System.out.println("5-star: " + itemStats.getCount(5) + ", 4-star: " + itemStats.getCount(4)
+                + ", 3-star: " + itemStats.getCount(3));
+        System.out.println("Pulls Since Last 5-star: " + itemStats.getPullsSinceLastFiveStar());
+        System.out.println("Average 5-star Pity: " + String.format("%.1f", itemStats.getAverageFiveStarPity()));
+        System.out.println("Current 5-star Pity: " + session.getPityCounter5Star() + "/90");
+        System.out.println("Current 4-star Pity: " + session.getPityCounter4Star() + "/10");
+        System.out.println("5-star Guarantee Status: " + (session.isGuaranteed5Star() ? "Triggered" : "Not Triggered"));
+
+        PullStatistics characterStats = session.getCharacterStatistics();
         System.out.println("\n=== Character Pull Statistics ===");
-        System.out.println("Total Pulls: " + characterPullHistory.size());
-        System.out.println("Character 5-star Pity: " + characterPitySystem.getFiveStarPity() + "/90");
-        System.out.println("Character 4-star Pity: " + characterPitySystem.getFourStarPity() + "/10");
-        System.out.println("Character Guarantee Flag: " + characterPitySystem.getGuaranteeFlag());
+        System.out.println("Total Pulls: " + characterStats.getTotalPulls());
+        System.out.println("5-star: " + characterStats.getCount(5) + ", 4-star: " + characterStats.getCount(4));
+        System.out.println("Pulls Since Last 5-star: " + characterStats.getPullsSinceLastFiveStar());
+        System.out.println("Average 5-star Pity: " + String.format("%.1f", characterStats.getAverageFiveStarPity()));
+        System.out.println("Character 5-star Pity: " + session.getCharacterPitySystem().getFiveStarPity() + "/90");
+        System.out.println("Character 4-star Pity: " + session.getCharacterPitySystem().getFourStarPity() + "/10");
+        System.out.println("Character Guarantee Flag: " + session.getCharacterPitySystem().getGuaranteeFlag());
     }
 
     private String comeOnJustStarrrrrrrrs (int numOfStars) {
@@ -0,0 +1,174 @@
+package systems.gacha;
+
+import java.util.Arrays;
+
+/**
+ * Exact distribution of the number of pulls needed for the next 5 star item, computed from the pity rules instead of sampling.
+ * Uses dynamic programming over the pity states (5 star pity, 4 star pity): the 5 star pity only goes up until the 5 star,
+ * so one pass of at most 90 steps over the 10 possible 4 star pity values is enough.
+ * <p>
+ * Follows the same rules as {@link GachaSystem#pullBatch(int, PullSink)}: 5 star hard pity wins over 4 star hard pity,
+ * a 4 star hard pity pull can never be a 5 star, and soft pity comes from {@link PitySystem#softPityRate(int)}.
+ * </p>
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see PitySystem
+ * @see BannerSimulator
+ */
+public class PityDistribution {
+    private final int startFiveStarPity;
+    private final int startFourStarPity;
+    // pmf[k] = chance that the next 5 star is exactly k pulls away
+    private final double[] pmf;
+    private final double[] cdf;
+    private final double expectedPulls;
+
+    /**
+     * Instantiates the distribution for a player with the provided pity counts
+     *
+     * @param fiveStarPity the current 5 star pity count (0-89)
+     * @param fourStarPity the current 4 star pity count (0-9)
+     */
+    public PityDistribution(int fiveStarPity, int fourStarPity) {
+        if (fiveStarPity < 0 || fiveStarPity >= PitySystem.FIVE_STAR_HARD_PITY) {
+            throw new IllegalArgumentException("5 star pity must be between 0 and "
+                    + (PitySystem.FIVE_STAR_HARD_PITY - 1) + ": " + fiveStarPity);
+        }
+        if (fourStarPity < 0 || fourStarPity >= PitySystem.FOUR_STAR_HARD_PITY) {
+            throw new IllegalArgumentException("4 star pity must be between 0 and "
+                    + (PitySystem.FOUR_STAR_HARD_PITY - 1) + ": " + fourStarPity);
+        }
+        this.startFiveStarPity = fiveStarPity;
+        this.startFourStarPity = fourStarPity;
+        int maxPulls = PitySystem.FIVE_STAR_HARD_PITY - fiveStarPity;
+        this.pmf = new double[maxPulls + 1];
+        this.cdf = new double[maxPulls + 1];
+
+        // chance of still having no 5 star, by 4 star pity before the next pull
+        double[] state = new double[PitySystem.FOUR_STAR_HARD_PITY];
+        double[] next = new double[PitySystem.FOUR_STAR_HARD_PITY];
+        state[fourStarPity] = 1.0;
+        double expected = 0;
+        double cumulative = 0;
+        for (int k = 1; k <= maxPulls; k++) {
+            int pity5 = fiveStarPity + k;
+            double fiveStar = 0;
+            Arrays.fill(next, 0);
+            for (int pity4Before = 0; pity4Before < state.length; pity4Before++) {
+                double mass = state[pity4Before];
+                if (mass == 0) {
+                    continue;
+                }
+                int pity4 = pity4Before + 1;
+                if (pity5 >= PitySystem.FIVE_STAR_HARD_PITY) {
+                    fiveStar += mass;
+                } else if (pity4 >= PitySystem.FOUR_STAR_HARD_PITY) {
+                    next[0] += mass;
+                } else {
+                    // same thresholds as the cumulative roll in the gacha system
+                    double fiveStarRate = PitySystem.softPityRate(pity5);
+                    double fourOrBetter = Math.min(fiveStarRate + PitySystem.BASE_FOUR_STAR_RATE, 1.0);
+                    fiveStar += mass * fiveStarRate;
+                    next[0] += mass * (fourOrBetter - fiveStarRate);
+                    next[pity4] += mass * (1.0 - fourOrBetter);
+                }
+            }
+            double[] swap = state;
+            state = next;
+            next = swap;
+            pmf[k] = fiveStar;
+            cumulative += fiveStar;
+            cdf[k] = cumulative;
+            expected += k * fiveStar;
+        }
+        this.expectedPulls = expected;
+    }
+
+    /**
+     * Instantiates the distribution for a player with the provided 5 star pity and no 4 star pity
+     *
+     * @param fiveStarPity the current 5 star pity count (0-89), for example 63
+     */
+    public PityDistribution(int fiveStarPity) {
+        this(fiveStarPity, 0);
+    }
+
+    /**
+     * Instantiates the distribution for the current state of a pity system
+     *
+     * @param pitySystem the pity system
+     * @return the distribution
+     */
+    public static PityDistribution of(PitySystem pitySystem) {
+        return new PityDistribution(pitySystem.getFiveStarPity(), pitySystem.getFourStarPity());
+    }
+
+    /**
+     * Gets the chance that the next 5 star is exactly the provided number of pulls away
+     *
+     * @param pulls the number of pulls
+     * @return the chance between 0 and 1
+     */
+    public double probability(int pulls) {
+        return pulls > 0 && pulls < pmf.length ? pmf[pulls] : 0;
+    }
+
+    /**
+     * Gets the chance that the next 5 star takes at most the provided number of pulls
+     *
+     * @param pulls the number of pulls
+     * @return the chance between 0 and 1
+     */
+    public double cumulative(int pulls) {
+        if (pulls <= 0) {
+            return 0;
+        }
+        return pulls < cdf.length ? cdf[pulls] : 1.0;
+    }
+
+    /**
+     * Gets the expected number of pulls for the next 5 star
+     *
+     * @return the expected number of pulls
+     */
+    public double expectedPulls() { return expectedPulls; }
+
+    /**
+     * Gets the smallest pull count that gives a 5 star with at least the provided chance
+     * (for example 0.99 gives the p99 pull count)
+     *
+     * @param q the chance between 0 and 1
+     * @return the pull count
+     */
+    public int quantile(double q) {
+        for (int k = 1; k < cdf.length; k++) {
+            // small tolerance so rounding in the sum does not push exact quantiles one pull further
+            if (cdf[k] >= q - 1e-12) {
+                return k;
+            }
+        }
+        return getMaxPulls();
+    }
+
+    /**
+     * Gets the max number of pulls the next 5 star can take (hard pity)
+     *
+     * @return the max number of pulls
+     */
+    public int getMaxPulls() { return pmf.length - 1; }
+
+    /**
+     * Gets the 5 star pity this distribution starts from
+     *
+     * @return the 5 star pity
+     */
+    public int getStartFiveStarPity() { return startFiveStarPity; }
+
+    /**
+     * Gets the 4 star pity this distribution starts from
+     *
+     * @return the 4 star pity
+     */
+    public int getStartFourStarPity() { return startFourStarPity; }
+}
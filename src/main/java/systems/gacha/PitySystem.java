@@ -8,6 +8,19 @@ package systems.gacha;
  * @version 1.0.3
  */
 public class PitySystem {
+    /** A 5 star is guaranteed on this pull. */
+    public static final int FIVE_STAR_HARD_PITY = 90;
+    /** A 4 star is guaranteed on this pull (unless it is a 5 star hard pity pull). */
+    public static final int FOUR_STAR_HARD_PITY = 10;
+    /** First pull with increased 5 star rate. */
+    public static final int SOFT_PITY_START = 75;
+    /** Base 5 star rate. */
+    public static final double BASE_FIVE_STAR_RATE = 0.006;
+    /** Base 4 star rate, soft pity does not change this. */
+    public static final double BASE_FOUR_STAR_RATE = 0.051;
+    /** 5 star rate added every pull after soft pity started. */
+    public static final double SOFT_PITY_STEP = 0.06;
+
     private int fiveStarPity;
     private int fourStarPity;
     private boolean guaranteeFlag;
@@ -71,13 +84,24 @@ public class PitySystem {
      * @return the double
      */
     public double calculateSoftPity() {
+        return softPityRate(fiveStarPity);
+    }
+
+    /**
+     * Gets the 5 star rate for a pull with the provided 5 star pity count (counted including that pull).
+     * Shared by the gacha system, the pity system and {@link PityDistribution} so they always agree.
+     *
+     * @param fiveStarPity the 5 star pity count
+     * @return the 5 star rate between 0 and 1
+     */
+    public static double softPityRate(int fiveStarPity) {
         // calculate soft pity for five stars after 75
-        if (fiveStarPity < 75) {
-            return 0.006;
+        if (fiveStarPity < SOFT_PITY_START) {
+            return BASE_FIVE_STAR_RATE;
         }
 
-        int softPityCount = fiveStarPity - 74;
-        double increasedRate = 0.006 + (softPityCount * 0.06); //add 6% each pull
+        int softPityCount = fiveStarPity - (SOFT_PITY_START - 1);
+        double increasedRate = BASE_FIVE_STAR_RATE + (softPityCount * SOFT_PITY_STEP); //add 6% each pull
 
         // possibility cannot exceed 100%
         return Math.min(increasedRate, 1.0);
@@ -0,0 +1,123 @@
+package systems.gacha;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of pull counts, index i holds how many times something took exactly i pulls.
+ * Grows automatically, and can be merged with other histograms (used to combine simulator results).
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see BannerSimulator
+ */
+public class PullHistogram {
+    private long[] counts;
+    private long total;
+
+    /**
+     * Instantiates a new empty histogram with space for the provided max pull count
+     *
+     * @param expectedMaxPulls the expected max pull count, the histogram grows if this is exceeded
+     */
+    public PullHistogram(int expectedMaxPulls) {
+        this.counts = new long[expectedMaxPulls + 1];
+        this.total = 0;
+    }
+
+    /**
+     * Record one sample
+     *
+     * @param pulls the number of pulls it took
+     */
+    public void add(int pulls) {
+        if (pulls >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(pulls + 1, counts.length * 2));
+        }
+        counts[pulls]++;
+        total++;
+    }
+
+    /**
+     * Add all samples of another histogram to this histogram
+     *
+     * @param other the other histogram
+     */
+    public void merge(PullHistogram other) {
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    /**
+     * Gets how many samples took exactly the provided pull count
+     *
+     * @param pulls the pull count
+     * @return the number of samples
+     */
+    public long getCount(int pulls) {
+        return pulls >= 0 && pulls < counts.length ? counts[pulls] : 0;
+    }
+
+    /**
+     * Gets the total number of samples
+     *
+     * @return the total number of samples
+     */
+    public long getTotal() { return total; }
+
+    /**
+     * Gets the highest pull count with at least one sample
+     *
+     * @return the highest pull count, 0 if empty
+     */
+    public int getMaxPulls() {
+        for (int i = counts.length - 1; i > 0; i--) {
+            if (counts[i] != 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the average pull count
+     *
+     * @return the mean, 0 if empty
+     */
+    public double mean() {
+        if (total == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < counts.length; i++) {
+            sum += (double) i * counts[i];
+        }
+        return sum / total;
+    }
+
+    /**
+     * Gets the smallest pull count that covers the provided fraction of all samples
+     * (for example 0.99 gives the p99 pull count)
+     *
+     * @param q the fraction between 0 and 1
+     * @return the pull count, 0 if empty
+     */
+    public int quantile(double q) {
+        if (total == 0) {
+            return 0;
+        }
+        long needed = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= needed && seen > 0) {
+                return i;
+            }
+        }
+        return counts.length - 1;
+    }
+}
@@ -0,0 +1,210 @@
+package systems.gacha;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the pull history of a session to disk, one record at a time through a buffered writer,
+ * so memory use does not grow with the history size.
+ * TXT export has the history and the statistics (same layout as the old report), CSV export has one row per pull.
+ * The exporter remembers how many pulls it already exported to each file, so {@link #exportNew(Path, Format)} only
+ * appends the pulls made since the last export to that file. Exporting to one file never moves the count of another.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see PullHistoryLog
+ * @see PullSession
+ * @see PullStatistics
+ */
+public class PullHistoryExporter {
+    /**
+     * File formats of the exporter
+     */
+    public enum Format {
+        /** Text report, same layout as the old history file. */
+        TXT,
+        /** One row per pull: type,pull,rarity,name,five_star_pity,four_star_pity */
+        CSV
+    }
+
+    /** Header row of CSV exports. */
+    public static final String CSV_HEADER = "type,pull,rarity,name,five_star_pity,four_star_pity";
+
+    private final PullSession session;
+    // number of item and character pulls already exported to each file: {items, characters}
+    private final Map<Path, int[]> exported;
+
+    /**
+     * Instantiates a new exporter, nothing is exported yet
+     *
+     * @param session the session to export
+     */
+    public PullHistoryExporter(PullSession session) {
+        this.session = session;
+        this.exported = new HashMap<>();
+    }
+
+    /**
+     * Write the whole history to a file, the file is replaced.
+     * Later appends to the same file start after the pulls written here, other files are not affected.
+     *
+     * @param file   the file to write
+     * @param format the file format
+     * @return true if the file was written
+     */
+    public boolean exportAll(Path file, Format format) {
+        return export(file, format, 0, 0, false);
+    }
+
+    /**
+     * Append only the pulls made since the last export to this file, the file is created if it does not exist.
+     * CSV files get the header row only when they are new.
+     *
+     * @param file   the file to append to
+     * @param format the file format
+     * @return true if the file was written
+     */
+    public boolean exportNew(Path file, Format format) {
+        int[] done = exported.get(key(file));
+        return done == null ? export(file, format, 0, 0, true) : export(file, format, done[0], done[1], true);
+    }
+
+    // the same file gets the same key however the path was written
+    private static Path key(Path file) {
+        return file.toAbsolutePath().normalize();
+    }
+
+    private boolean export(Path file, Format format, int itemFrom, int characterFrom, boolean append) {
+        PullHistoryLog items = session.getItemHistoryLog();
+        PullHistoryLog characters = session.getCharacterHistoryLog();
+        // sizes are read once, pulls made while writing are left for the next export
+        int itemTo = items.size();
+        int characterTo = characters.size();
+        boolean newFile = !append || !Files.exists(file) || sizeOf(file) == 0;
+        StandardOpenOption mode = append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+            if (format == Format.CSV) {
+                if (newFile) {
+                    writer.write(CSV_HEADER);
+                    writer.write('\n');
+                }
+                writeCsv(writer, items, "item", itemFrom, itemTo);
+                writeCsv(writer, characters, "character", characterFrom, characterTo);
+            } else {
+                writeText(writer, items, characters, itemFrom, itemTo, characterFrom, characterTo, append);
+            }
+        } catch (IOException ex) {
+            System.err.println("Could not export pull history to " + file + ": " + ex.getMessage());
+            return false;
+        }
+        exported.put(key(file), new int[]{itemTo, characterTo});
+        return true;
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    private void writeText(Writer writer, PullHistoryLog items, PullHistoryLog characters, int itemFrom, int itemTo,
+                           int characterFrom, int characterTo, boolean append) throws IOException {
+        writer.write(append ? "=== Pull History Since Last Export ===\n\n" : "=== All Pull History ===\n\n");
+        writer.write("Item Pull History\n");
+        writer.write("================\n");
+        for (int i = itemFrom; i < itemTo; i++) {
+            writer.write(items.render(i));
+            writer.write('\n');
+        }
+
+        writer.write("\nCharacter Pull History\n");
+        writer.write("================\n");
+        for (int i = characterFrom; i < characterTo; i++) {
+            writer.write(characters.render(i));
+            writer.write('\n');
+        }
+
+        PitySystem characterPity = session.getCharacterPitySystem();
+        PullStatistics itemStats = session.getItemStatistics();
+        PullStatistics characterStats = session.getCharacterStatistics();
+        writer.write("\n=== Statistics ===\n\n");
+        writer.write("Item Pull Statistics\n");
+        writer.write("Total Pulls: " + itemStats.getTotalPulls() + "\n");
+        writer.write("5 Star: " + itemStats.getCount(5) + ", 4 Star: " + itemStats.getCount(4)
+                + ", 3 Star: " + itemStats.getCount(3) + "\n");
+        writer.write("Average 5 Star Pity: " + String.format("%.1f", itemStats.getAverageFiveStarPity()) + "\n");
+        writer.write("Current Pity Count For 5 Stars: " + session.getPityCounter5Star() + "/90\n");
+        writer.write("Current Pity Count For 4 Stars: " + session.getPityCounter4Star() + "/10\n");
+        writer.write("5 Star Guarantee Status " + session.isGuaranteed5Star() + "\n");
+
+        writer.write("\nCharacter Pull Statistics\n");
+        writer.write("Total Pulls: " + characterStats.getTotalPulls() + "\n");
+        writer.write("5 Star: " + characterStats.getCount(5) + ", 4 Star: " + characterStats.getCount(4) + "\n");
+        writer.write("Average 5 Star Pity: " + String.format("%.1f", characterStats.getAverageFiveStarPity()) + "\n");
+        writer.write("Current Pity Count For 5 Stars: " + characterPity.getFiveStarPity() + "/90\n");
+        writer.write("Current Pity Count For 4 Stars: " + characterPity.getFourStarPity() + "/10\n");
+        writer.write("Character Guarantee Status: " + characterPity.getGuaranteeFlag() + "\n");
+        if (append) {
+            writer.write('\n');
+        }
+    }
+
+    private static void writeCsv(Writer writer, PullHistoryLog log, String type, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            writer.write(type);
+            writer.write(',');
+            writer.write(Integer.toString(i + 1));
+            writer.write(',');
+            writer.write(Integer.toString(log.getRarity(i)));
+            writer.write(',');
+            writeCsvField(writer, log.getName(i));
+            writer.write(',');
+            writer.write(Integer.toString(log.getFiveStarPity(i)));
+            writer.write(',');
+            writer.write(Integer.toString(log.getFourStarPity(i)));
+            writer.write('\n');
+        }
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * Gets the number of item pulls already exported to a file.
+     *
+     * @param file the file
+     * @return the number of item pulls exported, 0 if nothing was exported to it
+     */
+    public int getExportedItemPulls(Path file) {
+        int[] done = exported.get(key(file));
+        return done == null ? 0 : done[0];
+    }
+
+    /**
+     * Gets the number of character pulls already exported to a file.
+     *
+     * @param file the file
+     * @return the number of character pulls exported, 0 if nothing was exported to it
+     */
+    public int getExportedCharacterPulls(Path file) {
+        int[] done = exported.get(key(file));
+        return done == null ? 0 : done[1];
+    }
+}
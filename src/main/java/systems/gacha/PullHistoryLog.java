@@ -0,0 +1,238 @@
+package systems.gacha;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Append-only pull history that stores every pull as one packed int (pity counts, rarity and pool index) instead of a
+ * text record. Records are kept in fixed size chunks so the log never copies old records when it grows,
+ * 100 000 pulls use about 400 KB. The text of a record is only built when it is read.
+ * The pull number is the position in the log (starting at 1).
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see PullSession
+ */
+public class PullHistoryLog implements Iterable<String> {
+    // chunk size is a power of 2 so the chunk and the offset are a shift and a mask
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // record layout: pool index (16 bits) | rarity (3 bits) | 4 star pity (5 bits) | 5 star pity (7 bits)
+    private static final int FIVE_STAR_PITY_BITS = 7;
+    private static final int FOUR_STAR_PITY_BITS = 5;
+    private static final int RARITY_BITS = 3;
+    private static final int FOUR_STAR_PITY_SHIFT = FIVE_STAR_PITY_BITS;
+    private static final int RARITY_SHIFT = FOUR_STAR_PITY_SHIFT + FOUR_STAR_PITY_BITS;
+    private static final int POOL_INDEX_SHIFT = RARITY_SHIFT + RARITY_BITS;
+    private static final int MAX_POOL_INDEX = (1 << 16) - 1;
+
+    private final GachaBanner banner;
+    private final boolean characters;
+    private int[][] chunks;
+    private int size;
+
+    /**
+     * Instantiates a new empty log
+     *
+     * @param banner     the banner the pulls were made on, used to get names when rendering
+     * @param characters true for character pulls, false for item pulls
+     */
+    public PullHistoryLog(GachaBanner banner, boolean characters) {
+        this.banner = banner;
+        this.characters = characters;
+        this.chunks = new int[4][];
+        this.size = 0;
+    }
+
+    /**
+     * Add a pull to the end of the log
+     *
+     * @param fiveStarPity the 5 star pity count of the pull (before reset)
+     * @param fourStarPity the 4 star pity count of the pull (before reset)
+     * @param rarity       the rarity of the pull
+     * @param poolIndex    the index inside the pool of that rarity
+     */
+    void append(int fiveStarPity, int fourStarPity, int rarity, int poolIndex) {
+        if (fiveStarPity < 0 || fiveStarPity >= (1 << FIVE_STAR_PITY_BITS)
+                || fourStarPity < 0 || fourStarPity >= (1 << FOUR_STAR_PITY_BITS)
+                || rarity < 0 || rarity >= (1 << RARITY_BITS)
+                || poolIndex < 0 || poolIndex > MAX_POOL_INDEX) {
+            throw new IllegalArgumentException("Pull cannot be stored: pity " + fiveStarPity + "/" + fourStarPity
+                    + ", rarity " + rarity + ", pool index " + poolIndex);
+        }
+        int chunk = size >>> CHUNK_BITS;
+        if (chunk == chunks.length) {
+            // only the small array of chunk references is copied, never the records
+            int[][] bigger = new int[chunks.length * 2][];
+            System.arraycopy(chunks, 0, bigger, 0, chunks.length);
+            chunks = bigger;
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new int[CHUNK_SIZE];
+        }
+        chunks[chunk][size & CHUNK_MASK] = fiveStarPity
+                | (fourStarPity << FOUR_STAR_PITY_SHIFT)
+                | (rarity << RARITY_SHIFT)
+                | (poolIndex << POOL_INDEX_SHIFT);
+        size++;
+    }
+
+    private int record(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Pull " + index + " is not in the log, size: " + size);
+        }
+        return chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    /**
+     * Gets the 5 star pity count of a pull
+     *
+     * @param index the index of the pull (0 is the first pull)
+     * @return the 5 star pity count when the pull was made
+     */
+    public int getFiveStarPity(int index) {
+        return record(index) & ((1 << FIVE_STAR_PITY_BITS) - 1);
+    }
+
+    /**
+     * Gets the 4 star pity count of a pull
+     *
+     * @param index the index of the pull (0 is the first pull)
+     * @return the 4 star pity count when the pull was made
+     */
+    public int getFourStarPity(int index) {
+        return (record(index) >>> FOUR_STAR_PITY_SHIFT) & ((1 << FOUR_STAR_PITY_BITS) - 1);
+    }
+
+    /**
+     * Gets the rarity of a pull
+     *
+     * @param index the index of the pull (0 is the first pull)
+     * @return the rarity
+     */
+    public int getRarity(int index) {
+        return (record(index) >>> RARITY_SHIFT) & ((1 << RARITY_BITS) - 1);
+    }
+
+    /**
+     * Gets the pool index of a pull
+     *
+     * @param index the index of the pull (0 is the first pull)
+     * @return the index inside the pool of the rarity
+     */
+    public int getPoolIndex(int index) {
+        return record(index) >>> POOL_INDEX_SHIFT;
+    }
+
+    /**
+     * Gets the name of the item or character of a pull
+     *
+     * @param index the index of the pull (0 is the first pull)
+     * @return the name
+     */
+    public String getName(int index) {
+        int record = record(index);
+        int rarity = (record >>> RARITY_SHIFT) & ((1 << RARITY_BITS) - 1);
+        int poolIndex = record >>> POOL_INDEX_SHIFT;
+        return characters ? banner.describeCharacter(rarity, poolIndex) : banner.describeItem(rarity, poolIndex);
+    }
+
+    /**
+     * Build the text record of a pull, same text as the old string history
+     *
+     * @param index the index of the pull (0 is the first pull)
+     * @return the text record
+     */
+    public String render(int index) {
+        if (characters) {
+            return "Character Single Pull,Pull " + (index + 1) + ",Gained:" + getName(index) + ",Rarity: " + getRarity(index);
+        }
+        return "Single Pull Item,Pull: " + (index + 1) + ",5 Star Pity Count: " + getFiveStarPity(index) +
+                ",4 Star Pity Count: " + getFourStarPity(index) + ",Got Item: " + getName(index);
+    }
+
+    /**
+     * Render one page of the log
+     *
+     * @param from  index of the first pull of the page
+     * @param count the maximum number of pulls in the page
+     * @return the text records of the page (empty if from is after the last pull)
+     */
+    public List<String> page(int from, int count) {
+        int end = (int) Math.min((long) from + count, size);
+        List<String> page = new ArrayList<>(Math.max(end - from, 0));
+        for (int i = from; i < end; i++) {
+            page.add(render(i));
+        }
+        return page;
+    }
+
+    /**
+     * Iterate over the text records from a pull to the end of the log, records are rendered one at a time
+     *
+     * @param from index of the first pull
+     * @return the iterator
+     */
+    public Iterator<String> iterator(int from) {
+        return new Iterator<String>() {
+            private int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public String next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return render(next++);
+            }
+        };
+    }
+
+    /**
+     * Iterate over every text record, records are rendered one at a time
+     *
+     * @return the iterator
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return iterator(0);
+    }
+
+    /**
+     * Render the whole log, only for old code that needs a list (use {@link #page(int, int)} or the iterator instead)
+     *
+     * @return every text record
+     */
+    public List<String> toList() {
+        return page(0, size);
+    }
+
+    /**
+     * Gets the number of pulls in the log.
+     *
+     * @return the number of pulls
+     */
+    public int size() { return size; }
+
+    /**
+     * Is character log boolean.
+     *
+     * @return true if this log has character pulls
+     */
+    public boolean isCharacterLog() { return characters; }
+
+    /**
+     * Gets the banner.
+     *
+     * @return the banner
+     */
+    public GachaBanner getBanner() { return banner; }
+}
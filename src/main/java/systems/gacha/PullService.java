@@ -0,0 +1,150 @@
+package systems.gacha;
+
+import entities.characters.Character;
+import entities.items.Item;
+import util.random.RngService;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hosts pull sessions for many players on one banner in one JVM.
+ * Every player gets their own {@link PullSession} with its own random generator, and a pull only locks the session of
+ * that player, so pulls of different players never wait for each other. The banner is immutable and shared.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see PullSession
+ * @see GachaBanner
+ */
+public class PullService {
+    private final GachaBanner banner;
+    private final ConcurrentHashMap<String, PullSession> sessions;
+    private final RngService rngs;  //null when every session gets a random seed
+
+    /**
+     * Instantiates a new pull service, every session gets a random seed
+     *
+     * @param banner the banner players pull on
+     */
+    public PullService(GachaBanner banner) {
+        this(banner, null);
+    }
+
+    /**
+     * Instantiates a new pull service where the pulls of every player only depend on the seed and the player id
+     *
+     * @param banner the banner players pull on
+     * @param seed   the seed of the service
+     */
+    public PullService(GachaBanner banner, long seed) {
+        this(banner, new RngService(seed));
+    }
+
+    private PullService(GachaBanner banner, RngService rngs) {
+        this.banner = banner;
+        this.rngs = rngs;
+        this.sessions = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets the session of a player, a new session is created on the first call
+     *
+     * @param playerId the player id
+     * @return the session of the player
+     */
+    public PullSession getSession(String playerId) {
+        return sessions.computeIfAbsent(playerId, this::newSession);
+    }
+
+    private PullSession newSession(String playerId) {
+        // new SplittableRandom() is safe from any thread, splitting one shared generator would not be.
+        // The index hashes the whole id, so ids with the same hashCode still get different streams
+        SplittableRandom random = rngs != null
+                ? rngs.stream(RngService.GACHA, RngService.hash(playerId))
+                : new SplittableRandom();
+        return new PullSession(playerId, banner, random);
+    }
+
+    /**
+     * Pull one item for a player
+     *
+     * @param playerId the player id
+     * @return the item pulled
+     */
+    public Item pullItem(String playerId) {
+        PullSession session = getSession(playerId);
+        synchronized (session) {
+            return session.pullItem();
+        }
+    }
+
+    /**
+     * Pull one character for a player
+     *
+     * @param playerId the player id
+     * @return the character pulled
+     */
+    public Character pullCharacter(String playerId) {
+        PullSession session = getSession(playerId);
+        synchronized (session) {
+            return session.pullCharacter();
+        }
+    }
+
+    /**
+     * Pull items n times for a player without creating item objects, the sink runs while the session is locked
+     *
+     * @param playerId the player id
+     * @param n        the number of pulls to do
+     * @param sink     the sink receiving each result, can be null
+     * @return the number of pulls done
+     * @see PullSession#pullBatch(int, PullSink)
+     */
+    public int pullBatch(String playerId, int n, PullSink sink) {
+        PullSession session = getSession(playerId);
+        synchronized (session) {
+            return session.pullBatch(n, sink);
+        }
+    }
+
+    /**
+     * Pull characters n times for a player without creating character objects, the sink runs while the session is locked
+     *
+     * @param playerId the player id
+     * @param n        the number of pulls to do
+     * @param sink     the sink receiving each result, can be null
+     * @return the number of pulls done
+     * @see PullSession#pullCharacterBatch(int, PullSink)
+     */
+    public int pullCharacterBatch(String playerId, int n, PullSink sink) {
+        PullSession session = getSession(playerId);
+        synchronized (session) {
+            return session.pullCharacterBatch(n, sink);
+        }
+    }
+
+    /**
+     * Remove the session of a player (e.g. when the player logs out)
+     *
+     * @param playerId the player id
+     * @return the removed session, null if the player had no session
+     */
+    public PullSession removeSession(String playerId) {
+        return sessions.remove(playerId);
+    }
+
+    /**
+     * Gets the number of sessions.
+     *
+     * @return the number of sessions
+     */
+    public int getSessionCount() { return sessions.size(); }
+
+    /**
+     * Gets the banner.
+     *
+     * @return the banner
+     */
+    public GachaBanner getBanner() { return banner; }
+}
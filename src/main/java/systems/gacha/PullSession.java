@@ -0,0 +1,358 @@
+package systems.gacha;
+
+import entities.characters.Character;
+import entities.items.Item;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The pull state of one player on one banner: pity counters, guarantee flags, pull history and the random generator.
+ * A session is not thread-safe, it should only be used by one thread at a time (the {@link PullService} locks the
+ * session while pulling). Different sessions share nothing except the immutable {@link GachaBanner}, so they never
+ * wait for each other.
+ *
+ * @author Shaoyang Chen
+ * @version 1.1.0
+ * @see GachaBanner
+ * @see PullHistoryLog
+ * @see PullStatistics
+ * @see PullService
+ */
+public class PullSession {
+    private final String playerId;
+    private final GachaBanner banner;
+    private final SplittableRandom random;
+    private int pityCounter5Star;
+    private int pityCounter4Star;
+    private boolean guaranteed5Star;
+    private final PullHistoryLog pullHistory;
+    private final PullHistoryLog characterPullHistory;
+    private final PullStatistics itemStatistics;
+    private final PullStatistics characterStatistics;
+    private final PitySystem pitySystem;
+    private final PitySystem characterPitySystem;
+
+    /**
+     * Instantiates a new pull session
+     *
+     * @param playerId the id of the player owning the session
+     * @param banner   the banner to pull on
+     * @param random   the random generator of this session, should not be shared with other sessions
+     */
+    public PullSession(String playerId, GachaBanner banner, SplittableRandom random) {
+        this.playerId = playerId;
+        this.banner = banner;
+        this.random = random;
+        pityCounter5Star = 0;
+        pityCounter4Star = 0;
+        guaranteed5Star = false;
+        pullHistory = new PullHistoryLog(banner, false);
+        characterPullHistory = new PullHistoryLog(banner, true);
+        itemStatistics = new PullStatistics(banner, false);
+        characterStatistics = new PullStatistics(banner, true);
+        pitySystem = new PitySystem();
+        characterPitySystem = new PitySystem();
+    }
+
+    /**
+     * Pull one item without printing anything, the pull is added to the pull history
+     *
+     * @return the item pulled
+     */
+    public Item pullItem() {
+        int rarity = rollItemRarity();
+        int poolIndex = rollItemIndex(rarity);
+        Item item = createItem(rarity, poolIndex);
+        recordItemPull(rarity, poolIndex);
+        resetItemPity(rarity);
+        return item;
+    }
+
+    /**
+     * Pull one character without printing anything, the pull is added to the character pull history
+     *
+     * @return the character pulled
+     */
+    public Character pullCharacter() {
+        int rarity = rollCharacterRarity();
+        int poolIndex = rollCharacterIndex(rarity);
+        Character character = createCharacter(rarity, poolIndex);
+        recordCharacterPull(rarity, poolIndex);
+        resetCharacterPity(rarity);
+        return character;
+    }
+
+    /**
+     * Pull items n times without creating any item objects or adding history.
+     * Every result is passed to the sink as rarity and pool index.
+     *
+     * @param n    the number of pulls to do
+     * @param sink the sink receiving each result, can be null if only the pity state matters
+     * @return the number of pulls done (less than n if the sink stopped the batch)
+     */
+    public int pullBatch(int n, PullSink sink) {
+        int pulls = 0;
+        while (pulls < n) {
+            int rarity = rollItemRarity();
+            int poolIndex = rollItemIndex(rarity);
+            resetItemPity(rarity);
+            pulls++;
+            if (sink != null && !sink.onPull(pulls, rarity, poolIndex)) {
+                break;
+            }
+        }
+        return pulls;
+    }
+
+    /**
+     * Pull characters n times without creating any character objects or adding history.
+     *
+     * @param n    the number of pulls to do
+     * @param sink the sink receiving each result, can be null if only the pity state matters
+     * @return the number of pulls done (less than n if the sink stopped the batch)
+     */
+    public int pullCharacterBatch(int n, PullSink sink) {
+        int pulls = 0;
+        while (pulls < n) {
+            int rarity = rollCharacterRarity();
+            int poolIndex = rollCharacterIndex(rarity);
+            resetCharacterPity(rarity);
+            pulls++;
+            if (sink != null && !sink.onPull(pulls, rarity, poolIndex)) {
+                break;
+            }
+        }
+        return pulls;
+    }
+
+    /**
+     * First step of an item pull: count the pull for pity and roll the rarity.
+     * Pity is not reset until {@link #resetItemPity(int)}, so the counters still show the pity of this pull.
+     *
+     * @return the rarity (3-5)
+     */
+    public int rollItemRarity() {
+        pityCounter5Star++;
+        pityCounter4Star++;
+        pitySystem.incrementPity();
+        if (pityCounter5Star >= PitySystem.FIVE_STAR_HARD_PITY) {
+            guaranteed5Star = true;
+        }
+        pitySystem.checkGuarantee();
+        return banner.sampleItemRarity(pityCounter5Star, pityCounter4Star, random);
+    }
+
+    /**
+     * Roll the index inside the item pool of a rarity (rate-up entries first, see {@link GachaBanner})
+     *
+     * @param rarity the rarity of the pull
+     * @return the pool index
+     */
+    public int rollItemIndex(int rarity) {
+        return banner.rollItemIndex(rarity, random);
+    }
+
+    /**
+     * Add an item pull to the history and the statistics, should be called before the pity is reset
+     *
+     * @param rarity    the rarity of the pull
+     * @param poolIndex the index inside the pool of that rarity
+     */
+    public void recordItemPull(int rarity, int poolIndex) {
+        pullHistory.append(pityCounter5Star, pityCounter4Star, rarity, poolIndex);
+        itemStatistics.record(pityCounter5Star, rarity, poolIndex);
+    }
+
+    /**
+     * Reset item pity after a pull of the provided rarity
+     *
+     * @param rarity rarity of the pull
+     */
+    public void resetItemPity(int rarity) {
+        if (rarity == 5) {
+            pityCounter5Star = 0;
+            pitySystem.resetPity(5);
+            guaranteed5Star = false;
+        }
+        if (rarity == 4) {
+            pityCounter4Star = 0;
+            pitySystem.resetPity(4);
+        }
+    }
+
+    /**
+     * First step of a character pull: count the pull for pity and roll the rarity
+     *
+     * @return the rarity (4 or 5)
+     */
+    public int rollCharacterRarity() {
+        characterPitySystem.incrementPity();
+        characterPitySystem.checkGuarantee();
+        // 4-5 only since there isn't 1-3 star characters
+        return banner.sampleCharacterRarity(characterPitySystem.getFiveStarPity(),
+                characterPitySystem.getFourStarPity(), random);
+    }
+
+    /**
+     * Roll the index inside the character pool of a rarity
+     *
+     * @param rarity the rarity of the pull
+     * @return the pool index
+     */
+    public int rollCharacterIndex(int rarity) {
+        return banner.rollCharacterIndex(rarity, random);
+    }
+
+    /**
+     * Add a character pull to the history and the statistics, should be called before the pity is reset
+     *
+     * @param rarity    the rarity of the pull
+     * @param poolIndex the index inside the pool of that rarity
+     */
+    public void recordCharacterPull(int rarity, int poolIndex) {
+        characterPullHistory.append(characterPitySystem.getFiveStarPity(), characterPitySystem.getFourStarPity(),
+                rarity, poolIndex);
+        characterStatistics.record(characterPitySystem.getFiveStarPity(), rarity, poolIndex);
+    }
+
+    /**
+     * Reset character pity after a pull of the provided rarity
+     *
+     * @param rarity rarity of the pull
+     */
+    public void resetCharacterPity(int rarity) {
+        if (rarity == 5) {
+            characterPitySystem.resetPity(5);
+        } else if (rarity == 4) {
+            characterPitySystem.resetPity(4);
+        }
+    }
+
+    /**
+     * Create the item of a pull result, uses the session random for the light cone path
+     *
+     * @param rarity    the rarity of the pull (3-5)
+     * @param poolIndex the index inside the pool of that rarity
+     * @return the item
+     */
+    public Item createItem(int rarity, int poolIndex) {
+        return banner.createItem(rarity, poolIndex, random);
+    }
+
+    /**
+     * Create the character of a pull result
+     *
+     * @param rarity    the rarity of the pull (4 or 5)
+     * @param poolIndex the index inside the pool of that rarity
+     * @return the character
+     */
+    public Character createCharacter(int rarity, int poolIndex) {
+        return banner.createCharacter(rarity, poolIndex);
+    }
+
+    /**
+     * Gets the player id.
+     *
+     * @return the player id
+     */
+    public String getPlayerId() { return playerId; }
+
+    /**
+     * Gets the banner.
+     *
+     * @return the banner
+     */
+    public GachaBanner getBanner() { return banner; }
+
+    /**
+     * Gets pity counter 5 star.
+     *
+     * @return the pity counter 5 star
+     */
+    public int getPityCounter5Star() { return pityCounter5Star; }
+
+    /**
+     * Gets pity counter 4 star.
+     *
+     * @return the pity counter 4 star
+     */
+    public int getPityCounter4Star() { return pityCounter4Star; }
+
+    /**
+     * Is guaranteed 5 star boolean.
+     *
+     * @return the boolean
+     */
+    public boolean isGuaranteed5Star() { return guaranteed5Star; }
+
+    /**
+     * Gets pull history as text, every record is rendered (use {@link #getItemHistoryLog()} for long histories).
+     *
+     * @return the pull history
+     */
+    public List<String> getPullHistory() { return pullHistory.toList(); }
+
+    /**
+     * Gets character pull history as text, every record is rendered.
+     *
+     * @return the character pull history
+     */
+    public List<String> getCharacterPullHistory() { return characterPullHistory.toList(); }
+
+    /**
+     * Gets the item pull history log, supports paging and lazy iteration.
+     *
+     * @return the item pull history log
+     */
+    public PullHistoryLog getItemHistoryLog() { return pullHistory; }
+
+    /**
+     * Gets the character pull history log, supports paging and lazy iteration.
+     *
+     * @return the character pull history log
+     */
+    public PullHistoryLog getCharacterHistoryLog() { return characterPullHistory; }
+
+    /**
+     * Gets the number of item pulls in the history.
+     *
+     * @return the number of item pulls
+     */
+    public int getItemPullCount() { return pullHistory.size(); }
+
+    /**
+     * Gets the number of character pulls in the history.
+     *
+     * @return the number of character pulls
+     */
+    public int getCharacterPullCount() { return characterPullHistory.size(); }
+
+    /**
+     * Gets the running statistics of the recorded item pulls.
+     *
+     * @return the item statistics
+     */
+    public PullStatistics getItemStatistics() { return itemStatistics; }
+
+    /**
+     * Gets the running statistics of the recorded character pulls.
+     *
+     * @return the character statistics
+     */
+    public PullStatistics getCharacterStatistics() { return characterStatistics; }
+
+    /**
+     * Gets pity system.
+     *
+     * @return the pity system
+     */
+    public PitySystem getPitySystem() { return pitySystem; }
+
+    /**
+     * Gets character pity system.
+     *
+     * @return the character pity system
+     */
+    public PitySystem getCharacterPitySystem() { return characterPitySystem; }
+}
@@ -0,0 +1,24 @@
+package systems.gacha;
+
+/**
+ * Receives the results of a batch pull one pull at a time.
+ * Results are passed as primitives (rarity and pool index), so nothing is created or formatted
+ * unless the sink asks for it with {@link GachaSystem#describeItem(int, int)} or {@link GachaSystem#createItem(int, int)}
+ * of the gacha system that runs the batch, pool indexes belong to the banner of that system.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see GachaSystem#pullBatch(int, PullSink)
+ * @see GachaSystem#pullCharacterBatch(int, PullSink)
+ */
+public interface PullSink {
+    /**
+     * Called after every pull of a batch, pity is already updated when this is called
+     *
+     * @param pullNumber the pull number inside the batch (starts from 1)
+     * @param rarity     the rarity of the pull (3-5 for items, 4-5 for characters)
+     * @param poolIndex  the index of the result inside the pool of that rarity
+     * @return true to keep pulling, false to stop the batch early
+     */
+    boolean onPull(int pullNumber, int rarity, int poolIndex);
+}
@@ -0,0 +1,124 @@
+package systems.gacha;
+
+/**
+ * Running counters of the recorded pulls of one session (items or characters), updated on every pull
+ * so no query has to scan the history.
+ * Keeps per-rarity totals, pulls since the last 5 star, the pity at which 5 stars landed and how often every pool
+ * entry was pulled. Every getter is O(1).
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see PullSession
+ * @see PullHistoryLog
+ */
+public class PullStatistics {
+    private final GachaBanner banner;
+    private final boolean characters;
+    private final int[] rarityCounts;
+    // frequency[rarity][poolIndex]
+    private final int[][] frequency;
+    private int totalPulls;
+    private int pullsSinceLastFiveStar;
+    private long fiveStarPitySum;
+
+    /**
+     * Instantiates new empty statistics
+     *
+     * @param banner     the banner of the pulls, used for the pool sizes and names
+     * @param characters true for character pulls, false for item pulls
+     */
+    public PullStatistics(GachaBanner banner, boolean characters) {
+        this.banner = banner;
+        this.characters = characters;
+        this.rarityCounts = new int[6];
+        this.frequency = new int[6][];
+        for (int rarity = characters ? 4 : 3; rarity <= 5; rarity++) {
+            frequency[rarity] = new int[characters ? banner.characterPoolSize(rarity) : banner.itemPoolSize(rarity)];
+        }
+        this.totalPulls = 0;
+        this.pullsSinceLastFiveStar = 0;
+        this.fiveStarPitySum = 0;
+    }
+
+    /**
+     * Count one pull
+     *
+     * @param fiveStarPity the 5 star pity count of the pull (before reset)
+     * @param rarity       the rarity of the pull
+     * @param poolIndex    the index inside the pool of that rarity
+     */
+    void record(int fiveStarPity, int rarity, int poolIndex) {
+        totalPulls++;
+        rarityCounts[rarity]++;
+        frequency[rarity][poolIndex]++;
+        if (rarity == 5) {
+            fiveStarPitySum += fiveStarPity;
+            pullsSinceLastFiveStar = 0;
+        } else {
+            pullsSinceLastFiveStar++;
+        }
+    }
+
+    /**
+     * Gets the number of pulls of a rarity
+     *
+     * @param rarity the rarity (3-5)
+     * @return the number of pulls of that rarity
+     */
+    public int getCount(int rarity) {
+        return rarityCounts[rarity];
+    }
+
+    /**
+     * Gets how many times a pool entry was pulled
+     *
+     * @param rarity    the rarity
+     * @param poolIndex the index inside the pool of that rarity
+     * @return the number of times it was pulled
+     */
+    public int getFrequency(int rarity, int poolIndex) {
+        return frequency[rarity][poolIndex];
+    }
+
+    /**
+     * Gets how many times an item or character was pulled by name (scans one pool, only for dashboards)
+     *
+     * @param rarity the rarity
+     * @param name   the name of the item or character
+     * @return the number of times it was pulled, 0 if it is not in the pool
+     */
+    public int getFrequency(int rarity, String name) {
+        int[] counts = frequency[rarity];
+        for (int i = 0; i < counts.length; i++) {
+            String entry = characters ? banner.describeCharacter(rarity, i) : banner.describeItem(rarity, i);
+            if (entry.equals(name)) {
+                return counts[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the average pity at which 5 stars landed
+     *
+     * @return the average 5 star pity, 0 if there was no 5 star yet
+     */
+    public double getAverageFiveStarPity() {
+        int fiveStars = rarityCounts[5];
+        return fiveStars == 0 ? 0 : (double) fiveStarPitySum / fiveStars;
+    }
+
+    /**
+     * Gets the total number of pulls.
+     *
+     * @return the total pulls
+     */
+    public int getTotalPulls() { return totalPulls; }
+
+    /**
+     * Gets the number of pulls since the last 5 star.
+     *
+     * @return the pulls since the last 5 star
+     */
+    public int getPullsSinceLastFiveStar() { return pullsSinceLastFiveStar; }
+}
@@ -0,0 +1,152 @@
+package systems.gacha;
+
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+
+/**
+ * Immutable rarity sampler using precomputed alias tables (Vose's alias method), one table for every soft pity step.
+ * Below soft pity every pull uses the same table, so there are only 16 tables (base rate + 15 soft pity steps).
+ * Most pulls are the common rarity, so every table stores the chance of a rare pull and one compare handles the common
+ * case; only rare pulls use the alias table (the same random number is scaled back to [0, 1) for it).
+ * Sampling is O(1): a hard pity check, one random number, and one table lookup. Nothing is written while sampling,
+ * so one sampler can be shared by every gacha system and every thread.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see PitySystem#softPityRate(int)
+ */
+public final class RaritySampler {
+    /** Sampler for item pulls (3, 4 and 5 stars). */
+    public static final RaritySampler ITEMS = new RaritySampler(new int[]{5, 4}, 3);
+    /** Sampler for character pulls (4 and 5 stars only, so there is no common rarity). */
+    public static final RaritySampler CHARACTERS = new RaritySampler(new int[]{5, 4}, 0);
+
+    private static final int STEPS = PitySystem.FIVE_STAR_HARD_PITY - PitySystem.SOFT_PITY_START + 1;
+
+    // rare rarities (alias table columns) and the common rarity (0 if every pull is rare)
+    private final int[] rarities;
+    private final int common;
+    private final int outcomes;
+    // chance of a rare pull for every step
+    private final double[] rareChance;
+    // flat tables: entry (step * outcomes + column)
+    private final double[] probability;
+    private final int[] alias;
+
+    private RaritySampler(int[] rarities, int common) {
+        this.rarities = rarities;
+        this.common = common;
+        this.outcomes = rarities.length;
+        this.rareChance = new double[STEPS];
+        this.probability = new double[STEPS * outcomes];
+        this.alias = new int[STEPS * outcomes];
+        for (int step = 0; step < STEPS; step++) {
+            double[] weights = weights(PitySystem.SOFT_PITY_START - 1 + step);
+            double rare = 0;
+            for (double weight : weights) {
+                rare += weight;
+            }
+            rareChance[step] = common == 0 ? 1.0 : rare;
+            // the alias table only picks between the rare rarities
+            for (int i = 0; i < outcomes; i++) {
+                weights[i] /= rare;
+            }
+            buildTable(step, weights);
+        }
+    }
+
+    /**
+     * Gets the chance of every rare rarity for a pull with the provided 5 star pity, same thresholds as the old
+     * cumulative roll
+     * @param fiveStarPity 5 star pity count including this pull
+     * @return chance of every rare rarity, in the same order as the rarities array
+     */
+    private double[] weights(int fiveStarPity) {
+        double fiveStar = PitySystem.softPityRate(fiveStarPity);
+        double[] weights = new double[outcomes];
+        weights[0] = fiveStar;
+        if (common == 0) {
+            // characters: everything that is not a 5 star is a 4 star
+            weights[1] = 1.0 - fiveStar;
+        } else {
+            double fourOrBetter = Math.min(fiveStar + PitySystem.BASE_FOUR_STAR_RATE, 1.0);
+            weights[1] = fourOrBetter - fiveStar;
+        }
+        return weights;
+    }
+
+    /**
+     * Build one alias table with Vose's method
+     * @param step the soft pity step of the table
+     * @param weights chance of every outcome (sums to 1)
+     */
+    private void buildTable(int step, double[] weights) {
+        int base = step * outcomes;
+        double[] scaled = new double[outcomes];
+        ArrayDeque<Integer> small = new ArrayDeque<>();
+        ArrayDeque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < outcomes; i++) {
+            scaled[i] = weights[i] * outcomes;
+            if (scaled[i] < 1.0) {
+                small.push(i);
+            } else {
+                large.push(i);
+            }
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+            probability[base + less] = scaled[less];
+            alias[base + less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small.push(more);
+            } else {
+                large.push(more);
+            }
+        }
+        // whatever is left is 1 (up to rounding)
+        while (!large.isEmpty()) {
+            int i = large.pop();
+            probability[base + i] = 1.0;
+            alias[base + i] = i;
+        }
+        while (!small.isEmpty()) {
+            int i = small.pop();
+            probability[base + i] = 1.0;
+            alias[base + i] = i;
+        }
+    }
+
+    /**
+     * Sample the rarity of a pull. Pity counts already include this pull.
+     *
+     * @param fiveStarPity the 5 star pity count
+     * @param fourStarPity the 4 star pity count
+     * @param random       the random generator (one number is used unless it is a hard pity pull)
+     * @return the rarity
+     */
+    public int sample(int fiveStarPity, int fourStarPity, SplittableRandom random) {
+        if (fiveStarPity >= PitySystem.FIVE_STAR_HARD_PITY) {
+            return 5;
+        }
+        if (fourStarPity >= PitySystem.FOUR_STAR_HARD_PITY) {
+            return 4;
+        }
+        int step = fiveStarPity < PitySystem.SOFT_PITY_START ? 0 : fiveStarPity - (PitySystem.SOFT_PITY_START - 1);
+        double roll = random.nextDouble();
+        double rare = rareChance[step];
+        if (roll >= rare) {
+            return common;
+        }
+        double u = roll / rare * outcomes;
+        // rounding can push roll / rare up to exactly 1
+        int column = Math.min((int) u, outcomes - 1);
+        int index = step * outcomes + column;
+        // pick the column or its alias without a branch: the compare is random, so a branch would miss often.
+        // the sign bit of (fraction - probability) is 1 when we keep the column, 0 when we take the alias
+        int keep = (int) (Double.doubleToRawLongBits((u - column) - probability[index]) >>> 63);
+        int picked = column ^ ((column ^ alias[index]) & (keep - 1));
+        return rarities[picked];
+    }
+}
@@ -51,5 +51,125 @@ public class TestGachaSystemExtended {
         System.out.println("4星保底计数器: " + gacha.getCharacterPitySystem().getFourStarPity());
         System.out.println("软保底概率(80抽时): " +
                 gacha.getCharacterPitySystem().calculateSoftPity() * 100 + "%");
+
+        System.out.println("\n--- 测试批量抽取 ---");
+        final long[] counts = new long[6];
+        long start = System.nanoTime();
+        int done = gacha.pullBatch(5_000_000, (pullNumber, rarity, poolIndex) -> {
+            counts[rarity]++;
+            return true;
+        });
+        long elapsed = System.nanoTime() - start;
+        System.out.println("批量抽取次数: " + done + ", 用时: " + elapsed / 1_000_000 + "ms");
+        System.out.println("5星: " + counts[5] + ", 4星: " + counts[4] + ", 3星: " + counts[3]);
+        System.out.println("每秒抽取: " + (long) (done / (elapsed / 1e9)));
+
+        System.out.println("\n--- 测试蒙特卡洛模拟 ---");
+        BannerSimulator simulator = new BannerSimulator();
+        start = System.nanoTime();
+        BannerSimulator.Result result = simulator.run(2_000_000, 42L);
+        elapsed = System.nanoTime() - start;
+        BannerSimulator.Result again = simulator.run(2_000_000, 42L);
+        System.out.println("模拟玩家: " + result.getPullsToFiveStar().getTotal() + ", 用时: " + elapsed / 1_000_000 + "ms");
+        System.out.println("5星平均抽数: " + result.getPullsToFiveStar().mean()
+                + ", p50: " + result.getPullsToFiveStar().quantile(0.5)
+                + ", p99: " + result.getPullsToFiveStar().quantile(0.99));
+        System.out.println("4星平均抽数: " + result.getPullsToFourStar().mean()
+                + ", p99: " + result.getPullsToFourStar().quantile(0.99));
+        System.out.println("相同种子结果一致: " + (result.getPullsToFiveStar().mean() == again.getPullsToFiveStar().mean()));
+
+        System.out.println("\n--- 测试精确保底分布 ---");
+        PityDistribution exact = new PityDistribution(0);
+        System.out.println("5星期望抽数: " + exact.expectedPulls() + ", p50: " + exact.quantile(0.5)
+                + ", p99: " + exact.quantile(0.99));
+        PityDistribution at63 = new PityDistribution(63);
+        System.out.println("63抽保底时期望抽数: " + at63.expectedPulls() + ", p99: " + at63.quantile(0.99));
+
+        System.out.println("\n--- 测试UP卡池 ---");
+        GachaBanner upBanner = new BannerRegistry().getBanner(BannerRegistry.STANDARD_ID).withRateUp(5, 0.5, "Seele");
+        PullSession upSession = new PullSession("up", upBanner, new java.util.SplittableRandom(7L));
+        final long[] upCounts = new long[2];
+        upSession.pullCharacterBatch(2_000_000, (pullNumber, rarity, poolIndex) -> {
+            if (rarity == 5) {
+                upCounts[upBanner.isRateUpCharacter(5, poolIndex) ? 1 : 0]++;
+            }
+            return true;
+        });
+        // 50% UP + 50% * 1/6 from the whole pool
+        System.out.println("UP角色占5星比例: " + (double) upCounts[1] / (upCounts[0] + upCounts[1]) + " (期望 0.5833)");
+        System.out.println("UP概率: " + new GachaSystem(upBanner).getProbabilityTable()[2][1]);
+
+        // names of batch results come from the banner of the system, not the standard one
+        GachaBanner small = new GachaBanner("Small", new String[]{"Sun Cone", "Sun Material"}, new String[]{"Erudition"},
+                new String[]{"Moon Cone", "Moon Material"}, new String[]{"Harmony"}, 1,
+                new String[]{"Star Dust"}, new String[]{"Currency"}, new int[]{1},
+                new String[]{"Kafka"}, new String[]{"March 7th"});
+        GachaSystem smallGacha = new GachaSystem(small);
+        final java.util.Set<String> names = new java.util.TreeSet<>();
+        smallGacha.pullBatch(2_000, (pullNumber, rarity, poolIndex) -> {
+            names.add(smallGacha.describeItem(rarity, poolIndex));
+            return true;
+        });
+        smallGacha.pullCharacterBatch(2_000, (pullNumber, rarity, poolIndex) -> {
+            names.add(smallGacha.describeCharacter(rarity, poolIndex));
+            return true;
+        });
+        System.out.println("自定义卡池名称: " + names);
+
+        System.out.println("\n--- 测试抽卡记录 ---");
+        PullSession historySession = new PullSession("history", GachaBanner.STANDARD, new java.util.SplittableRandom(9L));
+        for (int i = 0; i < 200_000; i++) {
+            int rarity = historySession.rollItemRarity();
+            int poolIndex = historySession.rollItemIndex(rarity);
+            historySession.recordItemPull(rarity, poolIndex);
+            historySession.resetItemPity(rarity);
+        }
+        PullHistoryLog log = historySession.getItemHistoryLog();
+        System.out.println("记录数: " + log.size() + ", 约占内存: " + log.size() * 4 / 1024 + "KB");
+        for (String record : log.page(log.size() - 3, 3)) {
+            System.out.println("  " + record);
+        }
+
+        PullStatistics historyStats = historySession.getItemStatistics();
+        System.out.println("5星: " + historyStats.getCount(5) + ", 5星平均保底: " + historyStats.getAverageFiveStarPity()
+                + ", 距上次5星: " + historyStats.getPullsSinceLastFiveStar()
+                + ", Credit次数: " + historyStats.getFrequency(3, "Credit"));
+
+        System.out.println("\n--- 测试记录导出 ---");
+        try {
+            java.nio.file.Path txt = java.nio.file.Files.createTempFile("gacha_history", ".txt");
+            java.nio.file.Path csv = java.nio.file.Files.createTempFile("gacha_history", ".csv");
+            PullHistoryExporter exporter = new PullHistoryExporter(historySession);
+            start = System.nanoTime();
+            exporter.exportAll(txt, PullHistoryExporter.Format.TXT);
+            exporter.exportAll(csv, PullHistoryExporter.Format.CSV);
+            elapsed = System.nanoTime() - start;
+            System.out.println("TXT: " + java.nio.file.Files.size(txt) / 1024 + "KB, CSV: "
+                    + java.nio.file.Files.size(csv) / 1024 + "KB, 用时: " + elapsed / 1_000_000 + "ms");
+            for (int i = 0; i < 5; i++) {
+                int rarity = historySession.rollItemRarity();
+                int poolIndex = historySession.rollItemIndex(rarity);
+                historySession.recordItemPull(rarity, poolIndex);
+                historySession.resetItemPity(rarity);
+            }
+            exporter.exportNew(csv, PullHistoryExporter.Format.CSV);
+            // header + 200000 + 5 rows
+            System.out.println("CSV行数: " + java.nio.file.Files.readAllLines(csv).size() + " (期望 200006)");
+
+            // a full TXT export must not move the CSV count
+            java.nio.file.Path fresh = java.nio.file.Files.createTempFile("gacha_history", ".csv");
+            java.nio.file.Files.delete(fresh);
+            exporter.exportAll(txt, PullHistoryExporter.Format.TXT);
+            exporter.exportNew(fresh, PullHistoryExporter.Format.CSV);
+            exporter.exportAll(txt, PullHistoryExporter.Format.TXT);
+            exporter.exportNew(csv, PullHistoryExporter.Format.CSV);
+            System.out.println("新CSV行数: " + java.nio.file.Files.readAllLines(fresh).size() + " (期望 200006), "
+                    + "TXT后追加行数: " + java.nio.file.Files.readAllLines(csv).size() + " (期望 200006)");
+            java.nio.file.Files.delete(fresh);
+            java.nio.file.Files.delete(txt);
+            java.nio.file.Files.delete(csv);
+        } catch (java.io.IOException e) {
+            System.out.println("导出测试失败: " + e.getMessage());
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+package systems.gacha;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//stress test for the pull service, many threads pull for the same players at the same time, for debug only
+public class TestPullSessionStress {
+    private static final int THREADS = 8;
+    private static final int PLAYERS = 64;
+    private static final int ROUNDS_PER_THREAD = 20_000;
+
+    // pulls since the last 5 star / 4 star of every player, only changed while the session of that player is locked
+    private static final int[] sinceFiveStar = new int[PLAYERS];
+    private static final int[] sinceFourStar = new int[PLAYERS];
+    private static final int[] characterSinceFiveStar = new int[PLAYERS];
+    private static final int[] characterSinceFourStar = new int[PLAYERS];
+    private static final int[] singlePulls = new int[PLAYERS];
+    private static final AtomicLong totalPulls = new AtomicLong();
+    private static final AtomicLong errors = new AtomicLong();
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("===== PULL SERVICE STRESS TEST =====\n");
+        PullService service = new PullService(GachaBanner.STANDARD, 42L);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicLong requested = new AtomicLong();
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int round = 0; round < ROUNDS_PER_THREAD; round++) {
+                    int player = random.nextInt(PLAYERS);
+                    String playerId = "player-" + player;
+                    int n = 1 + random.nextInt(20);
+                    switch (random.nextInt(3)) {
+                        case 0:
+                            requested.addAndGet(n);
+                            service.pullBatch(playerId, n, (pullNumber, rarity, poolIndex) ->
+                                    checkItemPull(player, rarity));
+                            break;
+                        case 1:
+                            service.pullCharacterBatch(playerId, n, (pullNumber, rarity, poolIndex) ->
+                                    checkCharacterPull(player, rarity));
+                            break;
+                        default:
+                            // single pulls go to the history, the counters are checked at the end
+                            PullSession session = service.getSession(playerId);
+                            synchronized (session) {
+                                // same steps as pullItem(), without creating the item object
+                                int rarity = session.rollItemRarity();
+                                int poolIndex = session.rollItemIndex(rarity);
+                                session.recordItemPull(rarity, poolIndex);
+                                session.resetItemPity(rarity);
+                                singlePulls[player]++;
+                                sinceFiveStar[player] = session.getPityCounter5Star();
+                                sinceFourStar[player] = session.getPityCounter4Star();
+                            }
+                            requested.incrementAndGet();
+                            totalPulls.incrementAndGet();
+                            break;
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.MINUTES);
+        long time = (System.nanoTime() - start) / 1_000_000;
+
+        // every session should agree with the counters the sinks kept
+        for (int player = 0; player < PLAYERS; player++) {
+            PullSession session = service.getSession("player-" + player);
+            synchronized (session) {
+                expect(session.getPityCounter5Star() == sinceFiveStar[player], "5 star pity of player " + player);
+                expect(session.getPityCounter4Star() == sinceFourStar[player], "4 star pity of player " + player);
+                expect(session.getPitySystem().getFiveStarPity() == sinceFiveStar[player],
+                        "pity system 5 star pity of player " + player);
+                expect(session.getCharacterPitySystem().getFiveStarPity() == characterSinceFiveStar[player],
+                        "character 5 star pity of player " + player);
+                expect(session.getCharacterPitySystem().getFourStarPity() == characterSinceFourStar[player],
+                        "character 4 star pity of player " + player);
+                expect(session.getItemPullCount() == singlePulls[player], "history size of player " + player);
+            }
+        }
+        expect(totalPulls.get() == requested.get(), "total item pulls");
+        expect(service.getSessionCount() == PLAYERS, "session count");
+
+        // seeded streams depend on the whole player id, "Aa" and "BB" have the same hashCode
+        PullService seeded = new PullService(GachaBanner.STANDARD, 42L);
+        PullService again = new PullService(GachaBanner.STANDARD, 42L);
+        long aa = firstPulls(seeded, "Aa");
+        expect(aa != firstPulls(seeded, "BB"), "players with the same id hashCode got the same stream");
+        expect(aa == firstPulls(again, "Aa"), "same seed and id gave another stream");
+
+        System.out.println("Threads: " + THREADS + ", Players: " + PLAYERS + ", Item Pulls: " + totalPulls.get()
+                + ", Time: " + time + "ms");
+        System.out.println(errors.get() == 0 ? "All pity invariants held" : "FAILED: " + errors.get() + " errors");
+        if (errors.get() != 0) {
+            System.exit(1);
+        }
+    }
+
+    // the first pulls of a player folded into one number, to compare streams
+    private static long firstPulls(PullService service, String playerId) {
+        long[] pulls = new long[1];
+        service.pullBatch(playerId, 50, (pullNumber, rarity, poolIndex) -> {
+            pulls[0] = pulls[0] * 31 + rarity * 1000 + poolIndex;
+            return true;
+        });
+        return pulls[0];
+    }
+
+    private static boolean checkItemPull(int player, int rarity) {
+        totalPulls.incrementAndGet();
+        int pity5 = ++sinceFiveStar[player];
+        int pity4 = ++sinceFourStar[player];
+        expect(pity5 <= PitySystem.FIVE_STAR_HARD_PITY, "item 5 star pity over hard pity");
+        // a 5 star on the 10th pull does not reset 4 star pity, so 4 star pity can reach 11 once
+        expect(pity4 <= PitySystem.FOUR_STAR_HARD_PITY + 1, "item 4 star pity over hard pity");
+        if (pity5 >= PitySystem.FIVE_STAR_HARD_PITY) {
+            expect(rarity == 5, "item 5 star hard pity missed");
+        } else if (pity4 >= PitySystem.FOUR_STAR_HARD_PITY) {
+            expect(rarity == 4, "item 4 star hard pity missed");
+        }
+        if (rarity == 5) {
+            sinceFiveStar[player] = 0;
+        } else if (rarity == 4) {
+            sinceFourStar[player] = 0;
+        }
+        return true;
+    }
+
+    private static boolean checkCharacterPull(int player, int rarity) {
+        int pity5 = ++characterSinceFiveStar[player];
+        int pity4 = ++characterSinceFourStar[player];
+        expect(rarity == 4 || rarity == 5, "character rarity " + rarity);
+        expect(pity5 <= PitySystem.FIVE_STAR_HARD_PITY, "character 5 star pity over hard pity");
+        if (pity5 >= PitySystem.FIVE_STAR_HARD_PITY) {
+            expect(rarity == 5, "character 5 star hard pity missed");
+        }
+        if (rarity == 5) {
+            characterSinceFiveStar[player] = 0;
+        } else {
+            characterSinceFourStar[player] = 0;
+        }
+        return true;
+    }
+
+    private static void expect(boolean condition, String message) {
+        if (!condition) {
+            if (errors.getAndIncrement() < 10) {
+                System.out.println("Invariant broken: " + message);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package systems.gacha;
+
+import java.util.SplittableRandom;
+
+//check that the alias table sampler gives the rates of the pity rules at every soft pity step, for debug only
+public class TestRaritySampler {
+    private static final int SAMPLES = 200_000;
+    private static final int PLAYERS = 500_000;
+    // more standard errors than this away from the expected rate and the check fails
+    private static final double MAX_Z = 5.0;
+
+    public static void main(String[] args) {
+        System.out.println("===== RARITY SAMPLER TEST =====\n");
+        SplittableRandom random = new SplittableRandom(42L);
+        boolean items = checkSteps("Items", RaritySampler.ITEMS, false, random);
+        boolean characters = checkSteps("Characters", RaritySampler.CHARACTERS, true, random);
+
+        // hard pity wins over the tables, 5 star hard pity wins over 4 star hard pity
+        boolean hardPity = true;
+        for (int i = 0; i < 1_000; i++) {
+            hardPity &= RaritySampler.ITEMS.sample(PitySystem.FIVE_STAR_HARD_PITY, 3, random) == 5;
+            hardPity &= RaritySampler.ITEMS.sample(PitySystem.FIVE_STAR_HARD_PITY, PitySystem.FOUR_STAR_HARD_PITY,
+                    random) == 5;
+            hardPity &= RaritySampler.ITEMS.sample(40, PitySystem.FOUR_STAR_HARD_PITY, random) == 4;
+            hardPity &= RaritySampler.CHARACTERS.sample(40, PitySystem.FOUR_STAR_HARD_PITY, random) == 4;
+        }
+        System.out.println("Hard pity: " + hardPity);
+
+        // players pulling with the sampler follow the exact distribution of the pity rules
+        PityDistribution exact = new PityDistribution(0);
+        long[] counts = new long[exact.getMaxPulls() + 1];
+        double sum = 0;
+        for (int player = 0; player < PLAYERS; player++) {
+            int fiveStarPity = 0;
+            int fourStarPity = 0;
+            int pulls = 0;
+            while (true) {
+                pulls++;
+                fiveStarPity++;
+                fourStarPity++;
+                int rarity = RaritySampler.ITEMS.sample(fiveStarPity, fourStarPity, random);
+                if (rarity == 5) {
+                    break;
+                }
+                if (rarity == 4) {
+                    fourStarPity = 0;
+                }
+            }
+            counts[pulls]++;
+            sum += pulls;
+        }
+        double worst = 0;
+        for (int k = PitySystem.SOFT_PITY_START; k <= exact.getMaxPulls(); k++) {
+            worst = Math.max(worst, z(counts[k], PLAYERS, exact.probability(k)));
+        }
+        System.out.printf("Pulls to 5 star: mean %.3f, exact %.3f, worst soft pity z %.2f%n",
+                sum / PLAYERS, exact.expectedPulls(), worst);
+        System.out.println("\nAll rates match: " + (items && characters && hardPity && worst < MAX_Z));
+    }
+
+    // sample every step (base rate, then every soft pity pull) and compare with the pity rules
+    private static boolean checkSteps(String name, RaritySampler sampler, boolean characters, SplittableRandom random) {
+        System.out.println(name + " (pity: 5 star observed/expected, 4 star observed/expected)");
+        double worst = 0;
+        for (int pity = PitySystem.SOFT_PITY_START - 1; pity < PitySystem.FIVE_STAR_HARD_PITY; pity++) {
+            long[] counts = new long[6];
+            for (int i = 0; i < SAMPLES; i++) {
+                counts[sampler.sample(pity, 1, random)]++;
+            }
+            double fiveStar = PitySystem.softPityRate(pity);
+            double fourStar = characters ? 1.0 - fiveStar
+                    : Math.min(fiveStar + PitySystem.BASE_FOUR_STAR_RATE, 1.0) - fiveStar;
+            worst = Math.max(worst, Math.max(z(counts[5], SAMPLES, fiveStar), z(counts[4], SAMPLES, fourStar)));
+            if (characters && counts[3] != 0) {
+                worst = Double.POSITIVE_INFINITY;  //characters have no 3 star
+            }
+            System.out.printf("  %d: %.4f/%.4f, %.4f/%.4f%n", pity, (double) counts[5] / SAMPLES, fiveStar,
+                    (double) counts[4] / SAMPLES, fourStar);
+        }
+        System.out.printf("%s worst z: %.2f%n%n", name, worst);
+        return worst < MAX_Z;
+    }
+
+    // how many standard errors the observed count is away from the expected rate
+    private static double z(long count, int samples, double rate) {
+        double error = Math.sqrt(rate * (1 - rate) / samples);
+        double difference = Math.abs((double) count / samples - rate);
+        if (error == 0) {
+            return difference == 0 ? 0 : Double.POSITIVE_INFINITY;
+        }
+        return difference / error;
+    }
+}
@@ -10,13 +10,18 @@ import entities.characters.Character;
 
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Represents the inventory system of the game.
  * Items are stored in List, the inventory have the following attributes:
  * currentWeight, maxWeight, Hashmap storing character equipments, search and sort algorithms
  * Implements {@link Sortable} and {@link Searchable}
+ * <p>
+ * Items are also indexed by id, name and type, and the weight is kept up to date on every add, remove and merge,
+ * so adding, removing and finding an item does not look through the whole inventory. A removed item leaves an empty
+ * place in the list that is closed the next time the list is read in order. Items must not be renamed or change
+ * type while they are in the inventory.
+ * </p>
  *
  * @author Shaoyang Chen
  * @version 1.0.3
@@ -27,7 +32,12 @@ import java.util.stream.Collectors;
  * @see Item
  */
 public class Inventory implements Sortable, Searchable {
-    private List<Item> items;
+    private List<Item> items;  //in order, removed items are null until the list is compacted
+    private int removed;  //null places in items
+    private Map<Item, Integer> positions;  //place of every item in items, by identity
+    private ItemIndex<Integer> byId;
+    private ItemIndex<String> byName;
+    private ItemIndex<String> byType;
     private int currentWeight;
     private int maxWeight;
     private Map<Character, List<Equipment>> equippedItems;
@@ -39,6 +49,10 @@ public class Inventory implements Sortable, Searchable {
      */
     public Inventory() {
         this.items = new ArrayList<>();
+        this.positions = new IdentityHashMap<>();
+        this.byId = new ItemIndex<>();
+        this.byName = new ItemIndex<>();
+        this.byType = new ItemIndex<>();
         this.currentWeight = 0;
         this.maxWeight = 1000; // max weight currently 1000
         this.equippedItems = new HashMap<>();
@@ -67,6 +81,10 @@ public class Inventory implements Sortable, Searchable {
             System.out.println("Cannot add null item to inventory");
             return false;
         }
+        if (positions.containsKey(item)) {
+            System.out.println("Item is already in the inventory: " + item.getName());
+            return false;
+        }
 
         // check weight
         int newWeight = currentWeight + item.getWeight();
@@ -76,28 +94,24 @@ public class Inventory implements Sortable, Searchable {
             return false;
         }
 
-        // if stackable, combine them together
+        // if stackable, combine them together (only the items with the same name are looked at)
         if (item.isStackable()) {
-            for (Item existingItem : items) {
+            for (Item existingItem : byName.get(item.getName())) {
                 if (existingItem.isStackable() &&
-                        existingItem.getName().equals(item.getName()) &&
                         existingItem.getClass().equals(item.getClass())) {
 
-                    // Combine item
+                    // Combine item, the merged item goes to the end like a new one
                     System.out.println("Combined item: " + item.getName());
-                    items.remove(existingItem);
+                    unindex(existingItem);
                     Item mergedItem = mergeItems(existingItem, item);
-                    items.add(mergedItem);
-
-                    currentWeight = calculateTotalWeight();
+                    index(mergedItem);
                     return true;
                 }
             }
         }
 
         // add new item to inventory
-        items.add(item);
-        currentWeight += item.getWeight();
+        index(item);
         System.out.println("Added item: " + item.getName() + " (Weight: " + item.getWeight() + ")");
         System.out.println("Current Weight: " + currentWeight + "/" + maxWeight);
         return true;
@@ -134,15 +148,12 @@ public class Inventory implements Sortable, Searchable {
      * @return the item removed
      */
     public Item removeItem(int itemId) {
-        for (int i = 0; i < items.size(); i++) {
-            Item item = items.get(i);
-            if (item.getId() == itemId) {
-                items.remove(i);
-                currentWeight -= item.getWeight();
-                System.out.println("Removed Item: " + item.getName());
-                System.out.println("Current Weight: " + currentWeight + "/" + maxWeight);
-                return item;
-            }
+        Item item = byId.first(itemId);
+        if (item != null) {
+            unindex(item);
+            System.out.println("Removed Item: " + item.getName());
+            System.out.println("Current Weight: " + currentWeight + "/" + maxWeight);
+            return item;
         }
 
         System.out.println("Cannot find item ID: " + itemId);
@@ -150,25 +161,95 @@ public class Inventory implements Sortable, Searchable {
     }
 
     /**
-     * Remove item with name
+     * Remove item with name, when several items have the name the one added first is removed
      *
      * @param name the name of the item to remove
      * @return the item removed
      */
     public Item removeItem(String name) {
+        Item item = byName.first(name);
+        if (item != null) {
+            unindex(item);
+            System.out.println("Removed item: " + item.getName());
+            System.out.println("Current weight: " + currentWeight + "/" + maxWeight);
+            return item;
+        }
+
+        System.out.println("Cannot find item with this name: " + name);
+        return null;
+    }
+
+    /**
+     * Remove this exact item, not another item with the same name
+     *
+     * @param item the item to remove
+     * @return the boolean indicating whether the item was in the inventory
+     */
+    public boolean removeItem(Item item) {
+        if (item == null || !positions.containsKey(item)) {
+            System.out.println("Item(s) not in inventory: " + (item == null ? null : item.getName()));
+            return false;
+        }
+        unindex(item);
+        System.out.println("Removed item: " + item.getName());
+        System.out.println("Current weight: " + currentWeight + "/" + maxWeight);
+        return true;
+    }
+
+    // put an item at the end of the list and in the indexes
+    private void index(Item item) {
+        positions.put(item, items.size());
+        items.add(item);
+        byId.add(item.getId(), item);
+        byName.add(item.getName(), item);
+        byType.add(item.getItemType(), item);
+        currentWeight += item.getWeight();
+    }
+
+    // take an item out of the indexes and leave an empty place in the list
+    private void unindex(Item item) {
+        int position = positions.remove(item);
+        items.set(position, null);
+        removed++;
+        byId.remove(item.getId(), item);
+        byName.remove(item.getName(), item);
+        byType.remove(item.getItemType(), item);
+        currentWeight -= item.getWeight();
+        if (removed > 16 && removed > items.size() / 2) {
+            compact();  //keep the list from growing with empty places
+        }
+    }
+
+    // the items in order without empty places
+    private List<Item> items() {
+        if (removed > 0) {
+            compact();
+        }
+        return items;
+    }
+
+    // close the empty places, the order of the items is kept
+    private void compact() {
+        int next = 0;
         for (int i = 0; i < items.size(); i++) {
             Item item = items.get(i);
-            if (item.getName().equals(name)) {
-                items.remove(i);
-                currentWeight -= item.getWeight();
-                System.out.println("Removed item: " + item.getName());
-                System.out.println("Current weight: " + currentWeight + "/" + maxWeight);
-                return item;
+            if (item != null) {
+                items.set(next, item);
+                positions.put(item, next);
+                next++;
             }
         }
+        items.subList(next, items.size()).clear();
+        removed = 0;
+    }
 
-        System.out.println("Cannot find item with this name: " + name);
-        return null;
+    // the list was put in a new order, e.g. sorted
+    private void setItems(List<Item> sorted) {
+        items = sorted;
+        removed = 0;
+        for (int i = 0; i < items.size(); i++) {
+            positions.put(items.get(i), i);
+        }
     }
 
     /**
@@ -177,10 +258,10 @@ public class Inventory implements Sortable, Searchable {
     public void sortByRarity() {
         System.out.println("Sort by rarity using bubble sort");
         // create 2nd array
-        List<Item> sortedItems = new ArrayList<>(items);
+        List<Item> sortedItems = new ArrayList<>(items());
         sortedItems = sortAlgorithms.bubbleSort(sortedItems);
         // update list
-        items = sortedItems;
+        setItems(sortedItems);
         displayInventory();
     }
 
@@ -189,9 +270,9 @@ public class Inventory implements Sortable, Searchable {
      */
     public void sortByType() {
         System.out.println("Sort by type using selection sort");
-        List<Item> sortedItems = new ArrayList<>(items);
+        List<Item> sortedItems = new ArrayList<>(items());
         sortedItems = sortAlgorithms.selectionSort(sortedItems);
-        items = sortedItems;
+        setItems(sortedItems);
         displayInventory();
     }
 
@@ -200,9 +281,9 @@ public class Inventory implements Sortable, Searchable {
      */
     public void sortByName() {
         System.out.println("Sort by name using insertion sort");
-        List<Item> sortedItems = new ArrayList<>(items);
+        List<Item> sortedItems = new ArrayList<>(items());
         sortedItems = sortAlgorithms.insertionSort(sortedItems);
-        items = sortedItems;
+        setItems(sortedItems);
         displayInventory();
     }
 
@@ -211,9 +292,9 @@ public class Inventory implements Sortable, Searchable {
      */
     public void sortAdvanced() {
         System.out.println("Advanced search using merge sort");
-        List<Item> sortedItems = new ArrayList<>(items);
+        List<Item> sortedItems = new ArrayList<>(items());
         sortedItems = sortAlgorithms.mergeSort(sortedItems);
-        items = sortedItems;
+        setItems(sortedItems);
         displayInventory();
     }
 
@@ -225,7 +306,7 @@ public class Inventory implements Sortable, Searchable {
      */
     public Item searchItem(String name) {
         System.out.println("Searching item: " + name);
-        List<Item> sortedList = new ArrayList<>(items);
+        List<Item> sortedList = new ArrayList<>(items());
         sortedList = sortAlgorithms.insertionSort(sortedList);
         Item result = searchAlgorithms.binarySearch(sortedList, name);
         if (result != null) {
@@ -245,7 +326,7 @@ public class Inventory implements Sortable, Searchable {
      */
     public List<Item> searchItemByType(String type) {
         System.out.println("Search by type: " + type);
-        List<Item> result = searchAlgorithms.sequentialSearch(items, type);
+        List<Item> result = byType.get(type);
         if  (result != null) {
             if (!result.isEmpty()) {
                 System.out.println("Found " + result.size() + " " + type + "items:");
@@ -270,7 +351,7 @@ public class Inventory implements Sortable, Searchable {
      */
     public Item recursiveSearch(String criteria) {
         System.out.println("Recursive Searching for: " + criteria);
-        Item result = searchAlgorithms.recursiveSearch(items, 0, criteria);
+        Item result = searchAlgorithms.recursiveSearch(items(), 0, criteria);
         if (result != null) {
             System.out.println("Found items: " + result.getName());
         } else {
@@ -312,7 +393,7 @@ public class Inventory implements Sortable, Searchable {
         }
         characterEquipment.add(equipment);
         equippedItems.put(character, characterEquipment);
-        removeItem(equipment.getName());
+        removeItem(equipment);
         System.out.println(character.getName() + " equipped " + equipment.getName() + " on slot " + equipment.getSlot());
         equipment.calculateStats();
         equipment.equip(character);
@@ -342,10 +423,23 @@ public class Inventory implements Sortable, Searchable {
         addItem(equipment);
         System.out.println(character.getName() + " Unequipped " + equipment.getName());
         equipment.unequip();
+        if (equipment instanceof Relic && !hasRelicOfSet(characterEquipment, ((Relic) equipment).getRelicSet())) {
+            ((Relic) equipment).removeSetBonus(character);
+        }
 
         return true;
     }
 
+    // true if one of the equipment is a relic of the set
+    private static boolean hasRelicOfSet(List<Equipment> equipment, String set) {
+        for (Equipment item : equipment) {
+            if (item instanceof Relic && ((Relic) item).getRelicSet().equals(set)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Unequip a specific slot from the character, return a boolean indicating whether the process was successful
      *
@@ -375,7 +469,7 @@ public class Inventory implements Sortable, Searchable {
      * @return the boolean indicating whether the item is in the inventory
      */
     public boolean containsItem(Item item) {
-        return items.contains(item);
+        return positions.containsKey(item);
     }
 
     /**
@@ -385,12 +479,27 @@ public class Inventory implements Sortable, Searchable {
      * @return the boolean indicating whether the item is in the inventory
      */
     public boolean containsItem(String name) {
-        for (Item item : items) {
-            if (item.getName().equals(name)) {
-                return true;
-            }
-        }
-        return false;
+        return byName.count(name) > 0;
+    }
+
+    /**
+     * Gets an item by id
+     *
+     * @param itemId the item id
+     * @return the item, null if there is no item with this id
+     */
+    public Item getItemById(int itemId) {
+        return byId.first(itemId);
+    }
+
+    /**
+     * Gets all items with a name
+     *
+     * @param name the name of the items (case sensitive)
+     * @return the items in the order they were added
+     */
+    public List<Item> getItemsByName(String name) {
+        return byName.get(name);
     }
 
     /**
@@ -399,11 +508,7 @@ public class Inventory implements Sortable, Searchable {
      * @return the item count of the inventory
      */
     public int getItemCount() {
-        return items.size();
-    }
-
-    private int calculateTotalWeight() {
-        return items.stream().mapToInt(Item::getWeight).sum();
+        return positions.size();
     }
 
     /**
@@ -411,15 +516,16 @@ public class Inventory implements Sortable, Searchable {
      */
     public void displayInventory() {
         System.out.println("=== Inventory Information ===");
-        System.out.println("Items count: " + items.size());
+        System.out.println("Items count: " + getItemCount());
         System.out.println("Current weight: " + currentWeight + "/" + maxWeight);
         System.out.println("Free weight remaining: " + (maxWeight - currentWeight));
 
-        if (items.isEmpty()) {
+        if (positions.isEmpty()) {
             System.out.println("Empty Inventory!");
             return;
         }
 
+        List<Item> items = items();
         System.out.println("\nItem list:");
         for (int i = 0; i < items.size(); i++) {
             Item item = items.get(i);
@@ -465,10 +571,12 @@ public class Inventory implements Sortable, Searchable {
         for (Equipment equipment : characterEquipment) {
             System.out.println("Slot: " + equipment.getSlot() + " - " + equipment.getName());
             System.out.println("  Required Level: " + equipment.getRequiredLevel());
-            System.out.println("  Attack: " + equipment.getStat("attack") +
-                    ", Defense: " + equipment.getStat("defense") +
-                    ", HP: " + equipment.getStat("hp"));
+            System.out.println("  Attack: " + equipment.getStat(StatType.ATTACK) +
+                    ", Defense: " + equipment.getStat(StatType.DEFENSE) +
+                    ", HP: " + equipment.getStat(StatType.HP));
         }
+        // totals come from the cached combat stats, not from adding up every item again
+        System.out.println("Total: " + character.getCombatStats());
     }
 
     /**
@@ -493,7 +601,7 @@ public class Inventory implements Sortable, Searchable {
      * @return the arraylist of items
      */
     public List<Item> getAllItems() {
-        return new ArrayList<>(items);
+        return new ArrayList<>(items());
     }
 
     /**
@@ -503,6 +611,7 @@ public class Inventory implements Sortable, Searchable {
      * @return the item on that index
      */
     public Item getItem(int index) {
+        List<Item> items = items();
         if (index >= 0 && index < items.size()) {
             return items.get(index);
         }
@@ -514,6 +623,11 @@ public class Inventory implements Sortable, Searchable {
      */
     public void clear() {
         items.clear();
+        removed = 0;
+        positions.clear();
+        byId.clear();
+        byName.clear();
+        byType.clear();
         currentWeight = 0;
         System.out.println("Inventory has been cleared");
     }
@@ -546,7 +660,7 @@ public class Inventory implements Sortable, Searchable {
     public int compare(Object other) {
         if (other instanceof Inventory) {
             Inventory otherInventory = (Inventory) other;
-            return Integer.compare(this.items.size(), otherInventory.items.size());
+            return Integer.compare(this.getItemCount(), otherInventory.getItemCount());
         }
         return -1;
     }
@@ -569,6 +683,7 @@ public class Inventory implements Sortable, Searchable {
      */
     @Override
     public Object search(String criteria, int startIndex) {
+        List<Item> items = items();
         if (startIndex < 0 || startIndex >= items.size()) {
             System.out.println("Invalid Start Index");
             return null;
@@ -597,7 +712,7 @@ public class Inventory implements Sortable, Searchable {
         StringBuilder csv = new StringBuilder();
         csv.append("ID,Name,Type,Rarity,Weight,Value,Stack\n");
 
-        for (Item item : items) {
+        for (Item item : items()) {
             String rarity = "★";
             if (item instanceof MaterialItem) {
                 MaterialItem mat = (MaterialItem) item;
@@ -620,7 +735,7 @@ public class Inventory implements Sortable, Searchable {
      * @return the total value
      */
     public int calculateTotalValue() {
-        return items.stream().mapToInt(Item::getValue).sum();
+        return items().stream().mapToInt(Item::getValue).sum();
     }
 
     /**
@@ -631,23 +746,13 @@ public class Inventory implements Sortable, Searchable {
     public Map<String, Integer> getStatistics() {
         Map<String, Integer> stats = new HashMap<>();
 
-        // Grouped statistics
-        // Convert the `items` collection to a Stream.
-        // Use `Collectors.groupingBy` to group by `itemType`.
-        // For each group, use `Collectors.counting()` to count the number of items.
-        // Return a `Map<String, Long>`, where the key is the item type and the value is the count of that type.
-        Map<String, Long> typeCount = items.stream()
-                .collect(Collectors.groupingBy(Item::getItemType, Collectors.counting()));
-
-        //Iterate through each key-value pair in the typeCount Map.
-        //Convert the Long type value to an int type.
-        //Store the converted result in another Map called stats.
-        for (Map.Entry<String, Long> entry : typeCount.entrySet()) {
-            stats.put(entry.getKey(), entry.getValue().intValue());
+        // Grouped statistics, the type index already has the count of every type
+        for (String type : byType.keys()) {
+            stats.put(type, byType.count(type));
         }
 
         // Add total stats to hashmap
-        stats.put("Total Amount", items.size());
+        stats.put("Total Amount", getItemCount());
         stats.put("Total Weight", currentWeight);
         stats.put("Total Value", calculateTotalValue());
 
@@ -0,0 +1,124 @@
+package systems.inventory;
+
+import entities.items.Item;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A hash index from a key (id, name or type) to the items of an {@link Inventory} with that key.
+ * Most keys have one item, so it is kept as it is, a set is only made when a second item gets the same key.
+ * Items are compared by identity (Item does not override equals) and come back in the order they were added.
+ *
+ * @param <K> the key type
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see Inventory
+ */
+class ItemIndex<K> {
+    private final Map<K, Object> entries = new HashMap<>();  //an Item or a Set of items
+
+    /**
+     * Add an item under a key
+     *
+     * @param key  the key
+     * @param item the item
+     */
+    @SuppressWarnings("unchecked")
+    void add(K key, Item item) {
+        Object entry = entries.get(key);
+        if (entry == null) {
+            entries.put(key, item);
+        } else if (entry instanceof Item) {
+            Set<Item> set = new LinkedHashSet<>(4);
+            set.add((Item) entry);
+            set.add(item);
+            entries.put(key, set);
+        } else {
+            ((Set<Item>) entry).add(item);
+        }
+    }
+
+    /**
+     * Remove an item from a key
+     *
+     * @param key  the key
+     * @param item the item
+     */
+    @SuppressWarnings("unchecked")
+    void remove(K key, Item item) {
+        Object entry = entries.get(key);
+        if (entry == item) {
+            entries.remove(key);
+        } else if (entry instanceof Set) {
+            Set<Item> set = (Set<Item>) entry;
+            set.remove(item);
+            if (set.size() == 1) {
+                entries.put(key, set.iterator().next());
+            }
+        }
+    }
+
+    /**
+     * Gets the first item added under a key
+     *
+     * @param key the key
+     * @return the item, null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    Item first(K key) {
+        Object entry = entries.get(key);
+        if (entry == null || entry instanceof Item) {
+            return (Item) entry;
+        }
+        return ((Set<Item>) entry).iterator().next();
+    }
+
+    /**
+     * Gets all items under a key
+     *
+     * @param key the key
+     * @return a new list of the items, empty if there are none
+     */
+    @SuppressWarnings("unchecked")
+    List<Item> get(K key) {
+        Object entry = entries.get(key);
+        if (entry == null) {
+            return new ArrayList<>();
+        }
+        if (entry instanceof Item) {
+            List<Item> list = new ArrayList<>(1);
+            list.add((Item) entry);
+            return list;
+        }
+        return new ArrayList<>((Set<Item>) entry);
+    }
+
+    /**
+     * Gets the number of items under a key
+     *
+     * @param key the key
+     * @return the number of items
+     */
+    int count(K key) {
+        Object entry = entries.get(key);
+        return entry == null ? 0 : entry instanceof Item ? 1 : ((Set<?>) entry).size();
+    }
+
+    /**
+     * Gets the keys that have items
+     *
+     * @return a read-only view of the keys
+     */
+    Set<K> keys() { return Collections.unmodifiableSet(entries.keySet()); }
+
+    /**
+     * Remove every item
+     */
+    void clear() { entries.clear(); }
+}
@@ -0,0 +1,124 @@
+package systems.inventory;
+
+import entities.equipment.LightCone;
+import entities.items.ConsumableItem;
+import entities.items.Item;
+import entities.items.MaterialItem;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+//check that the inventory indexes agree with the item list and how big inventories scale, for debug only
+public class TestInventory {
+    private static final int BIG = 100_000;
+    private static final int SCAN = 20_000;
+
+    public static void main(String[] args) {
+        System.out.println("===== INVENTORY INDEX TEST =====\n");
+        Inventory inventory = new Inventory(10_000);
+        MaterialItem ore = new MaterialItem("Ore", "Regular Material", 1, 10);
+        ConsumableItem potion = new ConsumableItem("Potion", 3);
+        LightCone cone = new LightCone("Night on the Milky Way", "Erudition");
+        inventory.addItem(ore);
+        inventory.addItem(potion);
+        inventory.addItem(cone);
+        inventory.addItem(new MaterialItem("Ore", "Regular Material", 1, 15));  //merged with the first ore
+        System.out.println();
+        System.out.println("Ore merged: " + (inventory.getItemsByName("Ore").size() == 1)
+                + ", value " + inventory.getItemsByName("Ore").get(0).getValue());
+        System.out.println("Added twice: " + !inventory.addItem(potion));
+        System.out.println("By id: " + (inventory.getItemById(potion.getId()) == potion)
+                + ", contains: " + inventory.containsItem(cone) + " " + inventory.containsItem("Potion"));
+        List<Item> cones = inventory.searchItemByType(cone.getItemType());
+        System.out.println("By type: " + (cones.size() == 1 && cones.get(0) == cone));
+        inventory.removeItem(potion.getId());
+        System.out.println("Removed by id: " + !inventory.containsItem("Potion")
+                + ", order kept: " + names(inventory.getAllItems()));
+        System.out.println("Weight kept up to date: " + (inventory.getStatistics().get("Total Weight")
+                == sumWeight(inventory.getAllItems())) + ", " + inventory.getStatistics());
+        System.out.println();
+
+        // many items: every add, lookup and remove uses the indexes
+        PrintStream out = System.out;
+        Inventory big = new Inventory(Integer.MAX_VALUE);
+        List<Item> items = new ArrayList<>(BIG);
+        for (int i = 0; i < BIG; i++) {
+            Item item = new ConsumableItem("Item " + i, 1);
+            item.setStackable(i % 10 == 0);  //some stack with the copies added below
+            items.add(item);
+        }
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        long begin = System.nanoTime();
+        for (Item item : items) {
+            big.addItem(item);
+        }
+        for (int i = 0; i < BIG; i += 10) {
+            ConsumableItem copy = new ConsumableItem("Item " + i, 1);
+            big.addItem(copy);
+        }
+        int found = 0;
+        for (int i = 0; i < BIG; i++) {
+            found += big.containsItem("Item " + i) ? 1 : 0;
+        }
+        int count = big.getItemCount();
+        for (int i = 0; i < BIG; i += 2) {
+            big.removeItem(items.get(i).getId());
+        }
+        for (int i = 1; i < BIG; i += 2) {
+            big.removeItem("Item " + i);
+        }
+        double indexed = (System.nanoTime() - begin) / 1e9;
+
+        // what the old list did: look through the list for every name and id
+        List<Item> list = new ArrayList<>(items.subList(0, SCAN));
+        begin = System.nanoTime();
+        int scanned = 0;
+        for (int i = 0; i < SCAN; i++) {
+            String name = "Item " + i;
+            for (Item item : list) {
+                if (item.getName().equals(name)) {
+                    scanned++;
+                    break;
+                }
+            }
+        }
+        for (int i = 0; i < SCAN; i++) {
+            int id = items.get(i).getId();
+            for (int j = 0; j < list.size(); j++) {
+                if (list.get(j).getId() == id) {
+                    list.remove(j);
+                    break;
+                }
+            }
+        }
+        double scan = (System.nanoTime() - begin) / 1e9;
+        System.setOut(out);
+        System.out.println(BIG + " items: " + count + " after merging, found " + found + ", "
+                + big.getItemCount() + " left after removing all, weight " + big.getStatistics().get("Total Weight"));
+        System.out.printf("Indexed: add, find and remove %d items in %.3f s%n", BIG, indexed);
+        System.out.printf("List scan: find and remove only %d items in %.3f s (%d)%n", SCAN, scan, scanned);
+    }
+
+    private static List<String> names(List<Item> items) {
+        List<String> names = new ArrayList<>();
+        for (Item item : items) {
+            names.add(item.getName());
+        }
+        return names;
+    }
+
+    private static int sumWeight(List<Item> items) {
+        int sum = 0;
+        for (Item item : items) {
+            sum += item.getWeight();
+        }
+        return sum;
+    }
+}